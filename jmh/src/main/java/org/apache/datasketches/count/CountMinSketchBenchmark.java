@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.count;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the COUNTMIN family.
+ *
+ * <p>Items are drawn uniformly from a domain of <i>n</i> distinct values. The <i>mode</i> parameter selects
+ * a heap sketch or a sketch backed by an off-heap MemorySegment.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountMinSketchBenchmark {
+
+  @Param({"3", "5"})
+  byte numHashes;
+
+  @Param({"1024", "65536"})
+  int numBuckets;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"heap", "segment"})
+  String mode;
+
+  @Param({"STANDARD", "CONSERVATIVE"})
+  UpdatePolicy policy;
+
+  private static final long SEED = 1234567L;
+  private static final int BATCH = 1024;
+  private final SplittableRandom rand = new SplittableRandom(1);
+  private Arena arena;
+  private CountMinSketch sketch;
+  private CountMinSketch other;
+  private byte[] image;
+  private MemorySegment imageSeg;
+  private final long[] batchItems = new long[BATCH];
+  private final long[] batchWeights = new long[BATCH];
+
+  @Setup(Level.Trial)
+  public void setup() {
+    arena = Arena.ofShared();
+    sketch = "segment".equals(mode)
+        ? CountMinSketch.initialize(numHashes, numBuckets, SEED, policy,
+            arena.allocate(CountMinSketch.getSerializedSizeBytes(numHashes, numBuckets)))
+        : new CountMinSketch(numHashes, numBuckets, SEED, policy);
+    other = new CountMinSketch(numHashes, numBuckets, SEED, policy);
+    for (int i = 0; i < n; i++) {
+      sketch.update(rand.nextLong(n), 1);
+      other.update(rand.nextLong(n), 1);
+    }
+    for (int i = 0; i < BATCH; i++) {
+      batchItems[i] = rand.nextLong(n);
+      batchWeights[i] = 1;
+    }
+    image = sketch.toByteArray();
+    imageSeg = arena.allocate(image.length);
+    MemorySegment.copy(MemorySegment.ofArray(image), 0, imageSeg, 0, image.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public CountMinSketch update() {
+    sketch.update(rand.nextLong(n), 1);
+    return sketch;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public CountMinSketch updateBatch() {
+    sketch.update(batchItems, batchWeights);
+    return sketch;
+  }
+
+  @Benchmark
+  public CountMinSketch updateString() {
+    sketch.update(Long.toString(rand.nextLong(n)), 1);
+    return sketch;
+  }
+
+  @Benchmark
+  public CountMinSketch merge() {
+    final CountMinSketch result = new CountMinSketch(numHashes, numBuckets, SEED, policy);
+    result.merge(sketch);
+    result.merge(other);
+    return result;
+  }
+
+  @Benchmark
+  public long getEstimate() {
+    return sketch.getEstimate(rand.nextLong(n));
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public CountMinSketch heapify() {
+    return CountMinSketch.deserialize(image, SEED);
+  }
+
+  @Benchmark
+  public long wrap() {
+    return CountMinSketch.wrap(imageSeg, SEED).getEstimate(0L);
+  }
+}
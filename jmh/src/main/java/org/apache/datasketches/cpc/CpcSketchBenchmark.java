@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.cpc;
+
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the CPC family.
+ *
+ * <p>The CPC sketch is heap only; the serialized image can be read in place with the CpcWrapper,
+ * which is what the <i>wrap</i> benchmark measures.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CpcSketchBenchmark {
+
+  @Param({"10", "12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private CpcSketch sketch;
+  private CpcSketch other;
+  private MemorySegment image;
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    sketch = new CpcSketch(lgK);
+    other = new CpcSketch(lgK);
+    for (int i = 0; i < n; i++) {
+      sketch.update(i);
+      other.update(i + (n / 2)); //half overlap
+    }
+    next = n;
+    image = MemorySegment.ofArray(sketch.toByteArray());
+  }
+
+  @Benchmark
+  public CpcSketch update() {
+    sketch.update(next++);
+    return sketch;
+  }
+
+  @Benchmark
+  public CpcSketch union() {
+    final CpcUnion union = new CpcUnion(lgK);
+    union.update(sketch);
+    union.update(other);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public double getEstimate() {
+    return sketch.getEstimate();
+  }
+
+  @Benchmark
+  public double getUpperBound() {
+    return sketch.getUpperBound(2);
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public CpcSketch heapify() {
+    return CpcSketch.heapify(image);
+  }
+
+  @Benchmark
+  public double wrap() {
+    return new CpcWrapper(image).getEstimate();
+  }
+}
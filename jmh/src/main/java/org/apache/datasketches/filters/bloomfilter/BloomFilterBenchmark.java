@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.filters.bloomfilter;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the BLOOMFILTER family.
+ *
+ * <p>The filter is sized for <i>n</i> distinct items at a 1% false positive probability and preloaded
+ * with <i>n</i> items. The <i>mode</i> parameter selects a heap filter or a filter backed by an off-heap
+ * MemorySegment.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BloomFilterBenchmark {
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"heap", "segment"})
+  String mode;
+
+  private static final double FPP = 0.01;
+  private final SplittableRandom rand = new SplittableRandom(1);
+  private Arena arena;
+  private BloomFilter filter;
+  private BloomFilter other;
+  private MemorySegment image;
+  private long numBits;
+  private short numHashes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    arena = Arena.ofShared();
+    numBits = BloomFilterBuilder.suggestNumFilterBits(n, FPP);
+    numHashes = BloomFilterBuilder.suggestNumHashes(n, numBits);
+    filter = "segment".equals(mode)
+        ? BloomFilterBuilder.initializeBySize(numBits, numHashes,
+            arena.allocate(BloomFilterBuilder.getSerializedFilterSize(numBits)))
+        : BloomFilterBuilder.createBySize(numBits, numHashes);
+    other = BloomFilterBuilder.createBySize(numBits, numHashes, filter.getSeed());
+    for (int i = 0; i < n; i++) {
+      filter.update(i);
+      other.update(i + (n / 2)); //half overlap
+    }
+    final byte[] bytes = filter.toByteArray();
+    image = arena.allocate(bytes.length);
+    MemorySegment.copy(MemorySegment.ofArray(bytes), 0, image, 0, bytes.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public BloomFilter update() {
+    filter.update(rand.nextLong());
+    return filter;
+  }
+
+  @Benchmark
+  public boolean query() {
+    return filter.query(rand.nextLong(2L * n));
+  }
+
+  @Benchmark
+  public BloomFilter union() {
+    final BloomFilter result = BloomFilterBuilder.createBySize(numBits, numHashes, filter.getSeed());
+    result.union(filter);
+    result.union(other);
+    return result;
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return filter.toByteArray();
+  }
+
+  @Benchmark
+  public BloomFilter heapify() {
+    return BloomFilter.heapify(image);
+  }
+
+  @Benchmark
+  public boolean wrap() {
+    return BloomFilter.wrap(image).query(0L);
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.frequencies;
+
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.frequencies.FrequentLongsSketch.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the FREQUENCY family, using the FrequentLongsSketch.
+ *
+ * <p>Items are drawn uniformly from a domain of <i>n</i> distinct values, so a larger <i>n</i>
+ * produces more purges for a given map size.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrequentLongsSketchBenchmark {
+
+  @Param({"1024", "65536"})
+  int maxMapSize;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private final SplittableRandom rand = new SplittableRandom(1);
+  private FrequentLongsSketch sketch;
+  private FrequentLongsSketch other;
+  private MemorySegment image;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    sketch = new FrequentLongsSketch(maxMapSize);
+    other = new FrequentLongsSketch(maxMapSize);
+    for (int i = 0; i < n; i++) {
+      sketch.update(rand.nextLong(n));
+      other.update(rand.nextLong(n));
+    }
+    image = MemorySegment.ofArray(sketch.toByteArray());
+  }
+
+  @Benchmark
+  public FrequentLongsSketch update() {
+    sketch.update(rand.nextLong(n));
+    return sketch;
+  }
+
+  @Benchmark
+  public FrequentLongsSketch merge() {
+    return new FrequentLongsSketch(maxMapSize).merge(sketch).merge(other);
+  }
+
+  @Benchmark
+  public long getEstimate() {
+    return sketch.getEstimate(rand.nextLong(n));
+  }
+
+  @Benchmark
+  public Row[] getFrequentItems() {
+    return sketch.getFrequentItems(ErrorType.NO_FALSE_POSITIVES);
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public FrequentLongsSketch heapify() {
+    return FrequentLongsSketch.getInstance(image);
+  }
+}
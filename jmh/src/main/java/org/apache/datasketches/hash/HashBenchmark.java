@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hash;
+
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the hash functions shared by the sketches.
+ *
+ * <p>Each invocation hashes a block of <i>n</i> longs, one item at a time or with the bulk methods,
+ * so the reported time is per block.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+
+  @Param({"1024"})
+  int n;
+
+  private static final long SEED = 9001L;
+  private long[] in;
+  private long[] out;
+  private long[] out128;
+  private long[] hashOut;
+  private MemorySegment seg;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final SplittableRandom rand = new SplittableRandom(1);
+    in = new long[n];
+    for (int i = 0; i < n; i++) {
+      in[i] = rand.nextLong();
+    }
+    out = new long[n];
+    out128 = new long[2 * n];
+    hashOut = new long[2];
+    seg = MemorySegment.ofArray(in);
+  }
+
+  @Benchmark
+  public long[] murmur3Single() {
+    for (int i = 0; i < n; i++) {
+      out[i] = MurmurHash3FFM.hash(in[i], SEED, hashOut)[0];
+    }
+    return out;
+  }
+
+  @Benchmark
+  public long[] murmur3Bulk() {
+    return MurmurHash3FFM.hashEach(in, 0, n, SEED, out);
+  }
+
+  @Benchmark
+  public long[] murmur3Bulk128() {
+    return MurmurHash3FFM.hashEach128(in, 0, n, SEED, out128);
+  }
+
+  @Benchmark
+  public long[] murmur3BulkSegment() {
+    return MurmurHash3FFM.hashEach(seg, 0, Long.BYTES, n, SEED, out);
+  }
+
+  @Benchmark
+  public long[] xxHash64Single() {
+    for (int i = 0; i < n; i++) {
+      out[i] = XxHash64.hash(in[i], SEED);
+    }
+    return out;
+  }
+
+  @Benchmark
+  public long[] xxHash64Bulk() {
+    return XxHash64.hashEach(in, 0, n, SEED, out);
+  }
+
+  @Benchmark
+  public long[] xxHash64BulkSegment() {
+    return XxHash64.hashEach(seg, 0, Long.BYTES, n, SEED, out);
+  }
+}
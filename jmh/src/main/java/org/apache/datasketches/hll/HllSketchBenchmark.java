@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the HLL family.
+ *
+ * <p>Each trial preloads the sketches with <i>n</i> distinct items so that the update, merge, query and
+ * serde costs are measured at that stream size, which also selects the LIST, SET or HLL internal mode.</p>
+ *
+ * <p>The <i>concurrentUpdate</i> benchmark runs several threads against one shared ConcurrentHllSketch.
+ * Run it with <i>-t</i> set to 1, 2, 4, ... to measure how it scales with the number of writers.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HllSketchBenchmark {
+  private static final int BATCH = 1024;
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"HLL_4", "HLL_6", "HLL_8"})
+  TgtHllType type;
+
+  @Param({"heap", "segment"})
+  String mode;
+
+  private Arena arena;
+  private HllSketch sketch;
+  private HllSketch other;
+  private MemorySegment unionSeg;
+  private MemorySegment compactImage;
+  private MemorySegment updatableImage;
+  private final long[] batch = new long[BATCH];
+  private long next;
+
+  /**
+   * A ConcurrentHllSketch shared by all benchmark threads, preloaded into HLL mode.
+   */
+  @State(Scope.Benchmark)
+  public static class Shared {
+    ConcurrentHllSketch sketch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      sketch = new ConcurrentHllSketch(HllSketch.DEFAULT_LG_K);
+      for (int i = 0; i < 1_000_000; i++) { sketch.update(i); }
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    arena = Arena.ofShared();
+    final boolean segment = "segment".equals(mode);
+    sketch = segment
+        ? new HllSketch(lgK, type, arena.allocate(HllSketch.getMaxUpdatableSerializationBytes(lgK, type)))
+        : new HllSketch(lgK, type);
+    other = new HllSketch(lgK, type);
+    for (int i = 0; i < n; i++) {
+      sketch.update(i);
+      other.update(i + (n / 2)); //half overlap
+    }
+    next = n;
+    unionSeg = segment ? arena.allocate(HllUnion.getMaxSerializationBytes(lgK)) : null;
+    final byte[] compactBytes = sketch.toCompactByteArray();
+    compactImage = arena.allocate(compactBytes.length);
+    MemorySegment.copy(MemorySegment.ofArray(compactBytes), 0, compactImage, 0, compactBytes.length);
+    final byte[] updatableBytes = sketch.toUpdatableByteArray();
+    updatableImage = arena.allocate(HllSketch.getMaxUpdatableSerializationBytes(lgK, type));
+    MemorySegment.copy(MemorySegment.ofArray(updatableBytes), 0, updatableImage, 0, updatableBytes.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public HllSketch update() {
+    sketch.update(next++);
+    return sketch;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public HllSketch updateAll() {
+    for (int i = 0; i < BATCH; i++) {
+      batch[i] = next++;
+    }
+    sketch.updateAll(batch, 0, BATCH);
+    return sketch;
+  }
+
+  @Benchmark
+  public ConcurrentHllSketch concurrentUpdate(final Shared shared) {
+    shared.sketch.update(ThreadLocalRandom.current().nextLong());
+    return shared.sketch;
+  }
+
+  @Benchmark
+  public HllSketch union() {
+    final HllUnion union = unionSeg == null ? new HllUnion(lgK) : new HllUnion(lgK, unionSeg);
+    union.update(sketch);
+    union.update(other);
+    return union.getResult(type);
+  }
+
+  @Benchmark
+  public double getEstimate() {
+    return sketch.getEstimate();
+  }
+
+  @Benchmark
+  public double getUpperBound() {
+    return sketch.getUpperBound(2);
+  }
+
+  @Benchmark
+  public byte[] toCompactByteArray() {
+    return sketch.toCompactByteArray();
+  }
+
+  @Benchmark
+  public byte[] toUpdatableByteArray() {
+    return sketch.toUpdatableByteArray();
+  }
+
+  @Benchmark
+  public HllSketch heapify() {
+    return HllSketch.heapify(compactImage);
+  }
+
+  @Benchmark
+  public double wrap() {
+    return HllSketch.wrap(compactImage).getEstimate();
+  }
+
+  @Benchmark
+  public double writableWrap() {
+    return HllSketch.writableWrap(updatableImage).getEstimate();
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.quantiles;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the classic QUANTILES family, using the QuantilesDoublesSketch.
+ *
+ * <p>Each trial preloads the sketches with <i>n</i> uniform random items so that the update, union, query and
+ * serde costs are measured at that stream size. The <i>mode</i> parameter selects a heap sketch or a direct
+ * sketch backed by an off-heap MemorySegment.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuantilesDoublesSketchBenchmark {
+
+  @Param({"128", "512"})
+  int k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"heap", "segment"})
+  String mode;
+
+  private final SplittableRandom rand = new SplittableRandom(1);
+  private Arena arena;
+  private UpdatableQuantilesDoublesSketch sketch;
+  private UpdatableQuantilesDoublesSketch other;
+  private MemorySegment image;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    arena = Arena.ofShared();
+    final QuantilesDoublesSketchBuilder bldr = QuantilesDoublesSketch.builder().setK(k);
+    sketch = "segment".equals(mode)
+        ? bldr.build(arena.allocate(QuantilesDoublesSketch.getUpdatableStorageBytes(k, 1L << 40)))
+        : bldr.build();
+    other = bldr.build();
+    for (int i = 0; i < n; i++) {
+      sketch.update(rand.nextDouble());
+      other.update(rand.nextDouble());
+    }
+    final byte[] bytes = sketch.toByteArray(true);
+    image = arena.allocate(bytes.length);
+    MemorySegment.copy(MemorySegment.ofArray(bytes), 0, image, 0, bytes.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public UpdatableQuantilesDoublesSketch update() {
+    sketch.update(rand.nextDouble());
+    return sketch;
+  }
+
+  @Benchmark
+  public UpdatableQuantilesDoublesSketch union() {
+    final QuantilesDoublesUnion union = QuantilesDoublesUnion.builder().setMaxK(k).build();
+    union.union(sketch);
+    union.union(other);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public double getQuantile() {
+    return sketch.getQuantile(rand.nextDouble(), INCLUSIVE);
+  }
+
+  @Benchmark
+  public double getRank() {
+    return sketch.getRank(rand.nextDouble(), INCLUSIVE);
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray(true);
+  }
+
+  @Benchmark
+  public QuantilesDoublesSketch heapify() {
+    return QuantilesDoublesSketch.heapify(image);
+  }
+
+  @Benchmark
+  public double wrap() {
+    return QuantilesDoublesSketch.wrap(image).getQuantile(0.5, INCLUSIVE);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.req;
+
+import static org.apache.datasketches.quantilescommon.QuantileSearchCriteria.INCLUSIVE;
+
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the REQ family.
+ *
+ * <p>The REQ sketch is heap only, so there is no MemorySegment mode and no wrap benchmark.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReqSketchBenchmark {
+
+  @Param({"12", "50"})
+  int k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"true", "false"})
+  boolean hra;
+
+  private final SplittableRandom rand = new SplittableRandom(1);
+  private ReqSketch sketch;
+  private ReqSketch other;
+  private MemorySegment image;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    sketch = ReqSketch.builder().setK(k).setHighRankAccuracy(hra).build();
+    other = ReqSketch.builder().setK(k).setHighRankAccuracy(hra).build();
+    for (int i = 0; i < n; i++) {
+      sketch.update((float) rand.nextDouble());
+      other.update((float) rand.nextDouble());
+    }
+    image = MemorySegment.ofArray(sketch.toByteArray());
+  }
+
+  @Benchmark
+  public ReqSketch update() {
+    sketch.update((float) rand.nextDouble());
+    return sketch;
+  }
+
+  @Benchmark
+  public ReqSketch merge() {
+    final ReqSketch result = ReqSketch.builder().setK(k).setHighRankAccuracy(hra).build();
+    result.merge(sketch);
+    result.merge(other);
+    return result;
+  }
+
+  @Benchmark
+  public float getQuantile() {
+    return sketch.getQuantile(rand.nextDouble(), INCLUSIVE);
+  }
+
+  @Benchmark
+  public double getRank() {
+    return sketch.getRank((float) rand.nextDouble(), INCLUSIVE);
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public ReqSketch heapify() {
+    return ReqSketch.heapify(image);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.sampling;
+
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.common.ArrayOfLongsSerDe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the sampling families: RESERVOIR, RESERVOIR_UNION, VAROPT, VAROPT_UNION and EBPPS.
+ *
+ * <p>All sampling sketches are heap only, so there is no MemorySegment mode and no wrap benchmark.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SamplingBenchmark {
+
+  @Param({"64", "4096"})
+  int k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private final ArrayOfLongsSerDe serDe = new ArrayOfLongsSerDe();
+  private final SplittableRandom rand = new SplittableRandom(1);
+  private ReservoirLongsSketch reservoir;
+  private ReservoirLongsSketch reservoirOther;
+  private VarOptItemsSketch<Long> varOpt;
+  private VarOptItemsSketch<Long> varOptOther;
+  private EbppsItemsSketch<Long> ebpps;
+  private EbppsItemsSketch<Long> ebppsOther;
+  private MemorySegment reservoirImage;
+  private MemorySegment varOptImage;
+  private MemorySegment ebppsImage;
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    reservoir = ReservoirLongsSketch.newInstance(k);
+    reservoirOther = ReservoirLongsSketch.newInstance(k);
+    varOpt = VarOptItemsSketch.newInstance(k);
+    varOptOther = VarOptItemsSketch.newInstance(k);
+    ebpps = new EbppsItemsSketch<>(k);
+    ebppsOther = new EbppsItemsSketch<>(k);
+    for (long i = 0; i < n; i++) {
+      reservoir.update(i);
+      reservoirOther.update(i + n);
+      varOpt.update(i, weight());
+      varOptOther.update(i + n, weight());
+      ebpps.update(i, weight());
+      ebppsOther.update(i + n, weight());
+    }
+    next = 2L * n;
+    reservoirImage = MemorySegment.ofArray(reservoir.toByteArray());
+    varOptImage = MemorySegment.ofArray(varOpt.toByteArray(serDe));
+    ebppsImage = MemorySegment.ofArray(ebpps.toByteArray(serDe));
+  }
+
+  private double weight() {
+    return 1.0 + rand.nextDouble(100.0);
+  }
+
+  @Benchmark
+  public ReservoirLongsSketch reservoirUpdate() {
+    reservoir.update(next++);
+    return reservoir;
+  }
+
+  @Benchmark
+  public ReservoirLongsSketch reservoirUnion() {
+    final ReservoirLongsUnion union = ReservoirLongsUnion.newInstance(k);
+    union.update(reservoir);
+    union.update(reservoirOther);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public SampleSubsetSummary reservoirSubsetSum() {
+    return reservoir.estimateSubsetSum(item -> (item & 1L) == 0);
+  }
+
+  @Benchmark
+  public byte[] reservoirToByteArray() {
+    return reservoir.toByteArray();
+  }
+
+  @Benchmark
+  public ReservoirLongsSketch reservoirHeapify() {
+    return ReservoirLongsSketch.heapify(reservoirImage);
+  }
+
+  @Benchmark
+  public VarOptItemsSketch<Long> varOptUpdate() {
+    varOpt.update(next++, weight());
+    return varOpt;
+  }
+
+  @Benchmark
+  public VarOptItemsSketch<Long> varOptUnion() {
+    final VarOptItemsUnion<Long> union = VarOptItemsUnion.newInstance(k);
+    union.update(varOpt);
+    union.update(varOptOther);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public SampleSubsetSummary varOptSubsetSum() {
+    return varOpt.estimateSubsetSum(item -> (item & 1L) == 0);
+  }
+
+  @Benchmark
+  public byte[] varOptToByteArray() {
+    return varOpt.toByteArray(serDe);
+  }
+
+  @Benchmark
+  public VarOptItemsSketch<Long> varOptHeapify() {
+    return VarOptItemsSketch.heapify(varOptImage, serDe);
+  }
+
+  @Benchmark
+  public EbppsItemsSketch<Long> ebppsUpdate() {
+    ebpps.update(next++, weight());
+    return ebpps;
+  }
+
+  @Benchmark
+  public EbppsItemsSketch<Long> ebppsMerge() {
+    final EbppsItemsSketch<Long> result = new EbppsItemsSketch<>(k);
+    result.merge(ebpps);
+    result.merge(ebppsOther);
+    return result;
+  }
+
+  @Benchmark
+  public byte[] ebppsToByteArray() {
+    return ebpps.toByteArray(serDe);
+  }
+
+  @Benchmark
+  public EbppsItemsSketch<Long> ebppsHeapify() {
+    return EbppsItemsSketch.heapify(ebppsImage, serDe);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tdigest;
+
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the TDIGEST family.
+ *
+ * <p>The t-digest is heap only, so there is no MemorySegment mode and no wrap benchmark.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TDigestDoubleBenchmark {
+
+  @Param({"100", "400"})
+  short k;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private final SplittableRandom rand = new SplittableRandom(1);
+  private TDigestDouble sketch;
+  private TDigestDouble other;
+  private MemorySegment image;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    sketch = new TDigestDouble(k);
+    other = new TDigestDouble(k);
+    for (int i = 0; i < n; i++) {
+      sketch.update(rand.nextDouble());
+      other.update(rand.nextDouble());
+    }
+    image = MemorySegment.ofArray(sketch.toByteArray());
+  }
+
+  @Benchmark
+  public TDigestDouble update() {
+    sketch.update(rand.nextDouble());
+    return sketch;
+  }
+
+  @Benchmark
+  public TDigestDouble merge() {
+    final TDigestDouble result = new TDigestDouble(k);
+    result.merge(sketch);
+    result.merge(other);
+    return result;
+  }
+
+  @Benchmark
+  public double getQuantile() {
+    return sketch.getQuantile(rand.nextDouble());
+  }
+
+  @Benchmark
+  public double getRank() {
+    return sketch.getRank(rand.nextDouble());
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return sketch.toByteArray();
+  }
+
+  @Benchmark
+  public TDigestDouble heapify() {
+    return TDigestDouble.heapify(image);
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.common.Family;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the theta family: QUICKSELECT, ALPHA, COMPACT, UNION, INTERSECTION and A_NOT_B.
+ *
+ * <p>Each trial preloads the sketches with <i>n</i> distinct items so that the update, merge, query and
+ * serde costs are measured at that stream size. The <i>mode</i> parameter selects heap sketches or sketches
+ * backed by an off-heap MemorySegment.</p>
+ *
+ * <p>The <i>updateSampled</i> benchmarks sample the latency of single updates, so that the percentiles show the
+ * cost of the updates that rebuild the hash table, with and without the incremental rebuild.</p>
+ *
+ * <p>The <i>concurrentUnion</i> and <i>synchronizedUnion</i> benchmarks run several threads that merge into one
+ * shared union. Run them with <i>-t</i> set to 1, 2, 4, ... to measure how they scale with the number of
+ * producers.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThetaSketchBenchmark {
+  private static final int BATCH = 1024;
+  private static final int ROLLUP = 64;
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"heap", "segment"})
+  String mode;
+
+  private Arena arena;
+  private UpdatableThetaSketch sketch;
+  private UpdatableThetaSketch alpha;
+  private UpdatableThetaSketch incremental;
+  private CompactThetaSketch compactA;
+  private CompactThetaSketch compactB;
+  private MemorySegment unionSeg;
+  private MemorySegment compactImage;
+  private MemorySegment compressedImage;
+  private MemorySegment updatableImage;
+  private MemorySegment compactDst;
+  private long[] scratch;
+  private long next;
+  private final long[] batch = new long[BATCH];
+  private final List<CompactThetaSketch> rollup = new ArrayList<>();
+  private int nextPart;
+
+  /**
+   * A ConcurrentThetaUnion and a synchronized ThetaUnion shared by all benchmark threads.
+   */
+  @State(Scope.Benchmark)
+  public static class Shared {
+    ConcurrentThetaUnion concurrentUnion;
+    ThetaUnion union;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      concurrentUnion = ThetaSetOperation.builder().buildConcurrentUnion();
+      union = ThetaSetOperation.builder().buildUnion();
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    arena = Arena.ofShared();
+    final boolean segment = "segment".equals(mode);
+    final UpdatableThetaSketchBuilder bldr = UpdatableThetaSketch.builder().setLogNominalEntries(lgK);
+    sketch = segment
+        ? bldr.build(arena.allocate(ThetaSketch.getUpdateSketchMaxBytes(lgK)))
+        : bldr.build();
+    alpha = UpdatableThetaSketch.builder().setLogNominalEntries(lgK).setFamily(Family.ALPHA).build();
+    incremental = UpdatableThetaSketch.builder().setLogNominalEntries(lgK).setIncrementalRebuild(true).build();
+    final UpdatableThetaSketch other = bldr.build();
+    for (int i = 0; i < n; i++) {
+      sketch.update(i);
+      alpha.update(i);
+      incremental.update(i);
+      other.update(i + (n / 2)); //half overlap
+    }
+    next = n;
+    compactA = sketch.compact();
+    compactB = other.compact();
+    unionSeg = segment ? arena.allocate(ThetaSetOperation.getMaxUnionBytes(1 << lgK)) : null;
+    compactImage = arena.allocate(compactA.getCurrentBytes());
+    MemorySegment.copy(MemorySegment.ofArray(compactA.toByteArray()), 0, compactImage, 0, compactImage.byteSize());
+    updatableImage = MemorySegment.ofArray(sketch.toByteArray());
+    compactDst = arena.allocate(ThetaSketch.getUpdateSketchMaxBytes(lgK));
+    scratch = new long[2 << lgK];
+    final byte[] compressedBytes = compactA.toByteArrayCompressed();
+    compressedImage = arena.allocate(compressedBytes.length);
+    MemorySegment.copy(MemorySegment.ofArray(compressedBytes), 0, compressedImage, 0, compressedBytes.length);
+    final int partSize = Math.max(1, n / 8);
+    for (int p = 0; p < ROLLUP; p++) { //each part overlaps half of the next
+      final UpdatableThetaSketch part = UpdatableThetaSketch.builder().setLogNominalEntries(lgK).build();
+      for (int i = 0; i < partSize; i++) { part.update(((long) p * (partSize / 2)) + i); }
+      rollup.add(part.compact());
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public UpdateReturnState update() {
+    return sketch.update(next++);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public UpdatableThetaSketch updateAll() {
+    for (int i = 0; i < BATCH; i++) {
+      batch[i] = next++;
+    }
+    sketch.updateAll(batch, 0, BATCH);
+    return sketch;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  public UpdateReturnState updateSampled() {
+    return sketch.update(next++);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  public UpdateReturnState updateIncrementalSampled() {
+    return incremental.update(next++);
+  }
+
+  @Benchmark
+  public UpdateReturnState updateAlpha() {
+    return alpha.update(next++);
+  }
+
+  @Benchmark
+  public CompactThetaSketch union() {
+    final ThetaSetOperationBuilder bldr = ThetaSetOperation.builder().setLogNominalEntries(lgK);
+    final ThetaUnion union = unionSeg == null ? bldr.buildUnion() : bldr.buildUnion(unionSeg);
+    union.union(compactA);
+    union.union(compactB);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public CompactThetaSketch rollupUnion() {
+    final ThetaSetOperationBuilder bldr = ThetaSetOperation.builder().setLogNominalEntries(lgK);
+    final ThetaUnion union = unionSeg == null ? bldr.buildUnion() : bldr.buildUnion(unionSeg);
+    for (final CompactThetaSketch part : rollup) { union.union(part); }
+    return union.getResult();
+  }
+
+  @Benchmark
+  public CompactThetaSketch rollupUnionAll() {
+    final ThetaSetOperationBuilder bldr = ThetaSetOperation.builder().setLogNominalEntries(lgK);
+    final ThetaUnion union = unionSeg == null ? bldr.buildUnion() : bldr.buildUnion(unionSeg);
+    union.unionAll(rollup);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public CompactThetaSketch rollupParallelUnion() {
+    return ThetaSetOperation.builder().setLogNominalEntries(lgK).buildParallelUnion().union(rollup);
+  }
+
+  @Benchmark
+  public ConcurrentThetaUnion concurrentUnion(final Shared shared) {
+    shared.concurrentUnion.union(rollup.get(nextPart++ & (ROLLUP - 1)));
+    return shared.concurrentUnion;
+  }
+
+  @Benchmark
+  public ThetaUnion synchronizedUnion(final Shared shared) {
+    synchronized (shared.union) {
+      shared.union.union(rollup.get(nextPart++ & (ROLLUP - 1)));
+    }
+    return shared.union;
+  }
+
+  @Benchmark
+  public CompactThetaSketch intersection() {
+    final ThetaIntersection inter = ThetaSetOperation.builder().buildIntersection();
+    inter.intersect(compactA);
+    inter.intersect(compactB);
+    return inter.getResult();
+  }
+
+  @Benchmark
+  public CompactThetaSketch intersectAll() {
+    final ThetaIntersection inter = ThetaSetOperation.builder().buildIntersection();
+    inter.intersectAll(compactA, compactB);
+    return inter.getResult();
+  }
+
+  @Benchmark
+  public double pairwiseJaccard() {
+    double sum = 0;
+    for (int i = 0; i < ROLLUP; i++) {
+      for (int j = i + 1; j < ROLLUP; j++) { sum += JaccardSimilarity.jaccard(rollup.get(i), rollup.get(j))[1]; }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public JaccardSimilarityMatrix jaccardMatrix() {
+    return JaccardSimilarityMatrix.dense(rollup);
+  }
+
+  @Benchmark
+  public List<JaccardSimilarityMatrix.SimilarPair> jaccardSparse() {
+    return JaccardSimilarityMatrix.sparse(rollup, 0.5);
+  }
+
+  @Benchmark
+  public CompactThetaSketch aNotB() {
+    return ThetaSetOperation.builder().buildANotB().aNotB(compactA, compactB);
+  }
+
+  @Benchmark
+  public double getEstimate() {
+    return sketch.getEstimate();
+  }
+
+  @Benchmark
+  public double getUpperBound() {
+    return sketch.getUpperBound(2);
+  }
+
+  @Benchmark
+  public CompactThetaSketch compact() {
+    return sketch.compact(true, null);
+  }
+
+  @Benchmark
+  public CompactThetaSketch compactToSegment() {
+    return sketch.compact(true, compactDst);
+  }
+
+  @Benchmark
+  public int compactInto() {
+    return sketch.compactInto(compactDst, scratch);
+  }
+
+  @Benchmark
+  public int compactCompressedInto() {
+    return sketch.compactCompressedInto(compactDst, scratch);
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return compactA.toByteArray();
+  }
+
+  @Benchmark
+  public byte[] toByteArrayCompressed() {
+    return compactA.toByteArrayCompressed();
+  }
+
+  @Benchmark
+  public ThetaSketch heapifyCompact() {
+    return ThetaSketch.heapify(compactImage);
+  }
+
+  @Benchmark
+  public ThetaSketch heapifyCompressed() {
+    return ThetaSketch.heapify(compressedImage);
+  }
+
+  @Benchmark
+  public long iterateCompressed() {
+    long sum = 0;
+    final HashIterator it = ThetaSketch.wrap(compressedImage).iterator();
+    while (it.next()) { sum += it.get(); }
+    return sum;
+  }
+
+  @Benchmark
+  public UpdatableThetaSketch heapifyUpdatable() {
+    return UpdatableThetaSketch.heapify(updatableImage);
+  }
+
+  @Benchmark
+  public double wrapCompact() {
+    return ThetaSketch.wrap(compactImage).getEstimate();
+  }
+}
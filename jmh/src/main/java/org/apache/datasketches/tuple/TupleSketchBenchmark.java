@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.datasketches.tuple.adouble.DoubleFixedWidthSummary;
+import org.apache.datasketches.tuple.adouble.DoubleSummary;
+import org.apache.datasketches.tuple.adouble.DoubleSummaryDeserializer;
+import org.apache.datasketches.tuple.adouble.DoubleSummaryFactory;
+import org.apache.datasketches.tuple.adouble.DoubleSummarySetOperations;
+import org.apache.datasketches.tuple.adouble.DoubleTupleSketch;
+import org.apache.datasketches.tuple.adouble.PrimitiveDoubleTupleSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the generic TUPLE family, using the DoubleTupleSketch.
+ *
+ * <p>The <i>Primitive</i> benchmarks use the PrimitiveDoubleTupleSketch, which holds the same values without
+ * DoubleSummary objects. The <i>Direct</i> benchmarks use the DirectTupleSketch and DirectTupleUnion with the
+ * DoubleFixedWidthSummary, which keep the values in an off-heap MemorySegment.
+ * See ArrayOfDoublesSketchBenchmark for the ArrayOfDoubles MemorySegment variants.</p>
+ *
+ * <p>The <i>groupBy</i> benchmarks feed a skewed stream of many light groups and one heavy group into a new
+ * TupleSketchGroupBy, and into a HashMap of one UpdatableTupleSketch per group for comparison.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TupleSketchBenchmark {
+  private static final int GROUP_BY_UPDATES = 1 << 16;
+  private static final int GROUPS = 1 << 14;
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  private final DoubleSummaryDeserializer deserializer = new DoubleSummaryDeserializer();
+  private final DoubleSummarySetOperations setOps = new DoubleSummarySetOperations();
+  private final DoubleSummaryFactory factory = new DoubleSummaryFactory(DoubleSummary.Mode.Sum);
+  private final DoubleFixedWidthSummary fws = new DoubleFixedWidthSummary(DoubleSummary.Mode.Sum);
+  private DoubleTupleSketch sketch;
+  private PrimitiveDoubleTupleSketch primitive;
+  private PrimitiveDoubleTupleSketch primitiveOther;
+  private Arena arena;
+  private DirectTupleSketch<Double, DoubleSummary> direct;
+  private DirectTupleSketch<Double, DoubleSummary> directOther;
+  private MemorySegment unionSeg;
+  private MemorySegment resultSeg;
+  private CompactTupleSketch<DoubleSummary> compactA;
+  private CompactTupleSketch<DoubleSummary> compactB;
+  private MemorySegment image;
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    sketch = new DoubleTupleSketch(lgK, DoubleSummary.Mode.Sum);
+    final DoubleTupleSketch other = new DoubleTupleSketch(lgK, DoubleSummary.Mode.Sum);
+    primitive = new PrimitiveDoubleTupleSketch(lgK, DoubleSummary.Mode.Sum);
+    primitiveOther = new PrimitiveDoubleTupleSketch(lgK, DoubleSummary.Mode.Sum);
+    arena = Arena.ofShared();
+    final int nomEntries = 1 << lgK;
+    direct = DirectTupleSketch.create(nomEntries, fws,
+        arena.allocate(DirectTupleSketch.getMaxBytes(nomEntries, fws.getSummaryBytes())));
+    directOther = DirectTupleSketch.create(nomEntries, fws,
+        arena.allocate(DirectTupleSketch.getMaxBytes(nomEntries, fws.getSummaryBytes())));
+    unionSeg = arena.allocate(DirectTupleUnion.getMaxBytes(nomEntries, fws.getSummaryBytes()));
+    resultSeg = arena.allocate(DirectCompactTupleSketch.getMaxBytes(nomEntries, fws.getSummaryBytes()));
+    for (int i = 0; i < n; i++) {
+      sketch.update(i, 1.0);
+      other.update(i + (n / 2), 1.0); //half overlap
+      primitive.update(i, 1.0);
+      primitiveOther.update(i + (n / 2), 1.0);
+      direct.update(i, 1.0);
+      directOther.update(i + (n / 2), 1.0);
+    }
+    next = n;
+    compactA = sketch.compact();
+    compactB = other.compact();
+    image = MemorySegment.ofArray(compactA.toByteArray());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public DoubleTupleSketch update() {
+    sketch.update(next++, 1.0);
+    return sketch;
+  }
+
+  @Benchmark
+  public PrimitiveDoubleTupleSketch updatePrimitive() {
+    primitive.update(next++, 1.0);
+    return primitive;
+  }
+
+  @Benchmark
+  public DirectTupleSketch<Double, DoubleSummary> updateDirect() {
+    direct.update(next++, 1.0);
+    return direct;
+  }
+
+  @Benchmark
+  public CompactTupleSketch<DoubleSummary> union() {
+    final TupleUnion<DoubleSummary> union = new TupleUnion<>(1 << lgK, setOps);
+    union.union(compactA);
+    union.union(compactB);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public CompactTupleSketch<DoubleSummary> unionPrimitive() {
+    final TupleUnion<DoubleSummary> union = new TupleUnion<>(1 << lgK, setOps);
+    union.union(primitive);
+    union.union(primitiveOther);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public DirectCompactTupleSketch<DoubleSummary> unionDirect() {
+    final DirectTupleUnion<DoubleSummary> union = DirectTupleUnion.create(1 << lgK, fws, unionSeg);
+    union.union(direct);
+    union.union(directOther);
+    return union.getResult(resultSeg);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GROUP_BY_UPDATES)
+  public TupleSketchGroupBy<Integer, Double, DoubleSummary> groupBy() {
+    final TupleSketchGroupBy<Integer, Double, DoubleSummary> groupBy = new TupleSketchGroupBy<>(1 << lgK, factory);
+    for (int i = 0; i < GROUP_BY_UPDATES; i++) {
+      groupBy.update((i & 3) == 0 ? 0 : i % GROUPS, i, 1.0); //a quarter of the stream goes to group 0
+    }
+    return groupBy;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GROUP_BY_UPDATES)
+  public Map<Integer, UpdatableTupleSketch<Double, DoubleSummary>> groupByMap() {
+    final Map<Integer, UpdatableTupleSketch<Double, DoubleSummary>> groups = new HashMap<>();
+    for (int i = 0; i < GROUP_BY_UPDATES; i++) {
+      groups.computeIfAbsent((i & 3) == 0 ? 0 : i % GROUPS,
+          g -> new UpdatableTupleSketch<>(1 << lgK, 3, 1f, factory)).update(i, 1.0);
+    }
+    return groups;
+  }
+
+  @Benchmark
+  public CompactTupleSketch<DoubleSummary> intersection() {
+    final TupleIntersection<DoubleSummary> inter = new TupleIntersection<>(setOps);
+    inter.intersect(compactA);
+    inter.intersect(compactB);
+    return inter.getResult();
+  }
+
+  @Benchmark
+  public double getEstimate() {
+    return sketch.getEstimate();
+  }
+
+  @Benchmark
+  public CompactTupleSketch<DoubleSummary> compact() {
+    return sketch.compact();
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return compactA.toByteArray();
+  }
+
+  @Benchmark
+  public TupleSketch<DoubleSummary> heapify() {
+    return TupleSketch.heapifySketch(image, deserializer);
+  }
+
+  @Benchmark
+  public double wrap() {
+    return CompactTupleSketch.wrap(image, deserializer).getEstimate();
+  }
+}
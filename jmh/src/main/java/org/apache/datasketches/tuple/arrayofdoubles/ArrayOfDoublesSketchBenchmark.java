@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.arrayofdoubles;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the ArrayOfDoubles tuple sketches.
+ *
+ * <p>The <i>mode</i> parameter selects heap sketches and unions or their direct counterparts backed by an
+ * off-heap MemorySegment. The <i>unionAll</i> benchmark merges the same sketches as <i>union</i> in one
+ * batch.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayOfDoublesSketchBenchmark {
+
+  @Param({"12", "16"})
+  int lgK;
+
+  @Param({"1000", "1000000"})
+  int n;
+
+  @Param({"1", "32"})
+  int numValues;
+
+  @Param({"heap", "segment"})
+  String mode;
+
+  private Arena arena;
+  private ArrayOfDoublesUpdatableSketch sketch;
+  private ArrayOfDoublesCompactSketch compactA;
+  private ArrayOfDoublesCompactSketch compactB;
+  private MemorySegment unionSeg;
+  private MemorySegment image;
+  private double[] values;
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    arena = Arena.ofShared();
+    final boolean segment = "segment".equals(mode);
+    final int nomEntries = 1 << lgK;
+    final ArrayOfDoublesUpdatableSketchBuilder bldr = new ArrayOfDoublesUpdatableSketchBuilder()
+        .setNominalEntries(nomEntries).setNumberOfValues(numValues);
+    sketch = segment
+        ? bldr.build(arena.allocate(ArrayOfDoublesQuickSelectSketch.getMaxBytes(nomEntries, numValues)))
+        : bldr.build();
+    final ArrayOfDoublesUpdatableSketch other = bldr.build();
+    values = new double[numValues];
+    Arrays.fill(values, 1.0);
+    for (int i = 0; i < n; i++) {
+      sketch.update(i, values);
+      other.update(i + (n / 2), values); //half overlap
+    }
+    next = n;
+    compactA = sketch.compact();
+    compactB = other.compact();
+    unionSeg = segment ? arena.allocate(ArrayOfDoublesUnion.getMaxBytes(nomEntries, numValues)) : null;
+    final byte[] bytes = compactA.toByteArray();
+    image = arena.allocate(bytes.length);
+    MemorySegment.copy(MemorySegment.ofArray(bytes), 0, image, 0, bytes.length);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    arena.close();
+  }
+
+  @Benchmark
+  public ArrayOfDoublesUpdatableSketch update() {
+    sketch.update(next++, values);
+    return sketch;
+  }
+
+  @Benchmark
+  public ArrayOfDoublesCompactSketch union() {
+    final ArrayOfDoublesSetOperationBuilder bldr = new ArrayOfDoublesSetOperationBuilder()
+        .setNominalEntries(1 << lgK).setNumberOfValues(numValues);
+    final ArrayOfDoublesUnion union = unionSeg == null ? bldr.buildUnion() : bldr.buildUnion(unionSeg);
+    union.union(compactA);
+    union.union(compactB);
+    return union.getResult();
+  }
+
+  @Benchmark
+  public ArrayOfDoublesCompactSketch unionAll() {
+    final ArrayOfDoublesSetOperationBuilder bldr = new ArrayOfDoublesSetOperationBuilder()
+        .setNominalEntries(1 << lgK).setNumberOfValues(numValues);
+    final ArrayOfDoublesUnion union = unionSeg == null ? bldr.buildUnion() : bldr.buildUnion(unionSeg);
+    union.unionAll(List.of(compactA, compactB));
+    return union.getResult();
+  }
+
+  @Benchmark
+  public double getEstimate() {
+    return sketch.getEstimate();
+  }
+
+  @Benchmark
+  public ArrayOfDoublesCompactSketch compact() {
+    return sketch.compact();
+  }
+
+  @Benchmark
+  public byte[] toByteArray() {
+    return compactA.toByteArray();
+  }
+
+  @Benchmark
+  public ArrayOfDoublesSketch heapify() {
+    return ArrayOfDoublesSketch.heapify(image);
+  }
+
+  @Benchmark
+  public double wrap() {
+    return ArrayOfDoublesSketch.wrap(image).getEstimate();
+  }
+}
@@ -20,18 +20,18 @@
 package org.apache.datasketches.count;
 
 import static java.lang.foreign.ValueLayout.JAVA_BYTE;
-import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
 
 import java.lang.foreign.MemorySegment;
 import java.nio.charset.StandardCharsets;
 import java.util.Random;
 
 import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.MemorySegmentStatus;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesException;
 import org.apache.datasketches.common.Util;
 import org.apache.datasketches.common.positional.PositionalSegment;
-import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.hash.MurmurHash3FFM;
 
 /**
  * Java implementation of the CountMin sketch data structure of Cormode and Muthukrishnan.
@@ -41,22 +41,43 @@ import org.apache.datasketches.hash.MurmurHash3;
  * in a data stream. It uses multiple hash functions to distribute items across a two-dimensional array,
  * providing approximate counts with configurable error bounds.
  *
+ * The sketch can live on the Java heap, or in a MemorySegment that holds its serialized image. A sketch
+ * in a MemorySegment is created with {@link #initialize(byte, int, long, MemorySegment)} or attached to an
+ * existing image with {@link #wrap(MemorySegment, long)} or {@link #writableWrap(MemorySegment, long)}.
+ * Updates and queries then operate directly on the segment without copying the counters.
+ *
+ * By default every update increments all the counters an item hashes to. The sketch can instead be created
+ * with the {@link UpdatePolicy#CONSERVATIVE} policy, which only raises the counters that are below the new
+ * estimate of the item. This gives tighter estimates for the same number of buckets, but does not allow
+ * negative weights.
+ *
+ * Updates are not thread-safe. Queries do not modify the sketch, so a sketch that is not being updated
+ * can be queried from several threads.
+ *
  * Reference: http://dimacs.rutgers.edu/~graham/pubs/papers/cm-full.pdf
  */
-public class CountMinSketch {
+public class CountMinSketch implements MemorySegmentStatus {
+  private static final int SER_VER = 1;
+  private static final int FLAGS_BYTE = 3;
+  private static final long COUNTERS_OFFSET = Family.COUNTMIN.getMinPreLongs() * Long.BYTES;
+  // Number of items whose hash locations are computed together by the bulk update
+  private static final int BLOCK_SIZE = 64;
+
   private final byte numHashes_;
   private final int numBuckets_;
   private final long seed_;
+  private final UpdatePolicy policy_;
   private final long[] hashSeeds_;
-  private final long[] sketchArray_;
-  private long totalWeight_;
+  private final CounterArray counters_;
+  private final MemorySegment wseg_;  // used only for direct mode CounterArray
 
-  // Thread-local MemorySegment to avoid allocations in hot paths with explicit endianness control
-  private static final ThreadLocal<MemorySegment> LONG_SEGMENT =
-          ThreadLocal.withInitial(() -> MemorySegment.ofArray(new byte[Long.BYTES]));
+  // Reusable bucket indices of one item, and of a block of items for the bulk update, which is allocated on first use.
+  private final int[] bucketIndices_;
+  private int[] blockIndices_;
 
   private enum Flag {
-    IS_EMPTY;
+    IS_EMPTY,
+    IS_CONSERVATIVE;
 
     int mask() {
       return 1 << ordinal();
@@ -71,7 +92,47 @@ public class CountMinSketch {
    * @param numBuckets Array size for each of the hashing function
    * @param seed The base hash seed
    */
-  CountMinSketch(final byte numHashes, final int numBuckets, final long seed) {
+  public CountMinSketch(final byte numHashes, final int numBuckets, final long seed) {
+    this(numHashes, numBuckets, seed, UpdatePolicy.STANDARD);
+  }
+
+  /**
+   * Creates a CountMin sketch with given number of hash functions and buckets,
+   * a user-specified seed and the given update policy.
+   *
+   * @param numHashes The number of hash functions to apply to items
+   * @param numBuckets Array size for each of the hashing function
+   * @param seed The base hash seed
+   * @param policy How updates are applied to the counters
+   */
+  public CountMinSketch(final byte numHashes, final int numBuckets, final long seed, final UpdatePolicy policy) {
+    this(numHashes, numBuckets, seed, policy, new HeapCounterArray(checkAndGetLength(numHashes, numBuckets)), null);
+  }
+
+  private CountMinSketch(final byte numHashes, final int numBuckets, final long seed, final UpdatePolicy policy,
+      final CounterArray counters, final MemorySegment wseg) {
+    if (policy == null) {
+      throw new SketchesArgumentException("Update policy must not be null");
+    }
+    numHashes_ = numHashes;
+    numBuckets_ = numBuckets;
+    seed_ = seed;
+    policy_ = policy;
+    hashSeeds_ = new long[numHashes];
+    bucketIndices_ = new int[numHashes];
+    counters_ = counters;
+    wseg_ = wseg;
+
+    final Random rand = new Random(seed);
+    for (int i = 0; i < numHashes; i++) {
+      hashSeeds_[i] = rand.nextLong();
+    }
+  }
+
+  /**
+   * Validates the configuration and returns the number of counters it requires.
+   */
+  private static int checkAndGetLength(final byte numHashes, final int numBuckets) {
     // Validate numHashes
     if (numHashes <= 0) {
       throw new SketchesArgumentException("Number of hash functions must be positive, got: " + numHashes);
@@ -102,37 +163,120 @@ public class CountMinSketch {
           + "Consider reducing numHashes or numBuckets.");
     }
 
-    numHashes_ = numHashes;
-    numBuckets_ = numBuckets;
-    seed_ = seed;
-    hashSeeds_ = new long[numHashes];
-    sketchArray_ = new long[(int) totalSize];
-    totalWeight_ = 0;
+    return (int) totalSize;
+  }
 
-    final Random rand = new Random(seed);
-    for (int i = 0; i < numHashes; i++) {
-      hashSeeds_[i] = rand.nextLong();
+  /**
+   * Creates a new, empty CountMin sketch inside the given MemorySegment, which must be at least
+   * {@link #getSerializedSizeBytes(byte, int)} bytes. Any existing content of the segment is overwritten.
+   * All updates are then applied directly to the segment, which always holds a valid serialized image.
+   *
+   * @param numHashes The number of hash functions to apply to items
+   * @param numBuckets Array size for each of the hashing function
+   * @param seed The base hash seed
+   * @param dstSeg A writable MemorySegment that will hold the sketch
+   * @return a new CountMinSketch backed by the given MemorySegment
+   */
+  public static CountMinSketch initialize(final byte numHashes, final int numBuckets, final long seed,
+      final MemorySegment dstSeg) {
+    return initialize(numHashes, numBuckets, seed, UpdatePolicy.STANDARD, dstSeg);
+  }
+
+  /**
+   * Creates a new, empty CountMin sketch with the given update policy inside the given MemorySegment.
+   * See {@link #initialize(byte, int, long, MemorySegment)}.
+   *
+   * @param numHashes The number of hash functions to apply to items
+   * @param numBuckets Array size for each of the hashing function
+   * @param seed The base hash seed
+   * @param policy How updates are applied to the counters
+   * @param dstSeg A writable MemorySegment that will hold the sketch
+   * @return a new CountMinSketch backed by the given MemorySegment
+   */
+  public static CountMinSketch initialize(final byte numHashes, final int numBuckets, final long seed,
+      final UpdatePolicy policy, final MemorySegment dstSeg) {
+    final int length = checkAndGetLength(numHashes, numBuckets);
+    checkWritable(dstSeg);
+    final long requiredBytes = getSerializedSizeBytes(numHashes, numBuckets);
+    if (dstSeg.byteSize() < requiredBytes) {
+      throw new SketchesArgumentException("Provided MemorySegment too small for requested sketch. "
+        + "Required: " + requiredBytes + ", provided capacity: " + dstSeg.byteSize());
     }
+
+    final PositionalSegment posSeg = PositionalSegment.wrap(dstSeg);
+    // the image is written as non-empty so that it always includes the counters
+    writePreamble(posSeg, false, numHashes, numBuckets, seed, policy);
+    final CounterArray counters = DirectCounterArray.initialize(length,
+        dstSeg.asSlice(COUNTERS_OFFSET, requiredBytes - COUNTERS_OFFSET));
+    return new CountMinSketch(numHashes, numBuckets, seed, policy, counters, dstSeg);
+  }
+
+  /**
+   * Returns the number of bytes of a non-empty serialized image with the given configuration,
+   * which is also the size required by {@link #initialize(byte, int, long, MemorySegment)}.
+   * @param numHashes The number of hash functions
+   * @param numBuckets The number of buckets per hash function
+   * @return the size in bytes
+   */
+  public static long getSerializedSizeBytes(final byte numHashes, final int numBuckets) {
+    return COUNTERS_OFFSET + CounterArray.getSerializedSizeBytes(checkAndGetLength(numHashes, numBuckets));
   }
 
   /**
-   * Efficiently converts a long to byte array using thread-local MemorySegment with explicit endianness.
+   * Returns the index into the counters for the given hash function row, based on the first 64 bits of the hash.
    */
-  private static byte[] longToBytes(final long value) {
-    final MemorySegment segment = LONG_SEGMENT.get();
-    segment.set(JAVA_LONG_UNALIGNED, 0, value);
-    return segment.toArray(JAVA_BYTE);
+  private int bucketIndex(final int row, final long hash) {
+    return (row * numBuckets_) + Math.floorMod(hash, numBuckets_);
   }
 
-  private long[] getHashes(final byte[] item) {
-    final long[] updateLocations = new long[numHashes_];
+  /**
+   * Applies the given weight to the numHashes_ counters whose indices start at indices[offset],
+   * according to the update policy, and adds it to the total weight.
+   */
+  private void applyUpdate(final int[] indices, final int offset, final long weight) {
+    if (policy_ == UpdatePolicy.CONSERVATIVE) {
+      checkConservativeWeight(weight);
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < numHashes_; i++) {
+        min = Math.min(min, counters_.get(indices[offset + i]));
+      }
+      final long target = min + weight;
+      for (int i = 0; i < numHashes_; i++) {
+        final int index = indices[offset + i];
+        if (counters_.get(index) < target) {
+          counters_.set(index, target);
+        }
+      }
+    } else {
+      for (int i = 0; i < numHashes_; i++) {
+        counters_.add(indices[offset + i], weight);
+      }
+    }
+    counters_.addTotalWeight(weight > 0 ? weight : -weight);
+  }
 
-    for (int i = 0; i < numHashes_; i++) {
-      final long[] index = MurmurHash3.hash(item, hashSeeds_[i]);
-      updateLocations[i] = (i * (long)numBuckets_) + Math.floorMod(index[0], numBuckets_);
+  private static void checkConservativeWeight(final long weight) {
+    if (weight < 0) {
+      throw new SketchesArgumentException("Negative weights are not allowed with the conservative update policy, got: "
+          + weight);
     }
+  }
+
+  /**
+   * Returns the first 64 bits of the hash of the given item for the given hash function row.
+   * A long is hashed as its 8 little-endian bytes, which is the same as hashing the equivalent byte array.
+   * None of these allocate, so they are used by both the update and the query paths.
+   */
+  private long hash(final long item, final int row) {
+    return MurmurHash3FFM.hash64(item, hashSeeds_[row]);
+  }
 
-    return updateLocations;
+  private long hash(final double item, final int row) {
+    return MurmurHash3FFM.hash64(item, hashSeeds_[row]);
+  }
+
+  private long hash(final byte[] item, final int row) {
+    return MurmurHash3FFM.hash64(item, hashSeeds_[row]);
   }
 
   /**
@@ -140,7 +284,31 @@ public class CountMinSketch {
    * @return True if the sketch is empty, otherwise false.
    */
   public boolean isEmpty() {
-    return totalWeight_ == 0;
+    return counters_.getTotalWeight() == 0;
+  }
+
+  @Override
+  public boolean hasMemorySegment() {
+    return wseg_ != null;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return hasMemorySegment() && counters_.isOffHeap();
+  }
+
+  /**
+   * Returns whether the sketch is in read-only mode. That is possible
+   * only if there is a backing MemorySegment in read-only mode.
+   * @return true if read-only, otherwise false
+   */
+  public boolean isReadOnly() {
+    return (wseg_ != null) && counters_.isReadOnly();
+  }
+
+  @Override
+  public boolean isSameResource(final MemorySegment that) {
+    return (wseg_ != null) && MemorySegmentStatus.isSameResource(wseg_, that);
   }
 
   /**
@@ -159,6 +327,14 @@ public class CountMinSketch {
     return numBuckets_;
   }
 
+  /**
+   * Returns the update policy of this sketch.
+   * @return The update policy.
+   */
+  public UpdatePolicy getUpdatePolicy() {
+    return policy_;
+  }
+
   /**
    * Returns the hash seed used by this sketch.
    * @return The seed value.
@@ -172,7 +348,7 @@ public class CountMinSketch {
    * @return The total weight.
    */
   public long getTotalWeight_() {
-    return totalWeight_;
+    return counters_.getTotalWeight();
   }
 
   /**
@@ -214,7 +390,58 @@ public class CountMinSketch {
    * @param weight The weight of the item.
    */
   public void update(final long item, final long weight) {
-    update(longToBytes(item), weight);
+    for (int i = 0; i < numHashes_; i++) {
+      bucketIndices_[i] = bucketIndex(i, hash(item, i));
+    }
+    applyUpdate(bucketIndices_, 0, weight);
+  }
+
+  /**
+   * Updates the sketch with each of the provided items and its corresponding weight.
+   * The result is the same as updating the items one at a time, but the hash locations of a block of items
+   * are computed before any counters of that block are touched, which makes better use of the cache.
+   * @param items The items to update.
+   * @param weights The weights of the items, which must be of the same length as the items.
+   */
+  public void update(final long[] items, final long[] weights) {
+    if (items.length != weights.length) {
+      throw new SketchesArgumentException("Items and weights must be of the same length, got: "
+          + items.length + " and " + weights.length);
+    }
+    if (policy_ == UpdatePolicy.CONSERVATIVE) {
+      for (final long weight : weights) {
+        checkConservativeWeight(weight);
+      }
+    }
+    if (blockIndices_ == null) {
+      blockIndices_ = new int[BLOCK_SIZE * numHashes_];
+    }
+    for (int start = 0; start < items.length; start += BLOCK_SIZE) {
+      final int end = Math.min(start + BLOCK_SIZE, items.length);
+      int k = 0;
+      for (int j = start; j < end; j++) {
+        for (int i = 0; i < numHashes_; i++) {
+          blockIndices_[k++] = bucketIndex(i, hash(items[j], i));
+        }
+      }
+      k = 0;
+      for (int j = start; j < end; j++, k += numHashes_) {
+        applyUpdate(blockIndices_, k, weights[j]);
+      }
+    }
+  }
+
+  /**
+   * Updates the sketch with the provided item and weight.
+   * The item is canonicalized so that -0.0 and 0.0, and all forms of NaN, are treated as the same item.
+   * @param item The item to update.
+   * @param weight The weight of the item.
+   */
+  public void update(final double item, final long weight) {
+    for (int i = 0; i < numHashes_; i++) {
+      bucketIndices_[i] = bucketIndex(i, hash(item, i));
+    }
+    applyUpdate(bucketIndices_, 0, weight);
   }
 
   /**
@@ -240,11 +467,10 @@ public class CountMinSketch {
       return;
     }
 
-    totalWeight_ += weight > 0 ? weight : -weight;
-    final long[] hashLocations = getHashes(item);
-    for (final long h : hashLocations) {
-      sketchArray_[(int) h] += weight;
+    for (int i = 0; i < numHashes_; i++) {
+      bucketIndices_[i] = bucketIndex(i, hash(item, i));
     }
+    applyUpdate(bucketIndices_, 0, weight);
   }
 
   /**
@@ -253,7 +479,24 @@ public class CountMinSketch {
    * @return Estimated frequency.
    */
   public long getEstimate(final long item) {
-    return getEstimate(longToBytes(item));
+    long res = Long.MAX_VALUE;
+    for (int i = 0; i < numHashes_; i++) {
+      res = Math.min(res, counters_.get(bucketIndex(i, hash(item, i))));
+    }
+    return res;
+  }
+
+  /**
+   * Returns the estimated frequency for the given item.
+   * @param item The item to estimate.
+   * @return Estimated frequency.
+   */
+  public long getEstimate(final double item) {
+    long res = Long.MAX_VALUE;
+    for (int i = 0; i < numHashes_; i++) {
+      res = Math.min(res, counters_.get(bucketIndex(i, hash(item, i))));
+    }
+    return res;
   }
 
   /**
@@ -280,13 +523,10 @@ public class CountMinSketch {
       return 0;
     }
 
-    final long[] hashLocations = getHashes(item);
-    long res = sketchArray_[(int) hashLocations[0]];
-    // Start from index 1 to avoid processing first element twice
-    for (int i = 1; i < hashLocations.length; i++) {
-      res = Math.min(res, sketchArray_[(int) hashLocations[i]]);
+    long res = Long.MAX_VALUE;
+    for (int i = 0; i < numHashes_; i++) {
+      res = Math.min(res, counters_.get(bucketIndex(i, hash(item, i))));
     }
-
     return res;
   }
 
@@ -296,7 +536,16 @@ public class CountMinSketch {
    * @return Upper bound of estimated frequency.
    */
   public long getUpperBound(final long item) {
-    return getUpperBound(longToBytes(item));
+    return getEstimate(item) + (long)(getRelativeError() * getTotalWeight_());
+  }
+
+  /**
+   * Returns the upper bound of the estimated frequency for the given item.
+   * @param item The item to estimate.
+   * @return Upper bound of estimated frequency.
+   */
+  public long getUpperBound(final double item) {
+    return getEstimate(item) + (long)(getRelativeError() * getTotalWeight_());
   }
 
   /**
@@ -332,7 +581,16 @@ public class CountMinSketch {
    * @return Lower bound of estimated frequency.
    */
   public long getLowerBound(final long item) {
-    return getLowerBound(longToBytes(item));
+    return getEstimate(item);
+  }
+
+  /**
+   * Returns the lower bound of the estimated frequency for the given item.
+   * @param item The item to estimate.
+   * @return Lower bound of estimated frequency.
+   */
+  public long getLowerBound(final double item) {
+    return getEstimate(item);
   }
 
   /**
@@ -368,69 +626,74 @@ public class CountMinSketch {
     }
 
     final boolean acceptableConfig = (getNumBuckets_() == other.getNumBuckets_())
-        && (getNumHashes_() == other.getNumHashes_()) && (getSeed_() == other.getSeed_());
+        && (getNumHashes_() == other.getNumHashes_()) && (getSeed_() == other.getSeed_())
+        && (policy_ == other.policy_);
 
     if (!acceptableConfig) {
       throw new SketchesException("Incompatible sketch configuration.");
     }
 
-    for (int i = 0; i < sketchArray_.length; i++) {
-      sketchArray_[i] += other.sketchArray_[i];
+    final int length = counters_.getLength();
+    for (int i = 0; i < length; i++) {
+      counters_.add(i, other.counters_.get(i));
     }
 
-    totalWeight_ += other.getTotalWeight_();
+    counters_.addTotalWeight(other.getTotalWeight_());
   }
 
   /**
    * Returns the serialized size in bytes.
    */
   private int getSerializedSizeBytes() {
-    final int preambleBytes = Family.COUNTMIN.getMinPreLongs() * Long.BYTES;
     if (isEmpty()) {
-      return preambleBytes;
+      return (int) COUNTERS_OFFSET;
     }
-    return preambleBytes + Long.BYTES + (sketchArray_.length * Long.BYTES);
+    return (int) (COUNTERS_OFFSET + CounterArray.getSerializedSizeBytes(counters_.getLength()));
   }
 
-  /**
-   * Returns the sketch as a byte array.
-   * @return the result byte array
-   */
-  public byte[] toByteArray() {
-    final int serializedSizeBytes = getSerializedSizeBytes();
-    final byte[] bytes = new byte[serializedSizeBytes];
-    final PositionalSegment posSeg = PositionalSegment.wrap(MemorySegment.ofArray(bytes));
-
+  private static void writePreamble(final PositionalSegment posSeg, final boolean isEmpty, final byte numHashes,
+      final int numBuckets, final long seed, final UpdatePolicy policy) {
     // Long 0
     final int preambleLongs = Family.COUNTMIN.getMinPreLongs();
     posSeg.setByte((byte) preambleLongs);
-    final int serialVersion = 1;
-    posSeg.setByte((byte) serialVersion);
+    posSeg.setByte((byte) SER_VER);
     final int familyId = Family.COUNTMIN.getID();
     posSeg.setByte((byte) familyId);
-    final int flagsByte = isEmpty() ? Flag.IS_EMPTY.mask() : 0;
+    final int flagsByte = (isEmpty ? Flag.IS_EMPTY.mask() : 0)
+        | (policy == UpdatePolicy.CONSERVATIVE ? Flag.IS_CONSERVATIVE.mask() : 0);
     posSeg.setByte((byte) flagsByte);
     final int NULL_32 = 0;
     posSeg.setInt(NULL_32);
 
     // Long 1
-    posSeg.setInt(numBuckets_);
-    posSeg.setByte(numHashes_);
-    final short hashSeed = Util.computeSeedHash(seed_);
+    posSeg.setInt(numBuckets);
+    posSeg.setByte(numHashes);
+    final short hashSeed = Util.computeSeedHash(seed);
     posSeg.setShort(hashSeed);
     final byte NULL_8 = 0;
     posSeg.setByte(NULL_8);
+  }
 
-    if (isEmpty()) {
-      return bytes;
-    }
-
-    posSeg.setLong(totalWeight_);
+  /**
+   * Returns the sketch as a byte array.
+   * @return the result byte array
+   */
+  public byte[] toByteArray() {
+    final int serializedSizeBytes = getSerializedSizeBytes();
+    final byte[] bytes = new byte[serializedSizeBytes];
 
-    for (final long w: sketchArray_) {
-      posSeg.setLong(w);
+    if (wseg_ == null) {
+      final PositionalSegment posSeg = PositionalSegment.wrap(MemorySegment.ofArray(bytes));
+      writePreamble(posSeg, isEmpty(), numHashes_, numBuckets_, seed_, policy_);
+      if (!isEmpty()) {
+        counters_.writeToSegmentAsStream(posSeg);
+      }
+    } else {
+      MemorySegment.copy(wseg_, JAVA_BYTE, 0, bytes, 0, serializedSizeBytes);
+      if (isEmpty()) {
+        bytes[FLAGS_BYTE] |= (byte) Flag.IS_EMPTY.mask();
+      }
     }
-
     return bytes;
   }
 
@@ -441,7 +704,45 @@ public class CountMinSketch {
    * @return The deserialized CountMinSketch.
    */
   public static CountMinSketch deserialize(final byte[] b, final long seed) {
-    final PositionalSegment posSeg = PositionalSegment.wrap(MemorySegment.ofArray(b));
+    return heapify(MemorySegment.ofArray(b), seed);
+  }
+
+  /**
+   * Reads a serialized image of a CountMinSketch from the provided MemorySegment into a new heap sketch.
+   * @param seg The MemorySegment containing the serialized sketch.
+   * @param seed The seed used during serialization.
+   * @return The deserialized CountMinSketch.
+   */
+  public static CountMinSketch heapify(final MemorySegment seg, final long seed) {
+    return internalHeapifyOrWrap(seg, seed, false, false);
+  }
+
+  /**
+   * Wraps the given MemorySegment, which contains a serialized image, in a read-only CountMinSketch.
+   * The counters are not copied; queries read them directly from the segment.
+   * @param seg The MemorySegment containing the serialized sketch.
+   * @param seed The seed used during serialization.
+   * @return a read-only CountMinSketch backed by the given MemorySegment
+   */
+  public static CountMinSketch wrap(final MemorySegment seg, final long seed) {
+    return internalHeapifyOrWrap(seg, seed, true, false);
+  }
+
+  /**
+   * Wraps the given writable MemorySegment, which contains a non-empty serialized image, in a CountMinSketch.
+   * The counters are not copied; updates and merges are applied directly to the segment.
+   * An image created by {@link #initialize(byte, int, long, MemorySegment)} can always be wrapped this way.
+   * @param wseg The MemorySegment containing the serialized sketch.
+   * @param seed The seed used during serialization.
+   * @return a CountMinSketch backed by the given MemorySegment
+   */
+  public static CountMinSketch writableWrap(final MemorySegment wseg, final long seed) {
+    return internalHeapifyOrWrap(wseg, seed, true, true);
+  }
+
+  private static CountMinSketch internalHeapifyOrWrap(final MemorySegment seg, final long seed,
+      final boolean isWrap, final boolean isWritable) {
+    final PositionalSegment posSeg = PositionalSegment.wrap(seg);
 
     final byte preambleLongs = posSeg.getByte();
     final byte serialVersion = posSeg.getByte();
@@ -455,9 +756,8 @@ public class CountMinSketch {
       throw new SketchesArgumentException("Preamble longs mismatch: expected " + expectedPreambleLongs
           + ", actual " + preambleLongs);
     }
-    final int expectedSerialVersion = 1;
-    if (serialVersion != expectedSerialVersion) {
-      throw new SketchesArgumentException("Serial version mismatch: expected " + expectedSerialVersion
+    if (serialVersion != SER_VER) {
+      throw new SketchesArgumentException("Serial version mismatch: expected " + SER_VER
           + ", actual " + serialVersion);
     }
     final int expectedFamilyId = Family.COUNTMIN.getID();
@@ -476,18 +776,29 @@ public class CountMinSketch {
           + Util.computeSeedHash(seed));
     }
 
-    final CountMinSketch cms = new CountMinSketch(numHashes, numBuckets, seed);
+    final int length = checkAndGetLength(numHashes, numBuckets);
     final boolean empty = (flagsByte & Flag.IS_EMPTY.mask()) > 0;
-    if (empty) {
-      return cms;
+    final UpdatePolicy policy = (flagsByte & Flag.IS_CONSERVATIVE.mask()) > 0
+        ? UpdatePolicy.CONSERVATIVE : UpdatePolicy.STANDARD;
+
+    if (!isWrap) {
+      return new CountMinSketch(numHashes, numBuckets, seed, policy, CounterArray.heapify(posSeg, length, empty), null);
     }
-    final long w = posSeg.getLong();
-    cms.totalWeight_ = w;
 
-    for (int i = 0; i < cms.sketchArray_.length; i++) {
-      cms.sketchArray_[i] = posSeg.getLong();
+    final MemorySegment slice = seg.asSlice(COUNTERS_OFFSET, seg.byteSize() - COUNTERS_OFFSET);
+    final CounterArray counters;
+    if (isWritable) {
+      checkWritable(seg);
+      counters = CounterArray.writableWrap(slice, length, empty);
+    } else {
+      counters = CounterArray.wrap(slice, length, empty);
     }
+    return new CountMinSketch(numHashes, numBuckets, seed, policy, counters, seg);
+  }
 
-    return cms;
+  private static void checkWritable(final MemorySegment wseg) {
+    if (wseg.isReadOnly()) {
+      throw new SketchesArgumentException("Cannot write to a read-only MemorySegment");
+    }
   }
 }
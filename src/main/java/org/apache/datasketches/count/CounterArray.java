@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.count;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.common.MemorySegmentStatus;
+import org.apache.datasketches.common.positional.PositionalSegment;
+
+/**
+ * This class holds the total weight and the numHashes * numBuckets counters of a CountMin sketch.
+ *
+ * <p>The layout of a MemorySegment-backed array matches the serialized image following the preamble:
+ * the total weight as a long, followed by the counters in row-major order.</p>
+ */
+abstract class CounterArray implements MemorySegmentStatus {
+  static final long TOTAL_WEIGHT_OFFSET = 0;
+  static final long DATA_OFFSET = Long.BYTES;
+
+  protected CounterArray() {}
+
+  //The position of the PositionalSegment must be the start of the total weight
+  static CounterArray heapify(final PositionalSegment posSeg, final int length, final boolean isEmpty) {
+    return HeapCounterArray.heapify(posSeg, length, isEmpty);
+  }
+
+  static CounterArray wrap(final MemorySegment seg, final int length, final boolean isEmpty) {
+    return DirectCounterArrayR.wrap(seg, length, isEmpty);
+  }
+
+  static CounterArray writableWrap(final MemorySegment wseg, final int length, final boolean isEmpty) {
+    return DirectCounterArray.writableWrap(wseg, length, isEmpty);
+  }
+
+  // returns the number of bytes needed for the total weight and the given number of counters
+  static long getSerializedSizeBytes(final int length) {
+    return Long.BYTES * (1L + length);
+  }
+
+  @Override
+  public abstract boolean hasMemorySegment();
+
+  @Override
+  public abstract boolean isOffHeap();
+
+  abstract boolean isReadOnly();
+
+  @Override
+  public abstract boolean isSameResource(MemorySegment that);
+
+  abstract int getLength();
+
+  abstract long getTotalWeight();
+
+  abstract void addTotalWeight(final long weight);
+
+  abstract long get(final int index);
+
+  abstract void add(final int index, final long weight);
+
+  abstract void set(final int index, final long value);
+
+  // writes the total weight and all counters as a stream of longs
+  void writeToSegmentAsStream(final PositionalSegment posSeg) {
+    posSeg.setLong(getTotalWeight());
+    final int length = getLength();
+    for (int i = 0; i < length; i++) {
+      posSeg.setLong(get(i));
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.count;
+
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+import static org.apache.datasketches.common.Util.clear;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+
+/**
+ * This class maintains the counters of a CountMin sketch in a writable MemorySegment.
+ * Updates are applied directly to the segment.
+ */
+final class DirectCounterArray extends DirectCounterArrayR {
+
+  private DirectCounterArray(final int length, final MemorySegment wseg) {
+    super(length, wseg, false);
+  }
+
+  // zeroes the total weight and counters of the given segment
+  static DirectCounterArray initialize(final int length, final MemorySegment wseg) {
+    checkCapacity(length, wseg);
+    clear(wseg, 0, getSerializedSizeBytes(length));
+    return new DirectCounterArray(length, wseg);
+  }
+
+  static DirectCounterArray writableWrap(final MemorySegment wseg, final int length, final boolean isEmpty) {
+    // if empty cannot wrap as writable
+    if (isEmpty) {
+      throw new SketchesArgumentException("Cannot wrap an empty CountMin sketch for writing as there is no backing data array");
+    }
+    checkCapacity(length, wseg);
+    return new DirectCounterArray(length, wseg);
+  }
+
+  private static void checkCapacity(final int length, final MemorySegment wseg) {
+    final long requiredBytes = getSerializedSizeBytes(length);
+    if (wseg.byteSize() < requiredBytes) {
+      throw new SketchesArgumentException("MemorySegment capacity is insufficient for CountMin sketch. Needs: "
+        + requiredBytes + " , found: " + wseg.byteSize());
+    }
+  }
+
+  @Override
+  long getTotalWeight() {
+    return wseg_.get(JAVA_LONG_UNALIGNED, TOTAL_WEIGHT_OFFSET);
+  }
+
+  @Override
+  void addTotalWeight(final long weight) {
+    wseg_.set(JAVA_LONG_UNALIGNED, TOTAL_WEIGHT_OFFSET, wseg_.get(JAVA_LONG_UNALIGNED, TOTAL_WEIGHT_OFFSET) + weight);
+  }
+
+  @Override
+  long get(final int index) {
+    return wseg_.get(JAVA_LONG_UNALIGNED, DATA_OFFSET + ((long) index << 3));
+  }
+
+  @Override
+  void add(final int index, final long weight) {
+    final long offset = DATA_OFFSET + ((long) index << 3);
+    wseg_.set(JAVA_LONG_UNALIGNED, offset, wseg_.get(JAVA_LONG_UNALIGNED, offset) + weight);
+  }
+
+  @Override
+  void set(final int index, final long value) {
+    wseg_.set(JAVA_LONG_UNALIGNED, DATA_OFFSET + ((long) index << 3), value);
+  }
+
+  @Override
+  boolean isReadOnly() {
+    return false;
+  }
+}
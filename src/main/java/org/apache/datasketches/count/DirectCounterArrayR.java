@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.count;
+
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.common.MemorySegmentStatus;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+
+/**
+ * This class provides read-only access to the counters of a CountMin sketch held in a MemorySegment.
+ * Nothing is copied; all reads go directly to the segment.
+ */
+class DirectCounterArrayR extends CounterArray {
+  final protected int length_;
+  final protected MemorySegment wseg_; // for inheritance; we won't write to it
+  final private boolean isEmpty_; // true only for a compact empty image, which has no data region
+
+  protected DirectCounterArrayR(final int length, final MemorySegment seg, final boolean isEmpty) {
+    length_ = length;
+    wseg_ = seg;
+    isEmpty_ = isEmpty;
+  }
+
+  // assumes we have a slice with only the portion of the MemorySegment the CounterArray cares about
+  static DirectCounterArrayR wrap(final MemorySegment seg, final int length, final boolean isEmpty) {
+    final long requiredBytes = getSerializedSizeBytes(length);
+    if (isEmpty && (seg.byteSize() < requiredBytes)) {
+      return new DirectCounterArrayR(length, seg, true);
+    }
+    if (seg.byteSize() < requiredBytes) {
+      throw new SketchesArgumentException("MemorySegment capacity is insufficient for CountMin sketch. Needs: "
+        + requiredBytes + " , found: " + seg.byteSize());
+    }
+    return new DirectCounterArrayR(length, seg, false);
+  }
+
+  @Override
+  int getLength() {
+    return length_;
+  }
+
+  @Override
+  long getTotalWeight() {
+    if (isEmpty_) { return 0L; }
+    return wseg_.get(JAVA_LONG_UNALIGNED, TOTAL_WEIGHT_OFFSET);
+  }
+
+  @Override
+  long get(final int index) {
+    if (isEmpty_) { return 0L; }
+    return wseg_.get(JAVA_LONG_UNALIGNED, DATA_OFFSET + ((long) index << 3));
+  }
+
+  @Override
+  public boolean hasMemorySegment() {
+    return (wseg_ != null);
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return hasMemorySegment() && wseg_.isNative();
+  }
+
+  @Override
+  boolean isReadOnly() {
+    return true;
+  }
+
+  @Override
+  public boolean isSameResource(final MemorySegment that) {
+    return MemorySegmentStatus.isSameResource(wseg_, that);
+  }
+
+  @Override
+  void addTotalWeight(final long weight) {
+    throw new SketchesReadOnlyException("Attempt to call addTotalWeight() on read-only MemorySegment");
+  }
+
+  @Override
+  void add(final int index, final long weight) {
+    throw new SketchesReadOnlyException("Attempt to call add() on read-only MemorySegment");
+  }
+
+  @Override
+  void set(final int index, final long value) {
+    throw new SketchesReadOnlyException("Attempt to call set() on read-only MemorySegment");
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.count;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.common.positional.PositionalSegment;
+
+/**
+ * This class holds the counters of a CountMin sketch on the Java heap.
+ */
+final class HeapCounterArray extends CounterArray {
+  private final long[] data_;
+  private long totalWeight_;
+
+  HeapCounterArray(final int length) {
+    data_ = new long[length];
+    totalWeight_ = 0;
+  }
+
+  // The PositionalSegment's position must be set to the start of the total weight.
+  static HeapCounterArray heapify(final PositionalSegment posSeg, final int length, final boolean isEmpty) {
+    final HeapCounterArray array = new HeapCounterArray(length);
+    if (isEmpty) {
+      return array;
+    }
+    array.totalWeight_ = posSeg.getLong();
+    posSeg.getLongArray(array.data_, 0, length);
+    return array;
+  }
+
+  @Override
+  public boolean hasMemorySegment() {
+    return false;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return false;
+  }
+
+  @Override
+  boolean isReadOnly() {
+    return false;
+  }
+
+  @Override
+  public boolean isSameResource(final MemorySegment that) {
+    return false;
+  }
+
+  @Override
+  int getLength() {
+    return data_.length;
+  }
+
+  @Override
+  long getTotalWeight() {
+    return totalWeight_;
+  }
+
+  @Override
+  void addTotalWeight(final long weight) {
+    totalWeight_ += weight;
+  }
+
+  @Override
+  long get(final int index) {
+    return data_[index];
+  }
+
+  @Override
+  void add(final int index, final long weight) {
+    data_[index] += weight;
+  }
+
+  @Override
+  void set(final int index, final long value) {
+    data_[index] = value;
+  }
+
+  @Override
+  void writeToSegmentAsStream(final PositionalSegment posSeg) {
+    posSeg.setLong(totalWeight_);
+    posSeg.setLongArray(data_, 0, data_.length);
+  }
+}
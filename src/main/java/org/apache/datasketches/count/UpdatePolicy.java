@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.count;
+
+/**
+ * Specifies how a CountMinSketch applies an update to the counters an item hashes to.
+ * The policy is recorded in the serialized image.
+ */
+public enum UpdatePolicy {
+
+  /**
+   * Every counter the item hashes to is incremented by the weight.
+   * Negative weights are allowed, which permits deletions.
+   */
+  STANDARD,
+
+  /**
+   * Only the counters that would otherwise fall below the new estimate of the item are raised, to that estimate.
+   * This is the conservative update of Estan and Varghese. It gives estimates that are never larger than
+   * those of the standard policy for the same stream, but weights must be non-negative.
+   */
+  CONSERVATIVE
+}
@@ -414,6 +414,21 @@ public final class CpcSketch {
     hashUpdate(arr[0], arr[1]);
   }
 
+  /**
+   * Present an item that the caller has already hashed.
+   * The hash must be the 128-bit MurmurHash3 of the item computed with the seed given when this sketch
+   * was constructed, for example by MurmurHash3FFM. An item presented here is indistinguishable from the same
+   * item presented to the matching <i>update</i> method. A hash computed with a different seed cannot be
+   * detected and will silently produce a sketch that cannot be combined with sketches built from the raw
+   * items.
+   *
+   * @param hash0 the first 64 bits of the MurmurHash3 128-bit hash of the item
+   * @param hash1 the second 64 bits of the MurmurHash3 128-bit hash of the item
+   */
+  public void updateHash(final long hash0, final long hash1) {
+    hashUpdate(hash0, hash1);
+  }
+
   /**
    * Convience function that this Sketch is valid. This is a troubleshooting tool
    * for sketches that have been heapified from serialized images.
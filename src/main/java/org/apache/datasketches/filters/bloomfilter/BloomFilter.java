@@ -367,6 +367,19 @@ public final class BloomFilter implements MemorySegmentStatus {
     updateInternal(h0, h1);
   }
 
+  /**
+   * Updates the filter with an item that the caller has already hashed.
+   * The two 64-bit hashes take the place of the pair of XxHash values that the <i>update</i> methods derive
+   * from the item and the seed of this filter, so they may come from any well mixed 128-bit hash, such as
+   * the MurmurHash3 of the item. Because a different hash function places an item in different bits, a filter
+   * updated through this method must be queried through {@link #queryHash(long, long)} with the same hashes.
+   * @param hash0 the first 64 bits of the hash of the item
+   * @param hash1 the second 64 bits of the hash of the item
+   */
+  public void updateHash(final long hash0, final long hash1) {
+    updateInternal(hash0, hash1);
+  }
+
   // Internal method to apply updates given pre-computed hashes
   private void updateInternal(final long h0, final long h1) {
     final long numBits = bitArray_.getCapacity();
@@ -503,6 +516,18 @@ public final class BloomFilter implements MemorySegmentStatus {
     return queryAndUpdateInternal(h0, h1);
   }
 
+  /**
+   * Updates the filter with an item that the caller has already hashed and
+   * returns the result from querying that item prior to the update.
+   * @param hash0 the first 64 bits of the hash of the item
+   * @param hash1 the second 64 bits of the hash of the item
+   * @return The query result prior to applying the update
+   * @see #updateHash(long, long)
+   */
+  public boolean queryAndUpdateHash(final long hash0, final long hash1) {
+    return queryAndUpdateInternal(hash0, hash1);
+  }
+
   // Internal query-and-update method given pre-computed hashes
   private boolean queryAndUpdateInternal(final long h0, final long h1) {
     final long numBits = bitArray_.getCapacity();
@@ -659,6 +684,18 @@ public final class BloomFilter implements MemorySegmentStatus {
     return queryInternal(h0, h1);
   }
 
+  /**
+   * Queries the filter with an item that the caller has already hashed and returns whether the
+   * item <em>might</em> have been seen previously.
+   * @param hash0 the first 64 bits of the hash of the item
+   * @param hash1 the second 64 bits of the hash of the item
+   * @return The result of querying the filter with the given hashes
+   * @see #updateHash(long, long)
+   */
+  public boolean queryHash(final long hash0, final long hash1) {
+    return queryInternal(hash0, hash1);
+  }
+
   // Internal method to query the filter given pre-computed hashes
   private boolean queryInternal(final long h0, final long h1) {
     final long numBits = bitArray_.getCapacity();
@@ -26,6 +26,9 @@ import static java.lang.foreign.ValueLayout.JAVA_SHORT_UNALIGNED;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.util.Objects;
 
 /**
@@ -52,6 +55,7 @@ import java.util.Objects;
 public final class MurmurHash3FFM {
   private static final long C1 = 0x87c37b91114253d5L;
   private static final long C2 = 0x4cf5ad432745937fL;
+  private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
 
   private MurmurHash3FFM() { }
 
@@ -168,6 +172,200 @@ public final class MurmurHash3FFM {
     return hash(MemorySegment.ofArray(byteArr), 0L, byteArr.length, seed, hashOut);
   }
 
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the input, which is the same as
+   * <i>hash(in, seed, hashOut)[0]</i>, without the need for an output array.
+   * @param in a long
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the hash
+   */
+  public static long hash64(final long in, final long seed) {
+    return finalMix128h1(seed ^ mixK1(in), seed, Long.BYTES);
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the input, which is the same as
+   * <i>hash(in, seed, hashOut)[0]</i>, without the need for an output array.
+   * @param in a double
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the hash
+   */
+  public static long hash64(final double in, final long seed) {
+    final double d = (in == 0.0) ? 0.0 : in;    // canonicalize -0.0, 0.0
+    final long k1 = Double.doubleToLongBits(d); // canonicalize all NaN forms
+    return finalMix128h1(seed ^ mixK1(k1), seed, Long.BYTES);
+  }
+
+  /**
+   * Returns the first 64 bits of the 128-bit hash of the input, which is the same as
+   * <i>hash(MemorySegment.ofArray(in), 0, in.length, seed, hashOut)[0]</i>,
+   * without wrapping the array or the need for an output array.
+   * @param in byte array
+   * @param seed A long valued seed.
+   * @return the first 64 bits of the hash
+   * @throws IllegalArgumentException if input is empty or null
+   */
+  public static long hash64(final byte[] in, final long seed) {
+    if ((in == null) || (in.length == 0)) {
+      throw new IllegalArgumentException("Input in is empty or null.");
+    }
+    final int lengthBytes = in.length;
+    int cumOff = 0;
+    long h1 = seed;
+    long h2 = seed;
+
+    // Process the 128-bit blocks (the body) into the hash
+    while ((lengthBytes - cumOff) >= 16) {
+      final long k1 = (long) LONG_LE.get(in, cumOff);
+      final long k2 = (long) LONG_LE.get(in, cumOff + 8);
+      cumOff += 16;
+
+      h1 ^= mixK1(k1);
+      h1 = Long.rotateLeft(h1, 27);
+      h1 += h2;
+      h1 = (h1 * 5) + 0x52dce729L;
+
+      h2 ^= mixK2(k2);
+      h2 = Long.rotateLeft(h2, 31);
+      h2 += h1;
+      h2 = (h2 * 5) + 0x38495ab5L;
+    }
+
+    // Get the tail (if any): 1 to 15 bytes
+    final int rem = lengthBytes - cumOff;
+    if (rem > 0) {
+      final long k1 = getLong(in, cumOff, Math.min(rem, 8));
+      final long k2 = rem > 8 ? getLong(in, cumOff + 8, rem - 8) : 0;
+      h1 ^= mixK1(k1);
+      h2 ^= mixK2(k2);
+    }
+    return finalMix128h1(h1, h2, lengthBytes);
+  }
+
+  //Bulk inputs
+
+  /**
+   * Hashes each long of the given range of the input array as if by {@link #hash(long, long, long[])}
+   * and stores the first 64 bits of each 128-bit hash in the corresponding slot of <i>out</i>,
+   * starting at index 0. The results are bit-identical to the single-item method, but the loop has
+   * no calls or allocations, which lets the JIT compiler keep it tight.
+   * @param in the input array
+   * @param offset the index of the first long to hash
+   * @param length the number of longs to hash
+   * @param seed A long valued seed.
+   * @param out the output array, which must hold at least <i>length</i> longs
+   * @return out
+   * @throws IndexOutOfBoundsException if the range is out of bounds of either array
+   */
+  public static long[] hashEach(final long[] in, final int offset, final int length, final long seed,
+      final long[] out) {
+    Objects.checkFromIndexSize(offset, length, in.length);
+    Objects.checkFromIndexSize(0, length, out.length);
+    for (int i = 0; i < length; i++) {
+      out[i] = finalMix128h1(seed ^ mixK1(in[offset + i]), seed, Long.BYTES);
+    }
+    return out;
+  }
+
+  /**
+   * Hashes each long of the given range of the input array as if by {@link #hash(long, long, long[])}
+   * and stores each full 128-bit hash in <i>out</i> as two consecutive longs, so that the hash of
+   * <i>in[offset + i]</i> is at <i>out[2i]</i> and <i>out[2i + 1]</i>.
+   * @param in the input array
+   * @param offset the index of the first long to hash
+   * @param length the number of longs to hash
+   * @param seed A long valued seed.
+   * @param out the output array, which must hold at least <i>2 * length</i> longs
+   * @return out
+   * @throws IndexOutOfBoundsException if the range is out of bounds of either array
+   */
+  public static long[] hashEach128(final long[] in, final int offset, final int length, final long seed,
+      final long[] out) {
+    Objects.checkFromIndexSize(offset, length, in.length);
+    Objects.checkFromIndexSize(0, 2 * length, out.length);
+    for (int i = 0; i < length; i++) {
+      long h1 = (seed ^ mixK1(in[offset + i])) ^ Long.BYTES;
+      long h2 = seed ^ Long.BYTES;
+      h1 += h2;
+      h2 += h1;
+      h1 = finalMix64(h1);
+      h2 = finalMix64(h2);
+      h1 += h2;
+      out[2 * i] = h1;
+      out[(2 * i) + 1] = h2 + h1;
+    }
+    return out;
+  }
+
+  /**
+   * Hashes each of <i>count</i> consecutive keys of <i>keyBytes</i> bytes in the given MemorySegment
+   * as if by {@link #hash(MemorySegment, long, long, long, long[])} and stores the first 64 bits of each
+   * 128-bit hash in the corresponding slot of <i>out</i>, starting at index 0.
+   * Keys of 8 bytes take the same path as {@link #hashEach(long[], int, int, long, long[])}.
+   * @param seg the MemorySegment holding the keys
+   * @param offsetBytes the offset in bytes of the first key
+   * @param keyBytes the width of each key in bytes, which must be positive
+   * @param count the number of keys to hash
+   * @param seed A long valued seed.
+   * @param out the output array, which must hold at least <i>count</i> longs
+   * @return out
+   * @throws IllegalArgumentException if keyBytes is not positive
+   * @throws IndexOutOfBoundsException if the keys are out of bounds of the segment or out is too small
+   */
+  public static long[] hashEach(final MemorySegment seg, final long offsetBytes, final int keyBytes,
+      final int count, final long seed, final long[] out) {
+    checkFixedWidthKeys(seg, offsetBytes, keyBytes, count);
+    Objects.checkFromIndexSize(0, count, out.length);
+    if (keyBytes == Long.BYTES) {
+      for (int i = 0; i < count; i++) {
+        final long k1 = seg.get(JAVA_LONG_UNALIGNED, offsetBytes + ((long) i << 3));
+        out[i] = finalMix128h1(seed ^ mixK1(k1), seed, Long.BYTES);
+      }
+    } else {
+      final long[] hashOut = new long[2];
+      for (int i = 0; i < count; i++) {
+        out[i] = hash(seg, offsetBytes + ((long) i * keyBytes), keyBytes, seed, hashOut)[0];
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Hashes each of <i>count</i> consecutive keys of <i>keyBytes</i> bytes in the given MemorySegment
+   * as if by {@link #hash(MemorySegment, long, long, long, long[])} and stores each full 128-bit hash
+   * in <i>out</i> as two consecutive longs, so that the hash of key <i>i</i> is at <i>out[2i]</i> and <i>out[2i + 1]</i>.
+   * @param seg the MemorySegment holding the keys
+   * @param offsetBytes the offset in bytes of the first key
+   * @param keyBytes the width of each key in bytes, which must be positive
+   * @param count the number of keys to hash
+   * @param seed A long valued seed.
+   * @param out the output array, which must hold at least <i>2 * count</i> longs
+   * @return out
+   * @throws IllegalArgumentException if keyBytes is not positive
+   * @throws IndexOutOfBoundsException if the keys are out of bounds of the segment or out is too small
+   */
+  public static long[] hashEach128(final MemorySegment seg, final long offsetBytes, final int keyBytes,
+      final int count, final long seed, final long[] out) {
+    checkFixedWidthKeys(seg, offsetBytes, keyBytes, count);
+    Objects.checkFromIndexSize(0, 2 * count, out.length);
+    final long[] hashOut = new long[2];
+    for (int i = 0; i < count; i++) {
+      hash(seg, offsetBytes + ((long) i * keyBytes), keyBytes, seed, hashOut);
+      out[2 * i] = hashOut[0];
+      out[(2 * i) + 1] = hashOut[1];
+    }
+    return out;
+  }
+
+  private static void checkFixedWidthKeys(final MemorySegment seg, final long offsetBytes, final int keyBytes,
+      final int count) {
+    Objects.requireNonNull(seg, "Input MemorySegment must not be null");
+    if (keyBytes <= 0) {
+      throw new IllegalArgumentException("Key width must be positive: " + keyBytes);
+    }
+    Objects.checkFromIndexSize(offsetBytes, (long) keyBytes * count, seg.byteSize());
+  }
+
   //The worker method
 
   /**
@@ -199,10 +397,8 @@ public final class MurmurHash3FFM {
       final long k1 = seg.get(JAVA_LONG_UNALIGNED, cumOff);     //0, 16, 32, ...
       final long k2 = seg.get(JAVA_LONG_UNALIGNED, cumOff + 8); //8, 24, 40, ...
 
-      synchronized (MurmurHash3FFM.class) {
-        cumOff += 16L;
-        rem -= 16L;
-      }
+      cumOff += 16L;
+      rem -= 16L;
 
       h1 ^= mixK1(k1);
       h1 = Long.rotateLeft(h1, 27);
@@ -303,6 +499,23 @@ public final class MurmurHash3FFM {
 
   //--Helper methods----------------------------------------------------
 
+  /**
+   * Gets a long from the given byte array starting at the given index and continuing for
+   * remainder (rem) bytes. The bytes are extracted in little-endian order.
+   *
+   * @param bArr The given input byte array.
+   * @param index Zero-based index from the start of the byte array.
+   * @param rem Remainder bytes. An integer in the range [1,8].
+   * @return a long
+   */
+  private static long getLong(final byte[] bArr, final int index, final int rem) {
+    long out = 0L;
+    for (int i = rem; i-- > 0;) { //i= 7,6,5,4,3,2,1,0
+      out ^= (bArr[index + i] & 0xFFL) << (i * 8); //equivalent to |=
+    }
+    return out;
+  }
+
   /**
    * Self mix of k1
    *
@@ -370,4 +583,24 @@ public final class MurmurHash3FFM {
     return hashOut;
   }
 
+  /**
+   * Same as {@link #finalMix128(long, long, long, long[])} but returns only the first 64 bits.
+   * @param h1 intermediate hash
+   * @param h2 intermediate hash
+   * @param lengthBytes the length in bytes
+   * @return the first 64 bits of the hash
+   */
+  private static long finalMix128h1(long h1, long h2, final long lengthBytes) {
+    h1 ^= lengthBytes;
+    h2 ^= lengthBytes;
+
+    h1 += h2;
+    h2 += h1;
+
+    h1 = finalMix64(h1);
+    h2 = finalMix64(h2);
+
+    return h1 + h2;
+  }
+
 }
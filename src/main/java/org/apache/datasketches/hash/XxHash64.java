@@ -24,6 +24,7 @@ import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
 import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
 
 import java.lang.foreign.MemorySegment;
+import java.util.Objects;
 
 /**
  * The XxHash is a fast, non-cryptographic, 64-bit hash function that has
@@ -182,6 +183,64 @@ public final class XxHash64 {
     return finalize(hash);
   }
 
+  /**
+   * Hashes each long of the given range of the input array as if by {@link #hash(long, long)} and stores
+   * the results in the corresponding slots of <i>out</i>, starting at index 0. The results are bit-identical
+   * to the single-item method, but the loop has no calls or allocations, which lets the JIT compiler keep it tight.
+   * This differs from {@link #hashLongs(long[], int, int, long)}, which returns one hash of the whole range.
+   * @param in the input array
+   * @param offset the index of the first long to hash
+   * @param length the number of longs to hash
+   * @param seed A long valued seed.
+   * @param out the output array, which must hold at least <i>length</i> longs
+   * @return out
+   * @throws IndexOutOfBoundsException if the range is out of bounds of either array
+   */
+  public static long[] hashEach(final long[] in, final int offset, final int length, final long seed,
+      final long[] out) {
+    Objects.checkFromIndexSize(offset, length, in.length);
+    Objects.checkFromIndexSize(0, length, out.length);
+    for (int i = 0; i < length; i++) {
+      out[i] = hash(in[offset + i], seed);
+    }
+    return out;
+  }
+
+  /**
+   * Hashes each of <i>count</i> consecutive keys of <i>keyBytes</i> bytes in the given MemorySegment
+   * as if by {@link #hash(MemorySegment, long, long, long)} and stores the results in the corresponding
+   * slots of <i>out</i>, starting at index 0. Keys of 8 bytes take the same path as
+   * {@link #hashEach(long[], int, int, long, long[])}.
+   * @param seg the MemorySegment holding the keys
+   * @param offsetBytes the offset in bytes of the first key
+   * @param keyBytes the width of each key in bytes, which must be positive
+   * @param count the number of keys to hash
+   * @param seed A long valued seed.
+   * @param out the output array, which must hold at least <i>count</i> longs
+   * @return out
+   * @throws IllegalArgumentException if keyBytes is not positive
+   * @throws IndexOutOfBoundsException if the keys are out of bounds of the segment or out is too small
+   */
+  public static long[] hashEach(final MemorySegment seg, final long offsetBytes, final int keyBytes,
+      final int count, final long seed, final long[] out) {
+    Objects.requireNonNull(seg, "Input MemorySegment must not be null");
+    if (keyBytes <= 0) {
+      throw new IllegalArgumentException("Key width must be positive: " + keyBytes);
+    }
+    Objects.checkFromIndexSize(offsetBytes, (long) keyBytes * count, seg.byteSize());
+    Objects.checkFromIndexSize(0, count, out.length);
+    if (keyBytes == Long.BYTES) {
+      for (int i = 0; i < count; i++) {
+        out[i] = hash(seg.get(JAVA_LONG_UNALIGNED, offsetBytes + ((long) i << 3)), seed);
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        out[i] = hash(seg, offsetBytes + ((long) i * keyBytes), keyBytes, seed);
+      }
+    }
+    return out;
+  }
+
   private static long finalize(long hash) {
     hash ^= hash >>> 33;
     hash *= P2;
@@ -29,9 +29,12 @@ import static org.apache.datasketches.hll.HllUtil.KEY_MASK_26;
 
 import java.lang.foreign.MemorySegment;
 import java.nio.ByteBuffer;
+import java.util.Objects;
 
 import org.apache.datasketches.common.MemorySegmentStatus;
+import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.hash.MurmurHash3FFM;
 
 /**
  * Although this class is package-private, it provides a single place to define and document
@@ -40,9 +43,19 @@ import org.apache.datasketches.common.Util;
  * @author Kevin Lang
  */
 abstract class BaseHllSketch implements MemorySegmentStatus {
+  // Number of items hashed together by the updateAll methods before the coupons are presented to the sketch
+  static final int UPDATE_ALL_BATCH = 256;
 
   abstract void couponUpdate(int coupon);
 
+  /**
+   * Presents the first <i>length</i> coupons of the given array, in order, as by repeated calls to
+   * couponUpdate(int).
+   * @param coupons the given coupons
+   * @param length the number of coupons to present
+   */
+  abstract void couponUpdateAll(int[] coupons, int length);
+
   /**
    * Gets the size in bytes of the current sketch when serialized using
    * <i>toCompactByteArray()</i>.
@@ -406,9 +419,138 @@ abstract class BaseHllSketch implements MemorySegmentStatus {
     couponUpdate(coupon(hash(data, Util.DEFAULT_UPDATE_SEED)));
   }
 
+  /**
+   * Present an item that the caller has already hashed.
+   * The hash must be the 128-bit MurmurHash3 of the item computed with
+   * {@link Util#DEFAULT_UPDATE_SEED}, the only seed
+   * used by the HLL family, for example by MurmurHash3FFM. An item presented here is indistinguishable from
+   * the same item presented to the matching <i>update</i> method.
+   *
+   * @param hash0 the first 64 bits of the MurmurHash3 128-bit hash of the item
+   * @param hash1 the second 64 bits of the MurmurHash3 128-bit hash of the item
+   */
+  public void updateHash(final long hash0, final long hash1) {
+    couponUpdate(coupon(hash0, hash1));
+  }
+
+  /**
+   * Present each long in the given range of the given array as a separate item.
+   * This is equivalent to calling {@link #update(long)} for each item, but the items are hashed in batches
+   * and the resulting slot and value pairs are applied to the sketch together, so that once the sketch has
+   * reached HLL mode each batch is applied in a single tight loop over the registers.
+   * This suits columnar engines that hold a column of values in an array.
+   *
+   * @param items the given array of long items
+   * @param offset the index of the first item
+   * @param length the number of items
+   */
+  public void updateAll(final long[] items, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, items.length);
+    final int batch = Math.min(length, UPDATE_ALL_BATCH);
+    final long[] hashes = new long[2 * batch];
+    final int[] coupons = new int[batch];
+    for (int start = 0; start < length; start += batch) {
+      final int count = Math.min(batch, length - start);
+      MurmurHash3FFM.hashEach128(items, offset + start, count, Util.DEFAULT_UPDATE_SEED, hashes);
+      couponUpdateAll(coupons(hashes, count, coupons), count);
+    }
+  }
+
+  /**
+   * Present each int in the given range of the given array as a separate item.
+   * Each int is treated as the equivalent long, as by {@link #update(long)}.
+   *
+   * @param items the given array of int items
+   * @param offset the index of the first item
+   * @param length the number of items
+   * @see #updateAll(long[], int, int)
+   */
+  public void updateAll(final int[] items, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, items.length);
+    final int batch = Math.min(length, UPDATE_ALL_BATCH);
+    final long[] keys = new long[batch];
+    final long[] hashes = new long[2 * batch];
+    final int[] coupons = new int[batch];
+    for (int start = 0; start < length; start += batch) {
+      final int count = Math.min(batch, length - start);
+      for (int i = 0; i < count; i++) {
+        keys[i] = items[offset + start + i];
+      }
+      MurmurHash3FFM.hashEach128(keys, 0, count, Util.DEFAULT_UPDATE_SEED, hashes);
+      couponUpdateAll(coupons(hashes, count, coupons), count);
+    }
+  }
+
+  /**
+   * Present each double in the given range of the given array as a separate item.
+   * Each double is canonicalized as by {@link #update(double)}.
+   *
+   * @param items the given array of double items
+   * @param offset the index of the first item
+   * @param length the number of items
+   * @see #updateAll(long[], int, int)
+   */
+  public void updateAll(final double[] items, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, items.length);
+    final int batch = Math.min(length, UPDATE_ALL_BATCH);
+    final long[] keys = new long[batch];
+    final long[] hashes = new long[2 * batch];
+    final int[] coupons = new int[batch];
+    for (int start = 0; start < length; start += batch) {
+      final int count = Math.min(batch, length - start);
+      for (int i = 0; i < count; i++) {
+        final double d = items[offset + start + i];
+        keys[i] = Double.doubleToLongBits(d == 0.0 ? 0.0 : d); // canonicalize -0.0, 0.0 and all NaN forms
+      }
+      MurmurHash3FFM.hashEach128(keys, 0, count, Util.DEFAULT_UPDATE_SEED, hashes);
+      couponUpdateAll(coupons(hashes, count, coupons), count);
+    }
+  }
+
+  /**
+   * Present each of <i>count</i> consecutive fixed-width keys in the given MemorySegment as a separate item.
+   * Each key is hashed as its sequence of bytes, as by {@link #update(byte[])}.
+   * A column of 8-byte keys in native byte order is therefore equivalent to calling {@link #update(long)}
+   * with each value on a little-endian platform.
+   *
+   * @param seg the MemorySegment holding the keys
+   * @param offsetBytes the offset in bytes of the first key
+   * @param keyBytes the width of each key in bytes, which must be positive
+   * @param count the number of keys
+   * @see #updateAll(long[], int, int)
+   */
+  public void updateAll(final MemorySegment seg, final long offsetBytes, final int keyBytes, final int count) {
+    Objects.requireNonNull(seg, "MemorySegment must be non-null");
+    if (keyBytes <= 0) {
+      throw new SketchesArgumentException("Key width must be positive: " + keyBytes);
+    }
+    Objects.checkFromIndexSize(offsetBytes, (long) keyBytes * count, seg.byteSize());
+    final int batch = Math.min(count, UPDATE_ALL_BATCH);
+    final long[] hashes = new long[2 * batch];
+    final int[] coupons = new int[batch];
+    for (int start = 0; start < count; start += batch) {
+      final int n = Math.min(batch, count - start);
+      MurmurHash3FFM.hashEach128(seg, offsetBytes + ((long) start * keyBytes), keyBytes, n,
+          Util.DEFAULT_UPDATE_SEED, hashes);
+      couponUpdateAll(coupons(hashes, n, coupons), n);
+    }
+  }
+
+  //Converts the first count interleaved 128-bit hashes into coupons
+  private static int[] coupons(final long[] hashes, final int count, final int[] coupons) {
+    for (int i = 0; i < count; i++) {
+      coupons[i] = coupon(hashes[2 * i], hashes[(2 * i) + 1]);
+    }
+    return coupons;
+  }
+
   private static final int coupon(final long[] hash) {
-    final int addr26 = (int) ((hash[0] & KEY_MASK_26));
-    final int lz = Long.numberOfLeadingZeros(hash[1]);
+    return coupon(hash[0], hash[1]);
+  }
+
+  private static int coupon(final long hash0, final long hash1) {
+    final int addr26 = (int) ((hash0 & KEY_MASK_26));
+    final int lz = Long.numberOfLeadingZeros(hash1);
     final int value = ((lz > 62 ? 62 : lz) + 1);
     return (value << KEY_BITS_26) | addr26;
   }
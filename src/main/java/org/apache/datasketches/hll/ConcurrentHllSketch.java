@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static org.apache.datasketches.hll.HllUtil.KEY_BITS_26;
+import static org.apache.datasketches.hll.PreambleUtil.HLL_BYTE_ARR_START;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.datasketches.common.MemorySegmentStatus;
+import org.apache.datasketches.common.SketchesArgumentException;
+
+/**
+ * An HLL sketch that may be updated by many threads at once without locking.
+ *
+ * <p>The sketch is an HLL_8 register array in HLL mode that lives in a MemorySegment, either one
+ * allocated on the heap by this class or one supplied by the caller. An update computes the slot and
+ * value of its coupon as usual, reads the register with a plain load, and only if the new value is
+ * larger raises the register with a compare-and-set on the 32-bit word that holds it. Since the
+ * registers of a sketch that has seen more than a few times <i>K</i> items are almost never raised,
+ * nearly all updates are read-only and the sketch scales with the number of writer threads.</p>
+ *
+ * <p>Because the registers are raised in no particular order the HIP estimator cannot be maintained,
+ * so this sketch is always out-of-order and uses the composite estimator, exactly as the result of an
+ * {@link HllUnion} does. The KxQ registers and the number of zero registers that the estimator needs are
+ * maintained as exact fixed-point sums, which every update that raises a register adjusts after its
+ * compare-and-set. The estimates and bounds are computed from these sums in constant time, without
+ * reading the registers. {@link #getResult()} and the serialization methods work on a snapshot of the
+ * registers, which costs <i>O(K)</i>. Both may be taken while writers are running and reflect every update
+ * that completed before and possibly some of those running concurrently.</p>
+ *
+ * <p>When backed by a caller supplied MemorySegment, the segment always holds a valid updatable HLL_8
+ * image, so it may also be read by {@link HllSketch#heapify(MemorySegment)} or
+ * {@link HllSketch#wrap(MemorySegment)}. The segment must be writable and aligned to at least 4 bytes,
+ * as are segments allocated by an Arena or backed by a long[].</p>
+ */
+public final class ConcurrentHllSketch extends BaseHllSketch {
+  private static final VarHandle INT_HANDLE = JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN).varHandle();
+  private final int lgConfigK_;
+  private final int configKmask_;
+  private final boolean hasSeg_;
+  private final MemorySegment wseg_;
+  // KxQ0 scaled by 2^32 and KxQ1 scaled by 2^64, so that both are exact integer sums
+  private final LongAdder kxq0_ = new LongAdder();
+  private final LongAdder kxq1_ = new LongAdder();
+  // Number of registers that are still zero, which is numAtCurMin since curMin of HLL_8 is always zero
+  private final LongAdder numZeros_ = new LongAdder();
+
+  /**
+   * Constructs a new concurrent sketch on the java heap.
+   * @param lgConfigK The Log2 of K for the sketch. This value must be between 4 and 21 inclusively.
+   */
+  public ConcurrentHllSketch(final int lgConfigK) {
+    this(lgConfigK, MemorySegment.ofArray(
+        new long[(HllSketch.getMaxUpdatableSerializationBytes(lgConfigK, TgtHllType.HLL_8) + 7) >>> 3]), false);
+  }
+
+  /**
+   * Constructs a new concurrent sketch in the given MemorySegment, which is initialized with an
+   * empty HLL_8 image. Any previous contents are overwritten.
+   * @param lgConfigK The Log2 of K for the sketch. This value must be between 4 and 21 inclusively.
+   * @param dstSeg the destination MemorySegment for the sketch. It must be writable, aligned to at least
+   * 4 bytes and at least {@link HllSketch#getMaxUpdatableSerializationBytes(int, TgtHllType)
+   * getMaxUpdatableSerializationBytes(lgConfigK, TgtHllType.HLL_8)} bytes.
+   */
+  public ConcurrentHllSketch(final int lgConfigK, final MemorySegment dstSeg) {
+    this(lgConfigK, Objects.requireNonNull(dstSeg, "Destination MemorySegment must not be null"), true);
+  }
+
+  private ConcurrentHllSketch(final int lgConfigK, final MemorySegment wseg, final boolean hasSeg) {
+    lgConfigK_ = HllUtil.checkLgK(lgConfigK);
+    configKmask_ = (1 << lgConfigK) - 1;
+    hasSeg_ = hasSeg;
+    wseg_ = wseg;
+    if (wseg.isReadOnly()) { HllUtil.noWriteAccess(); }
+    HllUtil.checkSegSize(HllSketch.getMaxUpdatableSerializationBytes(lgConfigK, TgtHllType.HLL_8), wseg.byteSize());
+    try {
+      INT_HANDLE.getVolatile(wseg, (long) HLL_BYTE_ARR_START);
+    } catch (final IllegalArgumentException e) {
+      throw new SketchesArgumentException("The MemorySegment must be aligned to at least 4 bytes.");
+    }
+    reset();
+  }
+
+  /**
+   * Returns a snapshot of this sketch as an HLL_8 sketch on the java heap.
+   * @return a snapshot of this sketch as an HLL_8 sketch on the java heap.
+   */
+  public HllSketch getResult() {
+    return getResult(TgtHllType.HLL_8);
+  }
+
+  /**
+   * Returns a snapshot of this sketch as a sketch on the java heap with the given TgtHllType.
+   * If no item has been presented the result is an empty sketch.
+   * @param tgtHllType the TgtHllType of the result
+   * @return a snapshot of this sketch as a sketch on the java heap with the given TgtHllType.
+   */
+  public HllSketch getResult(final TgtHllType tgtHllType) {
+    if (isEmpty()) { return new HllSketch(lgConfigK_, tgtHllType); }
+    final HllSketch snapshot = HllSketch.heapify(wseg_); //rebuilds curMin, numAtCurMin and KxQ
+    return tgtHllType == TgtHllType.HLL_8 ? snapshot : snapshot.copyAs(tgtHllType);
+  }
+
+  @Override
+  public int getCompactSerializationBytes() {
+    return getResult().getCompactSerializationBytes();
+  }
+
+  @Override
+  public double getCompositeEstimate() {
+    final int numAtCurMin = (int) numZeros_.sum();
+    if (numAtCurMin == (1 << lgConfigK_)) { return 0; }
+    final double kxq = Math.scalb((double) kxq0_.sum(), -32) + Math.scalb((double) kxq1_.sum(), -64);
+    return HllEstimators.hllCompositeEstimate(lgConfigK_, 0, numAtCurMin, kxq);
+  }
+
+  @Override
+  CurMode getCurMode() {
+    return CurMode.HLL;
+  }
+
+  @Override
+  public double getEstimate() {
+    return getCompositeEstimate();
+  }
+
+  @Override
+  public int getLgConfigK() {
+    return lgConfigK_;
+  }
+
+  @Override
+  public double getLowerBound(final int numStdDev) {
+    HllUtil.checkNumStdDev(numStdDev);
+    final int numAtCurMin = (int) numZeros_.sum();
+    if (numAtCurMin == (1 << lgConfigK_)) { return 0; }
+    return HllEstimators.hllLowerBound(lgConfigK_, 0, numAtCurMin, getCompositeEstimate(), true, numStdDev);
+  }
+
+  @Override
+  public TgtHllType getTgtHllType() {
+    return TgtHllType.HLL_8;
+  }
+
+  @Override
+  public int getUpdatableSerializationBytes() {
+    return getResult().getUpdatableSerializationBytes();
+  }
+
+  @Override
+  public double getUpperBound(final int numStdDev) {
+    HllUtil.checkNumStdDev(numStdDev);
+    if (isEmpty()) { return 0; }
+    return HllEstimators.hllUpperBound(lgConfigK_, getCompositeEstimate(), true, numStdDev);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return numZeros_.sum() == (1 << lgConfigK_);
+  }
+
+  @Override
+  public boolean isCompact() {
+    return false;
+  }
+
+  @Override
+  public boolean hasMemorySegment() {
+    return hasSeg_;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return wseg_.isNative();
+  }
+
+  @Override
+  boolean isOutOfOrder() {
+    return true;
+  }
+
+  @Override
+  public boolean isSameResource(final MemorySegment seg) {
+    return hasSeg_ && MemorySegmentStatus.isSameResource(wseg_, seg);
+  }
+
+  /**
+   * Resets to empty. This must not be called while other threads are updating the sketch.
+   */
+  @Override
+  public void reset() {
+    final Hll8Array empty = new Hll8Array(lgConfigK_);
+    empty.putOutOfOrder(true);
+    empty.putRebuildCurMinNumKxQFlag(true);
+    final byte[] image = empty.toUpdatableByteArray();
+    MemorySegment.copy(MemorySegment.ofArray(image), 0, wseg_, 0, image.length);
+    kxq0_.reset();
+    kxq1_.reset();
+    numZeros_.reset();
+    kxq0_.add(1L << (lgConfigK_ + 32));
+    numZeros_.add(1 << lgConfigK_);
+  }
+
+  @Override
+  public byte[] toCompactByteArray() {
+    return getResult().toCompactByteArray();
+  }
+
+  @Override
+  public byte[] toUpdatableByteArray() {
+    return getResult().toUpdatableByteArray();
+  }
+
+  @Override
+  public String toString(final boolean summary, final boolean detail, final boolean auxDetail,
+      final boolean all) {
+    return getResult().toString(summary, detail, auxDetail, all);
+  }
+
+  @Override
+  void couponUpdate(final int coupon) {
+    final long offset = HLL_BYTE_ARR_START + (coupon & configKmask_);
+    final int newValue = coupon >>> KEY_BITS_26;
+    if (wseg_.get(JAVA_BYTE, offset) >= newValue) { return; } //the common case once the sketch has filled
+    final long wordOffset = offset & ~3L;
+    final int shift = ((int) offset & 3) << 3;
+    int word = (int) INT_HANDLE.getVolatile(wseg_, wordOffset);
+    while (((word >>> shift) & 0xFF) < newValue) {
+      final int newWord = (word & ~(0xFF << shift)) | (newValue << shift);
+      final int witness = (int) INT_HANDLE.compareAndExchange(wseg_, wordOffset, word, newWord);
+      if (witness == word) {
+        final int oldValue = (word >>> shift) & 0xFF;
+        addToKxQ(oldValue, -1L);
+        addToKxQ(newValue, 1L);
+        if (oldValue == 0) { numZeros_.decrement(); }
+        return;
+      }
+      word = witness;
+    }
+  }
+
+  /**
+   * Adds the given sign times 1/2^value to the fixed-point KxQ0 or KxQ1 sum, as in
+   * {@link AbstractHllArray#incrementalUpdateKxQ(AbstractHllArray, int, int, double, double)}.
+   */
+  private void addToKxQ(final int value, final long sign) {
+    if (value < 32) { kxq0_.add(sign << (32 - value)); }
+    else            { kxq1_.add(sign << (64 - value)); }
+  }
+
+  @Override
+  void couponUpdateAll(final int[] coupons, final int length) {
+    for (int i = 0; i < length; i++) {
+      couponUpdate(coupons[i]);
+    }
+  }
+
+}
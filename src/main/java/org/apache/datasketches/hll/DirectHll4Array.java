@@ -82,6 +82,18 @@ final class DirectHll4Array extends DirectHllArray {
     return this;
   }
 
+  @Override
+  HllSketchImpl couponUpdateAll(final int[] coupons, final int offset, final int length) {
+    if (wseg == null) { noWriteAccess(); }
+    final int configKmask = (1 << getLgConfigK()) - 1;
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final int coupon = coupons[i];
+      updateSlotWithKxQ(coupon & configKmask, coupon >>> KEY_BITS_26);
+    }
+    return this;
+  }
+
   @Override
   int getHllByteArrBytes() {
     return hll4ArrBytes(lgConfigK);
@@ -61,6 +61,18 @@ final class DirectHll8Array extends DirectHllArray {
     return this;
   }
 
+  @Override
+  HllSketchImpl couponUpdateAll(final int[] coupons, final int offset, final int length) {
+    if (wseg == null) { noWriteAccess(); }
+    final int configKmask = (1 << getLgConfigK()) - 1;
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final int coupon = coupons[i];
+      updateSlotWithKxQ(HllUtil.getPairLow26(coupon) & configKmask, HllUtil.getPairValue(coupon));
+    }
+    return this;
+  }
+
   @Override
   int getHllByteArrBytes() {
     return hll8ArrBytes(lgConfigK);
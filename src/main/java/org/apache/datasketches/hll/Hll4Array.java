@@ -87,6 +87,17 @@ final class Hll4Array extends HllArray {
     return this;
   }
 
+  @Override
+  HllSketchImpl couponUpdateAll(final int[] coupons, final int offset, final int length) {
+    final int configKmask = (1 << getLgConfigK()) - 1;
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final int coupon = coupons[i];
+      updateSlotWithKxQ(coupon & configKmask, coupon >>> KEY_BITS_26);
+    }
+    return this;
+  }
+
   @Override
   int getNibble(final int slotNo) {
     int theByte = hllByteArr[slotNo >>> 1];
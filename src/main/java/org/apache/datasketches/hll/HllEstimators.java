@@ -44,20 +44,25 @@ final class HllEstimators {
    */
 
   static double hllLowerBound(final AbstractHllArray absHllArr, final int numStdDev) {
-    final int lgConfigK = absHllArr.lgConfigK;
+    return hllLowerBound(absHllArr.lgConfigK, absHllArr.getCurMin(), absHllArr.getNumAtCurMin(),
+        absHllArr.getEstimate(), absHllArr.isOutOfOrder(), numStdDev);
+  }
+
+  //Also used by ConcurrentHllSketch, which has no AbstractHllArray
+  static double hllLowerBound(final int lgConfigK, final int curMin, final int numAtCurMin,
+      final double estimate, final boolean oooFlag, final int numStdDev) {
     final int configK = 1 << lgConfigK;
-    final double numNonZeros =
-        (absHllArr.getCurMin() == 0) ? configK - absHllArr.getNumAtCurMin() : configK;
-    final double estimate = absHllArr.getEstimate();
-    final boolean oooFlag = absHllArr.isOutOfOrder();
+    final double numNonZeros = (curMin == 0) ? configK - numAtCurMin : configK;
     final double relErr = BaseHllSketch.getRelErr(false, oooFlag, lgConfigK, numStdDev);
     return Math.max(estimate / (1.0 + relErr), numNonZeros);
   }
 
   static double hllUpperBound(final AbstractHllArray absHllArr, final int numStdDev) {
-    final int lgConfigK = absHllArr.lgConfigK;
-    final double estimate = absHllArr.getEstimate();
-    final boolean oooFlag = absHllArr.isOutOfOrder();
+    return hllUpperBound(absHllArr.lgConfigK, absHllArr.getEstimate(), absHllArr.isOutOfOrder(), numStdDev);
+  }
+
+  static double hllUpperBound(final int lgConfigK, final double estimate, final boolean oooFlag,
+      final int numStdDev) {
     final double relErr = BaseHllSketch.getRelErr(true, oooFlag, lgConfigK, numStdDev);
     return estimate / (1.0 - relErr);
   }
@@ -72,8 +77,14 @@ final class HllEstimators {
    */
   //In C: again-two-registers.c hhb_get_composite_estimate L1489
   static double hllCompositeEstimate(final AbstractHllArray absHllArr) {
-    final int lgConfigK = absHllArr.getLgConfigK();
-    final double rawEst = getHllRawEstimate(lgConfigK, absHllArr.getKxQ0() + absHllArr.getKxQ1());
+    return hllCompositeEstimate(absHllArr.getLgConfigK(), absHllArr.getCurMin(), absHllArr.getNumAtCurMin(),
+        absHllArr.getKxQ0() + absHllArr.getKxQ1());
+  }
+
+  //Also used by ConcurrentHllSketch, which has no AbstractHllArray
+  static double hllCompositeEstimate(final int lgConfigK, final int curMin, final int numAtCurMin,
+      final double kxqSum) {
+    final double rawEst = getHllRawEstimate(lgConfigK, kxqSum);
 
     final double[] xArr = CompositeInterpolationXTable.xArrs[lgConfigK - MIN_LOG_K];
     final double yStride = CompositeInterpolationXTable.yStrides[lgConfigK - MIN_LOG_K];
@@ -99,8 +110,7 @@ final class HllEstimators {
     //Alternate call
     //if ((adjEst > (3 << lgConfigK)) || ((curMin != 0) || (numAtCurMin == 0)) ) { return adjEst; }
 
-    final double linEst =
-        getHllBitMapEstimate(lgConfigK, absHllArr.getCurMin(), absHllArr.getNumAtCurMin());
+    final double linEst = getHllBitMapEstimate(lgConfigK, curMin, numAtCurMin);
 
     // Bias is created when the value of an estimator is compared with a threshold to decide whether
     // to use that estimator or a different one.
@@ -563,4 +563,9 @@ public class HllSketch extends BaseHllSketch {
     hllSketchImpl = hllSketchImpl.couponUpdate(coupon);
   }
 
+  @Override
+  void couponUpdateAll(final int[] coupons, final int length) {
+    hllSketchImpl = hllSketchImpl.couponUpdateAll(coupons, 0, length);
+  }
+
 }
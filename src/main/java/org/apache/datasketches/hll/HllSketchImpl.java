@@ -53,6 +53,26 @@ abstract class HllSketchImpl {
 
   abstract HllSketchImpl couponUpdate(int coupon);
 
+  /**
+   * Applies the given block of coupons in order, as if by repeated calls to couponUpdate(int).
+   * If the mode changes part way through the block the remaining coupons are handed to the new
+   * implementation. The HLL arrays, whose mode can no longer change, override this with a tight loop.
+   * @param coupons the coupons
+   * @param offset the index of the first coupon
+   * @param length the number of coupons
+   * @return the possibly new implementation
+   */
+  HllSketchImpl couponUpdateAll(final int[] coupons, final int offset, final int length) {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final HllSketchImpl impl = couponUpdate(coupons[i]);
+      if (impl != this) {
+        return impl.couponUpdateAll(coupons, i + 1, end - i - 1);
+      }
+    }
+    return this;
+  }
+
   abstract int getCompactSerializationBytes();
 
   abstract double getCompositeEstimate();
@@ -334,6 +334,11 @@ public class HllUnion extends BaseHllSketch {
     gadget.hllSketchImpl = gadget.hllSketchImpl.couponUpdate(coupon);
   }
 
+  @Override
+  void couponUpdateAll(final int[] coupons, final int length) {
+    gadget.hllSketchImpl = gadget.hllSketchImpl.couponUpdateAll(coupons, 0, length);
+  }
+
   // HllUnion operator logic
 
   /**
@@ -19,6 +19,13 @@
 
 package org.apache.datasketches.theta;
 
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 
 /**
@@ -26,6 +33,8 @@ import org.apache.datasketches.common.SketchesArgumentException;
  */
 final class BitPacking {
 
+  private static final ValueLayout.OfLong JAVA_LONG_BIG_ENDIAN = JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
   private BitPacking() { }
 
   /**
@@ -227,6 +236,105 @@ final class BitPacking {
     }
   }
 
+  /**
+   * Packs any number of consecutive values directly into the given MemorySegment as one bit stream.
+   * Each whole block of 8 is byte-for-byte the same as packBitsBlock8 into a byte array, but the bit stream
+   * is assembled in 64-bit words and written with whole big-endian long stores. The remaining values are
+   * packed as with packBits, with the unused low bits of the last byte set to zero.
+   * As with packBitsBlock8, the bits above <i>bits</i> in each value must be zero.
+   * @param values the values to pack
+   * @param i the index of the first value
+   * @param count the number of values to pack
+   * @param seg the destination MemorySegment
+   * @param offsetBytes the byte offset of the first value in the segment
+   * @param bits the number of bits per value, 1 to 63
+   * @return the number of bytes written
+   */
+  static int packBitsStream(final long[] values, final int i, final int count, final MemorySegment seg,
+      final long offsetBytes, final int bits) {
+    checkBlockBits(bits);
+    long off = offsetBytes;
+    long word = 0; //left aligned
+    int used = 0;
+    final int end = i + count;
+    for (int j = i; j < end; j++) {
+      final long value = values[j];
+      final int free = 64 - used;
+      if (bits < free) {
+        word |= value << (free - bits);
+        used += bits;
+      } else {
+        final int rest = bits - free;
+        word |= value >>> rest;
+        seg.set(JAVA_LONG_BIG_ENDIAN, off, word);
+        off += Long.BYTES;
+        word = rest == 0 ? 0 : value << (64 - rest);
+        used = rest;
+      }
+    }
+    for (; used > 0; used -= 8) { //the remaining bytes
+      seg.set(JAVA_BYTE, off++, (byte) (word >>> 56));
+      word <<= 8;
+    }
+    return (int) (off - offsetBytes);
+  }
+
+  /**
+   * Unpacks consecutive blocks of 8 values directly from the given MemorySegment.
+   * The result is the same as calling unpackBitsBlock8 once per block on a byte array copy of the segment,
+   * but the bit stream is read with whole big-endian long loads and no copy is made.
+   * @param values the output array
+   * @param i the index of the first value
+   * @param numBlocks the number of blocks of 8 values to unpack
+   * @param seg the source MemorySegment
+   * @param offsetBytes the byte offset of the first block in the segment
+   * @param bits the number of bits per value, 1 to 63
+   */
+  static void unpackBitsBlocks(final long[] values, final int i, final int numBlocks, final MemorySegment seg,
+      final long offsetBytes, final int bits) {
+    checkBlockBits(bits);
+    long off = offsetBytes;
+    long bytesLeft = (long) numBlocks * bits; //8 values of bits each is bits bytes
+    long word = 0; //left aligned
+    int avail = 0;
+    final int end = i + (numBlocks << 3);
+    for (int j = i; j < end; j++) {
+      if (bits <= avail) {
+        values[j] = word >>> (64 - bits);
+        word <<= bits;
+        avail -= bits;
+      } else {
+        final int rest = bits - avail;
+        final long high = avail == 0 ? 0 : (word >>> (64 - avail)) << rest;
+        final int loaded;
+        if (bytesLeft >= Long.BYTES) {
+          word = seg.get(JAVA_LONG_BIG_ENDIAN, off);
+          loaded = 64;
+        } else if ((off + Long.BYTES) <= seg.byteSize()) { //the tail, bits past it are never used
+          word = seg.get(JAVA_LONG_BIG_ENDIAN, off);
+          loaded = (int) bytesLeft << 3;
+        } else { //the tail at the end of the segment
+          word = 0;
+          for (int b = 0; b < bytesLeft; b++) {
+            word |= Byte.toUnsignedLong(seg.get(JAVA_BYTE, off + b)) << (56 - (b << 3));
+          }
+          loaded = (int) bytesLeft << 3;
+        }
+        off += loaded >>> 3;
+        bytesLeft -= loaded >>> 3;
+        values[j] = high | (word >>> (64 - rest));
+        word <<= rest;
+        avail = loaded - rest;
+      }
+    }
+  }
+
+  private static void checkBlockBits(final int bits) {
+    if ((bits < 1) || (bits > 63)) {
+      throw new SketchesArgumentException("wrong number of bits in a block of 8: " + bits);
+    }
+  }
+
   static void packBits1(final long[] values, final int i, final byte[] buf, final int off) {
     buf[off] = (byte) (values[i + 0] << 7);
     buf[off] |= values[i + 1] << 6;
@@ -45,9 +45,11 @@ import static org.apache.datasketches.theta.PreambleUtil.insertPreLongs;
 import static org.apache.datasketches.theta.PreambleUtil.insertSeedHash;
 import static org.apache.datasketches.theta.PreambleUtil.insertSerVer;
 import static org.apache.datasketches.theta.PreambleUtil.insertThetaLong;
+import static org.apache.datasketches.theta.PreambleUtil.wholeBytesToHoldBits;
 
 import java.lang.foreign.MemorySegment;
 import java.util.Arrays;
+import java.util.Objects;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -265,6 +267,162 @@ final class CompactOperations {
     return dstWSeg; //if prelongs == 3 & curCount == 0, theta could be < 1.0. This can be read-only
   }
 
+  /**
+   * Writes the ordered compact form of the given sketch into the given MemorySegment, using the given
+   * scratch array to collect and sort the hash values instead of allocating.
+   * The result is the same as compact(true, dstWSeg).
+   * @param sketch the given sketch
+   * @param dstWSeg the destination MemorySegment
+   * @param scratch the caller's scratch array, overwritten
+   * @return the number of bytes written
+   */
+  static int compactInto(final ThetaSketch sketch, final MemorySegment dstWSeg, final long[] scratch) {
+    final long thetaLong = sketch.getThetaLong();
+    final int curCount = loadOrderedHashes(sketch, scratch);
+    return writeOrderedCompact(sketch, thetaLong, curCount, scratch, dstWSeg);
+  }
+
+  //Writes the ordered compact form from the hash values already loaded into the scratch array.
+  private static int writeOrderedCompact(final ThetaSketch sketch, final long thetaLong, final int curCount,
+      final long[] scratch, final MemorySegment dstWSeg) {
+    final boolean empty = sketch.isEmpty() || ((curCount == 0) && (thetaLong == Long.MAX_VALUE));
+    final boolean single = (curCount == 1) && (thetaLong == Long.MAX_VALUE);
+    final int preLongs = computeCompactPreLongs(empty, curCount, thetaLong);
+    int flags = READ_ONLY_FLAG_MASK | COMPACT_FLAG_MASK | ORDERED_FLAG_MASK;
+    flags |= empty ? EMPTY_FLAG_MASK : 0;
+    flags |= single ? SINGLEITEM_FLAG_MASK : 0;
+    loadCompactMemorySegment(scratch, sketch.getSeedHash(), curCount, thetaLong, dstWSeg, (byte)flags, preLongs);
+    return (preLongs + curCount) << 3;
+  }
+
+  /**
+   * Writes the compressed compact form of the given sketch into the given MemorySegment, using the given
+   * scratch array to collect, sort and delta encode the hash values instead of allocating.
+   * The result is the same as compact().toByteArrayCompressed(), which is never larger than the
+   * ordered compact form.
+   * @param sketch the given sketch
+   * @param dstWSeg the destination MemorySegment
+   * @param scratch the caller's scratch array, overwritten
+   * @return the number of bytes written
+   */
+  static int compactCompressedInto(final ThetaSketch sketch, final MemorySegment dstWSeg, final long[] scratch) {
+    final long thetaLong = sketch.getThetaLong();
+    final int curCount = loadOrderedHashes(sketch, scratch);
+    if ((curCount == 0) || ((curCount == 1) && (thetaLong == Long.MAX_VALUE))) {
+      //not compressible, same as toByteArrayCompressed()
+      return writeOrderedCompact(sketch, thetaLong, curCount, scratch, dstWSeg);
+    }
+    final int entryBits = deltaEncode(scratch, curCount);
+    final int outBytes = compressedBytes(curCount, entryBits, thetaLong);
+    if (outBytes > dstWSeg.byteSize()) {
+      throw new SketchesArgumentException("Insufficient Space in MemorySegment: " + dstWSeg.byteSize()
+        + ", Need: " + outBytes);
+    }
+    return writeCompressed(scratch, curCount, entryBits, thetaLong, sketch.getSeedHash(), dstWSeg);
+  }
+
+  /**
+   * Replaces the given ordered hash values with the deltas between them, in place.
+   * @param hashes the ordered hash values, overwritten with the deltas
+   * @param count the number of hash values
+   * @return the number of bits needed to hold the largest delta
+   */
+  static int deltaEncode(final long[] hashes, final int count) {
+    long previous = 0;
+    long ored = 0;
+    for (int i = 0; i < count; i++) {
+      final long hash = hashes[i];
+      hashes[i] = hash - previous;
+      ored |= hashes[i];
+      previous = hash;
+    }
+    return 64 - Long.numberOfLeadingZeros(ored);
+  }
+
+  /**
+   * Returns the size of the compressed (serial version 4) compact form.
+   * @param count the number of hash values
+   * @param entryBits the number of bits per delta, as returned by deltaEncode
+   * @param thetaLong the theta of the sketch
+   * @return the size in bytes
+   */
+  static int compressedBytes(final int count, final int entryBits, final long thetaLong) {
+    final int preLongs = thetaLong < Long.MAX_VALUE ? 2 : 1;
+    final int numEntriesBytes = wholeBytesToHoldBits(32 - Integer.numberOfLeadingZeros(count));
+    return (preLongs << 3) + numEntriesBytes + wholeBytesToHoldBits(entryBits * count);
+  }
+
+  /**
+   * Writes the compressed (serial version 4) compact form of a non-empty ordered sketch, which must fit
+   * in the given MemorySegment as given by compressedBytes.
+   * @param deltas the deltas between the ordered hash values, as returned by deltaEncode
+   * @param count the number of hash values
+   * @param entryBits the number of bits per delta
+   * @param thetaLong the theta of the sketch
+   * @param seedHash the seed hash of the sketch
+   * @param dstWSeg the destination MemorySegment
+   * @return the number of bytes written
+   */
+  static int writeCompressed(final long[] deltas, final int count, final int entryBits, final long thetaLong,
+      final short seedHash, final MemorySegment dstWSeg) {
+    final int offsetBytes = writeCompressedPreamble(count, entryBits, thetaLong, seedHash, dstWSeg);
+    return offsetBytes + BitPacking.packBitsStream(deltas, 0, count, dstWSeg, offsetBytes, entryBits);
+  }
+
+  /**
+   * Writes the preamble and the number of entries of the compressed (serial version 4) compact form.
+   * The packed deltas follow at the returned offset.
+   * @param count the number of hash values
+   * @param entryBits the number of bits per delta
+   * @param thetaLong the theta of the sketch
+   * @param seedHash the seed hash of the sketch
+   * @param dstWSeg the destination MemorySegment
+   * @return the number of bytes written
+   */
+  static int writeCompressedPreamble(final int count, final int entryBits, final long thetaLong,
+      final short seedHash, final MemorySegment dstWSeg) {
+    final boolean estimation = thetaLong < Long.MAX_VALUE;
+    final int numEntriesBytes = wholeBytesToHoldBits(32 - Integer.numberOfLeadingZeros(count));
+    int offsetBytes = 0;
+    dstWSeg.set(JAVA_BYTE, offsetBytes++, (byte) (estimation ? 2 : 1));
+    dstWSeg.set(JAVA_BYTE, offsetBytes++, (byte) 4);
+    dstWSeg.set(JAVA_BYTE, offsetBytes++, (byte) Family.COMPACT.getID());
+    dstWSeg.set(JAVA_BYTE, offsetBytes++, (byte) entryBits);
+    dstWSeg.set(JAVA_BYTE, offsetBytes++, (byte) numEntriesBytes);
+    dstWSeg.set(JAVA_BYTE, offsetBytes++, (byte) (COMPACT_FLAG_MASK | READ_ONLY_FLAG_MASK | ORDERED_FLAG_MASK));
+    dstWSeg.set(JAVA_SHORT_UNALIGNED, offsetBytes, seedHash);
+    offsetBytes += Short.BYTES;
+    if (estimation) {
+      dstWSeg.set(JAVA_LONG_UNALIGNED, offsetBytes, thetaLong);
+      offsetBytes += Long.BYTES;
+    }
+    int numEntries = count;
+    for (int i = 0; i < numEntriesBytes; i++) {
+      dstWSeg.set(JAVA_BYTE, offsetBytes++, (byte) (numEntries & 0xff));
+      numEntries >>>= 8;
+    }
+    return offsetBytes;
+  }
+
+  //Copies the valid hash values of the given sketch into the scratch array in ascending order.
+  private static int loadOrderedHashes(final ThetaSketch sketch, final long[] scratch) {
+    Objects.requireNonNull(scratch, "Scratch array must not be null");
+    final int count = sketch.getRetainedEntries(true);
+    if (count > scratch.length) {
+      throw new SketchesArgumentException("Scratch array too small: " + scratch.length + ", Need: " + count);
+    }
+    final HashIterator it = sketch.iterator();
+    int j = 0;
+    while ((j < count) && it.next()) { scratch[j++] = it.get(); }
+    if ((j != count) || it.next()) {
+      throw new SketchesStateException("Possible Corruption: retained entries count is incorrect.");
+    }
+    if (!sketch.isOrdered() && (count > 1)) {
+      Arrays.sort(scratch, 0, count);
+    }
+    return count;
+  }
+
   /**
    * Copies then compacts, cleans, and may sort the resulting array.
    * The source cache can be a hash table with interstitial zeros or
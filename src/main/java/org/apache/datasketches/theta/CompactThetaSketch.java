@@ -20,8 +20,6 @@
 package org.apache.datasketches.theta;
 
 import static java.lang.foreign.ValueLayout.JAVA_BYTE;
-import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
-import static java.lang.foreign.ValueLayout.JAVA_SHORT_UNALIGNED;
 import static org.apache.datasketches.common.Family.idToFamily;
 import static org.apache.datasketches.theta.PreambleUtil.COMPACT_FLAG_MASK;
 import static org.apache.datasketches.theta.PreambleUtil.EMPTY_FLAG_MASK;
@@ -337,56 +335,26 @@ public abstract class CompactThetaSketch extends ThetaSketch {
   }
 
   private byte[] toByteArrayV4() {
-    final int preambleLongs = isEstimationMode() ? 2 : 1;
+    final int count = getRetainedEntries();
     final int entryBits = 64 - computeMinLeadingZeros();
-    final int compressedBits = entryBits * getRetainedEntries();
-
-    // store num_entries as whole bytes since whole-byte blocks will follow (most probably)
-    final int numEntriesBytes = wholeBytesToHoldBits(32 - Integer.numberOfLeadingZeros(getRetainedEntries()));
-
-    final int sizeBytes = (preambleLongs * Long.BYTES) + numEntriesBytes + wholeBytesToHoldBits(compressedBits);
-    final byte[] bytes = new byte[sizeBytes];
+    final byte[] bytes = new byte[CompactOperations.compressedBytes(count, entryBits, getThetaLong())];
     final MemorySegment wseg = MemorySegment.ofArray(bytes);
-    int offsetBytes = 0;
-    wseg.set(JAVA_BYTE, offsetBytes++, (byte) preambleLongs);
-    wseg.set(JAVA_BYTE, offsetBytes++, (byte) 4); // to do: add constant
-    wseg.set(JAVA_BYTE, offsetBytes++, (byte) Family.COMPACT.getID());
-    wseg.set(JAVA_BYTE, offsetBytes++, (byte) entryBits);
-    wseg.set(JAVA_BYTE, offsetBytes++, (byte) numEntriesBytes);
-    wseg.set(JAVA_BYTE, offsetBytes++, (byte) (COMPACT_FLAG_MASK | READ_ONLY_FLAG_MASK | ORDERED_FLAG_MASK));
-    wseg.set(JAVA_SHORT_UNALIGNED, offsetBytes, getSeedHash());
-    offsetBytes += Short.BYTES;
-    if (isEstimationMode()) {
-      wseg.set(JAVA_LONG_UNALIGNED, offsetBytes, getThetaLong());
-      offsetBytes += Long.BYTES;
-    }
-    int numEntries = getRetainedEntries();
-    for (int i = 0; i < numEntriesBytes; i++) {
-      wseg.set(JAVA_BYTE, offsetBytes++, (byte) (numEntries & 0xff));
-      numEntries >>>= 8;
-    }
+    int offsetBytes = CompactOperations.writeCompressedPreamble(count, entryBits, getThetaLong(), getSeedHash(),
+        wseg);
+    // the deltas are packed a block of 8 at a time, which fills exactly entryBits whole bytes
+    final long[] block = new long[8];
+    int j = 0;
     long previous = 0;
-    final long[] deltas = new long[8];
     final HashIterator it = iterator();
-    int i;
-    for (i = 0; (i + 7) < getRetainedEntries(); i += 8) {
-      for (int j = 0; j < 8; j++) {
-        it.next();
-        deltas[j] = it.get() - previous;
-        previous = it.get();
-      }
-      BitPacking.packBitsBlock8(deltas, 0, bytes, offsetBytes, entryBits);
-      offsetBytes += entryBits;
-    }
-    int offsetBits = 0;
-    for (; i < getRetainedEntries(); i++) {
-      it.next();
-      final long delta = it.get() - previous;
+    while (it.next()) {
+      block[j++] = it.get() - previous;
       previous = it.get();
-      BitPacking.packBits(delta, entryBits, bytes, offsetBytes, offsetBits);
-      offsetBytes += (offsetBits + entryBits) >>> 3;
-      offsetBits = (offsetBits + entryBits) & 7;
+      if (j == block.length) {
+        offsetBytes += BitPacking.packBitsStream(block, 0, j, wseg, offsetBytes, entryBits);
+        j = 0;
+      }
     }
+    BitPacking.packBitsStream(block, 0, j, wseg, offsetBytes, entryBits);
     return bytes;
   }
 
@@ -407,14 +375,12 @@ public abstract class CompactThetaSketch extends ThetaSketch {
       numEntries |= Byte.toUnsignedInt(srcSeg.get(JAVA_BYTE, offsetBytes++)) << (i << 3);
     }
     final long[] entries = new long[numEntries];
-    final byte[] bytes = new byte[entryBits]; // temporary buffer for unpacking
-    int i;
-    for (i = 0; (i + 7) < numEntries; i += 8) {
-      MemorySegment.copy(srcSeg, JAVA_BYTE, offsetBytes, bytes, 0, entryBits);
-      BitPacking.unpackBitsBlock8(entries, i, bytes, 0, entryBits);
-      offsetBytes += entryBits;
-    }
+    final int numBlocks = numEntries >>> 3;
+    BitPacking.unpackBitsBlocks(entries, 0, numBlocks, srcSeg, offsetBytes, entryBits);
+    offsetBytes += numBlocks * entryBits;
+    int i = numBlocks << 3;
     if (i < numEntries) {
+      final byte[] bytes = new byte[entryBits]; // temporary buffer for unpacking
       MemorySegment.copy(srcSeg, JAVA_BYTE, offsetBytes, bytes, 0, wholeBytesToHoldBits((numEntries - i) * entryBits));
       int offsetBits = 0;
       offsetBytes = 0;
@@ -23,8 +23,6 @@ import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
 import static org.apache.datasketches.theta.PreambleUtil.THETA_LONG;
 
 import java.lang.foreign.MemorySegment;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.datasketches.common.ResizeFactor;
@@ -43,8 +41,11 @@ import org.apache.datasketches.common.SuppressFBWarnings;
 final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
     implements ConcurrentSharedThetaSketch {
 
-  // The propagation thread
-  private ExecutorService executorService_;
+  // The service that runs background propagation
+  private final ConcurrentPropagationService propagationService_;
+
+  // Runs the background propagation tasks of this sketch one at a time
+  private volatile ConcurrentPropagationService.PropagationQueue propagationQueue_;
 
   // A flag to coordinate between several eager propagation threads
   private final AtomicBoolean sharedPropagationInProgress_;
@@ -70,9 +71,11 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
    * @param seed       <a href="{@docRoot}/resources/dictionary.html#seed">See Update Hash Seed</a>.
    * @param maxConcurrencyError the max error value including error induced by concurrency.
    * @param dstSeg     the given MemorySegment object destination. It cannot be null.
+   * @param propagationService the service that runs background propagation
    */
   ConcurrentDirectQuickSelectSketch(final int lgNomLongs, final long seed,
-      final double maxConcurrencyError, final MemorySegment dstSeg) {
+      final double maxConcurrencyError, final MemorySegment dstSeg,
+      final ConcurrentPropagationService propagationService) {
     super(lgNomLongs, seed, 1.0F, //p
       ResizeFactor.X1, //rf,
       dstSeg,
@@ -85,11 +88,13 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
+    propagationService_ = propagationService;
     initBgPropagationService();
   }
 
   ConcurrentDirectQuickSelectSketch(final UpdatableThetaSketch sketch, final long seed,
-      final double maxConcurrencyError, final MemorySegment dstSeg) {
+      final double maxConcurrencyError, final MemorySegment dstSeg,
+      final ConcurrentPropagationService propagationService) {
     super(sketch.getLgNomLongs(), seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         dstSeg,
@@ -100,6 +105,7 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
+    propagationService_ = propagationService;
     initBgPropagationService();
     for (final long hashIn : sketch.getCache()) {
       propagate(hashIn);
@@ -190,19 +196,14 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
 
   @Override
   public void awaitBgPropagationTermination() {
-    try {
-      executorService_.shutdown();
-      while (!executorService_.awaitTermination(1, TimeUnit.MILLISECONDS)) {
-        Thread.sleep(1);
-      }
-    } catch (final InterruptedException e) {
-      e.printStackTrace();
-    }
+    propagationQueue_.awaitQuiescence();
   }
 
   @Override
   public void initBgPropagationService() {
-    executorService_ = ConcurrentPropagationService.getExecutorService(Thread.currentThread().threadId());
+    if (propagationQueue_ == null) {
+      propagationQueue_ = propagationService_.newQueue();
+    }
   }
 
   @Override
@@ -226,7 +227,7 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
     // otherwise, be nonblocking, let background thread do the work
     final ConcurrentBackgroundThetaPropagation job = new ConcurrentBackgroundThetaPropagation(
         this, localPropagationInProgress, sketchIn, singleHash, epoch);
-    executorService_.execute(job);
+    propagationQueue_.execute(job);
     return true;
   }
 
@@ -264,12 +265,10 @@ final class ConcurrentDirectQuickSelectSketch extends DirectQuickSelectSketch
   private void advanceEpoch() {
     awaitBgPropagationTermination();
     startEagerPropagation();
-    ConcurrentPropagationService.resetExecutorService(Thread.currentThread().threadId());
     // this increment of a volatile field is done within the scope of the propagation
     // synchronization and hence is done by a single thread.
     epoch_++;
     endPropagation(null, true);
-    initBgPropagationService();
   }
 
 }
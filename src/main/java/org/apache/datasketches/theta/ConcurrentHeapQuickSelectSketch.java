@@ -19,8 +19,6 @@
 
 package org.apache.datasketches.theta;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.datasketches.common.ResizeFactor;
@@ -39,8 +37,11 @@ import org.apache.datasketches.common.SuppressFBWarnings;
 final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
     implements ConcurrentSharedThetaSketch {
 
-  // The propagation thread
-  private volatile ExecutorService executorService_;
+  // The service that runs background propagation
+  private final ConcurrentPropagationService propagationService_;
+
+  // Runs the background propagation tasks of this sketch one at a time
+  private volatile ConcurrentPropagationService.PropagationQueue propagationQueue_;
 
   //A flag to coordinate between several eager propagation threads
   private final AtomicBoolean sharedPropagationInProgress_;
@@ -65,10 +66,10 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
    * @param lgNomLongs <a href="{@docRoot}/resources/dictionary.html#lgNomLogs">See lgNomLongs</a>.
    * @param seed       <a href="{@docRoot}/resources/dictionary.html#seed">See seed</a>
    * @param maxConcurrencyError the max error value including error induced by concurrency
-   *
+   * @param propagationService the service that runs background propagation
    */
   ConcurrentHeapQuickSelectSketch(final int lgNomLongs, final long seed,
-      final double maxConcurrencyError) {
+      final double maxConcurrencyError, final ConcurrentPropagationService propagationService) {
     super(lgNomLongs, seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         false); //unionGadget
@@ -79,11 +80,12 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
+    propagationService_ = propagationService;
     initBgPropagationService();
   }
 
   ConcurrentHeapQuickSelectSketch(final UpdatableThetaSketch sketch, final long seed,
-      final double maxConcurrencyError) {
+      final double maxConcurrencyError, final ConcurrentPropagationService propagationService) {
     super(sketch.getLgNomLongs(), seed, 1.0F, //p
         ResizeFactor.X1, //rf,
         false); //unionGadget
@@ -92,6 +94,7 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
         maxConcurrencyError);
     sharedPropagationInProgress_ = new AtomicBoolean(false);
     epoch_ = 0;
+    propagationService_ = propagationService;
     initBgPropagationService();
     for (final long hashIn : sketch.getCache()) {
       propagate(hashIn);
@@ -182,19 +185,14 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
 
   @Override
   public void awaitBgPropagationTermination() {
-    try {
-      executorService_.shutdown();
-      while (!executorService_.awaitTermination(1, TimeUnit.MILLISECONDS)) {
-        Thread.sleep(1);
-      }
-    } catch (final InterruptedException e) {
-      e.printStackTrace();
-    }
+    propagationQueue_.awaitQuiescence();
   }
 
   @Override
   public void initBgPropagationService() {
-    executorService_ = ConcurrentPropagationService.getExecutorService(Thread.currentThread().threadId());
+    if (propagationQueue_ == null) {
+      propagationQueue_ = propagationService_.newQueue();
+    }
   }
 
   @Override
@@ -218,7 +216,7 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
     // otherwise, be nonblocking, let background thread do the work
     final ConcurrentBackgroundThetaPropagation job = new ConcurrentBackgroundThetaPropagation(
         this, localPropagationInProgress, sketchIn, singleHash, epoch);
-    executorService_.execute(job);
+    propagationQueue_.execute(job);
     return true;
   }
 
@@ -254,13 +252,11 @@ final class ConcurrentHeapQuickSelectSketch extends HeapQuickSelectSketch
   private void advanceEpoch() {
     awaitBgPropagationTermination();
     startEagerPropagation();
-    ConcurrentPropagationService.resetExecutorService(Thread.currentThread().threadId());
     // this increment of a volatile field is done within the scope of the propagation
     // synchronization and hence is done by a single thread
     // Ignore the SpotBugs warnings
     epoch_++;
     endPropagation(null, true);
-    initBgPropagationService();
   }
 
 }
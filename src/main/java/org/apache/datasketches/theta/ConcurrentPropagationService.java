@@ -19,53 +19,301 @@
 
 package org.apache.datasketches.theta;
 
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-import org.apache.datasketches.common.SuppressFBWarnings;
+import org.apache.datasketches.common.SketchesArgumentException;
 
 /**
- * Pool of threads to serve <i>all</i> propagation tasks in the system.
+ * Runs the background propagation tasks of concurrent shared theta sketches on an Executor.
+ *
+ * <p>The propagation tasks of any one shared sketch are run one at a time and in order, because a shared
+ * sketch absorbs propagated data without locking. The tasks of different shared sketches may run in
+ * parallel, so a service backed by a pool of <i>n</i> threads, or by a virtual thread per task, lets
+ * up to <i>n</i>, or all, shared sketches propagate at once.</p>
+ *
+ * <p>A service is created in one of three ways:</p>
+ * <ul>
+ * <li>{@link #ConcurrentPropagationService(Executor)} runs the tasks on a caller supplied Executor,
+ * which the service never shuts down.</li>
+ * <li>{@link #ofThreadPool(int)} and {@link #ofVirtualThreads()} run the tasks on an Executor owned by
+ * the service, which is shut down by {@link #shutdown()}.</li>
+ * <li>{@link #getDefault()} is the service used by shared sketches built without one. It owns a pool of
+ * three daemon threads.</li>
+ * </ul>
+ *
+ * <p>After {@link #shutdown()} no further task is handed to the Executor. Tasks already queued are still
+ * run, and any propagation requested later runs on the calling thread, so no update is lost.</p>
+ *
+ * <p>The service keeps simple metrics of the queue depth and of the propagation latency, which is the time
+ * from the submission of a task to its completion, including the time spent waiting in the queue.</p>
  *
  * @author Eshcar Hillel
  */
-final class ConcurrentPropagationService {
+public final class ConcurrentPropagationService implements AutoCloseable {
 
-  static int NUM_POOL_THREADS = 3; // Default: 3 threads
-  private static volatile ConcurrentPropagationService instance = null; // Singleton
-  private static ExecutorService[] propagationExecutorService = null;
+  static final int NUM_POOL_THREADS = 3; // Default: 3 threads
+  // Max tasks a shared sketch runs before it yields its thread to the tasks of other sketches
+  private static final int MAX_TASKS_PER_DISPATCH = 64;
+  private static volatile ConcurrentPropagationService defaultService = null;
+
+  private final Executor executor_;
+  private final ExecutorService ownedExecutor_; //null if the executor was supplied by the caller
+  private volatile boolean shutdown_;
+  private final LongAdder queueDepth_ = new LongAdder();
+  private final LongAdder completed_ = new LongAdder();
+  private final LongAdder totalLatencyNanos_ = new LongAdder();
+  private final AtomicLong maxLatencyNanos_ = new AtomicLong();
+
+  /**
+   * Creates a service that runs propagation tasks on the given Executor. The Executor remains owned by
+   * the caller and is not shut down by this service.
+   * @param executor the given Executor
+   */
+  public ConcurrentPropagationService(final Executor executor) {
+    this(Objects.requireNonNull(executor, "Executor must not be null"), null);
+  }
 
-  @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "Fix later")
-  private ConcurrentPropagationService() {
-    propagationExecutorService = new ExecutorService[NUM_POOL_THREADS];
+  private ConcurrentPropagationService(final Executor executor, final ExecutorService ownedExecutor) {
+    executor_ = executor;
+    ownedExecutor_ = ownedExecutor;
   }
 
-  //Factory: Get the singleton
-  private static ConcurrentPropagationService getInstance() {
-    if (instance == null) {
+  /**
+   * Creates a service that owns a fixed pool of the given number of daemon threads.
+   * @param numThreads the number of threads, which must be at least one
+   * @return a new service
+   */
+  public static ConcurrentPropagationService ofThreadPool(final int numThreads) {
+    if (numThreads < 1) {
+      throw new SketchesArgumentException("Number of pool threads must be at least 1: " + numThreads);
+    }
+    final ThreadFactory factory = r -> {
+      final Thread t = Executors.defaultThreadFactory().newThread(r);
+      t.setDaemon(true);
+      return t;
+    };
+    final ExecutorService pool = Executors.newFixedThreadPool(numThreads, factory);
+    return new ConcurrentPropagationService(pool, pool);
+  }
+
+  /**
+   * Creates a service that owns an Executor that starts a new virtual thread for each propagation task.
+   * @return a new service
+   */
+  public static ConcurrentPropagationService ofVirtualThreads() {
+    final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    return new ConcurrentPropagationService(executor, executor);
+  }
+
+  /**
+   * Gets the service used by shared sketches that are built without one, creating it on first use.
+   * @return the default service
+   */
+  public static ConcurrentPropagationService getDefault() {
+    if (defaultService == null) {
       synchronized (ConcurrentPropagationService.class) {
-        if (instance == null) {
-          instance = new ConcurrentPropagationService(); //SpotBugs: SSD_DO_NOT_USE_INSTANCE_LOCK_ON_SHARED_STATIC_DATA
+        if (defaultService == null) {
+          defaultService = ofThreadPool(NUM_POOL_THREADS);
         }
       }
     }
-    return instance;
+    return defaultService;
   }
 
-  public static ExecutorService getExecutorService(final long id) {
-    return getInstance().initExecutorService((int) id % NUM_POOL_THREADS);
+  /**
+   * Gets the number of propagation tasks that have been submitted but have not yet completed.
+   * @return the current queue depth
+   */
+  public long getQueueDepth() {
+    return queueDepth_.sum();
   }
 
-  @SuppressWarnings("static-access")
-  public static ExecutorService resetExecutorService(final long id) {
-    return getInstance().propagationExecutorService[(int) id % NUM_POOL_THREADS] = null;
+  /**
+   * Gets the number of propagation tasks completed since this service was created.
+   * @return the number of completed propagation tasks
+   */
+  public long getCompletedPropagations() {
+    return completed_.sum();
   }
 
-  @SuppressWarnings("static-method")
-  private ExecutorService initExecutorService(final int i) {
-    if (propagationExecutorService[i] == null) {
-      propagationExecutorService[i] = Executors.newSingleThreadExecutor();
+  /**
+   * Gets the mean time in nanoseconds from the submission of a propagation task to its completion.
+   * @return the mean propagation latency in nanoseconds, or zero if no task has completed
+   */
+  public double getMeanPropagationLatencyNanos() {
+    final long completed = completed_.sum();
+    return completed == 0 ? 0 : (double) totalLatencyNanos_.sum() / completed;
+  }
+
+  /**
+   * Gets the longest time in nanoseconds from the submission of a propagation task to its completion.
+   * @return the maximum propagation latency in nanoseconds, or zero if no task has completed
+   */
+  public long getMaxPropagationLatencyNanos() {
+    return maxLatencyNanos_.get();
+  }
+
+  /**
+   * Returns true if {@link #shutdown()} has been called.
+   * @return true if {@link #shutdown()} has been called.
+   */
+  public boolean isShutdown() {
+    return shutdown_;
+  }
+
+  /**
+   * Stops handing propagation tasks to the Executor and, if the Executor is owned by this service, shuts
+   * it down once the tasks already queued have run. Propagations requested after this call run on the
+   * calling thread.
+   */
+  public void shutdown() {
+    shutdown_ = true;
+    if (ownedExecutor_ != null) { ownedExecutor_.shutdown(); }
+    synchronized (ConcurrentPropagationService.class) {
+      if (defaultService == this) { defaultService = null; }
+    }
+  }
+
+  /**
+   * Waits until every submitted propagation task has completed and, if the Executor is owned by this
+   * service, it has terminated. This should be called after {@link #shutdown()}.
+   * @param timeout the maximum time to wait
+   * @param unit the unit of the timeout
+   * @return true if the service terminated, false if the timeout elapsed first
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (getQueueDepth() > 0) {
+      if (System.nanoTime() - deadline >= 0) { return false; }
+      Thread.sleep(1);
+    }
+    if (ownedExecutor_ == null) { return true; }
+    return ownedExecutor_.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Shuts down this service and waits for it to terminate.
+   */
+  @Override
+  public void close() {
+    shutdown();
+    try {
+      while (!awaitTermination(1, TimeUnit.SECONDS)) { /* keep waiting */ }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Creates a new queue through which a shared sketch submits its propagation tasks.
+   * @return a new queue
+   */
+  PropagationQueue newQueue() {
+    return new PropagationQueue();
+  }
+
+  private void dispatch(final Runnable drain) {
+    if (!shutdown_) {
+      try {
+        executor_.execute(drain);
+        return;
+      } catch (final RejectedExecutionException e) {
+        //the executor is no longer accepting tasks, fall through and run on the calling thread
+      }
+    }
+    drain.run();
+  }
+
+  private void recordCompletion(final long submitNanos) {
+    final long latency = System.nanoTime() - submitNanos;
+    totalLatencyNanos_.add(latency);
+    maxLatencyNanos_.accumulateAndGet(latency, Math::max);
+    completed_.increment();
+    queueDepth_.decrement();
+  }
+
+  /**
+   * Runs the propagation tasks of one shared sketch one at a time, in submission order, on the Executor
+   * of the enclosing service.
+   */
+  final class PropagationQueue implements Executor {
+    private final ArrayDeque<Runnable> tasks_ = new ArrayDeque<>();
+    private boolean running_; //guarded by this
+
+    @Override
+    public void execute(final Runnable task) {
+      final long submitNanos = System.nanoTime();
+      queueDepth_.increment();
+      final boolean start;
+      synchronized (this) {
+        tasks_.add(() -> {
+          try {
+            task.run();
+          } finally {
+            recordCompletion(submitNanos);
+          }
+        });
+        start = !running_;
+        running_ = true;
+      }
+      if (start) { dispatch(this::drain); }
+    }
+
+    /**
+     * Waits until every task submitted to this queue has completed.
+     */
+    synchronized void awaitQuiescence() {
+      boolean interrupted = false;
+      while (running_) {
+        try {
+          wait();
+        } catch (final InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) { Thread.currentThread().interrupt(); }
+    }
+
+    private void drain() {
+      try {
+        for (int i = 0; shutdown_ || (i < MAX_TASKS_PER_DISPATCH); i++) {
+          final Runnable task;
+          synchronized (this) {
+            task = tasks_.poll();
+            if (task == null) {
+              running_ = false;
+              notifyAll();
+              return;
+            }
+          }
+          task.run();
+        }
+      } catch (final RuntimeException | Error e) {
+        continueOrStop();
+        throw e;
+      }
+      continueOrStop();
+    }
+
+    private void continueOrStop() {
+      synchronized (this) {
+        if (tasks_.isEmpty()) {
+          running_ = false;
+          notifyAll();
+          return;
+        }
+      }
+      dispatch(this::drain);
     }
-    return propagationExecutorService[i];
   }
 }
@@ -70,12 +70,12 @@ interface ConcurrentSharedThetaSketch extends MemorySegmentStatus {
   long getVolatileTheta();
 
   /**
-   * Awaits termination of background (lazy) propagation tasks
+   * Awaits completion of the background (lazy) propagation tasks submitted so far
    */
   void awaitBgPropagationTermination();
 
   /**
-   * Init background (lazy) propagation service
+   * Init background (lazy) propagation service, if not already initialized
    */
   void initBgPropagationService();
 
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.Util;
+
+/**
+ * A Theta union that accepts concurrent {@link #union(ThetaSketch)} calls from many threads.
+ *
+ * <p>The union is split into a power of 2 number of stripes, each an ordinary ThetaUnion guarded by its own
+ * lock. A thread merges into the stripe assigned to it, or into the next stripe that is not locked, so threads
+ * rarely wait for each other. An input image is wrapped before any lock is taken.
+ * The smallest theta of all the stripes is shared, and every stripe lowers its own theta to it before a merge,
+ * so that hashes that can no longer be part of the result are not inserted anywhere.</p>
+ *
+ * <p>{@link #getResult()} locks all the stripes at once, takes their partial results, and merges them with
+ * the k-way merge of {@link ThetaUnion#unionAll(Iterable, boolean, MemorySegment)}. The result is therefore a
+ * consistent snapshot: it includes every union call that completed before it was taken, and includes each call
+ * running at the same time either entirely or not at all.</p>
+ *
+ * <p>The result is the same as the result of one ThetaUnion of exactly those sketches, with the same retained
+ * entries and theta, even in estimation mode. A ThetaUnion result holds the k smallest hashes below the
+ * smallest theta of its inputs, and the k smallest hashes of all the stripes are always among the k smallest
+ * hashes that each stripe retains. So this does not depend on how the sketches were spread over the stripes,
+ * nor on the order in which they were merged.</p>
+ *
+ * <p>Each stripe is a full ThetaUnion of the configured nominal entries, so the memory is the number of
+ * stripes times that of one ThetaUnion. Use {@link ThetaSetOperationBuilder#buildConcurrentUnion()} or
+ * {@link ThetaSetOperationBuilder#buildConcurrentUnion(int)} to create one.</p>
+ */
+public final class ConcurrentThetaUnion {
+  private final long seed_;
+  private final ThetaUnionImpl[] stripes_;
+  private final ReentrantLock[] locks_;
+  private final int mask_;
+  private final ThetaUnion merger_; //only its stateless unionAll is used
+  private final AtomicLong thetaLong_ = new AtomicLong(Long.MAX_VALUE); //smallest theta of the stripes
+
+  ConcurrentThetaUnion(final int lgNomLongs, final long seed, final float p, final ResizeFactor rf,
+      final int numStripes) {
+    if ((numStripes < 1) || !Util.isPowerOf2(numStripes)) {
+      throw new SketchesArgumentException("numStripes must be a positive power of 2: " + numStripes);
+    }
+    seed_ = seed;
+    stripes_ = new ThetaUnionImpl[numStripes];
+    locks_ = new ReentrantLock[numStripes];
+    for (int i = 0; i < numStripes; i++) {
+      stripes_[i] = ThetaUnionImpl.initNewHeapInstance(lgNomLongs, seed, p, rf);
+      locks_[i] = new ReentrantLock();
+    }
+    mask_ = numStripes - 1;
+    merger_ = ThetaUnionImpl.initNewHeapInstance(lgNomLongs, seed, p, rf);
+  }
+
+  /**
+   * Merges the given sketch into this union. This may be called by many threads at once.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param sketchIn the given sketch
+   */
+  public void union(final ThetaSketch sketchIn) {
+    if ((sketchIn == null) || sketchIn.isEmpty()) { return; }
+    final int index = lockStripe();
+    try {
+      final ThetaUnionImpl stripe = stripes_[index];
+      stripe.lowerUnionThetaLong(thetaLong_.get());
+      stripe.union(sketchIn);
+      final long thetaLong = stripe.getThetaLong();
+      if (thetaLong < thetaLong_.get()) { thetaLong_.accumulateAndGet(thetaLong, Math::min); }
+    } finally {
+      locks_[index].unlock();
+    }
+  }
+
+  /**
+   * Merges the given MemorySegment image of a sketch of the Theta Family into this union. The image is
+   * wrapped read-only. This may be called by many threads at once.
+   *
+   * @param seg the given MemorySegment image
+   */
+  public void union(final MemorySegment seg) {
+    Objects.requireNonNull(seg, "MemorySegment must be non-null");
+    union(ThetaSketch.wrap(seg.asReadOnly(), seed_));
+  }
+
+  /**
+   * Returns a snapshot of this union as an ordered CompactThetaSketch on the heap.
+   * @return a snapshot of this union
+   */
+  public CompactThetaSketch getResult() {
+    return getResult(true, null);
+  }
+
+  /**
+   * Returns a snapshot of this union.
+   * @param dstOrdered If true, the returned CompactThetaSketch will be ordered.
+   * @param dstSeg If not null, the returned CompactThetaSketch will be placed in this MemorySegment.
+   * @return a snapshot of this union
+   */
+  public CompactThetaSketch getResult(final boolean dstOrdered, final MemorySegment dstSeg) {
+    final List<CompactThetaSketch> partials = new ArrayList<>(stripes_.length);
+    lockAll();
+    try {
+      for (final ThetaUnionImpl stripe : stripes_) { partials.add(stripe.getResult(true, null)); }
+    } finally {
+      unlockAll();
+    }
+    return merger_.unionAll(partials, dstOrdered, dstSeg);
+  }
+
+  /**
+   * Resets this union to empty. This waits for the running union calls to complete.
+   */
+  public void reset() {
+    lockAll();
+    try {
+      for (final ThetaUnionImpl stripe : stripes_) { stripe.reset(); }
+      thetaLong_.set(Long.MAX_VALUE);
+    } finally {
+      unlockAll();
+    }
+  }
+
+  /**
+   * Returns the number of stripes of this union.
+   * @return the number of stripes of this union
+   */
+  public int getNumStripes() {
+    return stripes_.length;
+  }
+
+  //Locks the stripe of this thread, or the next one that is free, or waits for the one of this thread
+  private int lockStripe() {
+    final long id = Thread.currentThread().threadId();
+    final int home = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask_;
+    for (int i = 0; i <= mask_; i++) {
+      final int index = (home + i) & mask_;
+      if (locks_[index].tryLock()) { return index; }
+    }
+    locks_[home].lock();
+    return home;
+  }
+
+  private void lockAll() {
+    for (final ReentrantLock lock : locks_) { lock.lock(); } //always in index order
+  }
+
+  private void unlockAll() {
+    for (final ReentrantLock lock : locks_) { lock.unlock(); }
+  }
+
+}
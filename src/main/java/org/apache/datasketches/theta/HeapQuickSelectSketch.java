@@ -38,6 +38,7 @@ import static org.apache.datasketches.theta.UpdateReturnState.RejectedDuplicate;
 import static org.apache.datasketches.theta.UpdateReturnState.RejectedOverTheta;
 
 import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
@@ -49,6 +50,14 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * @author Kevin Lang
  */
 class HeapQuickSelectSketch extends HeapUpdateSketch {
+  /** The number of hash table slots scanned or migrated per update while an incremental rebuild is running. */
+  static final int INCREMENTAL_WORK = 64;
+  private static final int MAX_LG_BUCKETS = 16;
+  private static final int IDLE = 0;    //no incremental rebuild is running
+  private static final int COUNT = 1;   //counting the hashes per bucket
+  private static final int COLLECT = 2; //collecting the hashes of the bucket of the new theta
+  private static final int MIGRATE = 3; //moving the hashes of the old table into the new table
+
   private final Family MY_FAMILY;
 
   private final int preambleLongs_;
@@ -60,11 +69,29 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
 
   private long[] cache_;
 
+  //Incremental rebuild state, see incrementalHashUpdate()
+  private final boolean incremental_;
+  private int phase_;
+  private int scanIndex_;
+  private long[] oldCache_;
+  private int oldLgArrLongs_;
+  private long[] spare_; //the retired table of the last rebuild, zeroed while the next one selects its theta
+  private int spareZeroed_;
+  private int[] buckets_;
+  private int bucketShift_;
+  private int targetBucket_;
+  private int rankInBucket_;
+  private long[] bucket_; //reused by the next rebuild if large enough
+  private int bucketCount_;
+  private long[] recent_; //inserted while collecting, reused by the next rebuild
+  private int recentCount_;
+
   private HeapQuickSelectSketch(final int lgNomLongs, final long seed, final float p,
       final ResizeFactor rf, final int preambleLongs, final Family family) {
     super(lgNomLongs, seed, p, rf);
     preambleLongs_ = preambleLongs;
     MY_FAMILY = family;
+    incremental_ = false;
   }
 
   /**
@@ -79,7 +106,25 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
    */
   HeapQuickSelectSketch(final int lgNomLongs, final long seed, final float p,
       final ResizeFactor rf, final boolean unionGadget) {
+    this(lgNomLongs, seed, p, rf, unionGadget, false);
+  }
+
+  /**
+   * Construct a new sketch instance on the java heap.
+   *
+   * @param lgNomLongs <a href="{@docRoot}/resources/dictionary.html#lgNomLogs">See lgNomLongs</a>.
+   * @param seed <a href="{@docRoot}/resources/dictionary.html#seed">See seed</a>
+   * @param p <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability, <i>p</i></a>
+   * @param rf <a href="{@docRoot}/resources/dictionary.html#resizeFactor">See Resize Factor</a>
+   * @param unionGadget true if this sketch is implementing the ThetaUnion gadget function.
+   * Otherwise, it is behaving as a normal QuickSelectThetaSketch.
+   * @param incrementalRebuild true if resizes and rebuilds are spread over the following updates
+   * instead of being done by the update that fills the hash table.
+   */
+  HeapQuickSelectSketch(final int lgNomLongs, final long seed, final float p,
+      final ResizeFactor rf, final boolean unionGadget, final boolean incrementalRebuild) {
     super(lgNomLongs, seed, p, rf);
+    incremental_ = incrementalRebuild;
 
     //Choose family, preambleLongs
     if (unionGadget) {
@@ -165,7 +210,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
 
   @Override
   public HashIterator iterator() {
-    return new HeapHashIterator(cache_, thetaLong_);
+    return new HeapHashIterator(getCache(), thetaLong_);
   }
 
   @Override
@@ -177,6 +222,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
 
   @Override
   public UpdatableThetaSketch rebuild() {
+    completeIncrementalRebuild();
     if (getRetainedEntries(true) > (1 << getLgNomLongs())) {
       quickSelectAndRebuild();
     }
@@ -185,6 +231,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
 
   @Override
   public void reset() {
+    abandonIncrementalRebuild();
     final ResizeFactor rf = getResizeFactor();
     final int lgArrLongsSM = ThetaUtil.startingSubMultiple(lgNomLongs_ + 1, rf.lg(), ThetaUtil.MIN_LG_ARR_LONGS);
     if (lgArrLongsSM == lgArrLongs_) {
@@ -206,6 +253,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
 
   @Override
   long[] getCache() {
+    if (phase_ == MIGRATE) { completeIncrementalRebuild(); }
     return cache_;
   }
 
@@ -233,6 +281,7 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
   UpdateReturnState hashUpdate(final long hash) {
     HashOperations.checkHashCorruption(hash);
     empty_ = false;
+    if (incremental_) { return incrementalHashUpdate(hash); }
 
     //The over-theta test
     if (HashOperations.continueCondition(thetaLong_, hash)) {
@@ -305,6 +354,217 @@ class HeapQuickSelectSketch extends HeapUpdateSketch {
     //hashTableThreshold stays the same
   }
 
+  //Incremental rebuild
+
+  /*
+   * An incremental rebuild never changes what the sketch represents in one large step. It selects the new theta
+   * from a histogram of the hashes in the live table, which takes two passes over the table, then moves the
+   * hashes below the new theta into a second table. Each update scans or moves INCREMENTAL_WORK slots.
+   *
+   * The selection starts early enough that it completes before the table reaches the rebuild threshold. Until
+   * it completes, updates keep inserting into the live table, and the table and theta are unchanged, so every
+   * query sees a valid sketch. The new theta is the (k+1)th smallest hash at the end of the COUNT pass, which is
+   * the theta that a QuickSelect rebuild at that moment would choose. The counts of the hashes inserted behind
+   * the COUNT scan are added to the histogram as they arrive, and the hashes inserted during the COLLECT pass
+   * are excluded from the selection.
+   *
+   * Once theta is lowered, the sketch holds the hashes below theta in the new table and in the not yet migrated
+   * part of the old table. Any access to the cache completes the migration first, which doesn't change the
+   * theta or the count. A resize is a migration into a larger table with the same theta.
+   */
+  private UpdateReturnState incrementalHashUpdate(final long hash) {
+    UpdateReturnState state = InsertedCountIncremented;
+    if (HashOperations.continueCondition(thetaLong_, hash)) {
+      state = RejectedOverTheta;
+    } else if (phase_ == MIGRATE) {
+      if ((HashOperations.hashSearch(oldCache_, oldLgArrLongs_, hash) >= 0)
+          || (HashOperations.hashSearchOrInsert(cache_, lgArrLongs_, hash) >= 0)) {
+        state = RejectedDuplicate;
+      }
+    } else {
+      final int index = HashOperations.hashSearchOrInsert(cache_, lgArrLongs_, hash);
+      if (index >= 0) {
+        state = RejectedDuplicate;
+      } else if (phase_ == COUNT) {
+        if (-(index + 1) < scanIndex_) { buckets_[(int) (hash >>> bucketShift_)]++; } //behind the scan
+      } else if (phase_ == COLLECT) {
+        if (recentCount_ == recent_.length) { recent_ = Arrays.copyOf(recent_, recentCount_ * 2); }
+        recent_[recentCount_++] = hash;
+      }
+    }
+    if (state == InsertedCountIncremented) { curCount_++; }
+    if (phase_ != IDLE) { incrementalStep(INCREMENTAL_WORK); } //may lower theta and recount
+    if (state != InsertedCountIncremented) { return state; }
+
+    if (phase_ != IDLE) {
+      if (!isOutOfSpace(curCount_)) { return state; }
+      completeIncrementalRebuild(); //the incremental work did not keep up
+      state = InsertedCountIncrementedRebuilt;
+    }
+    if (lgArrLongs_ <= lgNomLongs_) {
+      if (isOutOfSpace(curCount_)) {
+        startIncrementalResize();
+        return InsertedCountIncrementedResized;
+      }
+    } else if (curCount_ > incrementalRebuildStart()) {
+      startIncrementalRebuild();
+    }
+    return state;
+  }
+
+  /**
+   * Returns the count above which an incremental rebuild starts, so that its two selection passes complete
+   * before the count reaches the rebuild threshold.
+   */
+  private int incrementalRebuildStart() {
+    final int updates = ((2 << lgArrLongs_) + INCREMENTAL_WORK - 1) / INCREMENTAL_WORK;
+    return max(hashTableThreshold_ - updates, (1 << lgNomLongs_) + 1);
+  }
+
+  private void startIncrementalRebuild() {
+    final int lgBuckets = min(lgNomLongs_, MAX_LG_BUCKETS);
+    if ((buckets_ == null) || (buckets_.length != (1 << lgBuckets))) { buckets_ = new int[1 << lgBuckets]; }
+    else { Arrays.fill(buckets_, 0); }
+    final int thetaBits = Long.SIZE - Long.numberOfLeadingZeros(thetaLong_ - 1); //all hashes are < theta
+    bucketShift_ = max(0, thetaBits - lgBuckets);
+    scanIndex_ = 0;
+    phase_ = COUNT;
+  }
+
+  private void startIncrementalResize() {
+    final int lgMaxArrLongs = lgNomLongs_ + 1;
+    final int lgResizeFactor = max(min(getResizeFactor().lg(), lgMaxArrLongs - lgArrLongs_), 1);
+    oldCache_ = cache_;
+    oldLgArrLongs_ = lgArrLongs_;
+    lgArrLongs_ += lgResizeFactor;
+    cache_ = new long[1 << lgArrLongs_];
+    hashTableThreshold_ = getHashTableThreshold(lgNomLongs_, lgArrLongs_);
+    scanIndex_ = 0;
+    phase_ = MIGRATE;
+  }
+
+  /**
+   * Scans or migrates up to the given number of slots of the current phase.
+   */
+  private void incrementalStep(final int budget) {
+    switch (phase_) {
+      case COUNT: {
+        final int end = (int) min((long) scanIndex_ + budget, cache_.length);
+        for (int i = scanIndex_; i < end; i++) {
+          final long hash = cache_[i];
+          if (hash != 0) { buckets_[(int) (hash >>> bucketShift_)]++; }
+        }
+        scanIndex_ = end;
+        zeroSpare(budget);
+        if (end == cache_.length) { chooseBucket(); }
+        break;
+      }
+      case COLLECT: {
+        final int end = (int) min((long) scanIndex_ + budget, cache_.length);
+        for (int i = scanIndex_; i < end; i++) {
+          final long hash = cache_[i];
+          if ((hash != 0) && ((int) (hash >>> bucketShift_) == targetBucket_)) {
+            if (bucketCount_ == bucket_.length) { bucket_ = Arrays.copyOf(bucket_, bucketCount_ * 2); }
+            bucket_[bucketCount_++] = hash;
+          }
+        }
+        scanIndex_ = end;
+        zeroSpare(budget);
+        if (end == cache_.length) { lowerTheta(); }
+        break;
+      }
+      case MIGRATE: {
+        final int end = (int) min((long) scanIndex_ + budget, oldCache_.length);
+        for (int i = scanIndex_; i < end; i++) {
+          final long hash = oldCache_[i];
+          if ((hash != 0) && (hash < thetaLong_)) { HashOperations.hashInsertOnly(cache_, lgArrLongs_, hash); }
+        }
+        scanIndex_ = end;
+        if (end == oldCache_.length) { finishMigration(); }
+        break;
+      }
+      default: break;
+    }
+  }
+
+  private void zeroSpare(final int budget) {
+    if ((spare_ != null) && (spareZeroed_ < spare_.length)) {
+      final int end = (int) min((long) spareZeroed_ + budget, spare_.length);
+      Arrays.fill(spare_, spareZeroed_, end, 0L);
+      spareZeroed_ = end;
+    }
+  }
+
+  //Finds the bucket of the (k+1)th smallest hash
+  private void chooseBucket() {
+    final int rank = 1 << lgNomLongs_; //zero based
+    int cum = 0;
+    int b = 0;
+    while ((cum + buckets_[b]) <= rank) { cum += buckets_[b++]; }
+    targetBucket_ = b;
+    rankInBucket_ = rank - cum;
+    if ((bucket_ == null) || (bucket_.length <= buckets_[b])) { bucket_ = new long[buckets_[b] + 1]; }
+    bucketCount_ = 0;
+    if (recent_ == null) { recent_ = new long[16]; } //kept at its largest size for the next rebuild
+    recentCount_ = 0;
+    scanIndex_ = 0;
+    phase_ = COLLECT;
+  }
+
+  //Selects the new theta, then starts migrating into the spare or a new table
+  private void lowerTheta() {
+    Arrays.sort(bucket_, 0, bucketCount_);
+    int count = bucketCount_;
+    for (int i = 0; i < recentCount_; i++) { //remove the hashes that were inserted after the COUNT pass
+      final long hash = recent_[i];
+      if ((int) (hash >>> bucketShift_) != targetBucket_) { continue; }
+      final int index = Arrays.binarySearch(bucket_, 0, count, hash);
+      if (index >= 0) {
+        System.arraycopy(bucket_, index + 1, bucket_, index, count - index - 1);
+        count--;
+      }
+    }
+    final long newThetaLong = bucket_[rankInBucket_];
+    int newCount = 1 << lgNomLongs_;
+    for (int i = 0; i < recentCount_; i++) {
+      if (recent_[i] < newThetaLong) { newCount++; }
+    }
+    final long[] tgtArr;
+    if ((spare_ != null) && (spare_.length == cache_.length)) {
+      zeroSpare(spare_.length);
+      tgtArr = spare_;
+    } else {
+      tgtArr = new long[cache_.length];
+    }
+    spare_ = null;
+    oldCache_ = cache_;
+    oldLgArrLongs_ = lgArrLongs_;
+    cache_ = tgtArr;
+    thetaLong_ = newThetaLong;
+    curCount_ = newCount;
+    scanIndex_ = 0;
+    phase_ = MIGRATE;
+  }
+
+  private void finishMigration() {
+    if (oldCache_.length == cache_.length) {
+      spare_ = oldCache_;
+      spareZeroed_ = 0;
+    }
+    oldCache_ = null;
+    phase_ = IDLE;
+  }
+
+  private void completeIncrementalRebuild() {
+    while (phase_ != IDLE) { incrementalStep(Integer.MAX_VALUE); }
+  }
+
+  private void abandonIncrementalRebuild() {
+    phase_ = IDLE;
+    oldCache_ = null;
+    spareZeroed_ = 0;
+  }
+
   /**
    * Returns the cardinality limit given the current size of the hash table array.
    *
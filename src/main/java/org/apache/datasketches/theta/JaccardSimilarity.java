@@ -21,11 +21,14 @@ package org.apache.datasketches.theta;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static org.apache.datasketches.common.Util.LONG_MAX_VALUE_AS_DOUBLE;
 import static org.apache.datasketches.common.Util.ceilingPowerOf2;
 import static org.apache.datasketches.thetacommon.BoundsOnRatiosInThetaSketchedSets.getEstimateOfBoverA;
 import static org.apache.datasketches.thetacommon.BoundsOnRatiosInThetaSketchedSets.getLowerBoundForBoverA;
 import static org.apache.datasketches.thetacommon.BoundsOnRatiosInThetaSketchedSets.getUpperBoundForBoverA;
 
+import org.apache.datasketches.common.BoundsOnRatiosInSampledSets;
+import org.apache.datasketches.common.Util;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -68,6 +71,9 @@ public final class JaccardSimilarity {
     final int minK = 1 << ThetaUtil.MIN_LG_NOM_LONGS;
     final int maxK = 1 << ThetaUtil.MAX_LG_NOM_LONGS;
     final int newK = max(min(ceilingPowerOf2(countA + countB), maxK), minK);
+    if (OrderedMergeOperations.isOrdered(sketchA, sketchB)) {
+      return orderedJaccard(sketchA, sketchB, countA, countB, newK);
+    }
     final ThetaUnion union =
         ThetaSetOperation.builder().setNominalEntries(newK).buildUnion();
     union.union(sketchA);
@@ -97,6 +103,37 @@ public final class JaccardSimilarity {
     return new double[] {lb, est, ub};
   }
 
+  /**
+   * Computes the Jaccard index of two ordered sketches by counting their union and intersection in one
+   * merge pass over their hash iterators. This gives the same result as building the union and intersection
+   * sketches, but without allocating them or decompressing compressed images.
+   */
+  private static double[] orderedJaccard(final ThetaSketch sketchA, final ThetaSketch sketchB,
+      final int countA, final int countB, final int newK) {
+    final short seedHash = Util.computeSeedHash(Util.DEFAULT_UPDATE_SEED); //as the ThetaUnion would check
+    Util.checkSeedHashes(seedHash, sketchA.getSeedHash());
+    Util.checkSeedHashes(seedHash, sketchB.getSeedHash());
+    final long thetaLongA = sketchA.getThetaLong();
+    final long thetaLongB = sketchB.getThetaLong();
+    final int[] counts = new int[2];
+    final long thetaLongUAB = OrderedMergeOperations.unionAndIntersectionCounts(
+        sketchA, sketchB, min(thetaLongA, thetaLongB), newK, counts);
+    final int countUAB = counts[0];
+    final int countIAB = counts[1];
+
+    //Check for identical data
+    if (countUAB == countA && countUAB == countB
+        && thetaLongUAB == thetaLongA && thetaLongUAB == thetaLongB) {
+      return ONES.clone();
+    }
+    if (countUAB <= 0) { return new double[] {0.0, 0.5, 1.0}; }
+    final double f = thetaLongUAB / LONG_MAX_VALUE_AS_DOUBLE;
+    final double lb = BoundsOnRatiosInSampledSets.getLowerBoundForBoverA(countUAB, countIAB, f);
+    final double est = (double) countIAB / countUAB;
+    final double ub = BoundsOnRatiosInSampledSets.getUpperBoundForBoverA(countUAB, countIAB, f);
+    return new double[] {lb, est, ub};
+  }
+
   /**
    * Returns true if the two given sketches have exactly the same hash values and the same
    * theta values. Thus, they are equivalent.
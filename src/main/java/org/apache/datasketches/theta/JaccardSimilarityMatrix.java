@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.apache.datasketches.common.Util.LONG_MAX_VALUE_AS_DOUBLE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.datasketches.common.BoundsOnRatiosInSampledSets;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.Util;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Jaccard similarity of every pair of a list of ThetaSketches.
+ *
+ * <p>Each sketch is normalized once into a sorted array of its retained hashes. Every pair is then computed by
+ * counting the intersection of the two sorted arrays below the smaller of the two thetas, with no union or
+ * intersection objects. The pairs are processed in square tiles of {@value #TILE} x {@value #TILE} sketches so
+ * that the arrays of a tile stay in cache, and the tiles run in parallel on a ForkJoinPool.
+ * Every value is identical to {@link JaccardSimilarity#jaccard(ThetaSketch, ThetaSketch)} for the same pair.</p>
+ *
+ * <p>{@link #dense(List)} returns the full symmetric matrix. {@link #sparse(List, double)} returns only the
+ * pairs whose estimate is at least a given threshold, which keeps the memory proportional to the number
+ * of similar pairs.</p>
+ */
+public final class JaccardSimilarityMatrix {
+
+  /**
+   * The number of sketches on each side of a tile of pairs.
+   */
+  public static final int TILE = 64;
+
+  private static final double[] ZEROS = {0.0, 0.0, 0.0}; // LB, Estimate, UB
+  private static final double[] ONES = {1.0, 1.0, 1.0};
+  private static final int MAX_K = 1 << ThetaUtil.MAX_LG_NOM_LONGS;
+
+  private final int n_;
+  private final double[] lb_; //upper triangle, row major, i < j
+  private final double[] est_;
+  private final double[] ub_;
+  private final boolean[] nulls_;
+
+  private JaccardSimilarityMatrix(final int n, final boolean[] nulls) {
+    n_ = n;
+    final long numPairs = ((long) n * (n - 1)) >>> 1;
+    if (numPairs > Integer.MAX_VALUE - 8) {
+      throw new SketchesArgumentException("Too many sketches for a dense matrix: " + n);
+    }
+    lb_ = new double[(int) numPairs];
+    est_ = new double[(int) numPairs];
+    ub_ = new double[(int) numPairs];
+    nulls_ = nulls;
+  }
+
+  /**
+   * A pair of sketches and their Jaccard similarity, as returned by {@link #sparse(List, double)}.
+   */
+  public static final class SimilarPair {
+    private final int i_;
+    private final int j_;
+    private final double[] jaccard_;
+
+    SimilarPair(final int i, final int j, final double[] jaccard) {
+      i_ = i;
+      j_ = j;
+      jaccard_ = jaccard;
+    }
+
+    /**
+     * Returns the index of the first sketch of this pair.
+     * @return the index of the first sketch, which is less than {@link #getJ()}.
+     */
+    public int getI() { return i_; }
+
+    /**
+     * Returns the index of the second sketch of this pair.
+     * @return the index of the second sketch.
+     */
+    public int getJ() { return j_; }
+
+    /**
+     * Returns the lower bound of the Jaccard index at 2 standard deviations.
+     * @return the lower bound of the Jaccard index.
+     */
+    public double getLowerBound() { return jaccard_[0]; }
+
+    /**
+     * Returns the estimate of the Jaccard index.
+     * @return the estimate of the Jaccard index.
+     */
+    public double getEstimate() { return jaccard_[1]; }
+
+    /**
+     * Returns the upper bound of the Jaccard index at 2 standard deviations.
+     * @return the upper bound of the Jaccard index.
+     */
+    public double getUpperBound() { return jaccard_[2]; }
+
+    @Override
+    public String toString() {
+      return "(" + i_ + ", " + j_ + "): " + Arrays.toString(jaccard_);
+    }
+  }
+
+  /**
+   * Computes the Jaccard similarity of every pair of the given sketches on the common ForkJoinPool.
+   * @param sketches the given sketches. Nulls are allowed, as in JaccardSimilarity.
+   * @return the dense, symmetric matrix of Jaccard indices.
+   */
+  public static JaccardSimilarityMatrix dense(final List<? extends ThetaSketch> sketches) {
+    return dense(sketches, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Computes the Jaccard similarity of every pair of the given sketches on the given ForkJoinPool.
+   * @param sketches the given sketches. Nulls are allowed, as in JaccardSimilarity.
+   * @param pool the ForkJoinPool that computes the tiles.
+   * @return the dense, symmetric matrix of Jaccard indices.
+   */
+  public static JaccardSimilarityMatrix dense(final List<? extends ThetaSketch> sketches, final ForkJoinPool pool) {
+    final Normalized[] norm = normalize(sketches);
+    final boolean[] nulls = new boolean[norm.length];
+    for (int i = 0; i < norm.length; i++) { nulls[i] = norm[i] == null; }
+    final JaccardSimilarityMatrix matrix = new JaccardSimilarityMatrix(norm.length, nulls);
+    pool.invoke(new TileTask(norm, 0, numTiles(norm.length), Double.NEGATIVE_INFINITY, (i, j, jac) -> {
+      final int index = matrix.index(i, j);
+      matrix.lb_[index] = jac[0];
+      matrix.est_[index] = jac[1];
+      matrix.ub_[index] = jac[2];
+    }));
+    return matrix;
+  }
+
+  /**
+   * Returns the pairs of the given sketches whose estimated Jaccard index is at least the given threshold,
+   * computed on the common ForkJoinPool.
+   * @param sketches the given sketches. Nulls are allowed, as in JaccardSimilarity.
+   * @param minEstimate the smallest estimate of a returned pair.
+   * @return the similar pairs, ordered by their first and then their second index.
+   */
+  public static List<SimilarPair> sparse(final List<? extends ThetaSketch> sketches, final double minEstimate) {
+    return sparse(sketches, minEstimate, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Returns the pairs of the given sketches whose estimated Jaccard index is at least the given threshold.
+   * @param sketches the given sketches. Nulls are allowed, as in JaccardSimilarity.
+   * @param minEstimate the smallest estimate of a returned pair.
+   * @param pool the ForkJoinPool that computes the tiles.
+   * @return the similar pairs, ordered by their first and then their second index.
+   */
+  public static List<SimilarPair> sparse(final List<? extends ThetaSketch> sketches, final double minEstimate,
+      final ForkJoinPool pool) {
+    final Normalized[] norm = normalize(sketches);
+    final int tiles = numTiles(norm.length);
+    final List<List<SimilarPair>> byTileRow = new ArrayList<>(tiles);
+    for (int t = 0; t < tiles; t++) { byTileRow.add(new ArrayList<>()); }
+    pool.invoke(new TileTask(norm, 0, tiles, minEstimate, (i, j, jac) -> {
+      final List<SimilarPair> row = byTileRow.get(i / TILE);
+      synchronized (row) { row.add(new SimilarPair(i, j, jac)); }
+    }));
+    final List<SimilarPair> out = new ArrayList<>();
+    for (final List<SimilarPair> row : byTileRow) { out.addAll(row); }
+    out.sort((a, b) -> a.i_ != b.i_ ? Integer.compare(a.i_, b.i_) : Integer.compare(a.j_, b.j_));
+    return out;
+  }
+
+  /**
+   * Returns the number of sketches, which is the number of rows and of columns of this matrix.
+   * @return the number of sketches.
+   */
+  public int size() {
+    return n_;
+  }
+
+  /**
+   * Returns the Jaccard index of sketches i and j as {LowerBound, Estimate, UpperBound},
+   * the same as {@link JaccardSimilarity#jaccard(ThetaSketch, ThetaSketch)}.
+   * @param i the index of the first sketch
+   * @param j the index of the second sketch
+   * @return a double array {LowerBound, Estimate, UpperBound} of the Jaccard index.
+   */
+  public double[] getJaccard(final int i, final int j) {
+    if (i == j) {
+      checkIndex(i);
+      return nulls_[i] ? ZEROS.clone() : ONES.clone();
+    }
+    final int index = index(i, j);
+    return new double[] {lb_[index], est_[index], ub_[index]};
+  }
+
+  /**
+   * Returns the estimate of the Jaccard index of sketches i and j.
+   * @param i the index of the first sketch
+   * @param j the index of the second sketch
+   * @return the estimate of the Jaccard index.
+   */
+  public double getEstimate(final int i, final int j) {
+    return i == j ? getJaccard(i, j)[1] : est_[index(i, j)];
+  }
+
+  /**
+   * Returns the lower bound of the Jaccard index of sketches i and j.
+   * @param i the index of the first sketch
+   * @param j the index of the second sketch
+   * @return the lower bound of the Jaccard index.
+   */
+  public double getLowerBound(final int i, final int j) {
+    return i == j ? getJaccard(i, j)[0] : lb_[index(i, j)];
+  }
+
+  /**
+   * Returns the upper bound of the Jaccard index of sketches i and j.
+   * @param i the index of the first sketch
+   * @param j the index of the second sketch
+   * @return the upper bound of the Jaccard index.
+   */
+  public double getUpperBound(final int i, final int j) {
+    return i == j ? getJaccard(i, j)[2] : ub_[index(i, j)];
+  }
+
+  private int index(final int i, final int j) {
+    checkIndex(i);
+    checkIndex(j);
+    final int r = min(i, j);
+    final int c = max(i, j);
+    //pairs before row r, plus the offset of column c within row r
+    final long before = ((long) r * ((2L * n_) - r - 1)) >>> 1;
+    return (int) (before + (c - r - 1));
+  }
+
+  private void checkIndex(final int i) {
+    if ((i < 0) || (i >= n_)) {
+      throw new SketchesArgumentException("Index out of range: " + i + ", size: " + n_);
+    }
+  }
+
+  private static int numTiles(final int n) {
+    return (n + TILE - 1) / TILE;
+  }
+
+  /**
+   * A sketch reduced to what the pairwise computation needs.
+   */
+  private static final class Normalized {
+    final ThetaSketch sketch;
+    final long[] hashes; //ascending, all less than thetaLong
+    final long thetaLong;
+    final boolean empty;
+
+    Normalized(final ThetaSketch sketch) {
+      this.sketch = sketch;
+      empty = sketch.isEmpty();
+      thetaLong = sketch.getThetaLong();
+      final long[] cache = sketch.getCache();
+      final long[] out = new long[sketch.getRetainedEntries(true)];
+      int count = 0;
+      for (int i = 0; (i < cache.length) && (count < out.length); i++) {
+        final long hash = cache[i];
+        if ((hash != 0) && (hash < thetaLong)) { out[count++] = hash; }
+      }
+      if (!sketch.isOrdered()) { Arrays.sort(out, 0, count); }
+      hashes = count == out.length ? out : Arrays.copyOf(out, count);
+    }
+  }
+
+  private static Normalized[] normalize(final List<? extends ThetaSketch> sketches) {
+    Objects.requireNonNull(sketches, "sketches must be non-null");
+    final short seedHash = Util.computeSeedHash(Util.DEFAULT_UPDATE_SEED); //as JaccardSimilarity would check
+    final Normalized[] norm = new Normalized[sketches.size()];
+    int i = 0;
+    for (final ThetaSketch sketch : sketches) {
+      if (sketch != null) {
+        if (!sketch.isEmpty()) { Util.checkSeedHashes(seedHash, sketch.getSeedHash()); }
+        norm[i] = new Normalized(sketch);
+      }
+      i++;
+    }
+    return norm;
+  }
+
+  /**
+   * Computes the Jaccard index of one pair, with the same corner cases and results as JaccardSimilarity.
+   * Returns null, without computing the bounds, if the estimate is less than minEstimate.
+   */
+  private static double[] jaccard(final Normalized a, final Normalized b, final double minEstimate) {
+    final double[] corner = cornerCases(a, b);
+    if (corner != null) { return corner[1] >= minEstimate ? corner : null; }
+    final int countA = a.hashes.length;
+    final int countB = b.hashes.length;
+    if (((long) countA + countB) > MAX_K) { //the union would be cut back to k
+      final double[] jac = JaccardSimilarity.jaccard(a.sketch, b.sketch);
+      return jac[1] >= minEstimate ? jac : null;
+    }
+    final long thetaLong = min(a.thetaLong, b.thetaLong);
+    final int endA = countBelow(a.hashes, thetaLong);
+    final int endB = countBelow(b.hashes, thetaLong);
+    final int countI = intersectionCount(a.hashes, endA, b.hashes, endB);
+    final int countU = (endA + endB) - countI;
+
+    //Check for identical data
+    if ((countU == countA) && (countU == countB) && (thetaLong == a.thetaLong) && (thetaLong == b.thetaLong)) {
+      return ONES.clone();
+    }
+    if (countU <= 0) { return 0.5 >= minEstimate ? new double[] {0.0, 0.5, 1.0} : null; }
+    final double est = (double) countI / countU;
+    if (est < minEstimate) { return null; }
+    final double f = thetaLong / LONG_MAX_VALUE_AS_DOUBLE;
+    final double lb = BoundsOnRatiosInSampledSets.getLowerBoundForBoverA(countU, countI, f);
+    final double ub = BoundsOnRatiosInSampledSets.getUpperBoundForBoverA(countU, countI, f);
+    return new double[] {lb, est, ub};
+  }
+
+  private static double[] cornerCases(final Normalized a, final Normalized b) {
+    if ((a == null) || (b == null)) { return ZEROS.clone(); }
+    if (a.sketch == b.sketch) { return ONES.clone(); }
+    if (a.empty && b.empty) { return ONES.clone(); }
+    if (a.empty || b.empty) { return ZEROS.clone(); }
+    return null;
+  }
+
+  private static int countBelow(final long[] hashes, final long thetaLong) {
+    final int index = Arrays.binarySearch(hashes, thetaLong);
+    return index >= 0 ? index : -(index + 1);
+  }
+
+  private static int intersectionCount(final long[] a, final int endA, final long[] b, final int endB) {
+    int i = 0;
+    int j = 0;
+    int count = 0;
+    while ((i < endA) && (j < endB)) { //branch free, since the order of random hashes is unpredictable
+      final long hashA = a[i];
+      final long hashB = b[j];
+      i += hashA <= hashB ? 1 : 0;
+      j += hashB <= hashA ? 1 : 0;
+      count += hashA == hashB ? 1 : 0;
+    }
+    return count;
+  }
+
+  /**
+   * Receives the Jaccard index of each computed pair i &lt; j.
+   */
+  private interface PairConsumer {
+    void accept(int i, int j, double[] jaccard);
+  }
+
+  /**
+   * Computes the pairs i &lt; j of the tile rows in [lo, hi), splitting the rows in half until one is left.
+   */
+  private static final class TileTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final transient Normalized[] norm;
+    private final int lo;
+    private final int hi;
+    private final double minEstimate;
+    private final transient PairConsumer consumer;
+
+    TileTask(final Normalized[] norm, final int lo, final int hi, final double minEstimate,
+        final PairConsumer consumer) {
+      this.norm = norm;
+      this.lo = lo;
+      this.hi = hi;
+      this.minEstimate = minEstimate;
+      this.consumer = consumer;
+    }
+
+    @Override
+    protected void compute() {
+      if ((hi - lo) > 1) {
+        final int mid = (lo + hi) >>> 1;
+        invokeAll(new TileTask(norm, lo, mid, minEstimate, consumer),
+            new TileTask(norm, mid, hi, minEstimate, consumer));
+        return;
+      }
+      final int n = norm.length;
+      final int rowStart = lo * TILE;
+      final int rowEnd = min(rowStart + TILE, n);
+      for (int colStart = rowStart; colStart < n; colStart += TILE) { //tiles on and right of the diagonal
+        final int colEnd = min(colStart + TILE, n);
+        for (int i = rowStart; i < rowEnd; i++) {
+          for (int j = max(colStart, i + 1); j < colEnd; j++) {
+            final double[] jac = jaccard(norm[i], norm[j], minEstimate);
+            if (jac != null) { consumer.accept(i, j, jac); }
+          }
+        }
+      }
+    }
+  }
+
+}
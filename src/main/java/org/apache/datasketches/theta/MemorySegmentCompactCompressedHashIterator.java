@@ -113,8 +113,7 @@ final class MemorySegmentCompactCompressedHashIterator implements HashIterator,
   }
 
   private void unpack8() {
-    MemorySegment.copy(seg, JAVA_BYTE, offset, bytes, 0, entryBits);
-    BitPacking.unpackBitsBlock8(buffer, 0, bytes, 0, entryBits);
+    BitPacking.unpackBitsBlocks(buffer, 0, 1, seg, offset, entryBits);
     offset += entryBits;
     for (int i = 0; i < 8; i++) {
       buffer[i] += previous;
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static java.lang.Math.min;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+
+/**
+ * Merge-style set operations over the hash iterators of two ordered sketches.
+ *
+ * <p>Ordered compact sketches, including the compressed forms, return their hashes in ascending order.
+ * Two such streams can be intersected or differenced with a single two-pointer pass, without building a hash
+ * table and without decompressing a serialized image into a long[] first. All hashes of both streams that are
+ * at or above the given theta are ignored, and the pass stops as soon as either stream reaches theta.</p>
+ */
+final class OrderedMergeOperations {
+
+  private OrderedMergeOperations() {}
+
+  /**
+   * Returns true if both sketches are non-null and return their hashes in ascending order.
+   * @param skA sketch A
+   * @param skB sketch B
+   * @return true if both sketches can be merged as ordered streams.
+   */
+  static boolean isOrdered(final ThetaSketch skA, final ThetaSketch skB) {
+    return (skA != null) && (skB != null) && skA.isOrdered() && skB.isOrdered();
+  }
+
+  /**
+   * Returns the hashes less than thetaLong that are in both ordered sketches, in ascending order.
+   * @param skA ordered sketch A
+   * @param skB ordered sketch B
+   * @param thetaLong the theta of the result
+   * @return a new array of the matching hashes.
+   */
+  static long[] intersect(final ThetaSketch skA, final ThetaSketch skB, final long thetaLong) {
+    final long[] out = new long[min(skA.getRetainedEntries(true), skB.getRetainedEntries(true))];
+    int count = 0;
+    final HashIterator itA = skA.iterator();
+    final HashIterator itB = skB.iterator();
+    if (itA.next() && itB.next()) {
+      long hashA = itA.get();
+      long hashB = itB.get();
+      while ((hashA < thetaLong) && (hashB < thetaLong)) {
+        if (hashA < hashB) {
+          if (!itA.next()) { break; }
+          hashA = itA.get();
+        } else if (hashA > hashB) {
+          if (!itB.next()) { break; }
+          hashB = itB.get();
+        } else {
+          out[count++] = hashA;
+          if (!itA.next() || !itB.next()) { break; }
+          hashA = itA.get();
+          hashB = itB.get();
+        }
+      }
+    }
+    return count == out.length ? out : Arrays.copyOf(out, count);
+  }
+
+  /**
+   * Returns the hashes less than thetaLong that are in ordered sketch A but not in ordered sketch B,
+   * in ascending order.
+   * @param skA ordered sketch A
+   * @param skB ordered sketch B
+   * @param thetaLong the theta of the result
+   * @return a new array of the hashes of A not found in B.
+   */
+  static long[] aNotB(final ThetaSketch skA, final ThetaSketch skB, final long thetaLong) {
+    final long[] out = new long[skA.getRetainedEntries(true)];
+    int count = 0;
+    final HashIterator itA = skA.iterator();
+    final HashIterator itB = skB.iterator();
+    long hashB = itB.next() ? itB.get() : Long.MAX_VALUE;
+    while (itA.next()) {
+      final long hashA = itA.get();
+      if (hashA >= thetaLong) { break; }
+      while (hashB < hashA) {
+        hashB = itB.next() ? itB.get() : Long.MAX_VALUE;
+      }
+      if (hashB != hashA) { out[count++] = hashA; }
+    }
+    return count == out.length ? out : Arrays.copyOf(out, count);
+  }
+
+  /**
+   * Counts the union and the intersection of two ordered sketches in one pass, without allocating.
+   * The union keeps at most <i>maxUnionCount</i> distinct hashes; if there are more, the theta of the union
+   * is cut back to the next distinct hash, as a ThetaUnion with that nominal entries would do.
+   * @param skA ordered sketch A
+   * @param skB ordered sketch B
+   * @param thetaLong the minimum theta of A and B
+   * @param maxUnionCount the nominal entries of the union
+   * @param counts an array of at least two elements that receives the counts
+   * @return the theta of the union. The union and intersection counts below it are stored in
+   * <i>counts[0]</i> and <i>counts[1]</i>.
+   */
+  static long unionAndIntersectionCounts(final ThetaSketch skA, final ThetaSketch skB, final long thetaLong,
+      final int maxUnionCount, final int[] counts) {
+    long theta = thetaLong;
+    int unionCount = 0;
+    int interCount = 0;
+    final HashIterator itA = skA.iterator();
+    final HashIterator itB = skB.iterator();
+    long hashA = itA.next() ? itA.get() : Long.MAX_VALUE;
+    long hashB = itB.next() ? itB.get() : Long.MAX_VALUE;
+    while (true) {
+      final long hash = min(hashA, hashB);
+      if (hash >= theta) { break; }
+      if (unionCount == maxUnionCount) {
+        theta = hash;
+        break;
+      }
+      unionCount++;
+      if (hashA == hashB) { interCount++; }
+      if (hashA == hash) { hashA = itA.next() ? itA.get() : Long.MAX_VALUE; }
+      if (hashB == hash) { hashB = itB.next() ? itB.get() : Long.MAX_VALUE; }
+    }
+    counts[0] = unionCount;
+    counts[1] = interCount;
+    return theta;
+  }
+
+  /**
+   * Returns the sorted hashes of the given sketch as a MemorySegment of longs, if it is an ordered compact sketch
+   * whose hashes can be read by index without decoding. Otherwise returns null.
+   * @param sketch the given sketch
+   * @return a read-only view of the sorted hashes or null.
+   */
+  static MemorySegment sortedHashes(final ThetaSketch sketch) {
+    if (!sketch.isOrdered()) { return null; }
+    final int count = sketch.getRetainedEntries(true);
+    if ((sketch instanceof HeapCompactSketch) || (sketch instanceof SingleItemSketch)) {
+      return MemorySegment.ofArray(sketch.getCache()).asReadOnly();
+    }
+    final MemorySegment seg;
+    if (sketch.getClass() == DirectCompactSketch.class) {
+      seg = sketch.getMemorySegment();
+    } else if (sketch.getClass() == WrappedCompactSketch.class) {
+      seg = MemorySegment.ofArray(((WrappedCompactSketch) sketch).bytes_);
+    } else {
+      return null; //compressed
+    }
+    final long offsetBytes = (long) ThetaSketch.getPreambleLongs(seg) << 3;
+    return seg.asSlice(offsetBytes, (long) count << 3).asReadOnly();
+  }
+
+  /**
+   * Keeps only the candidates that are also in the given sorted hashes, using galloping search.
+   * The cost is proportional to <i>count * log(n / count)</i>, where <i>n</i> is the number of sorted hashes.
+   * @param candidates the candidate hashes in ascending order. The survivors are compacted in place.
+   * @param count the number of candidates
+   * @param sorted the sorted hashes to search, as returned by {@link #sortedHashes(ThetaSketch)}
+   * @return the number of surviving candidates
+   */
+  static int gallopingIntersect(final long[] candidates, final int count, final MemorySegment sorted) {
+    final long n = sorted.byteSize() >>> 3;
+    long lo = 0;
+    int outCount = 0;
+    for (int c = 0; (c < count) && (lo < n); c++) {
+      final long target = candidates[c];
+      if (sorted.get(JAVA_LONG_UNALIGNED, lo << 3) < target) {
+        long bound = 1;
+        while (((lo + bound) < n) && (sorted.get(JAVA_LONG_UNALIGNED, (lo + bound) << 3) < target)) {
+          bound <<= 1;
+        }
+        long left = lo + (bound >>> 1) + 1;
+        long right = min(lo + bound, n);
+        while (left < right) { //lower bound
+          final long mid = (left + right) >>> 1;
+          if (sorted.get(JAVA_LONG_UNALIGNED, mid << 3) < target) { left = mid + 1; }
+          else { right = mid; }
+        }
+        lo = left;
+      }
+      if ((lo < n) && (sorted.get(JAVA_LONG_UNALIGNED, lo << 3) == target)) {
+        candidates[outCount++] = target;
+        lo++;
+      }
+    }
+    return outCount;
+  }
+
+  /**
+   * Keeps only the candidates that are also in the given ordered sketch, by a merge pass over its hash iterator.
+   * The pass stops as soon as the candidates are exhausted.
+   * @param candidates the candidate hashes in ascending order. The survivors are compacted in place.
+   * @param count the number of candidates
+   * @param sketch the given ordered sketch
+   * @return the number of surviving candidates
+   */
+  static int mergeIntersect(final long[] candidates, final int count, final ThetaSketch sketch) {
+    final HashIterator it = sketch.iterator();
+    int outCount = 0;
+    int c = 0;
+    while ((c < count) && it.next()) {
+      final long hash = it.get();
+      while ((c < count) && (candidates[c] < hash)) { c++; }
+      if ((c < count) && (candidates[c] == hash)) {
+        candidates[outCount++] = hash;
+        c++;
+      }
+    }
+    return outCount;
+  }
+
+}
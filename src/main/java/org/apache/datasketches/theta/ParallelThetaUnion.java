@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+import org.apache.datasketches.common.ResizeFactor;
+
+/**
+ * A stateless union of a large number of Theta sketches that runs on a ForkJoinPool.
+ *
+ * <p>The inputs are split into leaves of at most {@value #LEAF_SIZE} sketches. Each leaf is merged with the
+ * k-way merge of {@link ThetaUnion#unionAll(Iterable, boolean, MemorySegment)}, and the partial results are
+ * combined pair-wise in a tree. A partial result holds the smallest <i>k</i> distinct hashes below its theta,
+ * so combining partials in any order keeps exactly the same hashes and theta as one sequential ThetaUnion
+ * with the same nominal entries, seed and <i>p</i>.</p>
+ *
+ * <p>Use {@link ThetaSetOperationBuilder#buildParallelUnion()} or
+ * {@link ThetaSetOperationBuilder#buildParallelUnion(ForkJoinPool)} to create one.
+ * An instance holds no mutable state, so it can be used by several threads at once.</p>
+ */
+public final class ParallelThetaUnion {
+
+  /**
+   * The maximum number of input sketches merged by one leaf task.
+   */
+  public static final int LEAF_SIZE = 256;
+
+  private final int lgNomLongs_;
+  private final long seed_;
+  private final float p_;
+  private final ResizeFactor rf_;
+  private final ForkJoinPool pool_;
+
+  ParallelThetaUnion(final int lgNomLongs, final long seed, final float p, final ResizeFactor rf,
+      final ForkJoinPool pool) {
+    lgNomLongs_ = lgNomLongs;
+    seed_ = seed;
+    p_ = p;
+    rf_ = rf;
+    pool_ = Objects.requireNonNull(pool, "pool must be non-null");
+  }
+
+  /**
+   * Returns the union of the given sketches as an ordered CompactThetaSketch on the heap.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param sketches the sketches to be merged.
+   * @return the result ordered CompactThetaSketch on the heap.
+   */
+  public CompactThetaSketch union(final List<? extends ThetaSketch> sketches) {
+    return union(sketches, true, null);
+  }
+
+  /**
+   * Returns the union of the given sketches.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param sketches the sketches to be merged.
+   * @param dstOrdered If true, the returned CompactThetaSketch will be ordered.
+   * @param dstSeg If not null, the returned CompactThetaSketch will be placed in this MemorySegment.
+   * @return the result CompactThetaSketch.
+   */
+  public CompactThetaSketch union(final List<? extends ThetaSketch> sketches, final boolean dstOrdered,
+      final MemorySegment dstSeg) {
+    Objects.requireNonNull(sketches, "sketches must be non-null");
+    return finish(pool_.invoke(new UnionTask<>(randomAccess(sketches), Function.identity(), 0, sketches.size())),
+        dstOrdered, dstSeg);
+  }
+
+  /**
+   * Returns the union of the given MemorySegment images of sketches of the Theta Family as an ordered
+   * CompactThetaSketch on the heap. Each image is wrapped read-only by the task that merges it.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param segs the MemorySegment images of the sketches to be merged.
+   * @return the result ordered CompactThetaSketch on the heap.
+   */
+  public CompactThetaSketch unionSegments(final List<MemorySegment> segs) {
+    return unionSegments(segs, true, null);
+  }
+
+  /**
+   * Returns the union of the given MemorySegment images of sketches of the Theta Family.
+   * Each image is wrapped read-only by the task that merges it.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param segs the MemorySegment images of the sketches to be merged.
+   * @param dstOrdered If true, the returned CompactThetaSketch will be ordered.
+   * @param dstSeg If not null, the returned CompactThetaSketch will be placed in this MemorySegment.
+   * @return the result CompactThetaSketch.
+   */
+  public CompactThetaSketch unionSegments(final List<MemorySegment> segs, final boolean dstOrdered,
+      final MemorySegment dstSeg) {
+    Objects.requireNonNull(segs, "segs must be non-null");
+    return finish(pool_.invoke(new UnionTask<>(randomAccess(segs), seg -> ThetaSketch.wrap(seg.asReadOnly()),
+        0, segs.size())), dstOrdered, dstSeg);
+  }
+
+  /**
+   * Returns the ForkJoinPool used by this union.
+   * @return the ForkJoinPool used by this union.
+   */
+  public ForkJoinPool getPool() {
+    return pool_;
+  }
+
+  private CompactThetaSketch finish(final CompactThetaSketch result, final boolean dstOrdered,
+      final MemorySegment dstSeg) {
+    if (dstOrdered && dstSeg == null) { return result; }
+    return newUnion().unionAll(Arrays.asList(result), dstOrdered, dstSeg);
+  }
+
+  private ThetaUnion newUnion() {
+    return ThetaUnionImpl.initNewHeapInstance(lgNomLongs_, seed_, p_, rf_);
+  }
+
+  private static <T> List<? extends T> randomAccess(final List<? extends T> list) {
+    return list instanceof RandomAccess ? list : new ArrayList<>(list);
+  }
+
+  /**
+   * Merges the items in [lo, hi) into an ordered heap CompactThetaSketch.
+   */
+  private final class UnionTask<T> extends RecursiveTask<CompactThetaSketch> {
+    private static final long serialVersionUID = 1L;
+    private final transient List<? extends T> items;
+    private final transient Function<? super T, ThetaSketch> toSketch;
+    private final int lo;
+    private final int hi;
+
+    UnionTask(final List<? extends T> items, final Function<? super T, ThetaSketch> toSketch, final int lo,
+        final int hi) {
+      this.items = items;
+      this.toSketch = toSketch;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected CompactThetaSketch compute() {
+      if ((hi - lo) <= LEAF_SIZE) {
+        final List<ThetaSketch> leaf = new ArrayList<>(hi - lo);
+        for (int i = lo; i < hi; i++) {
+          final T item = items.get(i);
+          if (item != null) { leaf.add(toSketch.apply(item)); }
+        }
+        return newUnion().unionAll(leaf, true, null);
+      }
+      final int mid = (lo + hi) >>> 1;
+      final UnionTask<T> left = new UnionTask<>(items, toSketch, lo, mid);
+      left.fork();
+      final CompactThetaSketch right = new UnionTask<>(items, toSketch, mid, hi).compute();
+      return newUnion().unionAll(Arrays.asList(left.join(), right), true, null);
+    }
+  }
+
+}
@@ -132,6 +132,14 @@ final class ThetaAnotBimpl extends ThetaAnotB {
     Util.checkSeedHashes(skB.getSeedHash(), seedHash_);
     //Both skA & skB are not empty
 
+    if (OrderedMergeOperations.isOrdered(skA, skB)) { //stream, no hash table
+      final long[] hashArrOut = OrderedMergeOperations.aNotB(skA, skB, minThetaLong);
+      final int countOut = hashArrOut.length;
+      final boolean empty = (countOut == 0) && (minThetaLong == Long.MAX_VALUE);
+      return CompactOperations.componentsToCompact(
+          minThetaLong, countOut, seedHash_, empty, true, true, dstOrdered, dstSeg, hashArrOut);
+    }
+
     //process A
     final long[] hashArrA = getHashArrA(skA);
     final int countA = hashArrA.length;
@@ -23,6 +23,7 @@ import static java.lang.foreign.ValueLayout.JAVA_BYTE;
 import static org.apache.datasketches.theta.PreambleUtil.SER_VER_BYTE;
 
 import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -109,6 +110,33 @@ public abstract class ThetaIntersection extends ThetaSetOperation {
    */
   public abstract void intersect(ThetaSketch sketchIn);
 
+  /**
+   * Intersect all of the given sketches with the internal state.
+   * The result is the same as calling {@link #intersect(ThetaSketch)} for each sketch, but the work is
+   * proportional to the smallest input rather than to the sum of all inputs.
+   *
+   * <p>The inputs are ordered by their number of retained entries, and the smallest input (or the current
+   * internal state) drives the search. Each remaining sketch is searched only for the surviving candidates,
+   * using galloping search over ordered compact sketches and hash lookups over updatable sketches.
+   * The work stops as soon as no candidates are left.</p>
+   *
+   * <p>This method can be repeatedly called. None of the given sketches may be null.
+   * If any of them is empty the internal state becomes empty.</p>
+   *
+   * @param sketches the given sketches
+   */
+  public abstract void intersectAll(Iterable<? extends ThetaSketch> sketches);
+
+  /**
+   * Intersect all of the given sketches with the internal state.
+   * See {@link #intersectAll(Iterable)}.
+   *
+   * @param sketches the given sketches
+   */
+  public void intersectAll(final ThetaSketch... sketches) {
+    intersectAll(Arrays.asList(sketches));
+  }
+
   /**
    * Perform intersect set operation on the two given sketch arguments and return the result as an
    * ordered CompactThetaSketch on the heap.
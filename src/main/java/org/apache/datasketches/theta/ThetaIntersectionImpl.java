@@ -62,7 +62,11 @@ import static org.apache.datasketches.thetacommon.HashOperations.hashSearch;
 import static org.apache.datasketches.thetacommon.HashOperations.minLgHashTableSize;
 
 import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.MemorySegmentStatus;
@@ -223,6 +227,15 @@ final class ThetaIntersectionImpl extends ThetaIntersection {
   public CompactThetaSketch intersect(final ThetaSketch a, final ThetaSketch b, final boolean dstOrdered, final MemorySegment dstSeg) {
     if ((wseg_ != null) && readOnly_) { throw new SketchesReadOnlyException(); }
     hardReset();
+    if (OrderedMergeOperations.isOrdered(a, b) && !a.isEmpty() && !b.isEmpty()) { //stream, no hash table
+      Util.checkSeedHashes(seedHash_, a.getSeedHash());
+      Util.checkSeedHashes(seedHash_, b.getSeedHash());
+      final long thetaLong = min(a.getThetaLong(), b.getThetaLong()); //Theta rule
+      final long[] hashArr = OrderedMergeOperations.intersect(a, b, thetaLong);
+      final boolean empty = (hashArr.length == 0) && (thetaLong == Long.MAX_VALUE);
+      return CompactOperations.componentsToCompact(
+          thetaLong, hashArr.length, seedHash_, empty, true, true, dstOrdered, dstSeg, hashArr);
+    }
     intersect(a);
     intersect(b);
     final CompactThetaSketch csk = getResult(dstOrdered, dstSeg);
@@ -307,6 +320,132 @@ final class ThetaIntersectionImpl extends ThetaIntersection {
     }
   }
 
+  @Override
+  public void intersectAll(final Iterable<? extends ThetaSketch> sketches) {
+    Objects.requireNonNull(sketches, "sketches must be non-null");
+    if ((wseg_ != null) && readOnly_) { throw new SketchesReadOnlyException(); }
+    final List<ThetaSketch> inputs = new ArrayList<>();
+    boolean anyEmpty = empty_;
+    for (final ThetaSketch sketchIn : sketches) {
+      if (sketchIn == null) {
+        throw new SketchesArgumentException("The input argument must not be null.");
+      }
+      if (sketchIn.isEmpty()) { anyEmpty = true; }
+      else { inputs.add(sketchIn); }
+    }
+    if (anyEmpty) { //empty rule
+      resetToEmpty();
+      return;
+    }
+    if (inputs.isEmpty()) { return; }
+    long thetaLong = thetaLong_;
+    for (final ThetaSketch sketchIn : inputs) {
+      Util.checkSeedHashes(seedHash_, sketchIn.getSeedHash());
+      thetaLong = min(thetaLong, sketchIn.getThetaLong()); //Theta rule
+    }
+    thetaLong_ = thetaLong;
+    empty_ = false;
+    if (wseg_ != null) {
+      insertThetaLong(wseg_, thetaLong_);
+      clearEmpty(wseg_); //false
+    }
+
+    //The current state or the smallest input provides the candidates, in ascending order
+    inputs.sort(Comparator.comparingInt(sk -> sk.getRetainedEntries(true)));
+    final long[] candidates;
+    int next = 0;
+    if (curCount_ >= 0) {
+      candidates = curCount_ == 0 ? new long[0] : sortedCandidates(getCache(), thetaLong);
+    } else {
+      final ThetaSketch smallest = inputs.get(next++);
+      candidates = sortedCandidates(smallest.getCache(), thetaLong);
+    }
+    int count = candidates.length;
+    while ((count > 0) && (next < inputs.size())) { //early exit when nothing is left
+      count = filterCandidates(candidates, count, inputs.get(next++));
+    }
+
+    //Store the result
+    curCount_ = count;
+    if (count == 0) {
+      if (wseg_ != null) { insertCurCount(wseg_, 0); }
+      hashTable_ = null;
+      if (thetaLong_ == Long.MAX_VALUE) {
+        empty_ = true;
+        if (wseg_ != null) { setEmpty(wseg_); }
+      }
+      return;
+    }
+    final int requiredLgArrLongs = minLgHashTableSize(count, ThetaUtil.REBUILD_THRESHOLD);
+    if (wseg_ != null) {
+      if (requiredLgArrLongs > maxLgArrLongs_) {
+        throw new SketchesArgumentException("Insufficient internal MemorySegment space: "
+            + ((8 << requiredLgArrLongs) + 24) + " > " + ((8 << maxLgArrLongs_) + 24));
+      }
+      lgArrLongs_ = requiredLgArrLongs;
+      insertCurCount(wseg_, count);
+      insertLgArrLongs(wseg_, lgArrLongs_);
+      wseg_.asSlice(CONST_PREAMBLE_LONGS << 3, 8 << lgArrLongs_).fill((byte)0);
+    } else {
+      lgArrLongs_ = requiredLgArrLongs;
+      hashTable_ = new long[1 << lgArrLongs_];
+    }
+    moveDataToTgt(count == candidates.length ? candidates : Arrays.copyOf(candidates, count), count);
+  }
+
+  /**
+   * Returns the non-zero hashes of the given cache that are less than thetaLong, in ascending order.
+   */
+  private static long[] sortedCandidates(final long[] cache, final long thetaLong) {
+    final long[] out = new long[cache.length];
+    int count = 0;
+    for (int i = 0; i < cache.length; i++) {
+      final long hash = cache[i];
+      if (continueCondition(thetaLong, hash)) { continue; }
+      out[count++] = hash;
+    }
+    final long[] sorted = count == out.length ? out : Arrays.copyOf(out, count);
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  /**
+   * Keeps only the candidates that are also retained by the given sketch. The survivors are compacted in place.
+   * @return the number of surviving candidates
+   */
+  private static int filterCandidates(final long[] candidates, final int count, final ThetaSketch sketchIn) {
+    if (sketchIn.getRetainedEntries(true) == 0) { return 0; }
+    final MemorySegment sorted = OrderedMergeOperations.sortedHashes(sketchIn);
+    if (sorted != null) { //ordered compact, random access
+      return OrderedMergeOperations.gallopingIntersect(candidates, count, sorted);
+    }
+    if (sketchIn.isOrdered()) { //ordered compressed, sequential access
+      return OrderedMergeOperations.mergeIntersect(candidates, count, sketchIn);
+    }
+    if (!sketchIn.isCompact()) { //a hash table
+      final long[] hashTable = sketchIn.getCache();
+      final int lgArrLongs = Integer.numberOfTrailingZeros(hashTable.length);
+      int outCount = 0;
+      for (int i = 0; i < count; i++) {
+        final long hash = candidates[i];
+        if (hashSearch(hashTable, lgArrLongs, hash) != -1) { candidates[outCount++] = hash; }
+      }
+      return outCount;
+    }
+    //unordered compact: search each of its hashes in the sorted candidates
+    final boolean[] found = new boolean[count];
+    final HashIterator it = sketchIn.iterator();
+    while (it.next()) {
+      final int index = Arrays.binarySearch(candidates, 0, count, it.get());
+      if (index >= 0) { found[index] = true; }
+    }
+    int outCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (found[i]) { candidates[outCount++] = candidates[i]; }
+    }
+    return outCount;
+  }
+
   @Override
   MemorySegment getMemorySegment() { return wseg_; }
 
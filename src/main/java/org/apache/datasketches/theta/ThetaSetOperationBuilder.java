@@ -24,6 +24,7 @@ import static org.apache.datasketches.common.Util.TAB;
 import static org.apache.datasketches.common.Util.ceilingPowerOf2;
 
 import java.lang.foreign.MemorySegment;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
@@ -232,6 +233,42 @@ public final class ThetaSetOperationBuilder {
     return (ThetaUnion) build(Family.UNION, dstSeg);
   }
 
+  /**
+   * Returns a configured ParallelThetaUnion that runs on the
+   * {@link ForkJoinPool#commonPool() common ForkJoinPool}.
+   * @return a ParallelThetaUnion object
+   */
+  public ParallelThetaUnion buildParallelUnion() {
+    return buildParallelUnion(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Returns a configured ParallelThetaUnion that runs on the given ForkJoinPool.
+   * @param pool the ForkJoinPool used to compute the partial unions.
+   * @return a ParallelThetaUnion object
+   */
+  public ParallelThetaUnion buildParallelUnion(final ForkJoinPool pool) {
+    return new ParallelThetaUnion(bLgNomLongs, bSeed, bP, bRF, pool);
+  }
+
+  /**
+   * Returns a configured ConcurrentThetaUnion with one stripe per available processor, rounded up to a
+   * power of 2.
+   * @return a ConcurrentThetaUnion object
+   */
+  public ConcurrentThetaUnion buildConcurrentUnion() {
+    return buildConcurrentUnion(ceilingPowerOf2(Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**
+   * Returns a configured ConcurrentThetaUnion with the given number of stripes.
+   * @param numStripes the number of independently locked partial unions. It must be a power of 2.
+   * @return a ConcurrentThetaUnion object
+   */
+  public ConcurrentThetaUnion buildConcurrentUnion(final int numStripes) {
+    return new ConcurrentThetaUnion(bLgNomLongs, bSeed, bP, bRF, numStripes);
+  }
+
   /**
    * Convenience method, returns a configured ThetaIntersection with
    * <a href="{@docRoot}/resources/dictionary.html#defaultNomEntries">Default Nominal Entries</a>
@@ -0,0 +1,546 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.Util;
+
+/**
+ * A read-only, memory-mapped store of many serialized CompactThetaSketch images, each keyed by a unique id.
+ *
+ * <p>The store is a single append-only file written by a {@link Writer}. Opening the store maps the whole file
+ * and builds an index of the records sorted by key. The index holds only the file offset of each record, and
+ * keys are compared in place in the mapped file, so the heap cost is 8 bytes per sketch. Reading a sketch is a
+ * binary search followed by a zero-copy {@link CompactThetaSketch#wrap(MemorySegment, long)} of a slice of
+ * the file.</p>
+ *
+ * <p>Keys are byte arrays, ordered as unsigned bytes. Long ids are stored as 8 big-endian bytes with the sign
+ * bit flipped, so that their byte order is the same as their numeric order. If a key was appended more than
+ * once, the last image appended wins.</p>
+ *
+ * <p>The union and intersection of all the sketches in a range of keys are computed directly over the wrapped
+ * images with {@link ThetaUnion#unionAll(Iterable)} and {@link ThetaIntersection#intersectAll(Iterable)}.</p>
+ *
+ * <p>The file layout is a 16 byte header, {MAGIC (8 bytes), VERSION (4 bytes), 0 (4 bytes)}, followed by
+ * records of {key length (4 bytes), image length (4 bytes), key, image}, where the key and the image are
+ * each padded with zeros to a multiple of 8 bytes. All integers are little endian.
+ * A store opened while a Writer is appending sees all the records that were complete when it was opened.</p>
+ */
+public final class ThetaSketchStore implements AutoCloseable {
+
+  /**
+   * The first 8 bytes of a store file, "DSTHETAS" in little endian.
+   */
+  public static final long MAGIC = 0x5341544548545344L;
+
+  /**
+   * The version of the file layout.
+   */
+  public static final int VERSION = 1;
+
+  static final int HEADER_BYTES = 16;
+  static final int RECORD_PREAMBLE_BYTES = 8;
+  private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+  private final Arena arena_;
+  private final MemorySegment seg_;
+  private final long seed_;
+  private final long[] offsets_; //record offsets, sorted by key
+
+  private ThetaSketchStore(final Arena arena, final MemorySegment seg, final long seed) {
+    arena_ = arena;
+    seg_ = seg;
+    seed_ = seed;
+    offsets_ = buildIndex(seg);
+  }
+
+  /**
+   * Opens the store at the given path for sketches of the default update seed.
+   * @param path the path of the store file
+   * @return the opened store
+   * @throws IOException if the file cannot be read
+   */
+  public static ThetaSketchStore open(final Path path) throws IOException {
+    return open(path, Util.DEFAULT_UPDATE_SEED);
+  }
+
+  /**
+   * Opens the store at the given path.
+   * @param path the path of the store file
+   * @param seed <a href="{@docRoot}/resources/dictionary.html#seed">See Update Hash Seed</a>.
+   * This must be the seed of the stored sketches.
+   * @return the opened store
+   * @throws IOException if the file cannot be read
+   */
+  public static ThetaSketchStore open(final Path path, final long seed) throws IOException {
+    Objects.requireNonNull(path, "path must be non-null");
+    final Arena arena = Arena.ofShared();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final MemorySegment seg = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+      return new ThetaSketchStore(arena, seg, seed);
+    } catch (final IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens a Writer that appends to the store at the given path, creating the file if it does not exist.
+   * @param path the path of the store file
+   * @return a Writer positioned at the end of the last complete record
+   * @throws IOException if the file cannot be opened
+   */
+  public static Writer writer(final Path path) throws IOException {
+    Objects.requireNonNull(path, "path must be non-null");
+    return new Writer(path);
+  }
+
+  /**
+   * Returns the given long id as a key, 8 big-endian bytes with the sign bit flipped.
+   * @param id the given long id
+   * @return the key of the given id
+   */
+  public static byte[] toKey(final long id) {
+    final byte[] key = new byte[Long.BYTES];
+    final long bits = id ^ Long.MIN_VALUE;
+    for (int i = 0; i < Long.BYTES; i++) {
+      key[i] = (byte) (bits >>> ((Long.BYTES - 1 - i) * Byte.SIZE));
+    }
+    return key;
+  }
+
+  /**
+   * Returns the number of distinct keys in this store.
+   * @return the number of distinct keys in this store
+   */
+  public int size() {
+    return offsets_.length;
+  }
+
+  /**
+   * Returns true if this store contains the given key.
+   * @param key the given key
+   * @return true if this store contains the given key
+   */
+  public boolean contains(final byte[] key) {
+    return find(key) >= 0;
+  }
+
+  /**
+   * Returns true if this store contains the given long id.
+   * @param id the given long id
+   * @return true if this store contains the given long id
+   */
+  public boolean contains(final long id) {
+    return contains(toKey(id));
+  }
+
+  /**
+   * Wraps the sketch of the given key without copying it.
+   * @param key the given key
+   * @return the wrapped sketch, or null if this store does not contain the given key
+   */
+  public CompactThetaSketch wrap(final byte[] key) {
+    final int index = find(key);
+    return index < 0 ? null : wrapAtIndex(index);
+  }
+
+  /**
+   * Wraps the sketch of the given long id without copying it.
+   * @param id the given long id
+   * @return the wrapped sketch, or null if this store does not contain the given id
+   */
+  public CompactThetaSketch wrap(final long id) {
+    return wrap(toKey(id));
+  }
+
+  /**
+   * Wraps the sketch at the given position of the key order without copying it.
+   * @param index the position in the key order, from 0 to size() - 1
+   * @return the wrapped sketch
+   */
+  public CompactThetaSketch wrapAtIndex(final int index) {
+    return CompactThetaSketch.wrap(getImageAtIndex(index), seed_);
+  }
+
+  /**
+   * Returns a read-only slice of the mapped file holding the serialized image at the given position of the
+   * key order.
+   * @param index the position in the key order, from 0 to size() - 1
+   * @return a read-only slice holding the serialized image
+   */
+  public MemorySegment getImageAtIndex(final int index) {
+    final long offset = offsets_[checkIndex(index)];
+    return seg_.asSlice(imageOffset(seg_, offset), seg_.get(JAVA_INT_UNALIGNED, offset + Integer.BYTES))
+        .asReadOnly();
+  }
+
+  /**
+   * Returns a copy of the key at the given position of the key order.
+   * @param index the position in the key order, from 0 to size() - 1
+   * @return a copy of the key
+   */
+  public byte[] getKeyAtIndex(final int index) {
+    final long offset = offsets_[checkIndex(index)];
+    return seg_.asSlice(offset + RECORD_PREAMBLE_BYTES, seg_.get(JAVA_INT_UNALIGNED, offset)).toArray(JAVA_BYTE);
+  }
+
+  /**
+   * Returns the position in the key order of the first key that is greater than or equal to the given key.
+   * @param key the given key
+   * @return a position from 0 to size()
+   */
+  public int ceilingIndex(final byte[] key) {
+    final int index = find(key);
+    return index >= 0 ? index : -(index + 1);
+  }
+
+  /**
+   * Returns the sketches of all keys from fromKey, inclusive, to toKey, exclusive, wrapped as they are iterated.
+   * @param fromKey the first key of the range, or null for the first key of this store
+   * @param toKey the key after the range, or null for the end of this store
+   * @return the wrapped sketches of the range
+   */
+  public Iterable<CompactThetaSketch> range(final byte[] fromKey, final byte[] toKey) {
+    final int from = fromKey == null ? 0 : ceilingIndex(fromKey);
+    final int to = toKey == null ? size() : ceilingIndex(toKey);
+    return () -> new Iterator<CompactThetaSketch>() {
+      private int next = from;
+
+      @Override
+      public boolean hasNext() { return next < to; }
+
+      @Override
+      public CompactThetaSketch next() {
+        if (next >= to) { throw new NoSuchElementException(); }
+        return wrapAtIndex(next++);
+      }
+    };
+  }
+
+  /**
+   * Returns the sketches of all ids from fromId, inclusive, to toId, exclusive, wrapped as they are iterated.
+   * @param fromId the first id of the range
+   * @param toId the id after the range
+   * @return the wrapped sketches of the range
+   */
+  public Iterable<CompactThetaSketch> range(final long fromId, final long toId) {
+    return range(toKey(fromId), toKey(toId));
+  }
+
+  /**
+   * Unions the sketches of all keys from fromKey, inclusive, to toKey, exclusive, into the given union.
+   * @param fromKey the first key of the range, or null for the first key of this store
+   * @param toKey the key after the range, or null for the end of this store
+   * @param union the given union
+   */
+  public void unionRange(final byte[] fromKey, final byte[] toKey, final ThetaUnion union) {
+    union.unionAll(range(fromKey, toKey));
+  }
+
+  /**
+   * Unions the sketches of all ids from fromId, inclusive, to toId, exclusive, into the given union.
+   * @param fromId the first id of the range
+   * @param toId the id after the range
+   * @param union the given union
+   */
+  public void unionRange(final long fromId, final long toId, final ThetaUnion union) {
+    union.unionAll(range(fromId, toId));
+  }
+
+  /**
+   * Intersects the sketches of all keys from fromKey, inclusive, to toKey, exclusive, into the given
+   * intersection.
+   * @param fromKey the first key of the range, or null for the first key of this store
+   * @param toKey the key after the range, or null for the end of this store
+   * @param intersection the given intersection
+   */
+  public void intersectRange(final byte[] fromKey, final byte[] toKey, final ThetaIntersection intersection) {
+    intersection.intersectAll(range(fromKey, toKey));
+  }
+
+  /**
+   * Intersects the sketches of all ids from fromId, inclusive, to toId, exclusive, into the given intersection.
+   * @param fromId the first id of the range
+   * @param toId the id after the range
+   * @param intersection the given intersection
+   */
+  public void intersectRange(final long fromId, final long toId, final ThetaIntersection intersection) {
+    intersection.intersectAll(range(fromId, toId));
+  }
+
+  /**
+   * Unmaps the file. Any sketch or image obtained from this store must not be used afterwards.
+   */
+  @Override
+  public void close() {
+    arena_.close();
+  }
+
+  private int checkIndex(final int index) {
+    if ((index < 0) || (index >= offsets_.length)) {
+      throw new SketchesArgumentException("Index out of range: " + index + ", size: " + offsets_.length);
+    }
+    return index;
+  }
+
+  /**
+   * Binary search of the index.
+   * @return the position of the key, or -(insertion point) - 1 if absent, as Arrays.binarySearch
+   */
+  private int find(final byte[] key) {
+    Objects.requireNonNull(key, "key must be non-null");
+    final MemorySegment keySeg = MemorySegment.ofArray(key);
+    int lo = 0;
+    int hi = offsets_.length - 1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      final int cmp = compareKeys(seg_, offsets_[mid], keySeg, 0, key.length);
+      if (cmp < 0) { lo = mid + 1; }
+      else if (cmp > 0) { hi = mid - 1; }
+      else { return mid; }
+    }
+    return -(lo + 1);
+  }
+
+  private static long pad8(final long bytes) {
+    return (bytes + 7L) & ~7L;
+  }
+
+  private static long imageOffset(final MemorySegment seg, final long recordOffset) {
+    return recordOffset + RECORD_PREAMBLE_BYTES + pad8(seg.get(JAVA_INT_UNALIGNED, recordOffset));
+  }
+
+  /**
+   * Compares the key of the record at the given offset of seg to the given key, as unsigned bytes.
+   */
+  private static int compareKeys(final MemorySegment seg, final long recordOffset, final MemorySegment key,
+      final long keyOffset, final long keyLength) {
+    final long start = recordOffset + RECORD_PREAMBLE_BYTES;
+    final long length = seg.get(JAVA_INT_UNALIGNED, recordOffset);
+    final long mismatch = MemorySegment.mismatch(seg, start, start + length, key, keyOffset, keyOffset + keyLength);
+    if (mismatch < 0) { return 0; }
+    if (mismatch == length) { return -1; } //a proper prefix of the given key
+    if (mismatch == keyLength) { return 1; }
+    return Integer.compare(Byte.toUnsignedInt(seg.get(JAVA_BYTE, start + mismatch)),
+        Byte.toUnsignedInt(key.get(JAVA_BYTE, keyOffset + mismatch)));
+  }
+
+  private static int compareRecords(final MemorySegment seg, final long offsetA, final long offsetB) {
+    //a slice, because some JDKs report no mismatch when both arguments of mismatch are the same segment
+    final long length = seg.get(JAVA_INT_UNALIGNED, offsetB);
+    return compareKeys(seg, offsetA, seg.asSlice(offsetB + RECORD_PREAMBLE_BYTES, length), 0, length);
+  }
+
+  /**
+   * Checks the header of the given file segment.
+   */
+  static void checkHeader(final MemorySegment seg) {
+    if ((seg.byteSize() < HEADER_BYTES) || (seg.get(JAVA_LONG_UNALIGNED, 0) != MAGIC)) {
+      throw new SketchesArgumentException("Not a ThetaSketchStore file.");
+    }
+    final int version = seg.get(JAVA_INT_UNALIGNED, Long.BYTES);
+    if (version != VERSION) {
+      throw new SketchesArgumentException("Unsupported ThetaSketchStore version: " + version);
+    }
+  }
+
+  /**
+   * Returns the end of the record at the given offset, or -1 if it is not complete within the given limit.
+   */
+  static long recordEnd(final MemorySegment seg, final long recordOffset, final long limit) {
+    if ((recordOffset + RECORD_PREAMBLE_BYTES) > limit) { return -1; }
+    final int keyBytes = seg.get(JAVA_INT_UNALIGNED, recordOffset);
+    final int imageBytes = seg.get(JAVA_INT_UNALIGNED, recordOffset + Integer.BYTES);
+    if ((keyBytes < 0) || (imageBytes < 0)) {
+      throw new SketchesArgumentException("Corrupt ThetaSketchStore record at offset " + recordOffset);
+    }
+    final long end = recordOffset + RECORD_PREAMBLE_BYTES + pad8(keyBytes) + pad8(imageBytes);
+    return end > limit ? -1 : end;
+  }
+
+  private static long[] buildIndex(final MemorySegment seg) {
+    checkHeader(seg);
+    final long limit = seg.byteSize();
+    long[] offsets = new long[INITIAL_INDEX_CAPACITY];
+    int count = 0;
+    boolean sorted = true; //strictly ascending keys, the common case of appending in key order
+    long offset = HEADER_BYTES;
+    long end;
+    while ((end = recordEnd(seg, offset, limit)) >= 0) {
+      if (count == offsets.length) { offsets = Arrays.copyOf(offsets, count * 2); }
+      if ((count > 0) && sorted) { sorted = compareRecords(seg, offsets[count - 1], offset) < 0; }
+      offsets[count++] = offset;
+      offset = end;
+    }
+    if (sorted) { return Arrays.copyOf(offsets, count); }
+
+    //Sort by key and then by offset, so the last record of each run of equal keys is the last one appended.
+    sortOffsets(seg, offsets, count);
+    int distinct = 0;
+    for (int i = 0; i < count; i++) {
+      if ((i + 1 < count) && (compareRecords(seg, offsets[i], offsets[i + 1]) == 0)) { continue; }
+      offsets[distinct++] = offsets[i];
+    }
+    return Arrays.copyOf(offsets, distinct);
+  }
+
+  /**
+   * Sorts the first count offsets in place by the keys of their records, and by offset for equal keys.
+   * This is a heapsort, so it needs no space beyond the offsets themselves.
+   */
+  private static void sortOffsets(final MemorySegment seg, final long[] offsets, final int count) {
+    for (int i = (count >>> 1) - 1; i >= 0; i--) { siftDown(seg, offsets, i, count); }
+    for (int end = count - 1; end > 0; end--) {
+      final long max = offsets[0];
+      offsets[0] = offsets[end];
+      offsets[end] = max;
+      siftDown(seg, offsets, 0, end);
+    }
+  }
+
+  private static void siftDown(final MemorySegment seg, final long[] offsets, final int start, final int count) {
+    final long offset = offsets[start];
+    int i = start;
+    int child;
+    while ((child = (2 * i) + 1) < count) {
+      if (((child + 1) < count) && (compareOffsets(seg, offsets[child], offsets[child + 1]) < 0)) { child++; }
+      if (compareOffsets(seg, offset, offsets[child]) >= 0) { break; }
+      offsets[i] = offsets[child];
+      i = child;
+    }
+    offsets[i] = offset;
+  }
+
+  private static int compareOffsets(final MemorySegment seg, final long offsetA, final long offsetB) {
+    final int c = compareRecords(seg, offsetA, offsetB);
+    return (c != 0) ? c : Long.compare(offsetA, offsetB);
+  }
+
+  /**
+   * Appends keyed CompactThetaSketch images to a store file. A Writer is not thread safe, and only one Writer
+   * may append to a file at a time.
+   */
+  public static final class Writer implements AutoCloseable {
+    private final FileChannel channel_;
+    private long position_;
+
+    Writer(final Path path) throws IOException {
+      channel_ = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      try {
+        final long size = channel_.size();
+        if (size == 0) {
+          final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+          header.putLong(MAGIC).putInt(VERSION).putInt(0).flip();
+          writeFully(header, 0);
+          position_ = HEADER_BYTES;
+        } else {
+          position_ = endOfRecords(size);
+          channel_.truncate(position_); //drop a partial record left by an interrupted append
+        }
+      } catch (final IOException | RuntimeException e) {
+        channel_.close();
+        throw e;
+      }
+    }
+
+    private long endOfRecords(final long size) throws IOException {
+      try (Arena arena = Arena.ofConfined()) {
+        final MemorySegment seg = channel_.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+        checkHeader(seg);
+        long offset = HEADER_BYTES;
+        long end;
+        while ((end = recordEnd(seg, offset, size)) >= 0) { offset = end; }
+        return offset;
+      }
+    }
+
+    /**
+     * Appends the given sketch with the given key.
+     * @param key the given key
+     * @param sketch the given sketch
+     * @return this Writer
+     * @throws IOException if the record cannot be written
+     */
+    public Writer append(final byte[] key, final CompactThetaSketch sketch) throws IOException {
+      Objects.requireNonNull(key, "key must be non-null");
+      Objects.requireNonNull(sketch, "sketch must be non-null");
+      final byte[] image = sketch.toByteArray();
+      final int keyPad = (int) pad8(key.length);
+      final int imagePad = (int) pad8(image.length);
+      final ByteBuffer record = ByteBuffer.allocate(RECORD_PREAMBLE_BYTES + keyPad + imagePad)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      record.putInt(key.length).putInt(image.length).put(key);
+      record.position(RECORD_PREAMBLE_BYTES + keyPad);
+      record.put(image).clear();
+      writeFully(record, position_);
+      position_ += record.capacity();
+      return this;
+    }
+
+    /**
+     * Appends the given sketch with the given long id.
+     * @param id the given long id
+     * @param sketch the given sketch
+     * @return this Writer
+     * @throws IOException if the record cannot be written
+     */
+    public Writer append(final long id, final CompactThetaSketch sketch) throws IOException {
+      return append(toKey(id), sketch);
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     * @throws IOException if the file cannot be forced
+     */
+    public void flush() throws IOException {
+      channel_.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel_.close();
+    }
+
+    private void writeFully(final ByteBuffer buf, final long position) throws IOException {
+      long pos = position;
+      while (buf.hasRemaining()) { pos += channel_.write(buf, pos); }
+    }
+  }
+
+}
@@ -201,6 +201,51 @@ public abstract class ThetaUnion extends ThetaSetOperation {
    */
   public abstract void union(MemorySegment seg);
 
+  /**
+   * Perform a union operation with <i>this</i> ThetaUnion and all of the given sketches in one pass.
+   *
+   * <p>This is equivalent to calling {@link #union(ThetaSketch)} for each sketch, but much faster when there
+   * are many inputs. The global minimum theta is computed first. Then the retained hashes below that theta are
+   * merged in ascending order with a k-way merge and only the smallest <i>k</i> distinct hashes are inserted into
+   * this union, so the internal hash table is updated once instead of once per sketch. Ordered compact sketches
+   * are merged directly; any other sketch is sorted first.</p>
+   *
+   * <p>This method can be repeatedly called.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param sketches the incoming sketches.
+   */
+  public abstract void unionAll(Iterable<? extends ThetaSketch> sketches);
+
+  /**
+   * Perform a union operation with <i>this</i> ThetaUnion and all of the given MemorySegment images of sketches
+   * of the Theta Family in one pass. Each image is wrapped read-only, then merged as in
+   * {@link #unionAll(Iterable)}.
+   *
+   * <p>This method can be repeatedly called.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param segs the MemorySegment images of the sketches to be merged.
+   */
+  public abstract void unionAllSegments(Iterable<MemorySegment> segs);
+
+  /**
+   * This implements a stateless, k-ary union operation. The sorted hash streams of the given sketches are
+   * merged straight into the returned CompactThetaSketch, which is cut back to k if required.
+   * No hash table is used, and the state of <i>this</i> union is not changed.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param sketches the sketches to be merged.
+   * @param dstOrdered If true, the returned CompactThetaSketch will be ordered.
+   * @param dstSeg If not null, the returned CompactThetaSketch will be placed in this MemorySegment.
+   * @return the result CompactThetaSketch.
+   */
+  public abstract CompactThetaSketch unionAll(Iterable<? extends ThetaSketch> sketches, boolean dstOrdered,
+      MemorySegment dstSeg);
+
   /**
    * Update <i>this</i> union with the given long data item.
    *
@@ -292,4 +337,60 @@ public abstract class ThetaUnion extends ThetaSetOperation {
    */
   public abstract void update(long[] data);
 
+  /**
+   * Update <i>this</i> union with each long in the given range of the given array as a separate data item.
+   * This is equivalent to calling {@link #update(long)} for each item, but the items are hashed in batches
+   * and hashes that cannot enter the union because of the current theta are discarded early.
+   *
+   * @param items the given array of long items
+   * @param offset the index of the first item
+   * @param length the number of items
+   */
+  public abstract void updateAll(long[] items, int offset, int length);
+
+  /**
+   * Update <i>this</i> union with each int in the given range of the given array as a separate data item.
+   * Each int is treated as the equivalent long.
+   *
+   * @param items the given array of int items
+   * @param offset the index of the first item
+   * @param length the number of items
+   * @see #updateAll(long[], int, int)
+   */
+  public abstract void updateAll(int[] items, int offset, int length);
+
+  /**
+   * Update <i>this</i> union with each double in the given range of the given array as a separate data item.
+   * Each double is canonicalized as by {@link #update(double)}.
+   *
+   * @param items the given array of double items
+   * @param offset the index of the first item
+   * @param length the number of items
+   * @see #updateAll(long[], int, int)
+   */
+  public abstract void updateAll(double[] items, int offset, int length);
+
+  /**
+   * Update <i>this</i> union with each String in the given range of the given array as a separate data item.
+   * Null or empty strings are skipped.
+   *
+   * @param items the given array of String items
+   * @param offset the index of the first item
+   * @param length the number of items
+   * @see #updateAll(long[], int, int)
+   */
+  public abstract void updateAll(String[] items, int offset, int length);
+
+  /**
+   * Update <i>this</i> union with each of <i>count</i> consecutive fixed-width keys in the given
+   * MemorySegment as a separate data item. Each key is hashed as its sequence of bytes.
+   *
+   * @param seg the MemorySegment holding the keys
+   * @param offsetBytes the offset in bytes of the first key
+   * @param keyBytes the width of each key in bytes, which must be positive
+   * @param count the number of keys
+   * @see #updateAll(long[], int, int)
+   */
+  public abstract void updateAll(MemorySegment seg, long offsetBytes, int keyBytes, int count);
+
 }
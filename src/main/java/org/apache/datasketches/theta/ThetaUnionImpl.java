@@ -22,6 +22,7 @@ package org.apache.datasketches.theta;
 import static java.lang.Math.min;
 import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
 import static org.apache.datasketches.common.QuickSelect.selectExcludingZeros;
+import static org.apache.datasketches.common.Util.LONG_MAX_VALUE_AS_DOUBLE;
 import static org.apache.datasketches.theta.PreambleUtil.COMPACT_FLAG_MASK;
 import static org.apache.datasketches.theta.PreambleUtil.ORDERED_FLAG_MASK;
 import static org.apache.datasketches.theta.PreambleUtil.UNION_THETA_LONG;
@@ -32,6 +33,9 @@ import static org.apache.datasketches.theta.PreambleUtil.insertUnionThetaLong;
 
 import java.lang.foreign.MemorySegment;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 import org.apache.datasketches.common.Family;
@@ -308,6 +312,50 @@ final class ThetaUnionImpl extends ThetaUnion {
     union(ThetaSketch.wrap(seg.asReadOnly()));
   }
 
+  @Override
+  public void unionAll(final Iterable<? extends ThetaSketch> sketches) {
+    Objects.requireNonNull(sketches, "sketches must be non-null");
+    final long thetaIn = min(unionThetaLong_, gadget_.getThetaLong());
+    final MergedHashes merged = mergeAll(sketches, thetaIn);
+    if (merged.empty) { return; }
+    unionThetaLong_ = merged.thetaLong;
+    unionEmpty_ = false;
+    final long[] hashes = merged.hashes;
+    for (int i = 0; i < hashes.length; i++) {
+      final long hash = hashes[i];
+      if (hash >= gadget_.getThetaLong()) { break; } //ascending
+      gadget_.hashUpdate(hash); // backdoor update, hash function is bypassed
+    }
+    unionThetaLong_ = min(unionThetaLong_, gadget_.getThetaLong()); //Theta rule with gadget
+    if (gadget_.hasMemorySegment()) {
+      final MemorySegment wseg = gadget_.getMemorySegment();
+      PreambleUtil.insertUnionThetaLong(wseg, unionThetaLong_);
+      PreambleUtil.clearEmpty(wseg);
+    }
+  }
+
+  @Override
+  public void unionAllSegments(final Iterable<MemorySegment> segs) {
+    Objects.requireNonNull(segs, "segs must be non-null");
+    final List<ThetaSketch> sketches = new ArrayList<>();
+    for (final MemorySegment seg : segs) {
+      if (seg != null) { sketches.add(ThetaSketch.wrap(seg.asReadOnly())); }
+    }
+    unionAll(sketches);
+  }
+
+  @Override //Stateless ThetaUnion
+  public CompactThetaSketch unionAll(final Iterable<? extends ThetaSketch> sketches, final boolean dstOrdered,
+      final MemorySegment dstSeg) {
+    Objects.requireNonNull(sketches, "sketches must be non-null");
+    final long thetaIn = (long) (gadget_.getP() * LONG_MAX_VALUE_AS_DOUBLE);
+    final MergedHashes merged = mergeAll(sketches, thetaIn);
+    final int curCount = merged.hashes.length;
+    final long thetaLong = merged.empty ? Long.MAX_VALUE : merged.thetaLong; //empty rule
+    return CompactOperations.componentsToCompact(thetaLong, curCount, gadget_.getSeedHash(), merged.empty,
+        true, true, dstOrdered, dstSeg, merged.hashes);
+  }
+
   @Override
   public void update(final long datum) {
     gadget_.update(datum);
@@ -348,6 +396,31 @@ final class ThetaUnionImpl extends ThetaUnion {
     gadget_.update(data);
   }
 
+  @Override
+  public void updateAll(final long[] items, final int offset, final int length) {
+    gadget_.updateAll(items, offset, length);
+  }
+
+  @Override
+  public void updateAll(final int[] items, final int offset, final int length) {
+    gadget_.updateAll(items, offset, length);
+  }
+
+  @Override
+  public void updateAll(final double[] items, final int offset, final int length) {
+    gadget_.updateAll(items, offset, length);
+  }
+
+  @Override
+  public void updateAll(final String[] items, final int offset, final int length) {
+    gadget_.updateAll(items, offset, length);
+  }
+
+  @Override
+  public void updateAll(final MemorySegment seg, final long offsetBytes, final int keyBytes, final int count) {
+    gadget_.updateAll(seg, offsetBytes, keyBytes, count);
+  }
+
   //Restricted
 
   @Override
@@ -370,11 +443,148 @@ final class ThetaUnionImpl extends ThetaUnion {
     return min(unionThetaLong_, gadget_.getThetaLong());
   }
 
+  /**
+   * Lowers the union theta to the given theta if it is smaller. This is only valid if the given theta is at
+   * least the theta of a union that this union will be merged into. Used by ConcurrentThetaUnion.
+   * @param thetaLong the given theta
+   */
+  void lowerUnionThetaLong(final long thetaLong) {
+    if (thetaLong >= unionThetaLong_) { return; }
+    unionThetaLong_ = thetaLong;
+    if (gadget_.hasMemorySegment()) {
+      PreambleUtil.insertUnionThetaLong(gadget_.getMemorySegment(), unionThetaLong_);
+    }
+  }
+
   @Override
   boolean isEmpty() {
     return gadget_.isEmpty() && unionEmpty_;
   }
 
+  /**
+   * The result of a k-way merge: the smallest distinct hashes in ascending order, all less than thetaLong.
+   */
+  private static final class MergedHashes {
+    final long[] hashes;
+    final long thetaLong;
+    final boolean empty;
+
+    MergedHashes(final long[] hashes, final long thetaLong, final boolean empty) {
+      this.hashes = hashes;
+      this.thetaLong = thetaLong;
+      this.empty = empty;
+    }
+  }
+
+  /**
+   * Merges the retained hashes of the given sketches in ascending order, keeping at most k distinct hashes.
+   * The first pass validates the inputs and computes the global minimum theta. The second pass is a heap-based
+   * k-way merge of the ascending hash streams, which stops early once k + 1 distinct hashes have been seen.
+   * @param sketches the given sketches
+   * @param thetaLong the starting theta of the union
+   * @return the merged hashes, the resulting theta and whether all inputs were null or empty.
+   */
+  private MergedHashes mergeAll(final Iterable<? extends ThetaSketch> sketches, final long thetaLong) {
+    long minThetaLong = thetaLong;
+    boolean empty = true;
+    long maxCount = 0;
+    final List<ThetaSketch> inputs = new ArrayList<>();
+    for (final ThetaSketch sketchIn : sketches) {
+      if (sketchIn == null || sketchIn.isEmpty()) { continue; }
+      Util.checkSeedHashes(expectedSeedHash_, sketchIn.getSeedHash());
+      if (!(sketchIn instanceof SingleItemSketch)) {
+        ThetaUnionImpl.checkSketchAndMemorySegmentFlags(sketchIn);
+      }
+      minThetaLong = min(minThetaLong, sketchIn.getThetaLong()); //Theta rule
+      empty = false;
+      final int count = sketchIn.getRetainedEntries(false);
+      if (count > 0) {
+        inputs.add(sketchIn);
+        maxCount += count;
+      }
+    }
+
+    final int n = inputs.size();
+    final HashIterator[] its = new HashIterator[n];
+    final long[] heads = new long[n];
+    int live = 0;
+    for (int i = 0; i < n; i++) {
+      final HashIterator it = ascendingIterator(inputs.get(i), minThetaLong);
+      if (it.next() && it.get() < minThetaLong) {
+        its[live] = it;
+        heads[live] = it.get();
+        live++;
+      }
+    }
+    for (int i = (live >>> 1) - 1; i >= 0; i--) { siftDown(its, heads, i, live); }
+
+    final int k = 1 << gadget_.getLgNomLongs();
+    final long[] out = new long[(int) min(k, maxCount)];
+    int outCount = 0;
+    while (live > 0) {
+      final long hash = heads[0];
+      if (outCount == 0 || hash != out[outCount - 1]) {
+        if (outCount == k) { //the k+1th distinct hash becomes theta
+          minThetaLong = hash;
+          break;
+        }
+        out[outCount++] = hash;
+      }
+      final HashIterator it = its[0];
+      if (it.next() && it.get() < minThetaLong) {
+        heads[0] = it.get();
+      } else { //this stream is done
+        live--;
+        its[0] = its[live];
+        heads[0] = heads[live];
+        its[live] = null;
+      }
+      siftDown(its, heads, 0, live);
+    }
+    final long[] hashes = outCount == out.length ? out : Arrays.copyOf(out, outCount);
+    return new MergedHashes(hashes, minThetaLong, empty);
+  }
+
+  /**
+   * Returns an iterator over the hashes of the given sketch in ascending order.
+   * Ordered sketches are iterated directly; otherwise the hashes less than thetaLong are copied and sorted.
+   * @param sketch the given sketch
+   * @param thetaLong the current theta of the merge
+   * @return an ascending HashIterator
+   */
+  private static HashIterator ascendingIterator(final ThetaSketch sketch, final long thetaLong) {
+    if (sketch.isOrdered()) { return sketch.iterator(); }
+    final long[] hashes = new long[sketch.getRetainedEntries(false)];
+    int count = 0;
+    final HashIterator it = sketch.iterator();
+    while (it.next()) {
+      final long hash = it.get();
+      if (hash < thetaLong) { hashes[count++] = hash; }
+    }
+    final long[] sorted = count == hashes.length ? hashes : Arrays.copyOf(hashes, count);
+    Arrays.sort(sorted);
+    return new HeapCompactHashIterator(sorted);
+  }
+
+  /**
+   * Restores the min-heap order of the merge streams, keyed by their current hash, starting at index i.
+   */
+  private static void siftDown(final HashIterator[] its, final long[] heads, final int i, final int live) {
+    final HashIterator it = its[i];
+    final long head = heads[i];
+    int parent = i;
+    int child;
+    while ((child = (2 * parent) + 1) < live) {
+      if (child + 1 < live && heads[child + 1] < heads[child]) { child++; }
+      if (heads[child] >= head) { break; }
+      its[parent] = its[child];
+      heads[parent] = heads[child];
+      parent = child;
+    }
+    its[parent] = it;
+    heads[parent] = head;
+  }
+
   /**
    * Checks Ordered and Compact flags for integrity between sketch and its MemorySegment
    * @param sketch the given sketch
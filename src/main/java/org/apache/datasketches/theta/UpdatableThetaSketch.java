@@ -47,6 +47,8 @@ import org.apache.datasketches.common.MemorySegmentRequest;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.hash.MurmurHash3FFM;
+import org.apache.datasketches.thetacommon.HashOperations;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
 /**
@@ -57,6 +59,8 @@ import org.apache.datasketches.thetacommon.ThetaUtil;
  * @author Lee Rhodes
  */
 public abstract class UpdatableThetaSketch extends ThetaSketch {
+  // Number of items hashed together by the updateAll methods before the hashes are presented to the sketch
+  static final int UPDATE_ALL_BATCH = 256;
   private final long seed_;
 
   UpdatableThetaSketch(final long seed) {
@@ -176,6 +180,37 @@ public abstract class UpdatableThetaSketch extends ThetaSketch {
     return (preLongs + dataLongs) << 3;
   }
 
+  /**
+   * Writes the ordered compact form of this sketch into the given MemorySegment without allocating any
+   * intermediate arrays. The hash values are collected and sorted in the given scratch array, which can be reused
+   * across calls and sketches, for example when checkpointing many sketches. The bytes written are the same as those of
+   * {@link #compact(boolean, MemorySegment) compact(true, dstWSeg)}.
+   *
+   * @param dstWSeg the destination MemorySegment. It must have at least {@link #getCompactBytes()} bytes.
+   * @param scratch an array of at least {@link #getRetainedEntries(boolean) getRetainedEntries(true)} longs.
+   * Its contents are overwritten.
+   * @return the number of bytes written, which is never more than {@link #getCompactBytes()}
+   */
+  public int compactInto(final MemorySegment dstWSeg, final long[] scratch) {
+    return CompactOperations.compactInto(this, dstWSeg, scratch);
+  }
+
+  /**
+   * Writes the compressed compact form of this sketch into the given MemorySegment without allocating any
+   * intermediate arrays. The hash values are collected, sorted and delta encoded in the given scratch array,
+   * which can be reused across calls and sketches. The bytes written are the same as those of
+   * {@link CompactThetaSketch#toByteArrayCompressed() compact().toByteArrayCompressed()}.
+   *
+   * @param dstWSeg the destination MemorySegment. The compressed form is never larger than
+   * {@link #getCompactBytes()} bytes, so a segment of that size is always sufficient.
+   * @param scratch an array of at least {@link #getRetainedEntries(boolean) getRetainedEntries(true)} longs.
+   * Its contents are overwritten.
+   * @return the number of bytes written
+   */
+  public int compactCompressedInto(final MemorySegment dstWSeg, final long[] scratch) {
+    return CompactOperations.compactCompressedInto(this, dstWSeg, scratch);
+  }
+
   @Override
   int getCurrentDataLongs() {
     return 1 << getLgArrLongs();
@@ -374,8 +409,169 @@ public abstract class UpdatableThetaSketch extends ThetaSketch {
     return hashUpdate(hash(data, seed_)[0] >>> 1);
   }
 
+  /**
+   * Present this sketch with an item that the caller has already hashed.
+   * The hash must be the 128-bit MurmurHash3 of the item computed with the seed of this sketch, as returned
+   * by {@link #getSeed()}, for example by MurmurHash3FFM. Only the first half is used, exactly as the
+   * <i>update</i> methods use it, so an item presented here is indistinguishable from the same item
+   * presented to the matching <i>update</i> method. A hash computed with a different seed cannot be detected
+   * and will silently produce a sketch that cannot be combined with sketches built from the raw items.
+   *
+   * @param hash0 the first 64 bits of the MurmurHash3 128-bit hash of the item
+   * @param hash1 the second 64 bits of the MurmurHash3 128-bit hash of the item, which theta does not use
+   * @return
+   * <a href="{@docRoot}/resources/dictionary.html#updateReturnState">See Update Return State</a>
+   */
+  public UpdateReturnState updateHash(final long hash0, final long hash1) {
+    return hashUpdate(hash0 >>> 1);
+  }
+
+  /**
+   * Present this sketch with each long in the given range of the given array as a separate item.
+   * This is equivalent to calling {@link #update(long)} for each item, but the items are hashed in batches
+   * and hashes that cannot enter the sketch because of the current theta are discarded before they reach
+   * the hash table. This suits columnar engines that hold a column of values in an array.
+   *
+   * @param items the given array of long items
+   * @param offset the index of the first item
+   * @param length the number of items
+   */
+  public void updateAll(final long[] items, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, items.length);
+    final long[] hashes = new long[Math.min(length, UPDATE_ALL_BATCH)];
+    for (int start = 0; start < length; start += hashes.length) {
+      final int count = Math.min(hashes.length, length - start);
+      MurmurHash3FFM.hashEach(items, offset + start, count, seed_, hashes);
+      hashUpdateAll(hashes, count, true);
+    }
+  }
+
+  /**
+   * Present this sketch with each int in the given range of the given array as a separate item.
+   * Each int is treated as the equivalent long, as by {@link #update(long)}.
+   *
+   * @param items the given array of int items
+   * @param offset the index of the first item
+   * @param length the number of items
+   * @see #updateAll(long[], int, int)
+   */
+  public void updateAll(final int[] items, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, items.length);
+    final long[] hashes = new long[Math.min(length, UPDATE_ALL_BATCH)];
+    for (int start = 0; start < length; start += hashes.length) {
+      final int count = Math.min(hashes.length, length - start);
+      for (int i = 0; i < count; i++) {
+        hashes[i] = items[offset + start + i];
+      }
+      MurmurHash3FFM.hashEach(hashes, 0, count, seed_, hashes);
+      hashUpdateAll(hashes, count, true);
+    }
+  }
+
+  /**
+   * Present this sketch with each double in the given range of the given array as a separate item.
+   * Each double is canonicalized as by {@link #update(double)}.
+   *
+   * @param items the given array of double items
+   * @param offset the index of the first item
+   * @param length the number of items
+   * @see #updateAll(long[], int, int)
+   */
+  public void updateAll(final double[] items, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, items.length);
+    final long[] hashes = new long[Math.min(length, UPDATE_ALL_BATCH)];
+    for (int start = 0; start < length; start += hashes.length) {
+      final int count = Math.min(hashes.length, length - start);
+      for (int i = 0; i < count; i++) {
+        final double d = items[offset + start + i];
+        hashes[i] = Double.doubleToLongBits(d == 0.0 ? 0.0 : d); // canonicalize -0.0, 0.0 and all NaN forms
+      }
+      MurmurHash3FFM.hashEach(hashes, 0, count, seed_, hashes);
+      hashUpdateAll(hashes, count, true);
+    }
+  }
+
+  /**
+   * Present this sketch with each String in the given range of the given array as a separate item.
+   * Each String is converted to a byte array using UTF8 encoding, as by {@link #update(String)}.
+   * Null or empty strings are skipped.
+   *
+   * @param items the given array of String items
+   * @param offset the index of the first item
+   * @param length the number of items
+   * @see #updateAll(long[], int, int)
+   */
+  public void updateAll(final String[] items, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, items.length);
+    final long[] hashes = new long[Math.min(length, UPDATE_ALL_BATCH)];
+    final long[] hashOut = new long[2];
+    for (int start = 0; start < length; start += hashes.length) {
+      final int end = Math.min(start + hashes.length, length);
+      int count = 0;
+      for (int i = start; i < end; i++) {
+        final String datum = items[offset + i];
+        if (datum == null || datum.isEmpty()) { continue; }
+        hashes[count++] = MurmurHash3FFM.hash(datum, seed_, hashOut)[0];
+      }
+      hashUpdateAll(hashes, count, true);
+    }
+  }
+
+  /**
+   * Present this sketch with each of <i>count</i> consecutive fixed-width keys in the given MemorySegment
+   * as a separate item. Each key is hashed as its sequence of bytes, as by {@link #update(byte[])}.
+   * A column of 8-byte keys in native byte order is therefore equivalent to calling {@link #update(long)}
+   * with each value on a little-endian platform.
+   *
+   * @param seg the MemorySegment holding the keys
+   * @param offsetBytes the offset in bytes of the first key
+   * @param keyBytes the width of each key in bytes, which must be positive
+   * @param count the number of keys
+   * @see #updateAll(long[], int, int)
+   */
+  public void updateAll(final MemorySegment seg, final long offsetBytes, final int keyBytes, final int count) {
+    Objects.requireNonNull(seg, "MemorySegment must be non-null");
+    if (keyBytes <= 0) {
+      throw new SketchesArgumentException("Key width must be positive: " + keyBytes);
+    }
+    Objects.checkFromIndexSize(offsetBytes, (long) keyBytes * count, seg.byteSize());
+    final long[] hashes = new long[Math.min(count, UPDATE_ALL_BATCH)];
+    for (int start = 0; start < count; start += hashes.length) {
+      final int n = Math.min(hashes.length, count - start);
+      MurmurHash3FFM.hashEach(seg, offsetBytes + ((long) start * keyBytes), keyBytes, n, seed_, hashes);
+      hashUpdateAll(hashes, n, true);
+    }
+  }
+
   //restricted methods
 
+  /**
+   * Presents the first <i>count</i> hashes of the given array to {@link #hashUpdate(long)}, skipping those
+   * that are rejected by the current theta without touching the hash table.
+   * The first hash is always presented so that the sketch leaves the empty state exactly as it would
+   * with individual updates, even if every hash is rejected by theta.
+   *
+   * @param hashes the given hashes
+   * @param count the number of hashes to present
+   * @param shift if true the raw 64-bit hashes are shifted right by one before use, as for a single update.
+   */
+  void hashUpdateAll(final long[] hashes, final int count, final boolean shift) {
+    if (count == 0) { return; }
+    if (shift) {
+      for (int i = 0; i < count; i++) {
+        hashes[i] >>>= 1;
+      }
+    }
+    hashUpdate(hashes[0]);
+    long thetaLong = getThetaLong();
+    for (int i = 1; i < count; i++) {
+      final long hash = hashes[i];
+      if (HashOperations.continueCondition(thetaLong, hash)) { continue; }
+      hashUpdate(hash);
+      thetaLong = getThetaLong(); //theta can only decrease
+    }
+  }
+
   /**
    * All potential updates converge here.
    *
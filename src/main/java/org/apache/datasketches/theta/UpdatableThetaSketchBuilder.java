@@ -24,13 +24,13 @@ import static org.apache.datasketches.common.Util.TAB;
 import static org.apache.datasketches.common.Util.ceilingPowerOf2;
 
 import java.lang.foreign.MemorySegment;
+import java.util.concurrent.Executor;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.MemorySegmentRequest;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesStateException;
-import org.apache.datasketches.common.SuppressFBWarnings;
 import org.apache.datasketches.common.Util;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 
@@ -46,9 +46,12 @@ public final class UpdatableThetaSketchBuilder {
   private Family bFam;
   private float bP;
   private MemorySegmentRequest bMemorySegmentRequest;
+  private boolean bIncrementalRebuild;
 
   //Fields for concurrent theta sketch
   private int bNumPoolThreads;
+  private ConcurrentPropagationService bPropagationService;
+  private ConcurrentPropagationService bPoolService; //created for a non-default number of pool threads
   private int bConCurLgNomLongs;
   private boolean bPropagateOrderedCompact;
   private double bMaxConcurrencyError;
@@ -65,10 +68,12 @@ public final class UpdatableThetaSketchBuilder {
    * <li>Family: {@link org.apache.datasketches.common.Family#QUICKSELECT}</li>
    * <li>Input Sampling Probability, p: 1.0</li>
    * <li>MemorySegmentRequest implementation: null</li>
+   * <li>Incremental Rebuild: false</li>
    * </ul>
    * Parameters unique to the concurrent sketches only:
    * <ul>
    * <li>Concurrent NumPoolThreads: 3</li>
+   * <li>Concurrent PropagationService: the default service</li>
    * <li>Number of local Nominal Entries: 4</li>
    * <li>Concurrent PropagateOrderedCompact: true</li>
    * <li>Concurrent MaxConcurrencyError: 0</li>
@@ -82,9 +87,11 @@ public final class UpdatableThetaSketchBuilder {
     bFam = Family.QUICKSELECT;
     bP = (float) 1.0;
     bMemorySegmentRequest = null;
+    bIncrementalRebuild = false;
 
     // Default values for concurrent sketch
     bNumPoolThreads = ConcurrentPropagationService.NUM_POOL_THREADS;
+    bPropagationService = null;
     bConCurLgNomLongs = 4; //default is smallest legal QS sketch
     bPropagateOrderedCompact = true;
     bMaxConcurrencyError = 0;
@@ -283,13 +290,46 @@ public final class UpdatableThetaSketchBuilder {
     return bMemorySegmentRequest;
   }
 
+  /**
+   * Sets the local Incremental Rebuild flag. If true, an on-heap QuickSelect sketch spreads the work of growing
+   * its hash table and of rebuilding it to the nominal entries over the following updates, a few dozen hash
+   * table slots per update, instead of doing all of it in the update that fills the table. This keeps the
+   * latency of every update small and flat for large sketches, at the cost of a second hash table of the same
+   * size, which is kept for reuse, and of rebuilding slightly earlier. The estimates are as accurate as those
+   * of the default sketch.
+   *
+   * <p>This only applies to on-heap QuickSelect sketches built with {@link #build()}. The flag is not part of
+   * the serialized image, so a sketch obtained from {@link UpdatableThetaSketch#heapify(MemorySegment)} always
+   * uses the default rebuild.</p>
+   *
+   * @param incrementalRebuild the given value
+   * @return this UpdatableThetaSketchBuilder
+   */
+  public UpdatableThetaSketchBuilder setIncrementalRebuild(final boolean incrementalRebuild) {
+    bIncrementalRebuild = incrementalRebuild;
+    return this;
+  }
+
+  /**
+   * Gets the local Incremental Rebuild flag.
+   * @return the Incremental Rebuild flag
+   */
+  public boolean getIncrementalRebuild() {
+    return bIncrementalRebuild;
+  }
+
   //Concurrent related
 
   /**
    * Sets the local number of pool threads used for background propagation in the concurrent sketches.
+   * This applies only if no propagation service is set. With the default of 3 the sketches use
+   * {@link ConcurrentPropagationService#getDefault()}. Otherwise this builder creates a pool of the given
+   * number of daemon threads on first use and shares it among the sketches it builds. The default service
+   * used by other builders is not changed.
    * @param numPoolThreads the given number of pool threads
    */
   public void setNumPoolThreads(final int numPoolThreads) {
+    if (numPoolThreads != bNumPoolThreads) { bPoolService = null; }
     bNumPoolThreads = numPoolThreads;
   }
 
@@ -301,6 +341,49 @@ public final class UpdatableThetaSketchBuilder {
     return bNumPoolThreads;
   }
 
+  /**
+   * Sets the service that runs background propagation for the concurrent shared sketches built by this
+   * builder. If not set, or set to null, they use {@link ConcurrentPropagationService#getDefault()}.
+   * For example, {@link ConcurrentPropagationService#ofVirtualThreads()} runs each propagation on its own
+   * virtual thread.
+   *
+   * @param service the given propagation service
+   * @return this UpdatableThetaSketchBuilder
+   */
+  public UpdatableThetaSketchBuilder setPropagationService(final ConcurrentPropagationService service) {
+    bPropagationService = service;
+    return this;
+  }
+
+  /**
+   * Sets a caller supplied Executor on which background propagation for the concurrent shared sketches built
+   * by this builder is run. This is equivalent to
+   * <i>setPropagationService(new ConcurrentPropagationService(executor))</i>. The Executor is not shut down
+   * by the sketches or by the service.
+   *
+   * @param executor the given Executor
+   * @return this UpdatableThetaSketchBuilder
+   */
+  public UpdatableThetaSketchBuilder setPropagationExecutor(final Executor executor) {
+    bPropagationService = new ConcurrentPropagationService(executor);
+    return this;
+  }
+
+  /**
+   * Gets the service that runs background propagation for the concurrent shared sketches built by this
+   * builder. If none was set this is the default service, or the pool of this builder if the number of
+   * pool threads is not the default.
+   * @return the propagation service
+   */
+  public ConcurrentPropagationService getPropagationService() {
+    if (bPropagationService != null) { return bPropagationService; }
+    if (bNumPoolThreads == ConcurrentPropagationService.NUM_POOL_THREADS) {
+      return ConcurrentPropagationService.getDefault();
+    }
+    if (bPoolService == null) { bPoolService = ConcurrentPropagationService.ofThreadPool(bNumPoolThreads); }
+    return bPoolService;
+  }
+
   /**
    * Sets the local Propagate Ordered Compact flag to the given value. Used with concurrent sketches.
    *
@@ -386,7 +469,7 @@ public final class UpdatableThetaSketchBuilder {
       }
       case QUICKSELECT: {
         if (dstSeg == null) {
-          sketch =  new HeapQuickSelectSketch(bLgNomLongs, bSeed, bP, bRF, unionGadget);
+          sketch =  new HeapQuickSelectSketch(bLgNomLongs, bSeed, bP, bRF, unionGadget, bIncrementalRebuild);
         }
         else {
           sketch = new DirectQuickSelectSketch(bLgNomLongs, bSeed, bP, bRF, dstSeg, bMemorySegmentRequest, unionGadget);
@@ -407,7 +490,7 @@ public final class UpdatableThetaSketchBuilder {
    *
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
-   * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Service (default is a pool of Number of Pool Threads, 3 by default)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -429,7 +512,7 @@ public final class UpdatableThetaSketchBuilder {
    *
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
-   * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Service (default is a pool of Number of Pool Threads, 3 by default)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -443,14 +526,13 @@ public final class UpdatableThetaSketchBuilder {
    * @return a concurrent UpdatableThetaSketch with the current configuration of the Builder
    * and the given destination MemorySegment.
    */
-  @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
-      justification = "Harmless in Builder, fix later")
   public UpdatableThetaSketch buildShared(final MemorySegment dstSeg) {
-    ConcurrentPropagationService.NUM_POOL_THREADS = bNumPoolThreads;
     if (dstSeg == null) {
-      return new ConcurrentHeapQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError);
+      return new ConcurrentHeapQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError,
+          getPropagationService());
     } else {
-      return new ConcurrentDirectQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, dstSeg);
+      return new ConcurrentDirectQuickSelectSketch(bLgNomLongs, bSeed, bMaxConcurrencyError, dstSeg,
+          getPropagationService());
     }
   }
 
@@ -462,7 +544,7 @@ public final class UpdatableThetaSketchBuilder {
    *
    * <p>The parameters unique to the shared concurrent sketch are:
    * <ul>
-   * <li>Number of Pool Threads (default is 3)</li>
+   * <li>Propagation Service (default is a pool of Number of Pool Threads, 3 by default)</li>
    * <li>Maximum Concurrency Error</li>
    * </ul>
    *
@@ -478,14 +560,13 @@ public final class UpdatableThetaSketchBuilder {
    * @return a concurrent UpdatableThetaSketch with the current configuration of the Builder
    * and the given destination MemorySegment.
    */
-  @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD",
-      justification = "Harmless in Builder, fix later")
   public UpdatableThetaSketch buildSharedFromSketch(final UpdatableThetaSketch sketch, final MemorySegment dstSeg) {
-    ConcurrentPropagationService.NUM_POOL_THREADS = bNumPoolThreads;
     if (dstSeg == null) {
-      return new ConcurrentHeapQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError);
+      return new ConcurrentHeapQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError,
+          getPropagationService());
     } else {
-      return new ConcurrentDirectQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, dstSeg);
+      return new ConcurrentDirectQuickSelectSketch(sketch, bSeed, bMaxConcurrencyError, dstSeg,
+          getPropagationService());
     }
   }
 
@@ -523,8 +604,10 @@ public final class UpdatableThetaSketchBuilder {
     sb.append("p:").append(TAB).append(bP).append(LS);
     sb.append("ResizeFactor:").append(TAB).append(bRF).append(LS);
     sb.append("Family:").append(TAB).append(bFam).append(LS);
+    sb.append("IncrementalRebuild:").append(TAB).append(bIncrementalRebuild).append(LS);
     sb.append("Propagate Ordered Compact").append(TAB).append(bPropagateOrderedCompact).append(LS);
     sb.append("NumPoolThreads").append(TAB).append(bNumPoolThreads).append(LS);
+    sb.append("PropagationService").append(TAB).append(bPropagationService == null ? "default" : "custom").append(LS);
     sb.append("MaxConcurrencyError").append(TAB).append(bMaxConcurrencyError).append(LS);
     sb.append("MaxNumLocalThreads").append(TAB).append(bMaxNumLocalThreads).append(LS);
     return sb.toString();
@@ -39,6 +39,9 @@ import org.apache.datasketches.common.SketchesArgumentException;
  * corresponding list of Summaries, and a value for theta. The lists may or may
  * not be ordered. CompactTupleSketch is read-only.
  *
+ * <p>A CompactTupleSketch can also wrap its serialized form in a MemorySegment, see
+ * {@link #wrap(MemorySegment, SummaryDeserializer)}.</p>
+ *
  * @param <S> type of Summary
  */
 public final class CompactTupleSketch<S extends Summary> extends TupleSketch<S> {
@@ -48,6 +51,11 @@ public final class CompactTupleSketch<S extends Summary> extends TupleSketch<S>
   private static final short defaultSeedHash = (short) 37836; // for compatibility with C++
   private final long[] hashArr_;
   private S[] summaryArr_;
+  // these are only used by a wrapped sketch, which has no hashArr_ and summaryArr_
+  private final MemorySegment seg_;
+  private final SummaryDeserializer<S> deserializer_;
+  private final int entriesOffset_;
+  private final int count_;
 
   private enum FlagsLegacy { IS_BIG_ENDIAN, IS_EMPTY, HAS_ENTRIES, IS_THETA_INCLUDED }
 
@@ -66,6 +74,10 @@ public final class CompactTupleSketch<S extends Summary> extends TupleSketch<S>
     super.empty_ = empty;
     hashArr_ = hashArr;
     summaryArr_ = summaryArr;
+    seg_ = null;
+    deserializer_ = null;
+    entriesOffset_ = 0;
+    count_ = 0;
   }
 
   /**
@@ -76,6 +88,10 @@ public final class CompactTupleSketch<S extends Summary> extends TupleSketch<S>
    */
   CompactTupleSketch(final MemorySegment seg, final SummaryDeserializer<S> deserializer) {
     super(Long.MAX_VALUE, true, null);
+    seg_ = null;
+    deserializer_ = null;
+    entriesOffset_ = 0;
+    count_ = 0;
     int offset = 0;
     final byte preambleLongs = seg.get(JAVA_BYTE, offset++);
     final byte version = seg.get(JAVA_BYTE, offset++);
@@ -151,6 +167,48 @@ public final class CompactTupleSketch<S extends Summary> extends TupleSketch<S>
     }
   }
 
+  /**
+   * Wraps the given serialized form of a CompactTupleSketch without deserializing it.
+   *
+   * <p>The estimate, the bounds and the number of retained entries are read from the preamble. The iterator
+   * deserializes a Summary only when <i>getSummary()</i> is called for the current entry, and skips the others
+   * with {@link SummaryDeserializer#getSummarySizeBytes(MemorySegment)}. So set operations and
+   * {@link Filter#filter(TupleSketch)} only deserialize the summaries they use, for example the
+   * intersecting entries of a TupleIntersection, and none of the summaries of the second argument of a
+   * TupleAnotB.</p>
+   *
+   * <p>The given MemorySegment must not change while the returned sketch is in use. The legacy serial
+   * versions 1 and 2 are heapified.</p>
+   *
+   * @param seg MemorySegment object with serialized CompactTupleSketch
+   * @param deserializer the SummaryDeserializer
+   * @param <S> type of Summary
+   * @return a CompactTupleSketch that uses the given MemorySegment
+   */
+  public static <S extends Summary> CompactTupleSketch<S> wrap(final MemorySegment seg,
+      final SummaryDeserializer<S> deserializer) {
+    final byte preambleLongs = seg.get(JAVA_BYTE, 0);
+    final byte version = seg.get(JAVA_BYTE, 1);
+    if (version != serialVersionUID) { return new CompactTupleSketch<>(seg, deserializer); }
+    SerializerDeserializer.validateFamily(seg.get(JAVA_BYTE, 2), preambleLongs);
+    SerializerDeserializer
+      .validateType(seg.get(JAVA_BYTE, 3), SerializerDeserializer.SketchType.CompactTupleSketch);
+    final boolean empty = (seg.get(JAVA_BYTE, 5) & (1 << Flags.IS_EMPTY.ordinal())) > 0;
+    final int count = empty ? 0 : (preambleLongs == 1) ? 1 : seg.get(JAVA_INT_UNALIGNED, 8);
+    final long thetaLong = (!empty && (preambleLongs > 2)) ? seg.get(JAVA_LONG_UNALIGNED, 16) : Long.MAX_VALUE;
+    return new CompactTupleSketch<>(seg, deserializer, Long.BYTES * preambleLongs, count, thetaLong, empty);
+  }
+
+  private CompactTupleSketch(final MemorySegment seg, final SummaryDeserializer<S> deserializer,
+      final int entriesOffset, final int count, final long thetaLong, final boolean empty) {
+    super(thetaLong, empty, null);
+    hashArr_ = null;
+    seg_ = seg;
+    deserializer_ = deserializer;
+    entriesOffset_ = entriesOffset;
+    count_ = count;
+  }
+
   @SuppressWarnings({"unchecked"})
   private int readSummary(final MemorySegment seg, final int offset, final int i, final int count,
       final SummaryDeserializer<S> deserializer) {
@@ -170,22 +228,70 @@ public final class CompactTupleSketch<S extends Summary> extends TupleSketch<S>
     return this;
   }
 
+  /**
+   * Returns true if this sketch wraps its serialized form, see {@link #wrap(MemorySegment, SummaryDeserializer)}.
+   * @return true if this sketch wraps its serialized form
+   */
+  boolean isWrapped() {
+    return seg_ != null;
+  }
+
+  //a wrapped sketch returns a new array, which the caller owns
   long[] getHashArr() {
-    return hashArr_;
+    if (seg_ == null) { return hashArr_; }
+    final long[] hashArr = new long[count_];
+    final TupleSketchIterator<S> it = iterator();
+    int i = 0;
+    while (it.next()) { hashArr[i++] = it.getHash(); }
+    return hashArr;
   }
 
+  //a wrapped sketch returns a new array of newly deserialized summaries, which the caller owns
+  @SuppressWarnings("unchecked")
   S[] getSummaryArr() {
-    return summaryArr_;
+    if (seg_ == null) { return summaryArr_; }
+    S[] summaryArr = null;
+    final TupleSketchIterator<S> it = iterator();
+    int i = 0;
+    while (it.next()) {
+      final S summary = it.getSummary();
+      if (summaryArr == null) { summaryArr = (S[]) Array.newInstance(summary.getClass(), count_); }
+      summaryArr[i++] = summary;
+    }
+    return summaryArr;
+  }
+
+  //a wrapped sketch fills the given array with its hashes and returns a new array of newly deserialized
+  //summaries, both in one pass over the entries, so that each summary is deserialized only once
+  @SuppressWarnings("unchecked")
+  S[] readEntries(final long[] hashArr) {
+    S[] summaryArr = null;
+    final TupleSketchIterator<S> it = iterator();
+    int i = 0;
+    while (it.next()) {
+      final S summary = it.getSummary();
+      if (summaryArr == null) { summaryArr = (S[]) Array.newInstance(summary.getClass(), hashArr.length); }
+      hashArr[i] = it.getHash();
+      summaryArr[i++] = summary;
+    }
+    return summaryArr;
   }
 
   @Override
   public int getRetainedEntries() {
+    if (seg_ != null) { return count_; }
     return hashArr_ == null ? 0 : hashArr_.length;
   }
 
   @Override
   public int getCountLessThanThetaLong(final long thetaLong) {
-    return count(hashArr_, thetaLong);
+    if (seg_ == null) { return count(hashArr_, thetaLong); }
+    int count = 0;
+    final TupleSketchIterator<S> it = iterator();
+    while (it.next()) {
+      if (it.getHash() < thetaLong) { count++; }
+    }
+    return count;
   }
 
   // Layout of first 8 bytes:
@@ -195,7 +301,8 @@ public final class CompactTupleSketch<S extends Summary> extends TupleSketch<S>
   //  0   ||    seed hash    |  Flags | unused | SkType | FamID  | SerVer |  Preamble_Longs    |
   @Override
   public byte[] toByteArray() {
-  final int count = getRetainedEntries();
+    if (seg_ != null) { return toByteArrayWrapped(); }
+    final int count = getRetainedEntries();
     final boolean isSingleItem = (count == 1) && !isEstimationMode();
     final int preambleLongs = isEmpty() || isSingleItem ? 1 : isEstimationMode() ? 3 : 2;
 
@@ -245,7 +352,56 @@ public final class CompactTupleSketch<S extends Summary> extends TupleSketch<S>
 
   @Override
   public TupleSketchIterator<S> iterator() {
+    if (seg_ != null) { return new WrappedIterator(); }
     return new TupleSketchIterator<>(hashArr_, summaryArr_);
   }
 
+  //copies the preamble and the entries, which end after the last summary
+  private byte[] toByteArrayWrapped() {
+    final WrappedIterator it = new WrappedIterator();
+    while (it.next()) { } //skips all summaries
+    final byte[] bytes = new byte[(int) it.getEndOffset()];
+    MemorySegment.copy(seg_, 0, MemorySegment.ofArray(bytes), 0, bytes.length);
+    return bytes;
+  }
+
+  // Iterates the serialized entries, each a hash followed by its summary, deserializing only the summaries
+  // that are asked for.
+  private final class WrappedIterator extends TupleSketchIterator<S> {
+    private int i = -1;
+    private long hashOffset = entriesOffset_ - Long.BYTES; //offset of the current hash
+    private int summarySizeBytes = 0; //size of the current summary, or -1 if not yet known
+
+    WrappedIterator() {
+      super(null, null);
+    }
+
+    @Override
+    public boolean next() {
+      if (i >= count_) { return false; }
+      if (summarySizeBytes < 0) {
+        summarySizeBytes = deserializer_.getSummarySizeBytes(seg_.asSlice(hashOffset + Long.BYTES));
+      }
+      hashOffset += Long.BYTES + summarySizeBytes;
+      summarySizeBytes = -1;
+      return ++i < count_;
+    }
+
+    @Override
+    public long getHash() {
+      return seg_.get(JAVA_LONG_UNALIGNED, hashOffset);
+    }
+
+    @Override
+    public S getSummary() {
+      final DeserializeResult<S> result = deserializer_.heapifySummary(seg_.asSlice(hashOffset + Long.BYTES));
+      summarySizeBytes = result.getSize();
+      return result.getObject();
+    }
+
+    long getEndOffset() {
+      return hashOffset;
+    }
+  }
+
 }
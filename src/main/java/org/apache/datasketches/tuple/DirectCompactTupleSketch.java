@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT_UNALIGNED;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.reflect.Array;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
+
+/**
+ * A compact generic tuple sketch that keeps its hashes and its fixed width summaries in a MemorySegment,
+ * see {@link DirectTupleSketch#compact(MemorySegment)} and {@link DirectTupleUnion#getResult(MemorySegment)}.
+ *
+ * <p>Summary objects are only created when they are asked for, by {@link #iterator()} and {@link #compact()}.
+ * The hashes are not ordered.</p>
+ *
+ * @param <S> type of Summary
+ */
+public final class DirectCompactTupleSketch<S extends Summary> extends TupleSketch<S> {
+  static final byte serialVersionUID = 1;
+
+  // Layout of the first 24 bytes:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||   Summary Bytes |--------|  Flags | SkType | FamID  | SerVer |  Preamble_Longs    |
+  //      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+  //  1   ||-------------------------Theta Long----------------------------------------------|
+  //      ||   23   |   22   |   21   |   20   |   19   |   18   |   17   |    16              |
+  //  2   ||-----------------------------------|----------Retained Entries---------------------|
+
+  static final int RETAINED_ENTRIES_INT = 16;
+  static final int ENTRIES_START = 24;
+
+  private final MemorySegment seg_;
+  private final FixedWidthSummary<?, S> fws_;
+  private final int summaryBytes_;
+  private final int count_;
+
+  DirectCompactTupleSketch(final MemorySegment seg, final FixedWidthSummary<?, S> fws) {
+    super(seg.get(JAVA_LONG_UNALIGNED, DirectTupleSketch.THETA_LONG),
+        (seg.get(JAVA_BYTE, DirectTupleSketch.FLAGS_BYTE) & DirectTupleSketch.IS_EMPTY_FLAG) != 0, null);
+    seg_ = seg;
+    fws_ = fws;
+    summaryBytes_ = fws.getSummaryBytes();
+    count_ = seg.get(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT);
+  }
+
+  /**
+   * Wraps the given MemorySegment image of a compact sketch, see {@link #toByteArray()}.
+   * @param seg the given MemorySegment
+   * @param fws the FixedWidthSummary of the Summary type, which must be the one the sketch was created with
+   * @param <S> type of Summary
+   * @return a compact sketch that uses the given MemorySegment
+   */
+  public static <S extends Summary> DirectCompactTupleSketch<S> wrap(final MemorySegment seg,
+      final FixedWidthSummary<?, S> fws) {
+    if (seg.byteSize() < ENTRIES_START) {
+      throw new SketchesArgumentException("Not enough space: need at least " + ENTRIES_START + " bytes, got "
+          + seg.byteSize() + " bytes");
+    }
+    final byte version = seg.get(JAVA_BYTE, DirectTupleSketch.SERIAL_VERSION_BYTE);
+    if (version != serialVersionUID) {
+      throw new SketchesArgumentException("Serial version mismatch. Expected: " + serialVersionUID
+          + ", actual: " + version);
+    }
+    SerializerDeserializer.validateFamily(seg.get(JAVA_BYTE, DirectTupleSketch.FAMILY_ID_BYTE),
+        seg.get(JAVA_BYTE, DirectTupleSketch.PREAMBLE_LONGS_BYTE));
+    SerializerDeserializer.validateType(seg.get(JAVA_BYTE, DirectTupleSketch.SKETCH_TYPE_BYTE),
+        SerializerDeserializer.SketchType.FixedWidthCompactSketch);
+    final int summaryBytes = seg.get(JAVA_SHORT_UNALIGNED, DirectTupleSketch.SUMMARY_BYTES_SHORT);
+    if (summaryBytes != fws.getSummaryBytes()) {
+      throw new SketchesArgumentException("Summary bytes mismatch. Expected: " + fws.getSummaryBytes()
+          + ", actual: " + summaryBytes);
+    }
+    checkMemorySegmentSize(seg, seg.get(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT), summaryBytes);
+    return new DirectCompactTupleSketch<>(seg, fws);
+  }
+
+  @Override
+  public int getRetainedEntries() {
+    return count_;
+  }
+
+  @Override
+  public int getCountLessThanThetaLong(final long thetaLong) {
+    int count = 0;
+    for (int i = 0; i < count_; i++) {
+      if (getKey(i) < thetaLong) { count++; }
+    }
+    return count;
+  }
+
+  /**
+   * Converts this sketch to a CompactTupleSketch on the Java heap, reading one Summary per retained entry.
+   * @return this sketch as a CompactTupleSketch
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public CompactTupleSketch<S> compact() {
+    if (count_ == 0) { return new CompactTupleSketch<>(null, null, thetaLong_, empty_); }
+    final long[] hashArr = new long[count_];
+    S[] summaryArr = null;
+    for (int i = 0; i < count_; i++) {
+      final S summary = fws_.read(seg_, getSummaryOffset(i));
+      if (summaryArr == null) { summaryArr = (S[]) Array.newInstance(summary.getClass(), count_); }
+      hashArr[i] = getKey(i);
+      summaryArr[i] = summary;
+    }
+    return new CompactTupleSketch<>(hashArr, summaryArr, thetaLong_, empty_);
+  }
+
+  /**
+   * Returns a copy of the MemorySegment image of this sketch, which can be wrapped with
+   * {@link #wrap(MemorySegment, FixedWidthSummary)}.
+   *
+   * <p>Note: Method throws if the image exceeds <code>Integer.MAX_VALUE</code> bytes.</p>
+   * @return a copy of the MemorySegment image of this sketch
+   */
+  @Override
+  public byte[] toByteArray() {
+    final long sizeBytes = getMaxBytes(count_, summaryBytes_);
+    if (sizeBytes > Integer.MAX_VALUE) {
+      throw new SketchesStateException("Cannot copy a sketch of " + sizeBytes + " bytes into a byte array");
+    }
+    final byte[] byteArray = new byte[(int) sizeBytes];
+    MemorySegment.copy(seg_, 0, MemorySegment.ofArray(byteArray), 0, sizeBytes);
+    return byteArray;
+  }
+
+  /**
+   * Returns an iterator over the retained entries. Each call of <i>getSummary()</i> reads a new Summary
+   * from the MemorySegment.
+   * @return an iterator over the retained entries
+   */
+  @Override
+  public TupleSketchIterator<S> iterator() {
+    return new DirectTupleSketchIterator<>(seg_, fws_, ENTRIES_START, getSummaryOffset(0), count_);
+  }
+
+  /**
+   * Returns the number of bytes of a compact sketch with the given number of entries.
+   * @param numEntries the given number of entries, which is at most K for the result of a union
+   * @param summaryBytes the number of bytes of every summary, see {@link FixedWidthSummary#getSummaryBytes()}
+   * @return the number of bytes of a compact sketch with the given number of entries
+   */
+  public static long getMaxBytes(final int numEntries, final int summaryBytes) {
+    return ENTRIES_START + ((long) (Long.BYTES + summaryBytes) * numEntries);
+  }
+
+  // non-public methods below
+
+  static void writeHeader(final MemorySegment dstSeg, final long thetaLong, final boolean empty, final int count,
+      final int summaryBytes) {
+    checkMemorySegmentSize(dstSeg, count, summaryBytes);
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.PREAMBLE_LONGS_BYTE, (byte) 1);
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.SERIAL_VERSION_BYTE, serialVersionUID);
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.FAMILY_ID_BYTE, (byte) Family.TUPLE.getID());
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.SKETCH_TYPE_BYTE,
+        (byte) SerializerDeserializer.SketchType.FixedWidthCompactSketch.ordinal());
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.FLAGS_BYTE, (byte) (empty ? DirectTupleSketch.IS_EMPTY_FLAG : 0));
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.FLAGS_BYTE + 1, (byte) 0);
+    dstSeg.set(JAVA_SHORT_UNALIGNED, DirectTupleSketch.SUMMARY_BYTES_SHORT, (short) summaryBytes);
+    dstSeg.set(JAVA_LONG_UNALIGNED, DirectTupleSketch.THETA_LONG, thetaLong);
+    dstSeg.set(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT, count);
+    dstSeg.set(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT + Integer.BYTES, 0);
+  }
+
+  private long getKey(final int index) {
+    return seg_.get(JAVA_LONG_UNALIGNED, ENTRIES_START + ((long) Long.BYTES * index));
+  }
+
+  private long getSummaryOffset(final int index) {
+    return ENTRIES_START + ((long) Long.BYTES * count_) + ((long) summaryBytes_ * index);
+  }
+
+  private static void checkMemorySegmentSize(final MemorySegment seg, final int count, final int summaryBytes) {
+    final long sizeNeeded = ENTRIES_START + ((long) (Long.BYTES + summaryBytes) * count);
+    if (sizeNeeded > seg.byteSize()) {
+      throw new SketchesArgumentException("Not enough space: need "
+          + sizeNeeded + " bytes, got " + seg.byteSize() + " bytes");
+    }
+  }
+
+}
@@ -0,0 +1,710 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT_UNALIGNED;
+import static org.apache.datasketches.common.Util.ceilingPowerOf2;
+import static org.apache.datasketches.common.Util.clear;
+import static org.apache.datasketches.common.Util.clearBits;
+import static org.apache.datasketches.common.Util.exactLog2OfLong;
+import static org.apache.datasketches.common.Util.setBits;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.QuickSelect;
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.common.SketchesStateException;
+import org.apache.datasketches.thetacommon.HashOperations;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * An updatable generic tuple sketch of the QuickSelect type that keeps its hash table and its summaries in a
+ * given MemorySegment, which is owned and managed by the caller.
+ *
+ * <p>The Summary type must have a {@link FixedWidthSummary}, which updates and merges the summaries in place.
+ * Summary objects are only created when they are asked for, by {@link #iterator()} and {@link #compact()},
+ * so this MemorySegment can be off-heap and hold many more entries than would be practical on the Java heap.
+ * This sketch can be given to TupleUnion, TupleIntersection and TupleAnotB together with the
+ * SummarySetOperations of the Summary type, and the results are the same as those of the equivalent
+ * UpdatableTupleSketch. See {@link DirectTupleUnion} for a union in a MemorySegment.</p>
+ *
+ * <p>Resizes and rebuilds work in place in the MemorySegment, which can leave the entries in a different order
+ * than in the equivalent UpdatableTupleSketch. They use a small amount of heap that does not depend on the
+ * number of entries.</p>
+ *
+ * @param <U> type of the value used to update a summary
+ * @param <S> type of Summary
+ */
+public final class DirectTupleSketch<U, S extends Summary> extends TupleSketch<S> {
+  static final byte serialVersionUID = 1;
+
+  // Layout of the first 32 bytes:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||   Summary Bytes |--------|  Flags | SkType | FamID  | SerVer |  Preamble_Longs    |
+  //      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+  //  1   ||-------------------------Theta Long----------------------------------------------|
+  //      ||   23   |   22   |   21   |   20   |   19   |   18   |   17   |    16              |
+  //  2   ||-----------P (float)---------------|--------|--lgRF--|--lgArr-|---lgNom------------|
+  //      ||   31   |   30   |   29   |   28   |   27   |   26   |   25   |    24              |
+  //  3   ||-----------------------------------|----------Retained Entries---------------------|
+
+  static final int PREAMBLE_LONGS_BYTE = 0; // not used, always 1
+  static final int SERIAL_VERSION_BYTE = 1;
+  static final int FAMILY_ID_BYTE = 2;
+  static final int SKETCH_TYPE_BYTE = 3;
+  static final int FLAGS_BYTE = 4;
+  static final int SUMMARY_BYTES_SHORT = 6;
+  static final int THETA_LONG = 8;
+  static final int LG_NOM_ENTRIES_BYTE = 16;
+  static final int LG_CUR_CAPACITY_BYTE = 17;
+  static final int LG_RESIZE_FACTOR_BYTE = 18;
+  static final int SAMPLING_P_FLOAT = 20;
+  static final int RETAINED_ENTRIES_INT = 24;
+  static final int ENTRIES_START = 32;
+
+  static final int IS_EMPTY_FLAG = 1;
+
+  // marks a key that has not yet been placed during a rebuild, keys are positive otherwise
+  private static final long UNPLACED = Long.MIN_VALUE;
+  // number of key bits counted per pass of the selection of theta
+  private static final int RADIX_BITS = 11;
+
+  private static final int DEFAULT_LG_RESIZE_FACTOR = ResizeFactor.X8.lg();
+
+  private final MemorySegment seg_;
+  private final FixedWidthSummary<U, S> fws_;
+  private final int summaryBytes_;
+  private final boolean readOnly_;
+  // these can be derived from the seg_ contents, but are kept here for performance
+  private int lgCurrentCapacity_;
+  private long summariesOffset_;
+  private int rebuildThreshold_;
+
+  private DirectTupleSketch(final MemorySegment seg, final FixedWidthSummary<U, S> fws, final boolean readOnly) {
+    super(seg.get(JAVA_LONG_UNALIGNED, THETA_LONG), (seg.get(JAVA_BYTE, FLAGS_BYTE) & IS_EMPTY_FLAG) != 0, null);
+    seg_ = seg;
+    fws_ = fws;
+    summaryBytes_ = fws.getSummaryBytes();
+    readOnly_ = readOnly;
+    setCapacity(seg.get(JAVA_BYTE, LG_CUR_CAPACITY_BYTE));
+  }
+
+  /**
+   * Returns the number of bytes needed by a sketch with the given parameters and the default resize factor
+   * in the worst case.
+   * @param nomEntries <a href="{@docRoot}/resources/dictionary.html#nomEntries">Nominal Entries</a>
+   * @param summaryBytes the number of bytes of every summary, see {@link FixedWidthSummary#getSummaryBytes()}
+   * @return the maximum number of bytes of the MemorySegment of the sketch
+   */
+  public static long getMaxBytes(final int nomEntries, final int summaryBytes) {
+    return ENTRIES_START + ((long) (Long.BYTES + summaryBytes) * ceilingPowerOf2(nomEntries) * 2);
+  }
+
+  /**
+   * Creates a new sketch in the given MemorySegment with the default resize factor and sampling probability.
+   * @param nomEntries <a href="{@docRoot}/resources/dictionary.html#nomEntries">Nominal Entries</a>
+   * This will become the ceiling power of 2 if it is not.
+   * @param fws the FixedWidthSummary of the Summary type
+   * @param dstSeg the destination MemorySegment, see {@link #getMaxBytes(int, int)}
+   * @param <U> type of the value used to update a summary
+   * @param <S> type of Summary
+   * @return a new sketch in the given MemorySegment
+   */
+  public static <U, S extends Summary> DirectTupleSketch<U, S> create(final int nomEntries,
+      final FixedWidthSummary<U, S> fws, final MemorySegment dstSeg) {
+    return create(nomEntries, DEFAULT_LG_RESIZE_FACTOR, 1f, fws, dstSeg);
+  }
+
+  /**
+   * Creates a new sketch in the given MemorySegment.
+   * @param nomEntries <a href="{@docRoot}/resources/dictionary.html#nomEntries">Nominal Entries</a>
+   * This will become the ceiling power of 2 if it is not.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3. With a resize factor of 1 (value 0) the
+   * MemorySegment must hold the full hash table from the start.
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   * @param fws the FixedWidthSummary of the Summary type
+   * @param dstSeg the destination MemorySegment, see {@link #getMaxBytes(int, int)}
+   * @param <U> type of the value used to update a summary
+   * @param <S> type of Summary
+   * @return a new sketch in the given MemorySegment
+   */
+  public static <U, S extends Summary> DirectTupleSketch<U, S> create(final int nomEntries,
+      final int lgResizeFactor, final float samplingProbability, final FixedWidthSummary<U, S> fws,
+      final MemorySegment dstSeg) {
+    final int summaryBytes = fws.getSummaryBytes();
+    if ((summaryBytes < 1) || (summaryBytes > Short.MAX_VALUE)) {
+      throw new SketchesArgumentException("Invalid summary bytes: " + summaryBytes);
+    }
+    if ((samplingProbability <= 0f) || (samplingProbability > 1f)) {
+      throw new SketchesArgumentException("sampling probability must be between 0 and 1");
+    }
+    final int nomEntriesPow2 = ceilingPowerOf2(nomEntries);
+    final int startingCapacity = Util.getStartingCapacity(nomEntriesPow2, lgResizeFactor);
+    checkMemorySegmentSize(dstSeg, startingCapacity, summaryBytes);
+    dstSeg.set(JAVA_BYTE, PREAMBLE_LONGS_BYTE, (byte) 1);
+    dstSeg.set(JAVA_BYTE, SERIAL_VERSION_BYTE, serialVersionUID);
+    dstSeg.set(JAVA_BYTE, FAMILY_ID_BYTE, (byte) Family.TUPLE.getID());
+    dstSeg.set(JAVA_BYTE, SKETCH_TYPE_BYTE,
+        (byte) SerializerDeserializer.SketchType.FixedWidthQuickSelectSketch.ordinal());
+    dstSeg.set(JAVA_BYTE, FLAGS_BYTE, (byte) IS_EMPTY_FLAG);
+    dstSeg.set(JAVA_SHORT_UNALIGNED, SUMMARY_BYTES_SHORT, (short) summaryBytes);
+    dstSeg.set(JAVA_LONG_UNALIGNED, THETA_LONG, (long) (Long.MAX_VALUE * (double) samplingProbability));
+    dstSeg.set(JAVA_BYTE, LG_NOM_ENTRIES_BYTE, (byte) Integer.numberOfTrailingZeros(nomEntriesPow2));
+    dstSeg.set(JAVA_BYTE, LG_CUR_CAPACITY_BYTE, (byte) Integer.numberOfTrailingZeros(startingCapacity));
+    dstSeg.set(JAVA_BYTE, LG_RESIZE_FACTOR_BYTE, (byte) lgResizeFactor);
+    dstSeg.set(JAVA_FLOAT_UNALIGNED, SAMPLING_P_FLOAT, samplingProbability);
+    dstSeg.set(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT, 0);
+    clear(dstSeg, ENTRIES_START, (long) Long.BYTES * startingCapacity); //clear keys only
+    return new DirectTupleSketch<>(dstSeg, fws, false);
+  }
+
+  /**
+   * Wraps the given MemorySegment image of a sketch for updates, see {@link #toByteArray()}.
+   * @param seg the given MemorySegment
+   * @param fws the FixedWidthSummary of the Summary type, which must be the one the sketch was created with
+   * @param <U> type of the value used to update a summary
+   * @param <S> type of Summary
+   * @return a sketch that uses the given MemorySegment
+   */
+  public static <U, S extends Summary> DirectTupleSketch<U, S> writableWrap(final MemorySegment seg,
+      final FixedWidthSummary<U, S> fws) {
+    if (seg.isReadOnly()) { throw new SketchesReadOnlyException("Cannot update a read-only MemorySegment"); }
+    checkImage(seg, fws);
+    return new DirectTupleSketch<>(seg, fws, false);
+  }
+
+  /**
+   * Wraps the given MemorySegment image of a sketch as read-only, see {@link #toByteArray()}.
+   * @param seg the given MemorySegment
+   * @param fws the FixedWidthSummary of the Summary type, which must be the one the sketch was created with
+   * @param <U> type of the value used to update a summary
+   * @param <S> type of Summary
+   * @return a read-only sketch that uses the given MemorySegment
+   */
+  public static <U, S extends Summary> DirectTupleSketch<U, S> wrap(final MemorySegment seg,
+      final FixedWidthSummary<U, S> fws) {
+    checkImage(seg, fws);
+    return new DirectTupleSketch<>(seg, fws, true);
+  }
+
+  /**
+   * Updates this sketch with a long key and U value.
+   * The value is passed to the FixedWidthSummary for the key.
+   * @param key key to update the sketch with
+   * @param value value to update the sketch with
+   */
+  public void update(final long key, final U value) {
+    insertOrUpdate(PrimitiveTupleSketch.hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with a double key and U value.
+   * The value is passed to the FixedWidthSummary for the key.
+   * @param key key to update the sketch with
+   * @param value value to update the sketch with
+   */
+  public void update(final double key, final U value) {
+    insertOrUpdate(PrimitiveTupleSketch.hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with a String key and U value.
+   * The value is passed to the FixedWidthSummary for the key.
+   * @param key key to update the sketch with
+   * @param value value to update the sketch with
+   */
+  public void update(final String key, final U value) {
+    insertOrUpdate(PrimitiveTupleSketch.hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with a byte[] key and U value.
+   * The value is passed to the FixedWidthSummary for the key.
+   * @param key key to update the sketch with
+   * @param value value to update the sketch with
+   */
+  public void update(final byte[] key, final U value) {
+    insertOrUpdate(PrimitiveTupleSketch.hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with an int[] key and U value.
+   * The value is passed to the FixedWidthSummary for the key.
+   * @param key key to update the sketch with
+   * @param value value to update the sketch with
+   */
+  public void update(final int[] key, final U value) {
+    insertOrUpdate(PrimitiveTupleSketch.hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with a long[] key and U value.
+   * The value is passed to the FixedWidthSummary for the key.
+   * @param key key to update the sketch with
+   * @param value value to update the sketch with
+   */
+  public void update(final long[] key, final U value) {
+    insertOrUpdate(PrimitiveTupleSketch.hashKey(key), value);
+  }
+
+  @Override
+  public int getRetainedEntries() {
+    return seg_.get(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT);
+  }
+
+  @Override
+  public int getCountLessThanThetaLong(final long thetaLong) {
+    int count = 0;
+    final int cap = getCurrentCapacity();
+    for (int i = 0; i < cap; i++) {
+      final long hash = getKey(i);
+      if ((hash != 0) && (hash < thetaLong)) { count++; }
+    }
+    return count;
+  }
+
+  /**
+   * Get configured nominal number of entries
+   * @return nominal number of entries
+   */
+  public int getNominalEntries() {
+    return 1 << seg_.get(JAVA_BYTE, LG_NOM_ENTRIES_BYTE);
+  }
+
+  /**
+   * Get log_base2 of Nominal Entries
+   * @return log_base2 of Nominal Entries
+   */
+  public int getLgK() {
+    return exactLog2OfLong(getNominalEntries());
+  }
+
+  /**
+   * Get configured sampling probability
+   * @return sampling probability
+   */
+  public float getSamplingProbability() {
+    return seg_.get(JAVA_FLOAT_UNALIGNED, SAMPLING_P_FLOAT);
+  }
+
+  /**
+   * Get current capacity
+   * @return current capacity
+   */
+  public int getCurrentCapacity() {
+    return 1 << lgCurrentCapacity_;
+  }
+
+  /**
+   * Get configured resize factor
+   * @return resize factor
+   */
+  public ResizeFactor getResizeFactor() {
+    return ResizeFactor.getRF(seg_.get(JAVA_BYTE, LG_RESIZE_FACTOR_BYTE));
+  }
+
+  /**
+   * Gets the FixedWidthSummary of the summaries of this sketch
+   * @return the FixedWidthSummary of the summaries of this sketch
+   */
+  public FixedWidthSummary<U, S> getFixedWidthSummary() {
+    return fws_;
+  }
+
+  /**
+   * Returns true if this sketch cannot be updated
+   * @return true if this sketch cannot be updated
+   */
+  public boolean isReadOnly() {
+    return readOnly_;
+  }
+
+  /**
+   * Rebuilds reducing the actual number of entries to the nominal number of entries if needed
+   */
+  public void trim() {
+    checkWritable();
+    if (getRetainedEntries() > getNominalEntries()) {
+      updateTheta();
+      rebuild(getCurrentCapacity());
+    }
+  }
+
+  /**
+   * Resets this sketch an empty state.
+   */
+  public void reset() {
+    checkWritable();
+    final int startingCapacity = Util.getStartingCapacity(getNominalEntries(), seg_.get(JAVA_BYTE,
+        LG_RESIZE_FACTOR_BYTE));
+    setBits(seg_, FLAGS_BYTE, (byte) IS_EMPTY_FLAG);
+    empty_ = true;
+    setThetaLong((long) (Long.MAX_VALUE * (double) getSamplingProbability()));
+    seg_.set(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT, 0);
+    seg_.set(JAVA_BYTE, LG_CUR_CAPACITY_BYTE, (byte) Integer.numberOfTrailingZeros(startingCapacity));
+    clear(seg_, ENTRIES_START, (long) Long.BYTES * startingCapacity); //clear keys only
+    setCapacity(Integer.numberOfTrailingZeros(startingCapacity));
+  }
+
+  /**
+   * Converts this sketch to a CompactTupleSketch on the Java heap, reading one Summary per retained entry.
+   * @return this sketch as a CompactTupleSketch
+   */
+  @Override
+  public CompactTupleSketch<S> compact() {
+    return compact(thetaLong_);
+  }
+
+  /**
+   * Writes the compact form of this sketch into the given MemorySegment without creating Summary objects.
+   * @param dstSeg the destination MemorySegment, see {@link #getCompactBytes()}
+   * @return the compact form of this sketch, which uses the given MemorySegment
+   */
+  public DirectCompactTupleSketch<S> compact(final MemorySegment dstSeg) {
+    return compact(thetaLong_, getRetainedEntries(), dstSeg);
+  }
+
+  /**
+   * Returns the number of bytes of the compact form of this sketch in a MemorySegment.
+   * @return the number of bytes of the compact form of this sketch
+   */
+  public long getCompactBytes() {
+    return DirectCompactTupleSketch.getMaxBytes(getRetainedEntries(), summaryBytes_);
+  }
+
+  /**
+   * Returns a copy of the MemorySegment image of this sketch, which can be wrapped with
+   * {@link #wrap(MemorySegment, FixedWidthSummary)} and {@link #writableWrap(MemorySegment, FixedWidthSummary)}.
+   * A writable image needs up to {@link #getMaxBytes(int, int)} bytes to grow.
+   *
+   * <p>Note: Method throws if the image exceeds <code>Integer.MAX_VALUE</code> bytes.</p>
+   * @return a copy of the MemorySegment image of this sketch
+   */
+  @Override
+  public byte[] toByteArray() {
+    final long sizeBytes = summariesOffset_ + ((long) summaryBytes_ * getCurrentCapacity());
+    if (sizeBytes > Integer.MAX_VALUE) {
+      throw new SketchesStateException("Cannot copy a sketch of " + sizeBytes + " bytes into a byte array");
+    }
+    final byte[] byteArray = new byte[(int) sizeBytes];
+    MemorySegment.copy(seg_, 0, MemorySegment.ofArray(byteArray), 0, sizeBytes);
+    return byteArray;
+  }
+
+  /**
+   * Returns an iterator over the retained entries. Each call of <i>getSummary()</i> reads a new Summary
+   * from the MemorySegment, so changing it does not change this sketch.
+   * @return an iterator over the retained entries
+   */
+  @Override
+  public TupleSketchIterator<S> iterator() {
+    return new DirectTupleSketchIterator<>(seg_, fws_, ENTRIES_START, summariesOffset_, getCurrentCapacity());
+  }
+
+  // non-public methods below
+
+  @SuppressWarnings("unchecked")
+  CompactTupleSketch<S> compact(final long thetaLong) {
+    final long thetaLongOut = Math.min(thetaLong, thetaLong_);
+    final int count = getCountLessThanThetaLong(thetaLongOut);
+    if (count == 0) {
+      if (empty_) { return new CompactTupleSketch<>(null, null, Long.MAX_VALUE, true); }
+      return new CompactTupleSketch<>(null, null, thetaLongOut, false);
+    }
+    final long[] hashArr = new long[count];
+    S[] summaryArr = null;
+    int i = 0;
+    final int cap = getCurrentCapacity();
+    for (int j = 0; j < cap; j++) {
+      final long hash = getKey(j);
+      if ((hash != 0) && (hash < thetaLongOut)) {
+        final S summary = fws_.read(seg_, getSummaryOffset(j));
+        if (summaryArr == null) { summaryArr = (S[]) Array.newInstance(summary.getClass(), count); }
+        hashArr[i] = hash;
+        summaryArr[i] = summary;
+        i++;
+      }
+    }
+    return new CompactTupleSketch<>(hashArr, summaryArr, thetaLongOut, false);
+  }
+
+  DirectCompactTupleSketch<S> compact(final long thetaLong, final int count, final MemorySegment dstSeg) {
+    final long thetaLongOut = Math.min(thetaLong, thetaLong_);
+    final boolean empty = empty_ && (count == 0);
+    DirectCompactTupleSketch.writeHeader(dstSeg, empty ? Long.MAX_VALUE : thetaLongOut, empty, count,
+        summaryBytes_);
+    long keyOffset = DirectCompactTupleSketch.ENTRIES_START;
+    long summaryOffset = keyOffset + ((long) Long.BYTES * count);
+    final long keysEnd = summaryOffset;
+    final int cap = getCurrentCapacity();
+    for (int j = 0; (j < cap) && (keyOffset < keysEnd); j++) {
+      final long hash = getKey(j);
+      if ((hash != 0) && (hash < thetaLongOut)) {
+        dstSeg.set(JAVA_LONG_UNALIGNED, keyOffset, hash);
+        MemorySegment.copy(seg_, getSummaryOffset(j), dstSeg, summaryOffset, summaryBytes_);
+        keyOffset += Long.BYTES;
+        summaryOffset += summaryBytes_;
+      }
+    }
+    return new DirectCompactTupleSketch<>(dstSeg, fws_);
+  }
+
+  void merge(final long hash, final S summary) {
+    setNotEmpty();
+    if ((hash > 0) && (hash < thetaLong_)) {
+      final int index = HashOperations.hashSearchOrInsertMemorySegment(seg_, lgCurrentCapacity_, hash,
+          ENTRIES_START);
+      if (index < 0) {
+        fws_.write(seg_, getSummaryOffset(~index), summary);
+        incrementRetainedEntries();
+      } else {
+        fws_.union(seg_, getSummaryOffset(index), summary);
+      }
+      rebuildIfNeeded();
+    }
+  }
+
+  void merge(final long hash, final MemorySegment srcSeg, final long srcOffset) {
+    setNotEmpty();
+    if ((hash > 0) && (hash < thetaLong_)) {
+      final int index = HashOperations.hashSearchOrInsertMemorySegment(seg_, lgCurrentCapacity_, hash,
+          ENTRIES_START);
+      if (index < 0) {
+        MemorySegment.copy(srcSeg, srcOffset, seg_, getSummaryOffset(~index), summaryBytes_);
+        incrementRetainedEntries();
+      } else {
+        fws_.union(seg_, getSummaryOffset(index), srcSeg, srcOffset);
+      }
+      rebuildIfNeeded();
+    }
+  }
+
+  void setNotEmpty() {
+    if (empty_) {
+      empty_ = false;
+      clearBits(seg_, FLAGS_BYTE, (byte) IS_EMPTY_FLAG);
+    }
+  }
+
+  private void insertOrUpdate(final long hash, final U value) {
+    checkWritable();
+    if (hash == 0) { return; }
+    setNotEmpty();
+    if (hash >= thetaLong_) { return; }
+    final int index = HashOperations.hashSearchOrInsertMemorySegment(seg_, lgCurrentCapacity_, hash,
+        ENTRIES_START);
+    if (index < 0) {
+      final long offset = getSummaryOffset(~index);
+      fws_.initialize(seg_, offset);
+      fws_.update(seg_, offset, value);
+      incrementRetainedEntries();
+      rebuildIfNeeded();
+    } else {
+      fws_.update(seg_, getSummaryOffset(index), value);
+    }
+  }
+
+  private long getKey(final int index) {
+    return seg_.get(JAVA_LONG_UNALIGNED, ENTRIES_START + ((long) Long.BYTES * index));
+  }
+
+  private long getSummaryOffset(final int index) {
+    return summariesOffset_ + ((long) summaryBytes_ * index);
+  }
+
+  private void incrementRetainedEntries() {
+    seg_.set(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT, getRetainedEntries() + 1);
+  }
+
+  private void setThetaLong(final long thetaLong) {
+    thetaLong_ = thetaLong;
+    seg_.set(JAVA_LONG_UNALIGNED, THETA_LONG, thetaLong);
+  }
+
+  private void setCapacity(final int lgCapacity) {
+    lgCurrentCapacity_ = lgCapacity;
+    final int capacity = 1 << lgCapacity;
+    summariesOffset_ = ENTRIES_START + ((long) Long.BYTES * capacity);
+    rebuildThreshold_ = capacity > getNominalEntries()
+        ? (int) (capacity * ThetaUtil.REBUILD_THRESHOLD)
+        : (int) (capacity * ThetaUtil.RESIZE_THRESHOLD);
+  }
+
+  private void rebuildIfNeeded() {
+    if (getRetainedEntries() <= rebuildThreshold_) { return; }
+    final int cap = getCurrentCapacity();
+    if (cap > getNominalEntries()) {
+      updateTheta();
+      rebuild(cap);
+    } else {
+      rebuild(cap * (1 << seg_.get(JAVA_BYTE, LG_RESIZE_FACTOR_BYTE)));
+    }
+  }
+
+  // Sets theta to the (k+1)th smallest key without copying the keys out of the MemorySegment.
+  // Each pass counts the keys that have the prefix chosen so far by their next RADIX_BITS bits, and chooses the
+  // bucket of the wanted rank. Once that bucket holds few keys they are selected on the heap.
+  private void updateTheta() {
+    final int cap = getCurrentCapacity();
+    final int[] counts = new int[1 << RADIX_BITS];
+    int rank = getNominalEntries(); //zero based, among the keys with the prefix
+    long prefix = 0;
+    int lowBits = Long.SIZE - 1; //keys are positive, so every key has the empty prefix
+    int count;
+    do {
+      final int shift = Math.max(0, lowBits - RADIX_BITS);
+      final int mask = (1 << (lowBits - shift)) - 1;
+      Arrays.fill(counts, 0);
+      for (int j = 0; j < cap; j++) {
+        final long hash = getKey(j);
+        if ((hash != 0) && ((hash >>> lowBits) == prefix)) { counts[(int) (hash >>> shift) & mask]++; }
+      }
+      int bucket = 0;
+      while (counts[bucket] <= rank) { rank -= counts[bucket++]; }
+      prefix = (prefix << (lowBits - shift)) | bucket;
+      lowBits = shift;
+      count = counts[bucket];
+    } while (count > counts.length);
+    final long[] hashArr = new long[count];
+    int i = 0;
+    for (int j = 0; j < cap; j++) {
+      final long hash = getKey(j);
+      if ((hash != 0) && ((hash >>> lowBits) == prefix)) { hashArr[i++] = hash; }
+    }
+    setThetaLong(QuickSelect.select(hashArr, 0, count - 1, rank));
+  }
+
+  // Rebuilds in place in the same MemorySegment, dropping the entries at or above theta.
+  // A larger table first moves the summaries up to their new offset, so that every entry keeps its index.
+  // Then every entry is marked as unplaced and moved to the first slot of its probe sequence that is either
+  // empty or holds another unplaced entry, which is swapped into the current slot and placed next.
+  // A placed entry never moves again, so every probe sequence stays intact.
+  private void rebuild(final int newCapacity) {
+    checkMemorySegmentSize(seg_, newCapacity, summaryBytes_);
+    final int currCapacity = getCurrentCapacity();
+    if (newCapacity > currCapacity) {
+      final long newSummariesOffset = ENTRIES_START + ((long) Long.BYTES * newCapacity);
+      MemorySegment.copy(seg_, summariesOffset_, seg_, newSummariesOffset, (long) summaryBytes_ * currCapacity);
+      clear(seg_, ENTRIES_START + ((long) Long.BYTES * currCapacity),
+          (long) Long.BYTES * (newCapacity - currCapacity)); //clear new keys only
+    }
+    final int lgNewCapacity = Integer.numberOfTrailingZeros(newCapacity);
+    seg_.set(JAVA_BYTE, LG_CUR_CAPACITY_BYTE, (byte) lgNewCapacity);
+    setCapacity(lgNewCapacity);
+    int count = 0;
+    for (int i = 0; i < currCapacity; i++) {
+      final long hash = getKey(i);
+      if (hash == 0) { continue; }
+      if (hash < thetaLong_) {
+        setKey(i, hash | UNPLACED);
+        count++;
+      } else {
+        setKey(i, 0);
+      }
+    }
+    final MemorySegment swap = MemorySegment.ofArray(new byte[summaryBytes_]);
+    for (int i = 0; i < currCapacity; i++) {
+      long key = getKey(i);
+      while (key < 0) { // unplaced
+        final long hash = key & ~UNPLACED;
+        final int index = findPlace(hash, lgNewCapacity);
+        final long other = getKey(index);
+        setKey(index, hash);
+        if (index == i) { break; }
+        final long offset = getSummaryOffset(i);
+        final long otherOffset = getSummaryOffset(index);
+        if (other == 0) {
+          MemorySegment.copy(seg_, offset, seg_, otherOffset, summaryBytes_);
+          setKey(i, 0);
+          break;
+        }
+        MemorySegment.copy(seg_, otherOffset, swap, 0, summaryBytes_);
+        MemorySegment.copy(seg_, offset, seg_, otherOffset, summaryBytes_);
+        MemorySegment.copy(swap, 0, seg_, offset, summaryBytes_);
+        setKey(i, other);
+        key = other;
+      }
+    }
+    seg_.set(JAVA_INT_UNALIGNED, RETAINED_ENTRIES_INT, count);
+  }
+
+  // Returns the first slot in the OADH probe sequence of HashOperations that is empty or unplaced
+  private int findPlace(final long hash, final int lgCapacity) {
+    final int mask = (1 << lgCapacity) - 1;
+    final int stride = (2 * (int) ((hash >>> lgCapacity) & HashOperations.STRIDE_MASK)) + 1;
+    int index = (int) (hash & mask);
+    while (getKey(index) > 0) {
+      index = (index + stride) & mask;
+    }
+    return index;
+  }
+
+  private void setKey(final int index, final long key) {
+    seg_.set(JAVA_LONG_UNALIGNED, ENTRIES_START + ((long) Long.BYTES * index), key);
+  }
+
+  private void checkWritable() {
+    if (readOnly_) { throw new SketchesReadOnlyException("This sketch is read-only"); }
+  }
+
+  private static void checkMemorySegmentSize(final MemorySegment seg, final int numEntries,
+      final int summaryBytes) {
+    final long sizeNeeded = ENTRIES_START + ((long) (Long.BYTES + summaryBytes) * numEntries);
+    if (sizeNeeded > seg.byteSize()) {
+      throw new SketchesArgumentException("Not enough space: need "
+          + sizeNeeded + " bytes, got " + seg.byteSize() + " bytes");
+    }
+  }
+
+  private static void checkImage(final MemorySegment seg, final FixedWidthSummary<?, ?> fws) {
+    if (seg.byteSize() < ENTRIES_START) {
+      throw new SketchesArgumentException("Not enough space: need at least " + ENTRIES_START + " bytes, got "
+          + seg.byteSize() + " bytes");
+    }
+    final byte version = seg.get(JAVA_BYTE, SERIAL_VERSION_BYTE);
+    if (version != serialVersionUID) {
+      throw new SketchesArgumentException("Serial version mismatch. Expected: " + serialVersionUID
+          + ", actual: " + version);
+    }
+    SerializerDeserializer.validateFamily(seg.get(JAVA_BYTE, FAMILY_ID_BYTE), seg.get(JAVA_BYTE,
+        PREAMBLE_LONGS_BYTE));
+    SerializerDeserializer.validateType(seg.get(JAVA_BYTE, SKETCH_TYPE_BYTE),
+        SerializerDeserializer.SketchType.FixedWidthQuickSelectSketch);
+    final int summaryBytes = seg.get(JAVA_SHORT_UNALIGNED, SUMMARY_BYTES_SHORT);
+    if (summaryBytes != fws.getSummaryBytes()) {
+      throw new SketchesArgumentException("Summary bytes mismatch. Expected: " + fws.getSummaryBytes()
+          + ", actual: " + summaryBytes);
+    }
+    checkMemorySegmentSize(seg, 1 << seg.get(JAVA_BYTE, LG_CUR_CAPACITY_BYTE), summaryBytes);
+  }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Iterator over the keys and fixed width summaries of a tuple sketch in a MemorySegment.
+ * Each call of <i>getSummary()</i> reads a new Summary from the MemorySegment.
+ * @param <S> Type of Summary
+ */
+final class DirectTupleSketchIterator<S extends Summary> extends TupleSketchIterator<S> {
+  private final MemorySegment seg_;
+  private final FixedWidthSummary<?, S> fws_;
+  private final long keysOffset_;
+  private final long summariesOffset_;
+  private final int numSlots_;
+  private final int summaryBytes_;
+  private int i_;
+
+  /**
+   * Creates an iterator over the given region of a MemorySegment
+   * @param seg the given MemorySegment
+   * @param fws the FixedWidthSummary of the summaries
+   * @param keysOffset the byte offset of the keys
+   * @param summariesOffset the byte offset of the summaries
+   * @param numSlots the number of keys, of which the zero keys are skipped
+   */
+  DirectTupleSketchIterator(final MemorySegment seg, final FixedWidthSummary<?, S> fws, final long keysOffset,
+      final long summariesOffset, final int numSlots) {
+    super(null, null);
+    seg_ = seg;
+    fws_ = fws;
+    keysOffset_ = keysOffset;
+    summariesOffset_ = summariesOffset;
+    numSlots_ = numSlots;
+    summaryBytes_ = fws.getSummaryBytes();
+    i_ = -1;
+  }
+
+  @Override
+  public boolean next() {
+    while (++i_ < numSlots_) {
+      if (seg_.get(JAVA_LONG_UNALIGNED, keysOffset_ + ((long) Long.BYTES * i_)) != 0) { return true; }
+    }
+    return false;
+  }
+
+  @Override
+  public long getHash() {
+    return seg_.get(JAVA_LONG_UNALIGNED, keysOffset_ + ((long) Long.BYTES * i_));
+  }
+
+  @Override
+  public S getSummary() {
+    return fws_.read(seg_, getSummaryOffset());
+  }
+
+  MemorySegment getMemorySegment() {
+    return seg_;
+  }
+
+  long getSummaryOffset() {
+    return summariesOffset_ + ((long) summaryBytes_ * i_);
+  }
+
+  FixedWidthSummary<?, S> getFixedWidthSummary() {
+    return fws_;
+  }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static java.lang.Math.min;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.common.Family;
+import org.apache.datasketches.common.QuickSelect;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.theta.HashIterator;
+import org.apache.datasketches.theta.ThetaSketch;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * Compute the union of two or more generic tuple sketches or generic TupleSketches combined with
+ * ThetaSketches in a given MemorySegment, which is owned and managed by the caller.
+ *
+ * <p>The Summary type must have a {@link FixedWidthSummary}, which merges the summaries in place, with the
+ * same semantics as the <i>union()</i> of its SummarySetOperations. The entries of a {@link DirectTupleSketch}
+ * or a {@link DirectCompactTupleSketch} with the same FixedWidthSummary type are merged without creating
+ * Summary objects. A new instance represents an empty set.</p>
+ *
+ * @param <S> Type of Summary
+ */
+public final class DirectTupleUnion<S extends Summary> {
+  static final byte serialVersionUID = 1;
+
+  // Layout of the first 16 bytes, followed by the DirectTupleSketch gadget:
+  // Long || Start Byte Adr:
+  // Adr:
+  //      ||    7   |    6   |    5   |    4   |    3   |    2   |    1   |     0              |
+  //  0   ||-----------------------------------| SkType | FamID  | SerVer |  Preamble_Longs    |
+  //      ||   15   |   14   |   13   |   12   |   11   |   10   |    9   |     8              |
+  //  1   ||-------------------------TupleUnion Theta Long------------------------------------|
+
+  static final int PREAMBLE_SIZE_BYTES = 16;
+
+  private final MemorySegment seg_;
+  private final FixedWidthSummary<?, S> fws_;
+  private final DirectTupleSketch<?, S> gadget_;
+  private long unionThetaLong_; // need to maintain outside of the sketch
+
+  private DirectTupleUnion(final MemorySegment seg, final FixedWidthSummary<?, S> fws,
+      final DirectTupleSketch<?, S> gadget) {
+    seg_ = seg;
+    fws_ = fws;
+    gadget_ = gadget;
+    unionThetaLong_ = seg.get(JAVA_LONG_UNALIGNED, DirectTupleSketch.THETA_LONG);
+  }
+
+  /**
+   * Returns the number of bytes needed by a union with the given parameters in the worst case.
+   * @param nomEntries nominal entries (K)
+   * @param summaryBytes the number of bytes of every summary, see {@link FixedWidthSummary#getSummaryBytes()}
+   * @return the maximum number of bytes of the MemorySegment of the union
+   */
+  public static long getMaxBytes(final int nomEntries, final int summaryBytes) {
+    return PREAMBLE_SIZE_BYTES + DirectTupleSketch.getMaxBytes(nomEntries, summaryBytes);
+  }
+
+  /**
+   * Creates a new union in the given MemorySegment with the default nominal entries (K).
+   * @param fws the FixedWidthSummary of the Summary type
+   * @param dstSeg the destination MemorySegment, see {@link #getMaxBytes(int, int)}
+   * @param <S> type of Summary
+   * @return a new union in the given MemorySegment
+   */
+  public static <S extends Summary> DirectTupleUnion<S> create(final FixedWidthSummary<?, S> fws,
+      final MemorySegment dstSeg) {
+    return create(ThetaUtil.DEFAULT_NOMINAL_ENTRIES, fws, dstSeg);
+  }
+
+  /**
+   * Creates a new union in the given MemorySegment.
+   * @param nomEntries nominal entries (K). Forced to the nearest power of 2 greater than
+   * given value.
+   * @param fws the FixedWidthSummary of the Summary type
+   * @param dstSeg the destination MemorySegment, see {@link #getMaxBytes(int, int)}
+   * @param <S> type of Summary
+   * @return a new union in the given MemorySegment
+   */
+  public static <S extends Summary> DirectTupleUnion<S> create(final int nomEntries,
+      final FixedWidthSummary<?, S> fws, final MemorySegment dstSeg) {
+    if (dstSeg.byteSize() < PREAMBLE_SIZE_BYTES) {
+      throw new SketchesArgumentException("Not enough space: need at least " + PREAMBLE_SIZE_BYTES
+          + " bytes, got " + dstSeg.byteSize() + " bytes");
+    }
+    final DirectTupleSketch<?, S> gadget = DirectTupleSketch.create(nomEntries, fws,
+        dstSeg.asSlice(PREAMBLE_SIZE_BYTES));
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.PREAMBLE_LONGS_BYTE, (byte) 1); // unused, always 1
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.SERIAL_VERSION_BYTE, serialVersionUID);
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.FAMILY_ID_BYTE, (byte) Family.TUPLE.getID());
+    dstSeg.set(JAVA_BYTE, DirectTupleSketch.SKETCH_TYPE_BYTE,
+        (byte) SerializerDeserializer.SketchType.FixedWidthUnion.ordinal());
+    dstSeg.set(JAVA_LONG_UNALIGNED, DirectTupleSketch.THETA_LONG, gadget.getThetaLong());
+    return new DirectTupleUnion<>(dstSeg, fws, gadget);
+  }
+
+  /**
+   * Wraps the given MemorySegment image of a union for further unions.
+   * @param seg the given MemorySegment
+   * @param fws the FixedWidthSummary of the Summary type, which must be the one the union was created with
+   * @param <S> type of Summary
+   * @return a union that uses the given MemorySegment
+   */
+  public static <S extends Summary> DirectTupleUnion<S> writableWrap(final MemorySegment seg,
+      final FixedWidthSummary<?, S> fws) {
+    if (seg.isReadOnly()) { throw new SketchesReadOnlyException("Cannot update a read-only MemorySegment"); }
+    if (seg.byteSize() < PREAMBLE_SIZE_BYTES) {
+      throw new SketchesArgumentException("Not enough space: need at least " + PREAMBLE_SIZE_BYTES
+          + " bytes, got " + seg.byteSize() + " bytes");
+    }
+    final byte version = seg.get(JAVA_BYTE, DirectTupleSketch.SERIAL_VERSION_BYTE);
+    if (version != serialVersionUID) {
+      throw new SketchesArgumentException("Serial version mismatch. Expected: " + serialVersionUID
+          + ", actual: " + version);
+    }
+    SerializerDeserializer.validateFamily(seg.get(JAVA_BYTE, DirectTupleSketch.FAMILY_ID_BYTE),
+        seg.get(JAVA_BYTE, DirectTupleSketch.PREAMBLE_LONGS_BYTE));
+    SerializerDeserializer.validateType(seg.get(JAVA_BYTE, DirectTupleSketch.SKETCH_TYPE_BYTE),
+        SerializerDeserializer.SketchType.FixedWidthUnion);
+    final DirectTupleSketch<?, S> gadget = DirectTupleSketch.writableWrap(seg.asSlice(PREAMBLE_SIZE_BYTES), fws);
+    return new DirectTupleUnion<>(seg, fws, gadget);
+  }
+
+  /**
+   * Performs a stateful union of the internal set with the given TupleSketch.
+   * @param tupleSketch input tuple sketch to merge with the internal set.
+   * Nulls and empty sketches are ignored.
+   */
+  public void union(final TupleSketch<S> tupleSketch) {
+    if (tupleSketch == null || tupleSketch.isEmpty()) { return; }
+    gadget_.setNotEmpty();
+    setUnionThetaLong(min(tupleSketch.thetaLong_, unionThetaLong_));
+    final TupleSketchIterator<S> it = tupleSketch.iterator();
+    if (it instanceof DirectTupleSketchIterator<S> dit && isSameLayout(dit.getFixedWidthSummary())) {
+      final MemorySegment srcSeg = dit.getMemorySegment();
+      while (dit.next()) {
+        gadget_.merge(dit.getHash(), srcSeg, dit.getSummaryOffset());
+      }
+    } else {
+      while (it.next()) {
+        gadget_.merge(it.getHash(), it.getSummary());
+      }
+    }
+    setUnionThetaLong(min(unionThetaLong_, gadget_.thetaLong_));
+  }
+
+  /**
+   * Performs a stateful union of the internal set with the given ThetaSketch by combining entries
+   * using the hashes from the ThetaSketch and summary values from the given summary.
+   * @param thetaSketch the given ThetaSketch input. If null or empty, it is ignored.
+   * @param summary the given proxy summary for the ThetaSketch, which doesn't have one. This may
+   * not be null.
+   */
+  public void union(final ThetaSketch thetaSketch, final S summary) {
+    if (summary == null) {
+      throw new SketchesArgumentException("Summary cannot be null."); }
+    if (thetaSketch == null || thetaSketch.isEmpty()) { return; }
+    gadget_.setNotEmpty();
+    setUnionThetaLong(min(thetaSketch.getThetaLong(), unionThetaLong_));
+    final HashIterator it = thetaSketch.iterator();
+    while (it.next()) {
+      gadget_.merge(it.get(), summary);
+    }
+    setUnionThetaLong(min(unionThetaLong_, gadget_.thetaLong_));
+  }
+
+  /**
+   * Gets the result of a sequence of stateful <i>union</i> operations as an unordered CompactTupleSketch
+   * on the Java heap. The state of this operation is not reset after the result is returned.
+   * @return result of the stateful unions so far
+   */
+  public CompactTupleSketch<S> getResult() {
+    if (gadget_.isEmpty()) { return gadget_.compact(); }
+    return gadget_.compact(getResultThetaLong());
+  }
+
+  /**
+   * Gets the result of a sequence of stateful <i>union</i> operations as an unordered DirectCompactTupleSketch
+   * in the given MemorySegment, without creating Summary objects. The state of this operation is not reset
+   * after the result is returned.
+   * @param dstSeg the destination MemorySegment, which needs the bytes of at most K entries,
+   * see {@link DirectCompactTupleSketch#getMaxBytes(int, int)}
+   * @return result of the stateful unions so far
+   */
+  public DirectCompactTupleSketch<S> getResult(final MemorySegment dstSeg) {
+    if (gadget_.isEmpty()) { return gadget_.compact(dstSeg); }
+    final long thetaLongOut = getResultThetaLong();
+    return gadget_.compact(thetaLongOut, gadget_.getCountLessThanThetaLong(thetaLongOut), dstSeg);
+  }
+
+  /**
+   * Resets the internal set to the initial state, which represents an empty set. This is only useful
+   * after sequences of stateful union operations.
+   */
+  public void reset() {
+    gadget_.reset();
+    setUnionThetaLong(gadget_.getThetaLong());
+  }
+
+  // non-public methods below
+
+  //the theta of the result, which holds at most K entries
+  private long getResultThetaLong() {
+    final long tmpThetaLong = min(unionThetaLong_, gadget_.thetaLong_);
+    final int nomEntries = gadget_.getNominalEntries();
+    if (gadget_.getRetainedEntries() <= nomEntries) { return tmpThetaLong; }
+    final int numHashesIn = gadget_.getCountLessThanThetaLong(tmpThetaLong);
+    if (numHashesIn <= nomEntries) { return tmpThetaLong; }
+    final long[] tmpHashArr = new long[numHashesIn]; // temporary, order will be destroyed by quick select
+    final TupleSketchIterator<S> it = gadget_.iterator();
+    int i = 0;
+    while (it.next()) {
+      final long hash = it.getHash();
+      if (hash < tmpThetaLong) { tmpHashArr[i++] = hash; }
+    }
+    return QuickSelect.select(tmpHashArr, 0, numHashesIn - 1, nomEntries);
+  }
+
+  private boolean isSameLayout(final FixedWidthSummary<?, S> fws) {
+    return (fws.getClass() == fws_.getClass()) && (fws.getSummaryBytes() == fws_.getSummaryBytes());
+  }
+
+  private void setUnionThetaLong(final long thetaLong) {
+    unionThetaLong_ = thetaLong;
+    seg_.set(JAVA_LONG_UNALIGNED, DirectTupleSketch.THETA_LONG, thetaLong);
+  }
+
+}
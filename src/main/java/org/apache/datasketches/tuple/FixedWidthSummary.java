@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * The fixed width serialization contract of a Summary type, which allows tuple sketches to keep their summaries
+ * in a MemorySegment, see {@link DirectTupleSketch}, {@link DirectCompactTupleSketch} and {@link DirectTupleUnion}.
+ *
+ * <p>Every summary takes exactly {@link #getSummaryBytes()} bytes, and is updated and merged in place at a
+ * given offset of a MemorySegment. Summary objects are only created by {@link #read(MemorySegment, long)},
+ * when they are asked for by an iterator or by the conversion to a heap sketch.</p>
+ *
+ * <p>An implementation takes the roles of the SummaryFactory, of <i>UpdatableSummary.update()</i> and of the
+ * <i>union()</i> of the SummarySetOperations of the Summary type. It must be stateless apart from its
+ * configuration, so that the same instance can be shared by many sketches.</p>
+ *
+ * @param <U> type of the value used to update a summary
+ * @param <S> type of Summary
+ */
+public interface FixedWidthSummary<U, S extends Summary> {
+
+  /**
+   * Returns the number of bytes of every serialized summary.
+   * @return the number of bytes of every serialized summary
+   */
+  int getSummaryBytes();
+
+  /**
+   * Writes the state of a new summary, as returned by SummaryFactory.newSummary(), at the given offset.
+   * @param seg the given MemorySegment
+   * @param offset the byte offset of the summary
+   */
+  void initialize(MemorySegment seg, long offset);
+
+  /**
+   * Updates the summary at the given offset in place with the given value.
+   * @param seg the given MemorySegment
+   * @param offset the byte offset of the summary
+   * @param value the given value
+   */
+  void update(MemorySegment seg, long offset, U value);
+
+  /**
+   * Writes a copy of the given summary at the given offset.
+   * @param seg the given MemorySegment
+   * @param offset the byte offset of the summary
+   * @param summary the given summary
+   */
+  void write(MemorySegment seg, long offset, S summary);
+
+  /**
+   * Replaces the summary at the given offset with its union with the given summary.
+   * @param seg the given MemorySegment
+   * @param offset the byte offset of the summary
+   * @param summary the given summary, which must not be modified
+   */
+  void union(MemorySegment seg, long offset, S summary);
+
+  /**
+   * Replaces the summary at the given offset with its union with the summary at the given source offset.
+   * The default reads the source summary. Implementations should override this to merge the bytes directly.
+   * @param seg the given MemorySegment
+   * @param offset the byte offset of the summary
+   * @param srcSeg the MemorySegment of the source summary
+   * @param srcOffset the byte offset of the source summary
+   */
+  default void union(final MemorySegment seg, final long offset, final MemorySegment srcSeg, final long srcOffset) {
+    union(seg, offset, read(srcSeg, srcOffset));
+  }
+
+  /**
+   * Creates a new Summary from the bytes at the given offset.
+   * @param seg the given MemorySegment
+   * @param offset the byte offset of the summary
+   * @return a new Summary
+   */
+  S read(MemorySegment seg, long offset);
+
+}
@@ -0,0 +1,388 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static org.apache.datasketches.common.Util.DEFAULT_UPDATE_SEED;
+import static org.apache.datasketches.common.Util.ceilingPowerOf2;
+import static org.apache.datasketches.common.Util.exactLog2OfLong;
+import static org.apache.datasketches.thetacommon.HashOperations.count;
+
+import java.lang.reflect.Array;
+
+import org.apache.datasketches.common.QuickSelect;
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.hash.MurmurHash3;
+import org.apache.datasketches.thetacommon.HashOperations;
+import org.apache.datasketches.thetacommon.ThetaUtil;
+
+/**
+ * An updatable tuple sketch of the QuickSelect type that keeps the value of each retained entry in a primitive
+ * array parallel to the hash table, instead of in one Summary object per entry.
+ *
+ * <p>Each value is kept as 64 raw bits, which the subclass interprets, for example as a double or a long, and
+ * updates with its own aggregation mode. Summary objects are only created when they are asked for, by
+ * {@link #iterator()} and {@link #compact()}. These sketches can therefore be given to TupleUnion,
+ * TupleIntersection and TupleAnotB together with the SummarySetOperations of the matching Summary type, and the
+ * results are the same as those of the equivalent UpdatableTupleSketch.</p>
+ *
+ * <p>Only the retained entries of this sketch are kept without Summary objects. The set operations have no
+ * primitive path: they read this sketch through {@link #iterator()} or {@link #compact()}, which create one
+ * Summary per entry, and their results hold one Summary per entry as for any other tuple sketch.</p>
+ *
+ * @param <S> type of Summary created from the values
+ */
+public abstract class PrimitiveTupleSketch<S extends Summary> extends TupleSketch<S> {
+  private final int nomEntries_;
+  private final int lgResizeFactor_;
+  private final float samplingProbability_;
+  private final long newValueBits_; //the value of a new entry
+  private int lgCurrentCapacity_;
+  private int retEntries_;
+  private int rebuildThreshold_;
+  private long[] hashTable_;
+  private long[] valueTable_;
+
+  /**
+   * Creates this sketch with the following parameters:
+   * @param nomEntries <a href="{@docRoot}/resources/dictionary.html#nomEntries">Nominal Entries</a>
+   * This will become the ceiling power of 2 if it is not.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   * @param newValueBits the raw bits of the value of a new entry before its first update
+   * @param summaryFactory the factory of the Summary type created from the values
+   */
+  protected PrimitiveTupleSketch(final int nomEntries, final int lgResizeFactor, final float samplingProbability,
+      final long newValueBits, final SummaryFactory<S> summaryFactory) {
+    super((long) (Long.MAX_VALUE * (double) samplingProbability), true, summaryFactory);
+    nomEntries_ = ceilingPowerOf2(nomEntries);
+    lgResizeFactor_ = lgResizeFactor;
+    samplingProbability_ = samplingProbability;
+    newValueBits_ = newValueBits;
+    init();
+  }
+
+  private void init() {
+    final int startingCapacity = Util.getStartingCapacity(nomEntries_, lgResizeFactor_);
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(startingCapacity);
+    retEntries_ = 0;
+    hashTable_ = new long[startingCapacity];
+    valueTable_ = new long[startingCapacity];
+    rebuildThreshold_ = setRebuildThreshold(hashTable_.length, nomEntries_);
+  }
+
+  /**
+   * Creates a Summary with the value given by the raw bits.
+   * @param valueBits the raw bits of a value of this sketch
+   * @return a new Summary
+   */
+  protected abstract S newSummary(long valueBits);
+
+  @Override
+  public int getRetainedEntries() {
+    return retEntries_;
+  }
+
+  @Override
+  public int getCountLessThanThetaLong(final long thetaLong) {
+    return count(hashTable_, thetaLong);
+  }
+
+  /**
+   * Get configured nominal number of entries
+   * @return nominal number of entries
+   */
+  public int getNominalEntries() {
+    return nomEntries_;
+  }
+
+  /**
+   * Get log_base2 of Nominal Entries
+   * @return log_base2 of Nominal Entries
+   */
+  public int getLgK() {
+    return exactLog2OfLong(nomEntries_);
+  }
+
+  /**
+   * Get configured sampling probability
+   * @return sampling probability
+   */
+  public float getSamplingProbability() {
+    return samplingProbability_;
+  }
+
+  /**
+   * Get current capacity
+   * @return current capacity
+   */
+  public int getCurrentCapacity() {
+    return 1 << lgCurrentCapacity_;
+  }
+
+  /**
+   * Get configured resize factor
+   * @return resize factor
+   */
+  public ResizeFactor getResizeFactor() {
+    return ResizeFactor.getRF(lgResizeFactor_);
+  }
+
+  /**
+   * Rebuilds reducing the actual number of entries to the nominal number of entries if needed
+   */
+  public void trim() {
+    if (retEntries_ > nomEntries_) {
+      updateTheta();
+      resize(hashTable_.length);
+    }
+  }
+
+  /**
+   * Resets this sketch an empty state.
+   */
+  public void reset() {
+    empty_ = true;
+    thetaLong_ = (long) (Long.MAX_VALUE * (double) samplingProbability_);
+    init();
+  }
+
+  /**
+   * Converts this sketch to a CompactTupleSketch on the Java heap, creating one Summary per retained entry.
+   * @return this sketch as a CompactTupleSketch
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public CompactTupleSketch<S> compact() {
+    if (retEntries_ == 0) {
+      if (empty_) { return new CompactTupleSketch<>(null, null, Long.MAX_VALUE, true); }
+      return new CompactTupleSketch<>(null, null, thetaLong_, false);
+    }
+    final long[] hashArr = new long[retEntries_];
+    S[] summaryArr = null;
+    int i = 0;
+    for (int j = 0; j < hashTable_.length; j++) {
+      if (hashTable_[j] != 0) {
+        final S summary = newSummary(valueTable_[j]);
+        if (summaryArr == null) { summaryArr = (S[]) Array.newInstance(summary.getClass(), retEntries_); }
+        hashArr[i] = hashTable_[j];
+        summaryArr[i] = summary;
+        i++;
+      }
+    }
+    return new CompactTupleSketch<>(hashArr, summaryArr, thetaLong_, empty_);
+  }
+
+  /**
+   * This serializes the compact form of this sketch, which can be heapified with the SummaryDeserializer of
+   * the Summary type.
+   * @return serialized representation of the compact form of this sketch
+   */
+  @Override
+  public byte[] toByteArray() {
+    return compact().toByteArray();
+  }
+
+  /**
+   * Returns an iterator over the retained entries. Each call of <i>getSummary()</i> creates a new Summary
+   * from the value of the current entry, so changing it does not change this sketch.
+   * @return an iterator over the retained entries
+   */
+  @Override
+  public TupleSketchIterator<S> iterator() {
+    return new PrimitiveIterator();
+  }
+
+  /**
+   * Returns the index of the value of the given hash, which is inserted with the new value if it is not yet
+   * retained, or -1 if the hash is zero or not less than theta. The caller then updates the value with
+   * {@link #getValueBits(int)} and {@link #setValueBits(int, long)}, and calls {@link #rebuildIfNeeded()}.
+   * @param hash the given hash, zero if the key was null or empty
+   * @return the index of the value of the given hash, or -1
+   */
+  protected final int findOrInsert(final long hash) {
+    if (hash == 0) { return -1; }
+    empty_ = false;
+    if (hash >= thetaLong_) { return -1; }
+    final int index = HashOperations.hashSearchOrInsert(hashTable_, lgCurrentCapacity_, hash);
+    if (index >= 0) { return index; }
+    retEntries_++;
+    valueTable_[~index] = newValueBits_;
+    return ~index;
+  }
+
+  /**
+   * Gets the raw bits of the value at the given index.
+   * @param index the index returned by {@link #findOrInsert(long)}
+   * @return the raw bits of the value
+   */
+  protected final long getValueBits(final int index) {
+    return valueTable_[index];
+  }
+
+  /**
+   * Sets the raw bits of the value at the given index.
+   * @param index the index returned by {@link #findOrInsert(long)}
+   * @param valueBits the raw bits of the value
+   */
+  protected final void setValueBits(final int index, final long valueBits) {
+    valueTable_[index] = valueBits;
+  }
+
+  /**
+   * Grows or rebuilds the hash table if it has reached its threshold. This invalidates the indices returned by
+   * {@link #findOrInsert(long)}.
+   */
+  protected final void rebuildIfNeeded() {
+    if (retEntries_ <= rebuildThreshold_) { return; }
+    if (hashTable_.length > nomEntries_) {
+      updateTheta();
+      resize(hashTable_.length);
+    } else {
+      resize(hashTable_.length * (1 << lgResizeFactor_));
+    }
+  }
+
+  /**
+   * Computes the hash of the given key, the same as UpdatableTupleSketch does.
+   * @param key the given key
+   * @return the hash of the key
+   */
+  protected static long hashKey(final long key) {
+    return MurmurHash3.hash(key, DEFAULT_UPDATE_SEED)[0] >>> 1;
+  }
+
+  /**
+   * Computes the hash of the given key, the same as UpdatableTupleSketch does.
+   * @param key the given key
+   * @return the hash of the key
+   */
+  protected static long hashKey(final double key) {
+    return hashKey(Util.doubleToLongArray(key));
+  }
+
+  /**
+   * Computes the hash of the given key, the same as UpdatableTupleSketch does.
+   * @param key the given key
+   * @return the hash of the key, or zero if the key is null or empty
+   */
+  protected static long hashKey(final String key) {
+    return hashKey(Util.stringToByteArray(key));
+  }
+
+  /**
+   * Computes the hash of the given key, the same as UpdatableTupleSketch does.
+   * @param key the given key
+   * @return the hash of the key, or zero if the key is null or empty
+   */
+  protected static long hashKey(final byte[] key) {
+    if ((key == null) || (key.length == 0)) { return 0; }
+    return MurmurHash3.hash(key, DEFAULT_UPDATE_SEED)[0] >>> 1;
+  }
+
+  /**
+   * Computes the hash of the given key, the same as UpdatableTupleSketch does.
+   * @param key the given key
+   * @return the hash of the key, or zero if the key is null or empty
+   */
+  protected static long hashKey(final int[] key) {
+    if ((key == null) || (key.length == 0)) { return 0; }
+    return MurmurHash3.hash(key, DEFAULT_UPDATE_SEED)[0] >>> 1;
+  }
+
+  /**
+   * Computes the hash of the given key, the same as UpdatableTupleSketch does.
+   * @param key the given key
+   * @return the hash of the key, or zero if the key is null or empty
+   */
+  protected static long hashKey(final long[] key) {
+    if ((key == null) || (key.length == 0)) { return 0; }
+    return MurmurHash3.hash(key, DEFAULT_UPDATE_SEED)[0] >>> 1;
+  }
+
+  // non-public methods below
+
+  long[] getHashTable() {
+    return hashTable_;
+  }
+
+  private void updateTheta() {
+    final long[] hashArr = new long[retEntries_];
+    int i = 0;
+    for (int j = 0; j < hashTable_.length; j++) {
+      if (hashTable_[j] != 0) { hashArr[i++] = hashTable_[j]; }
+    }
+    thetaLong_ = QuickSelect.select(hashArr, 0, retEntries_ - 1, nomEntries_);
+  }
+
+  private void resize(final int newSize) {
+    final long[] oldHashTable = hashTable_;
+    final long[] oldValueTable = valueTable_;
+    hashTable_ = new long[newSize];
+    valueTable_ = new long[newSize];
+    lgCurrentCapacity_ = Integer.numberOfTrailingZeros(newSize);
+    retEntries_ = 0;
+    for (int i = 0; i < oldHashTable.length; i++) {
+      final long hash = oldHashTable[i];
+      if ((hash != 0) && (hash < thetaLong_)) {
+        valueTable_[HashOperations.hashInsertOnly(hashTable_, lgCurrentCapacity_, hash)] = oldValueTable[i];
+        retEntries_++;
+      }
+    }
+    rebuildThreshold_ = setRebuildThreshold(newSize, nomEntries_);
+  }
+
+  private static int setRebuildThreshold(final int tableLength, final int nomEntries) {
+    if (tableLength > nomEntries) {
+      return (int) (tableLength * ThetaUtil.REBUILD_THRESHOLD);
+    } else {
+      return (int) (tableLength * ThetaUtil.RESIZE_THRESHOLD);
+    }
+  }
+
+  private final class PrimitiveIterator extends TupleSketchIterator<S> {
+    private final long[] hashTable = hashTable_;
+    private final long[] valueTable = valueTable_;
+    private int i = -1;
+
+    PrimitiveIterator() {
+      super(null, null);
+    }
+
+    @Override
+    public boolean next() {
+      while (++i < hashTable.length) {
+        if (hashTable[i] != 0) { return true; }
+      }
+      return false;
+    }
+
+    @Override
+    public long getHash() {
+      return hashTable[i];
+    }
+
+    @Override
+    public S getSummary() {
+      return newSummary(valueTable[i]);
+    }
+  }
+
+}
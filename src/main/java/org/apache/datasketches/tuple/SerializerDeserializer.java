@@ -49,7 +49,13 @@ public final class SerializerDeserializer {
     /** ArrayOfDoublesCompactSketch */
     ArrayOfDoublesCompactSketch,
     /** ArrayOfDoublesUnion */
-    ArrayOfDoublesUnion }
+    ArrayOfDoublesUnion,
+    /** DirectTupleSketch */
+    FixedWidthQuickSelectSketch,
+    /** DirectCompactTupleSketch */
+    FixedWidthCompactSketch,
+    /** DirectTupleUnion */
+    FixedWidthUnion }
 
   static final int TYPE_BYTE_OFFSET = 3;
 
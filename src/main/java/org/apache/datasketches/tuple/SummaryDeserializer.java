@@ -39,4 +39,16 @@ public interface SummaryDeserializer<S extends Summary> {
    */
   public DeserializeResult<S> heapifySummary(MemorySegment seg);
 
+  /**
+   * Returns the number of bytes of the serialized Summary at the start of the given MemorySegment.
+   * Wrapped sketches use this to skip the summaries that are not asked for, see
+   * {@link CompactTupleSketch#wrap(MemorySegment, SummaryDeserializer)}. The default deserializes the Summary,
+   * so deserializers of summaries with a known size should override this.
+   * @param seg MemorySegment object with serialized representation of a Summary
+   * @return the number of bytes of the serialized Summary
+   */
+  public default int getSummarySizeBytes(final MemorySegment seg) {
+    return heapifySummary(seg).getSize();
+  }
+
 }
@@ -496,12 +496,15 @@ public final class TupleAnotB<S extends Summary> {
     if (sk instanceof CompactTupleSketch) {
       csk = (CompactTupleSketch<S>) sk;
     } else {
-      csk = ((QuickSelectSketch<S>)sk).compact();
+      csk = sk.compact();
     }
     final int count = csk.getRetainedEntries();
     if (count == 0) {
       da.hashArr = null;
       da.summaryArr = null;
+    } else if (csk.isWrapped()) { //new arrays of new summaries, read in one pass
+      da.hashArr = new long[count];
+      da.summaryArr = csk.readEntries(da.hashArr);
     } else {
       da.hashArr = csk.getHashArr().clone();       //deep copy, may not be sorted
       da.summaryArr = Util.copySummaryArray(csk.getSummaryArr());
@@ -526,9 +529,17 @@ public final class TupleAnotB<S extends Summary> {
       final CompactTupleSketch<S> cskB = (CompactTupleSketch<S>) skB;
       final int countB = skB.getRetainedEntries();
       hashTableB = convertToHashTable(cskB.getHashArr(), countB, minThetaLong, ThetaUtil.REBUILD_THRESHOLD);
-    } else {
+    } else if (skB instanceof PrimitiveTupleSketch) {
+      hashTableB = ((PrimitiveTupleSketch<S>) skB).getHashTable();
+    } else if (skB instanceof QuickSelectSketch) {
       final QuickSelectSketch<S> qskB = (QuickSelectSketch<S>) skB;
       hashTableB = qskB.getHashTable();
+    } else { //sketches in a MemorySegment
+      final long[] hashArrB = new long[skB.getRetainedEntries()];
+      final TupleSketchIterator<S> it = skB.iterator();
+      int countB = 0;
+      while (it.next()) { hashArrB[countB++] = it.getHash(); }
+      hashTableB = convertToHashTable(hashArrB, countB, minThetaLong, ThetaUtil.REBUILD_THRESHOLD);
     }
 
     //build temporary arrays of skA
@@ -221,6 +221,18 @@ public abstract class TupleSketch<S extends Summary> {
       sb.append("   Current Capacity        : ").append(updatable.getCurrentCapacity()).append(LS);
       sb.append("   Resize Factor           : ").append(updatable.getResizeFactor().getValue()).append(LS);
       sb.append("   Sampling Probability (p): ").append(updatable.getSamplingProbability()).append(LS);
+    } else if (this instanceof PrimitiveTupleSketch) {
+      final PrimitiveTupleSketch<?> primitive = (PrimitiveTupleSketch<?>) this;
+      sb.append("   Nominal Entries (k)     : ").append(primitive.getNominalEntries()).append(LS);
+      sb.append("   Current Capacity        : ").append(primitive.getCurrentCapacity()).append(LS);
+      sb.append("   Resize Factor           : ").append(primitive.getResizeFactor().getValue()).append(LS);
+      sb.append("   Sampling Probability (p): ").append(primitive.getSamplingProbability()).append(LS);
+    } else if (this instanceof DirectTupleSketch) {
+      final DirectTupleSketch<?, ?> direct = (DirectTupleSketch<?, ?>) this;
+      sb.append("   Nominal Entries (k)     : ").append(direct.getNominalEntries()).append(LS);
+      sb.append("   Current Capacity        : ").append(direct.getCurrentCapacity()).append(LS);
+      sb.append("   Resize Factor           : ").append(direct.getResizeFactor().getValue()).append(LS);
+      sb.append("   Sampling Probability (p): ").append(direct.getSamplingProbability()).append(LS);
     }
     sb.append("### END SKETCH SUMMARY").append(LS);
     return sb.toString();
@@ -0,0 +1,467 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple;
+
+import static org.apache.datasketches.common.Util.DEFAULT_UPDATE_SEED;
+import static org.apache.datasketches.common.Util.ceilingPowerOf2;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.hash.MurmurHash3FFM;
+
+/**
+ * A group-by container that maintains one tuple sketch per group key, for example one sketch of unique users
+ * with their summaries per country or per IP address.
+ *
+ * <p>This container is designed for the case where the number of group keys is very large (millions) and most
+ * groups only see a few distinct items, which is the same use-case that the hllmap UniqueCountMap addresses for
+ * HLL. Dedicating an UpdatableTupleSketch to each group would cost a sketch object, a hash table and a summary
+ * table per group, most of which would stay nearly empty.</p>
+ *
+ * <p>Instead, every group starts in a small exact mode. Its first <i>exactCapacity</i> distinct hashes and
+ * summaries are kept in a fixed size chunk of a pair of slab arrays shared by all groups, and duplicates are
+ * found by a short linear scan of the chunk. Only when a group sees more distinct items than fit in its chunk
+ * is it promoted to an UpdatableTupleSketch of the configured nominal entries, and its chunk is returned to a
+ * free list to be reused by the next new group. As the exact capacity is less than the nominal entries, the
+ * exact mode is identical to the sketch it is promoted to.</p>
+ *
+ * <p>The results are the same as those of a separate UpdatableTupleSketch per group with the same nominal
+ * entries. The group keys must implement <i>equals</i> and <i>hashCode</i>, for example String, Long or a
+ * List of dimension values. Null group keys are ignored.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ *
+ * @param <K> Type of the group key
+ * @param <U> Type of the value, which is passed to update method of a Summary
+ * @param <S> Type of the UpdatableSummary&lt;U&gt;
+ */
+public final class TupleSketchGroupBy<K, U, S extends UpdatableSummary<U>> {
+  private static final int DEFAULT_EXACT_CAPACITY = 8;
+  private static final int MAX_EXACT_CAPACITY = 127; //counts are kept in bytes
+  private static final int INITIAL_GROUPS = 16;
+  private static final int UPDATE_ALL_BATCH = 1024;
+  private static final int LG_RESIZE_FACTOR = ResizeFactor.X8.lg();
+  private final int nomEntries_;
+  private final int exactCapacity_;
+  private final SummaryFactory<S> summaryFactory_;
+
+  //group key index: open addressing with linear probing, holds group + 1 or zero if empty
+  private int[] index_;
+  private int numGroups_;
+
+  //per group state, indexed by group
+  private Object[] keys_;
+  private int[] slots_;   //chunk of an exact group, or ~position in promoted_ of a promoted group
+  private byte[] counts_; //number of entries of an exact group
+
+  //slab of the exact groups, in chunks of exactCapacity_ entries
+  private long[] slabHashes_;
+  private Object[] slabSummaries_;
+  private int numChunks_;
+  private int[] freeChunks_;
+  private int numFreeChunks_;
+
+  private final List<UpdatableTupleSketch<U, S>> promoted_;
+
+  /**
+   * Creates an empty group-by container with the default exact capacity of 8 entries per group.
+   * @param nomEntries Nominal number of entries of the sketch of each group. Forced to the nearest power of 2
+   * greater than or equal to the given value.
+   * @param summaryFactory An instance of a SummaryFactory.
+   */
+  public TupleSketchGroupBy(final int nomEntries, final SummaryFactory<S> summaryFactory) {
+    this(nomEntries, DEFAULT_EXACT_CAPACITY, summaryFactory);
+  }
+
+  /**
+   * Creates an empty group-by container.
+   * @param nomEntries Nominal number of entries of the sketch of each group. Forced to the nearest power of 2
+   * greater than or equal to the given value.
+   * @param exactCapacity the number of distinct entries a group holds in exact mode before it is promoted to
+   * an UpdatableTupleSketch. This must be at least 1, at most 127 and less than the nominal entries.
+   * This provides a tradeoff between space wasted by the light groups, if too high, and the number of heavy
+   * groups that must be promoted, if too low.
+   * @param summaryFactory An instance of a SummaryFactory.
+   */
+  public TupleSketchGroupBy(final int nomEntries, final int exactCapacity, final SummaryFactory<S> summaryFactory) {
+    Objects.requireNonNull(summaryFactory, "summaryFactory must not be null");
+    final int k = ceilingPowerOf2(nomEntries);
+    if ((exactCapacity < 1) || (exactCapacity > MAX_EXACT_CAPACITY) || (exactCapacity >= k)) {
+      throw new SketchesArgumentException("exactCapacity must be between 1 and " + MAX_EXACT_CAPACITY
+          + " and less than the nominal entries " + k + ": " + exactCapacity);
+    }
+    nomEntries_ = k;
+    exactCapacity_ = exactCapacity;
+    summaryFactory_ = summaryFactory;
+    index_ = new int[2 * INITIAL_GROUPS];
+    keys_ = new Object[INITIAL_GROUPS];
+    slots_ = new int[INITIAL_GROUPS];
+    counts_ = new byte[INITIAL_GROUPS];
+    slabHashes_ = new long[INITIAL_GROUPS * exactCapacity];
+    slabSummaries_ = new Object[INITIAL_GROUPS * exactCapacity];
+    freeChunks_ = new int[INITIAL_GROUPS];
+    promoted_ = new ArrayList<>();
+  }
+
+  /**
+   * Updates the sketch of the given group with a long key and U value, exactly as
+   * {@link UpdatableTupleSketch#update(long, Object)} would update it.
+   * The group is created if this is its first update.
+   *
+   * @param key the given group key
+   * @param hashKey the given long key to be hashed into the sketch of the group
+   * @param value the given U value
+   */
+  public void update(final K key, final long hashKey, final U value) {
+    if (key == null) { return; }
+    final long hash = PrimitiveTupleSketch.hashKey(hashKey);
+    if (hash == 0) { return; }
+    updateHash(findOrInsertGroup(key), hash, value);
+  }
+
+  /**
+   * Updates the sketch of the given group with a String key and U value, exactly as
+   * {@link UpdatableTupleSketch#update(String, Object)} would update it.
+   * The group is created if this is its first update. Null or empty String keys are ignored.
+   *
+   * @param key the given group key
+   * @param hashKey the given String key to be hashed into the sketch of the group
+   * @param value the given U value
+   */
+  public void update(final K key, final String hashKey, final U value) {
+    if (key == null) { return; }
+    final long hash = PrimitiveTupleSketch.hashKey(hashKey);
+    if (hash == 0) { return; }
+    updateHash(findOrInsertGroup(key), hash, value);
+  }
+
+  /**
+   * Presents each (group key, long key, value) triple in the given range of the given arrays, the same as
+   * calling {@link #update(Object, long, Object)} for each. The long keys are hashed in batches.
+   *
+   * @param keys the given array of group keys
+   * @param hashKeys the given array of long keys to be hashed into the sketches of the groups
+   * @param values the given array of U values
+   * @param offset the index of the first triple
+   * @param length the number of triples
+   */
+  public void updateAll(final K[] keys, final long[] hashKeys, final U[] values, final int offset,
+      final int length) {
+    Objects.checkFromIndexSize(offset, length, keys.length);
+    Objects.checkFromIndexSize(offset, length, hashKeys.length);
+    Objects.checkFromIndexSize(offset, length, values.length);
+    final long[] hashes = new long[2 * Math.min(length, UPDATE_ALL_BATCH)];
+    for (int start = 0; start < length; start += UPDATE_ALL_BATCH) {
+      final int count = Math.min(UPDATE_ALL_BATCH, length - start);
+      MurmurHash3FFM.hashEach128(hashKeys, offset + start, count, DEFAULT_UPDATE_SEED, hashes);
+      for (int i = 0; i < count; i++) {
+        final K key = keys[offset + start + i];
+        final long hash = hashes[2 * i] >>> 1;
+        if ((key == null) || (hash == 0)) { continue; }
+        updateHash(findOrInsertGroup(key), hash, values[offset + start + i]);
+      }
+    }
+  }
+
+  /**
+   * Merges all groups of the given container into the groups of this container with the same keys.
+   * Groups that only exist in the given container are created. The given container is not modified.
+   *
+   * <p>Below the theta of a TupleUnion of the two sketches of a group, the merged group holds exactly the
+   * entries and summaries of that union, so its estimates are unbiased in the same way. Unlike
+   * {@link TupleUnion#getResult()}, a promoted group is not trimmed back to the nominal entries. It may retain
+   * up to the capacity of its hash table, with a theta at or above that of the union result. A TupleUnion of
+   * the nominal entries of the result of the merged group gives exactly the union result.</p>
+   *
+   * @param other the given group-by container
+   * @param summarySetOps instance of SummarySetOperations used to combine the summaries of common entries
+   */
+  @SuppressWarnings("unchecked")
+  public void merge(final TupleSketchGroupBy<K, U, S> other, final SummarySetOperations<S> summarySetOps) {
+    Objects.requireNonNull(other, "other must not be null");
+    Objects.requireNonNull(summarySetOps, "summarySetOps must not be null");
+    final int numOtherGroups = other.numGroups_;
+    for (int og = 0; og < numOtherGroups; og++) {
+      final int group = findOrInsertGroup((K) other.keys_[og]);
+      final int otherSlot = other.slots_[og];
+      if (otherSlot >= 0) {
+        final int start = otherSlot * other.exactCapacity_;
+        final int end = start + other.counts_[og];
+        for (int i = start; i < end; i++) {
+          mergeHash(group, other.slabHashes_[i], (S) other.slabSummaries_[i], summarySetOps);
+        }
+      } else {
+        final UpdatableTupleSketch<U, S> otherSketch = other.promoted_.get(~otherSlot);
+        final UpdatableTupleSketch<U, S> sketch = slots_[group] >= 0 ? promote(group) : promoted_.get(~slots_[group]);
+        if (otherSketch.getThetaLong() < sketch.getThetaLong()) {
+          sketch.setThetaLong(otherSketch.getThetaLong());
+          sketch.rebuild(); //drops the entries at or above the new theta
+        }
+        final TupleSketchIterator<S> it = otherSketch.iterator();
+        while (it.next()) {
+          sketch.merge(it.getHash(), it.getSummary(), summarySetOps);
+        }
+        sketch.setEmpty(false);
+      }
+    }
+  }
+
+  /**
+   * Returns the sketch of the given group as a CompactTupleSketch.
+   * @param key the given group key
+   * @return the sketch of the given group, which is empty if the group does not exist
+   */
+  @SuppressWarnings("unchecked")
+  public CompactTupleSketch<S> getResult(final K key) {
+    final int group = findGroup(key);
+    if (group < 0) { return new CompactTupleSketch<>(null, null, Long.MAX_VALUE, true); }
+    final int slot = slots_[group];
+    if (slot < 0) { return promoted_.get(~slot).compact(); }
+    final int start = slot * exactCapacity_;
+    final int count = counts_[group];
+    final long[] hashArr = Arrays.copyOfRange(slabHashes_, start, start + count);
+    final S[] summaryArr = (S[]) Array.newInstance(slabSummaries_[start].getClass(), count);
+    for (int i = 0; i < count; i++) {
+      summaryArr[i] = (S) ((S) slabSummaries_[start + i]).copy();
+    }
+    return new CompactTupleSketch<>(hashArr, summaryArr, Long.MAX_VALUE, false);
+  }
+
+  /**
+   * Returns the union of the sketches of all groups, the same as a TupleUnion of all of them would.
+   * @param summarySetOps instance of SummarySetOperations used to combine the summaries of common entries
+   * @return the union of all groups as a CompactTupleSketch of the nominal entries of this container
+   */
+  @SuppressWarnings("unchecked")
+  public CompactTupleSketch<S> unionAllGroups(final SummarySetOperations<S> summarySetOps) {
+    final TupleUnion<S> union = new TupleUnion<>(nomEntries_, summarySetOps);
+    for (int group = 0; group < numGroups_; group++) {
+      final int slot = slots_[group];
+      if (slot < 0) {
+        union.union(promoted_.get(~slot));
+      } else {
+        final int start = slot * exactCapacity_;
+        final int end = start + counts_[group];
+        for (int i = start; i < end; i++) {
+          union.merge(slabHashes_[i], (S) slabSummaries_[i]);
+        }
+      }
+    }
+    return union.getResult();
+  }
+
+  /**
+   * Returns the estimate of the number of distinct keys of the given group.
+   * @param key the given group key
+   * @return the estimate of the given group, which is zero if the group does not exist
+   */
+  public double getEstimate(final K key) {
+    final int group = findGroup(key);
+    if (group < 0) { return 0; }
+    final int slot = slots_[group];
+    return slot < 0 ? promoted_.get(~slot).getEstimate() : counts_[group];
+  }
+
+  /**
+   * Returns the group keys in the order the groups were created.
+   * @return a new list of the group keys
+   */
+  @SuppressWarnings("unchecked")
+  public List<K> getKeys() {
+    return new ArrayList<>(Arrays.asList((K[]) keys_).subList(0, numGroups_));
+  }
+
+  /**
+   * Returns the number of groups.
+   * @return the number of groups
+   */
+  public int getNumGroups() {
+    return numGroups_;
+  }
+
+  /**
+   * Returns the number of groups that have been promoted from the exact mode to an UpdatableTupleSketch.
+   * @return the number of promoted groups
+   */
+  public int getNumPromotedGroups() {
+    return promoted_.size();
+  }
+
+  /**
+   * Returns the nominal entries of the sketch of each group.
+   * @return the nominal entries
+   */
+  public int getNominalEntries() {
+    return nomEntries_;
+  }
+
+  /**
+   * Returns the number of distinct entries a group holds in exact mode before it is promoted.
+   * @return the exact capacity
+   */
+  public int getExactCapacity() {
+    return exactCapacity_;
+  }
+
+  // non-public methods below
+
+  @SuppressWarnings("unchecked")
+  private void updateHash(final int group, final long hash, final U value) {
+    final int slot = slots_[group];
+    if (slot < 0) {
+      promoted_.get(~slot).insertOrIgnore(hash, value);
+      return;
+    }
+    final int start = slot * exactCapacity_;
+    final int count = counts_[group];
+    for (int i = start; i < start + count; i++) {
+      if (slabHashes_[i] == hash) {
+        ((S) slabSummaries_[i]).update(value);
+        return;
+      }
+    }
+    if (count < exactCapacity_) {
+      final S summary = summaryFactory_.newSummary();
+      summary.update(value);
+      slabHashes_[start + count] = hash;
+      slabSummaries_[start + count] = summary;
+      counts_[group]++;
+    } else {
+      promote(group).insertOrIgnore(hash, value);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mergeHash(final int group, final long hash, final S summary,
+      final SummarySetOperations<S> summarySetOps) {
+    final int slot = slots_[group];
+    if (slot < 0) {
+      promoted_.get(~slot).merge(hash, summary, summarySetOps);
+      return;
+    }
+    final int start = slot * exactCapacity_;
+    final int count = counts_[group];
+    for (int i = start; i < start + count; i++) {
+      if (slabHashes_[i] == hash) {
+        slabSummaries_[i] = summarySetOps.union((S) slabSummaries_[i], (S) summary.copy());
+        return;
+      }
+    }
+    if (count < exactCapacity_) {
+      slabHashes_[start + count] = hash;
+      slabSummaries_[start + count] = summary.copy();
+      counts_[group]++;
+    } else {
+      promote(group).merge(hash, summary, summarySetOps);
+    }
+  }
+
+  /**
+   * Moves the entries of the given exact group into a new UpdatableTupleSketch and frees its chunk.
+   * @param group the given exact group
+   * @return the new sketch of the group
+   */
+  @SuppressWarnings("unchecked")
+  private UpdatableTupleSketch<U, S> promote(final int group) {
+    final UpdatableTupleSketch<U, S> sketch =
+        new UpdatableTupleSketch<>(nomEntries_, LG_RESIZE_FACTOR, 1f, summaryFactory_);
+    final int chunk = slots_[group];
+    final int start = chunk * exactCapacity_;
+    final int end = start + counts_[group];
+    for (int i = start; i < end; i++) {
+      sketch.insertSummary(~sketch.findOrInsert(slabHashes_[i]), (S) slabSummaries_[i]);
+      sketch.rebuildIfNeeded();
+    }
+    sketch.setEmpty(false);
+    Arrays.fill(slabSummaries_, start, end, null);
+    if (numFreeChunks_ == freeChunks_.length) {
+      freeChunks_ = Arrays.copyOf(freeChunks_, 2 * numFreeChunks_);
+    }
+    freeChunks_[numFreeChunks_++] = chunk;
+    slots_[group] = ~promoted_.size();
+    counts_[group] = 0;
+    promoted_.add(sketch);
+    return sketch;
+  }
+
+  private int findGroup(final K key) {
+    if (key == null) { return -1; }
+    final int mask = index_.length - 1;
+    for (int i = spread(key.hashCode()) & mask; index_[i] != 0; i = (i + 1) & mask) {
+      final int group = index_[i] - 1;
+      if (key.equals(keys_[group])) { return group; }
+    }
+    return -1;
+  }
+
+  private int findOrInsertGroup(final K key) {
+    final int mask = index_.length - 1;
+    int i = spread(key.hashCode()) & mask;
+    for (; index_[i] != 0; i = (i + 1) & mask) {
+      final int group = index_[i] - 1;
+      if (key.equals(keys_[group])) { return group; }
+    }
+    final int group = numGroups_++;
+    if (group == keys_.length) {
+      final int newLength = 2 * keys_.length;
+      keys_ = Arrays.copyOf(keys_, newLength);
+      slots_ = Arrays.copyOf(slots_, newLength);
+      counts_ = Arrays.copyOf(counts_, newLength);
+    }
+    keys_[group] = key;
+    slots_[group] = allocateChunk();
+    index_[i] = group + 1;
+    if ((2 * numGroups_) > index_.length) { //keep the index at most half full
+      resizeIndex();
+    }
+    return group;
+  }
+
+  private int allocateChunk() {
+    if (numFreeChunks_ > 0) { return freeChunks_[--numFreeChunks_]; }
+    if (((numChunks_ + 1) * exactCapacity_) > slabHashes_.length) {
+      final int newLength = 2 * slabHashes_.length;
+      slabHashes_ = Arrays.copyOf(slabHashes_, newLength);
+      slabSummaries_ = Arrays.copyOf(slabSummaries_, newLength);
+    }
+    return numChunks_++;
+  }
+
+  private void resizeIndex() {
+    index_ = new int[2 * index_.length];
+    final int mask = index_.length - 1;
+    for (int group = 0; group < numGroups_; group++) {
+      int i = spread(keys_[group].hashCode()) & mask;
+      while (index_[i] != 0) { i = (i + 1) & mask; }
+      index_[i] = group + 1;
+    }
+  }
+
+  private static int spread(final int hashCode) {
+    final int h = hashCode * 0x9E3779B9; //Fibonacci hashing, so that sequential keys do not cluster
+    return h ^ (h >>> 16);
+  }
+}
@@ -136,6 +136,13 @@ public class TupleUnion<S extends Summary> {
     unionThetaLong_ = min(unionThetaLong_, qsk_.thetaLong_);
   }
 
+  // this is a back door for merging single entries of a sketch that has no theta of its own
+  void merge(final long hash, final S summary) {
+    empty_ = false;
+    qsk_.merge(hash, summary, summarySetOps_);
+    unionThetaLong_ = min(unionThetaLong_, qsk_.thetaLong_);
+  }
+
   /**
    * Gets the result of a sequence of stateful <i>union</i> operations as an unordered CompactTupleSketch
    * @return result of the stateful unions so far. The state of this operation is not reset after the
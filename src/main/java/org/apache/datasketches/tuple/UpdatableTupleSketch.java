@@ -176,6 +176,24 @@ public class UpdatableTupleSketch<U, S extends UpdatableSummary<U>> extends Quic
     insertOrIgnore(MurmurHash3.hash(key, DEFAULT_UPDATE_SEED)[0] >>> 1, value);
   }
 
+  /**
+   * Updates this sketch with a key that the caller has already hashed and a U value.
+   * The hash must be the 128-bit MurmurHash3 of the key computed with
+   * {@link org.apache.datasketches.common.Util#DEFAULT_UPDATE_SEED DEFAULT_UPDATE_SEED}, for example by
+   * MurmurHash3FFM. Only the first half is used, exactly as the <i>update</i> methods use it.
+   * A first half that is zero once shifted cannot be retained and is ignored.
+   * The value is passed to update() method of the Summary object associated with the key
+   *
+   * @param hash0 the first 64 bits of the MurmurHash3 128-bit hash of the key
+   * @param hash1 the second 64 bits of the MurmurHash3 128-bit hash of the key, which is not used
+   * @param value The given U value
+   */
+  public void updateHash(final long hash0, final long hash1, final U value) {
+    final long hash = hash0 >>> 1;
+    if (hash == 0) { return; }
+    insertOrIgnore(hash, value);
+  }
+
   void insertOrIgnore(final long hash, final U value) {
     setEmpty(false);
     if (hash >= getThetaLong()) { return; }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.adouble;
+
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE_UNALIGNED;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.tuple.FixedWidthSummary;
+
+/**
+ * The FixedWidthSummary of DoubleSummary, which keeps each summary as one double of 8 bytes.
+ *
+ * <p>Updates apply the update mode, the same as DoubleSummary does, and unions apply the union mode, the same
+ * as DoubleSummarySetOperations does.</p>
+ */
+public final class DoubleFixedWidthSummary implements FixedWidthSummary<Double, DoubleSummary> {
+  private static final int SUMMARY_BYTES = Double.BYTES;
+
+  private final DoubleSummary.Mode updateMode_;
+  private final DoubleSummary.Mode unionMode_;
+  private final double newValue_;
+  private final double newUnionValue_;
+
+  /**
+   * Creates an instance with the given mode for both updates and unions
+   * @param summaryMode the given mode
+   */
+  public DoubleFixedWidthSummary(final DoubleSummary.Mode summaryMode) {
+    this(summaryMode, summaryMode);
+  }
+
+  /**
+   * Creates an instance with the given update and union modes
+   * @param updateMode the mode of the DoubleSummaries and their updates
+   * @param unionMode the mode of unions, the same as that of DoubleSummarySetOperations
+   */
+  public DoubleFixedWidthSummary(final DoubleSummary.Mode updateMode, final DoubleSummary.Mode unionMode) {
+    updateMode_ = updateMode;
+    unionMode_ = unionMode;
+    newValue_ = new DoubleSummary(updateMode).getValue();
+    newUnionValue_ = new DoubleSummary(unionMode).getValue();
+  }
+
+  @Override
+  public int getSummaryBytes() {
+    return SUMMARY_BYTES;
+  }
+
+  @Override
+  public void initialize(final MemorySegment seg, final long offset) {
+    seg.set(JAVA_DOUBLE_UNALIGNED, offset, newValue_);
+  }
+
+  @Override
+  public void update(final MemorySegment seg, final long offset, final Double value) {
+    seg.set(JAVA_DOUBLE_UNALIGNED, offset,
+        apply(updateMode_, seg.get(JAVA_DOUBLE_UNALIGNED, offset), value));
+  }
+
+  @Override
+  public void write(final MemorySegment seg, final long offset, final DoubleSummary summary) {
+    seg.set(JAVA_DOUBLE_UNALIGNED, offset, summary.getValue());
+  }
+
+  @Override
+  public void union(final MemorySegment seg, final long offset, final DoubleSummary summary) {
+    seg.set(JAVA_DOUBLE_UNALIGNED, offset,
+        union(seg.get(JAVA_DOUBLE_UNALIGNED, offset), summary.getValue()));
+  }
+
+  @Override
+  public void union(final MemorySegment seg, final long offset, final MemorySegment srcSeg,
+      final long srcOffset) {
+    seg.set(JAVA_DOUBLE_UNALIGNED, offset,
+        union(seg.get(JAVA_DOUBLE_UNALIGNED, offset), srcSeg.get(JAVA_DOUBLE_UNALIGNED, srcOffset)));
+  }
+
+  @Override
+  public DoubleSummary read(final MemorySegment seg, final long offset) {
+    return new DoubleSummary(updateMode_).update(seg.get(JAVA_DOUBLE_UNALIGNED, offset));
+  }
+
+  //the same as a new DoubleSummary of the union mode updated with both values
+  private double union(final double a, final double b) {
+    return apply(unionMode_, apply(unionMode_, newUnionValue_, a), b);
+  }
+
+  private static double apply(final DoubleSummary.Mode mode, final double current, final double value) {
+    switch (mode) {
+      case Sum:
+        return current + value;
+      case Min:
+        return (value < current) ? value : current;
+      case Max:
+        return (value > current) ? value : current;
+      default: //AlwaysOne
+        return 1.0;
+    }
+  }
+
+}
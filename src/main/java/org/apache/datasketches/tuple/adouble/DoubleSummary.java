@@ -136,7 +136,7 @@ public final class DoubleSummary implements UpdatableSummary<Double> {
     return value_;
   }
 
-  private static final int SERIALIZED_SIZE_BYTES = 9;
+  static final int SERIALIZED_SIZE_BYTES = 9;
   private static final int VALUE_INDEX = 0;
   private static final int MODE_BYTE_INDEX = 8;
 
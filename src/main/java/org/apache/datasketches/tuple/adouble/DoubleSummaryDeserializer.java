@@ -40,4 +40,9 @@ public class DoubleSummaryDeserializer implements SummaryDeserializer<DoubleSumm
     return DoubleSummary.fromMemorySegment(seg);
   }
 
+  @Override
+  public int getSummarySizeBytes(final MemorySegment seg) {
+    return DoubleSummary.SERIALIZED_SIZE_BYTES;
+  }
+
 }
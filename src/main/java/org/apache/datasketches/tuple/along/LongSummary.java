@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.along;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.common.ByteArrayUtil;
+import org.apache.datasketches.tuple.DeserializeResult;
+import org.apache.datasketches.tuple.UpdatableSummary;
+
+/**
+ * Summary for generic tuple sketches of type Long.
+ * This summary keeps a long value. On update a predefined operation is performed depending on
+ * the mode.
+ * Supported modes: Sum, Min, Max, AlwaysOne. The default mode is Sum.
+ */
+public class LongSummary implements UpdatableSummary<Long> {
+  private long value_;
+  private final Mode mode_;
+
+  /**
+   * The aggregation modes for this Summary
+   */
+  public enum Mode {
+
+    /**
+     * The aggregation mode is the summation function.
+     *
+     * <p>New retained value = previous retained value + incoming value</p>
+     */
+    Sum,
+
+    /**
+     * The aggregation mode is the minimum function.
+     *
+     * <p>New retained value = min(previous retained value, incoming value)</p>
+     */
+    Min,
+
+    /**
+     * The aggregation mode is the maximum function.
+     *
+     * <p>New retained value = max(previous retained value, incoming value)</p>
+     */
+    Max,
+
+    /**
+     * The aggregation mode is always one.
+     *
+     * <p>New retained value = 1</p>
+     */
+    AlwaysOne
+  }
+
+  /**
+   * Creates an instance of LongSummary with a given starting value and mode.
+   * @param value starting value
+   * @param mode update mode
+   */
+  private LongSummary(final long value, final Mode mode) {
+    value_ = value;
+    mode_ = mode;
+  }
+
+  /**
+   * Creates an instance of LongSummary with a given mode.
+   * @param mode update mode. This should not be called by a user.
+   */
+  public LongSummary(final Mode mode) {
+    mode_ = mode;
+    switch (mode) {
+      case Sum:
+        value_ = 0;
+        break;
+      case Min:
+        value_ = Long.MAX_VALUE;
+        break;
+      case Max:
+        value_ = Long.MIN_VALUE;
+        break;
+      case AlwaysOne:
+        value_ = 1;
+        break;
+    }
+  }
+
+  @Override
+  public LongSummary update(final Long value) {
+    return update(value.longValue());
+  }
+
+  /**
+   * Updates this summary with a primitive long value, as {@link #update(Long)} does.
+   * @param value the given value
+   * @return this summary
+   */
+  public LongSummary update(final long value) {
+    switch (mode_) {
+    case Sum:
+      value_ += value;
+      break;
+    case Min:
+      if (value < value_) { value_ = value; }
+      break;
+    case Max:
+      if (value > value_) { value_ = value; }
+      break;
+    case AlwaysOne:
+      value_ = 1;
+      break;
+    }
+    return this;
+  }
+
+  @Override
+  public LongSummary copy() {
+    return new LongSummary(value_, mode_);
+  }
+
+  /**
+   * Returns the current value of the LongSummary
+   * @return current value of the LongSummary
+   */
+  public long getValue() {
+    return value_;
+  }
+
+  static final int SERIALIZED_SIZE_BYTES = 9;
+  private static final int VALUE_INDEX = 0;
+  private static final int MODE_BYTE_INDEX = 8;
+
+  @Override
+  public byte[] toByteArray() {
+    final byte[] bytes = new byte[SERIALIZED_SIZE_BYTES];
+    ByteArrayUtil.putLongLE(bytes, VALUE_INDEX, value_);
+    bytes[MODE_BYTE_INDEX] = (byte) mode_.ordinal();
+    return bytes;
+  }
+
+  /**
+   * Creates an instance of the LongSummary given a serialized representation
+   * @param seg MemorySegment object with serialized LongSummary
+   * @return DeserializedResult object, which contains a LongSummary object and number of bytes
+   * read from the MemorySegment
+   */
+  public static DeserializeResult<LongSummary> fromMemorySegment(final MemorySegment seg) {
+    return new DeserializeResult<>(new LongSummary(seg.get(JAVA_LONG_UNALIGNED, VALUE_INDEX),
+        Mode.values()[seg.get(JAVA_BYTE, MODE_BYTE_INDEX)]), SERIALIZED_SIZE_BYTES);
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.along;
+
+import org.apache.datasketches.common.ResizeFactor;
+import org.apache.datasketches.tuple.PrimitiveTupleSketch;
+
+/**
+ * A tuple sketch with a long value per key, like {@link LongTupleSketch}, that keeps the values in a primitive
+ * array instead of in one LongSummary per retained entry.
+ *
+ * <p>Updates apply the LongSummary mode directly to the primitive values, so that retaining an entry costs
+ * no object. LongSummaries are only created by <i>iterator()</i> and <i>compact()</i>, so this sketch can be
+ * given to TupleUnion, TupleIntersection and TupleAnotB with LongSummarySetOperations, and its compact form
+ * heapified with LongSummaryDeserializer, with the same results as a LongTupleSketch. Those set operations
+ * still create one LongSummary per entry that they read from this sketch.</p>
+ */
+public class PrimitiveLongTupleSketch extends PrimitiveTupleSketch<LongSummary> {
+  private final LongSummary.Mode mode_;
+
+  /**
+   * Constructs this sketch with given <i>lgK</i>.
+   * @param lgK Log_base2 of <i>Nominal Entries</i>.
+   * <a href="{@docRoot}/resources/dictionary.html#nomEntries">See Nominal Entries</a>
+   * @param mode The LongSummary mode to be used
+   */
+  public PrimitiveLongTupleSketch(final int lgK, final LongSummary.Mode mode) {
+    this(lgK, ResizeFactor.X8.ordinal(), 1.0F, mode);
+  }
+
+  /**
+   * Creates this sketch with the following parameters:
+   * @param lgK Log_base2 of <i>Nominal Entries</i>.
+   * @param lgResizeFactor log2(resizeFactor) - value from 0 to 3:
+   * <pre>
+   * 0 - no resizing (max size allocated),
+   * 1 - double internal hash table each time it reaches a threshold
+   * 2 - grow four times
+   * 3 - grow eight times (default)
+   * </pre>
+   * @param samplingProbability
+   * <a href="{@docRoot}/resources/dictionary.html#p">See Sampling Probability</a>
+   * @param mode The LongSummary mode to be used
+   */
+  public PrimitiveLongTupleSketch(final int lgK, final int lgResizeFactor, final float samplingProbability,
+      final LongSummary.Mode mode) {
+    super(1 << lgK, lgResizeFactor, samplingProbability,
+        new LongSummary(mode).getValue(), new LongSummaryFactory(mode));
+    mode_ = mode;
+  }
+
+  /**
+   * Updates this sketch with a long key and long value.
+   * @param key The given long key
+   * @param value The given long value
+   */
+  public void update(final long key, final long value) {
+    updateHash(hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with a double key and long value.
+   * @param key The given double key
+   * @param value The given long value
+   */
+  public void update(final double key, final long value) {
+    updateHash(hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with a String key and long value.
+   * @param key The given String key. If null or empty, it is ignored.
+   * @param value The given long value
+   */
+  public void update(final String key, final long value) {
+    updateHash(hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with a byte[] key and long value.
+   * @param key The given byte[] key. If null or empty, it is ignored.
+   * @param value The given long value
+   */
+  public void update(final byte[] key, final long value) {
+    updateHash(hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with an int[] key and long value.
+   * @param key The given int[] key. If null or empty, it is ignored.
+   * @param value The given long value
+   */
+  public void update(final int[] key, final long value) {
+    updateHash(hashKey(key), value);
+  }
+
+  /**
+   * Updates this sketch with a long[] key and long value.
+   * @param key The given long[] key. If null or empty, it is ignored.
+   * @param value The given long value
+   */
+  public void update(final long[] key, final long value) {
+    updateHash(hashKey(key), value);
+  }
+
+  /**
+   * Gets the LongSummary mode of this sketch.
+   * @return the LongSummary mode of this sketch
+   */
+  public LongSummary.Mode getMode() {
+    return mode_;
+  }
+
+  @Override
+  protected LongSummary newSummary(final long valueBits) {
+    return new LongSummary(mode_).update(valueBits);
+  }
+
+  private void updateHash(final long hash, final long value) {
+    final int index = findOrInsert(hash);
+    if (index < 0) { return; }
+    final long current = getValueBits(index);
+    final long updated;
+    switch (mode_) {
+      case Sum:
+        updated = current + value;
+        break;
+      case Min:
+        updated = (value < current) ? value : current;
+        break;
+      case Max:
+        updated = (value > current) ? value : current;
+        break;
+      default: //AlwaysOne
+        updated = 1;
+        break;
+    }
+    setValueBits(index, updated);
+    rebuildIfNeeded();
+  }
+
+}
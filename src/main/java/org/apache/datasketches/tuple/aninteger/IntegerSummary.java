@@ -136,7 +136,7 @@ public class IntegerSummary implements UpdatableSummary<Integer> {
     return value_;
   }
 
-  private static final int SERIALIZED_SIZE_BYTES = 5;
+  static final int SERIALIZED_SIZE_BYTES = 5;
   private static final int VALUE_INDEX = 0;
   private static final int MODE_BYTE_INDEX = 4;
 
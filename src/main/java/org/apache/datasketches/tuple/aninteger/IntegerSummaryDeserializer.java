@@ -40,4 +40,9 @@ public class IntegerSummaryDeserializer implements SummaryDeserializer<IntegerSu
     return IntegerSummary.fromMemorySegment(seg);
   }
 
+  @Override
+  public int getSummarySizeBytes(final MemorySegment seg) {
+    return IntegerSummary.SERIALIZED_SIZE_BYTES;
+  }
+
 }
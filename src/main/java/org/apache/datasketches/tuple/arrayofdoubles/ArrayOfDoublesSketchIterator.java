@@ -47,4 +47,16 @@ public interface ArrayOfDoublesSketchIterator {
    * @return array of double values for the current entry (may or may not be a copy)
    */
   public double[] getValues();
+
+  /**
+   * Copies the values of the current entry in the sketch into the given array, which avoids the
+   * allocation of a new array per entry.
+   * Don't call this before calling next() for the first time
+   * or after getting false from next().
+   * @param values the destination array, which must have at least as many elements as the sketch has values
+   */
+  public default void getValues(final double[] values) {
+    final double[] current = getValues();
+    System.arraycopy(current, 0, values, 0, current.length);
+  }
 }
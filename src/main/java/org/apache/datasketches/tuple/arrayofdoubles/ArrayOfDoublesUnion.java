@@ -24,6 +24,7 @@ import static java.lang.foreign.ValueLayout.JAVA_BYTE;
 import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
 
 import java.lang.foreign.MemorySegment;
+import java.util.Objects;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -109,11 +110,7 @@ public abstract class ArrayOfDoublesUnion {
    */
   public void union(final ArrayOfDoublesSketch tupleSketch) {
     if (tupleSketch == null) { return; }
-    Util.checkSeedHashes(gadget_.getSeedHash(), tupleSketch.getSeedHash());
-    if (gadget_.getNumValues() != tupleSketch.getNumValues()) {
-      throw new SketchesArgumentException("Incompatible sketches: number of values mismatch "
-          + gadget_.getNumValues() + " and " + tupleSketch.getNumValues());
-    }
+    checkCompatible(tupleSketch);
 
     if (tupleSketch.isEmpty()) { return; }
     else { gadget_.setNotEmpty(); }
@@ -121,11 +118,44 @@ public abstract class ArrayOfDoublesUnion {
     setUnionThetaLong(min(min(unionThetaLong_, tupleSketch.getThetaLong()), gadget_.getThetaLong()));
 
     if (tupleSketch.getRetainedEntries() == 0) { return; }
-    final ArrayOfDoublesSketchIterator it = tupleSketch.iterator();
-    while (it.next()) {
-      if (it.getKey() < unionThetaLong_) {
-        gadget_.merge(it.getKey(), it.getValues());
-      }
+    mergeEntries(tupleSketch, new double[gadget_.getNumValues()]);
+    // keep the union theta as low as possible for performance
+    if (gadget_.getThetaLong() < unionThetaLong_) {
+      setUnionThetaLong(gadget_.getThetaLong());
+    }
+  }
+
+  /**
+   * Updates the union by adding the sets of entries from the given sketches, which can be on-heap or off-heap.
+   * The estimates have the same semantics as calling {@link #union(ArrayOfDoublesSketch)} for each sketch,
+   * but the union theta is first lowered to the minimum theta of all sketches. So the entries that would be
+   * discarded by a later sketch are never inserted, which saves hash table rebuilds, and the values are copied
+   * without allocating an array per entry. Because of that, the retained entries can differ from those of
+   * calling {@link #union(ArrayOfDoublesSketch)} for each sketch in turn.
+   *
+   * <p>Nulls and empty sketches are ignored.</p>
+   *
+   * @param tupleSketches the sketches to add to the union, which are iterated twice
+   */
+  public void unionAll(final Iterable<? extends ArrayOfDoublesSketch> tupleSketches) {
+    Objects.requireNonNull(tupleSketches, "tupleSketches must be non-null");
+    long thetaLong = min(unionThetaLong_, gadget_.getThetaLong());
+    boolean empty = true;
+    for (final ArrayOfDoublesSketch tupleSketch : tupleSketches) {
+      if (tupleSketch == null) { continue; }
+      checkCompatible(tupleSketch);
+      if (tupleSketch.isEmpty()) { continue; }
+      empty = false;
+      thetaLong = min(thetaLong, tupleSketch.getThetaLong());
+    }
+    if (empty) { return; }
+    gadget_.setNotEmpty();
+    setUnionThetaLong(thetaLong);
+
+    final double[] values = new double[gadget_.getNumValues()];
+    for (final ArrayOfDoublesSketch tupleSketch : tupleSketches) {
+      if ((tupleSketch == null) || (tupleSketch.getRetainedEntries() == 0)) { continue; }
+      mergeEntries(tupleSketch, values);
     }
     // keep the union theta as low as possible for performance
     if (gadget_.getThetaLong() < unionThetaLong_) {
@@ -201,6 +231,26 @@ public abstract class ArrayOfDoublesUnion {
     return ArrayOfDoublesQuickSelectSketch.getMaxBytes(nomEntries, numValues) + PREAMBLE_SIZE_BYTES;
   }
 
+  private void checkCompatible(final ArrayOfDoublesSketch tupleSketch) {
+    Util.checkSeedHashes(gadget_.getSeedHash(), tupleSketch.getSeedHash());
+    if (gadget_.getNumValues() != tupleSketch.getNumValues()) {
+      throw new SketchesArgumentException("Incompatible sketches: number of values mismatch "
+          + gadget_.getNumValues() + " and " + tupleSketch.getNumValues());
+    }
+  }
+
+  //merges the entries below the union theta, copying their values through the given array
+  private void mergeEntries(final ArrayOfDoublesSketch tupleSketch, final double[] values) {
+    final ArrayOfDoublesSketchIterator it = tupleSketch.iterator();
+    while (it.next()) {
+      final long key = it.getKey();
+      if (key < unionThetaLong_) {
+        it.getValues(values);
+        gadget_.merge(key, values);
+      }
+    }
+  }
+
   void setUnionThetaLong(final long thetaLong) {
     unionThetaLong_ = thetaLong;
   }
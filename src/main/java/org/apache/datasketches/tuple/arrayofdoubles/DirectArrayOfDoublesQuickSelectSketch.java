@@ -55,6 +55,8 @@ class DirectArrayOfDoublesQuickSelectSketch extends ArrayOfDoublesQuickSelectSke
   // these can be derived from the seg_ contents, but are kept here for performance
   private int keysOffset_;
   private int valuesOffset_;
+  // reusable copy of the values of one entry for updateValues, allocated on first use
+  private double[] rowValues_;
 
   /**
    * Construct a new sketch using the given MemorySegment as its backing store.
@@ -313,20 +315,24 @@ class DirectArrayOfDoublesQuickSelectSketch extends ArrayOfDoublesQuickSelectSke
 
   @Override
   protected void setValues(final int index, final double[] values) {
-    long offset = valuesOffset_ + ((long) SIZE_OF_VALUE_BYTES * numValues_ * index);
-    for (int i = 0; i < numValues_; i++) {
-      seg_.set(JAVA_DOUBLE_UNALIGNED, offset, values[i]);
-      offset += SIZE_OF_VALUE_BYTES;
-    }
+    final long offset = valuesOffset_ + ((long) SIZE_OF_VALUE_BYTES * numValues_ * index);
+    MemorySegment.copy(values, 0, seg_, JAVA_DOUBLE_UNALIGNED, offset, numValues_);
   }
 
   @Override
   protected void updateValues(final int index, final double[] values) {
-    long offset = valuesOffset_ + ((long) SIZE_OF_VALUE_BYTES * numValues_ * index);
+    final long offset = valuesOffset_ + ((long) SIZE_OF_VALUE_BYTES * numValues_ * index);
+    if (numValues_ == 1) {
+      seg_.set(JAVA_DOUBLE_UNALIGNED, offset, seg_.get(JAVA_DOUBLE_UNALIGNED, offset) + values[0]);
+      return;
+    }
+    if (rowValues_ == null) { rowValues_ = new double[numValues_]; }
+    final double[] row = rowValues_;
+    MemorySegment.copy(seg_, JAVA_DOUBLE_UNALIGNED, offset, row, 0, numValues_);
     for (int i = 0; i < numValues_; i++) {
-      seg_.set(JAVA_DOUBLE_UNALIGNED, offset, seg_.get(JAVA_DOUBLE_UNALIGNED, offset) + values[i]);
-      offset += SIZE_OF_VALUE_BYTES;
+      row[i] += values[i];
     }
+    MemorySegment.copy(row, 0, seg_, JAVA_DOUBLE_UNALIGNED, offset, numValues_);
   }
 
   @Override
@@ -80,4 +80,11 @@ final class DirectArrayOfDoublesSketchIterator implements ArrayOfDoublesSketchIt
     return array;
   }
 
+  @Override
+  public void getValues(final double[] values) {
+    final long off = offset_ + ((long) SIZE_OF_KEY_BYTES * numEntries_)
+        + ((long) SIZE_OF_VALUE_BYTES * i_ * numValues_);
+    MemorySegment.copy(seg_, JAVA_DOUBLE_UNALIGNED, off, values, 0, numValues_);
+  }
+
 }
@@ -39,6 +39,11 @@ final class DirectArrayOfDoublesUnionR extends DirectArrayOfDoublesUnion {
     throw new SketchesReadOnlyException();
   }
 
+  @Override
+  public void unionAll(final Iterable<? extends ArrayOfDoublesSketch> tupleSketches) {
+    throw new SketchesReadOnlyException();
+  }
+
   @Override
   public void reset() {
     throw new SketchesReadOnlyException();
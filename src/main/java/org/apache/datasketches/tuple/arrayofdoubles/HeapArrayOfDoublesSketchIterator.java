@@ -62,4 +62,9 @@ final class HeapArrayOfDoublesSketchIterator implements ArrayOfDoublesSketchIter
     return Arrays.copyOfRange(values_, i_ * numValues_, (i_ + 1) *  numValues_);
   }
 
+  @Override
+  public void getValues(final double[] values) {
+    System.arraycopy(values_, i_ * numValues_, values, 0, numValues_);
+  }
+
 }
@@ -42,6 +42,11 @@ public class ArrayOfStringsSummaryDeserializer implements SummaryDeserializer<Ar
     return ArrayOfStringsSummaryDeserializer.fromMemorySegment(seg);
   }
 
+  @Override
+  public int getSummarySizeBytes(final MemorySegment seg) {
+    return seg.get(JAVA_INT_UNALIGNED, 0);
+  }
+
   /**
    * Also used in test.
    * @param seg the given MemorySegment
@@ -24,10 +24,20 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesException;
+import org.apache.datasketches.hash.MurmurHash3;
 import org.testng.annotations.Test;
 
+import com.sun.management.ThreadMXBean;
+
 public class CountMinSketchTest {
 
   @Test
@@ -238,4 +248,214 @@ public class CountMinSketchTest {
       assertEquals(d.getEstimate(i), c.getEstimate(i));
     }
   }
+
+  @Test
+  public void primitiveUpdatesMatchByteArrayHashing() {
+    final byte numHashes = 4;
+    final int numBuckets = 101;
+    final long seed = 1234567;
+    final CountMinSketch c = new CountMinSketch(numHashes, numBuckets, seed);
+    final long[] ref = new long[numHashes * numBuckets];
+    final long[] hashSeeds = new long[numHashes];
+    final Random rand = new Random(seed);
+    for (int i = 0; i < numHashes; i++) { hashSeeds[i] = rand.nextLong(); }
+
+    final Random data = new Random(1);
+    final long[] items = new long[1000];
+    for (int j = 0; j < items.length; j++) {
+      items[j] = data.nextLong() % 500;
+      final long weight = 1 + data.nextInt(10);
+      c.update(items[j], weight);
+      final byte[] bytes = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(items[j]).array();
+      for (int i = 0; i < numHashes; i++) {
+        final long h = MurmurHash3.hash(bytes, hashSeeds[i])[0];
+        ref[(i * numBuckets) + Math.floorMod(h, numBuckets)] += weight;
+      }
+    }
+    for (final long item : items) {
+      final byte[] bytes = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(item).array();
+      long expected = Long.MAX_VALUE;
+      for (int i = 0; i < numHashes; i++) {
+        final long h = MurmurHash3.hash(bytes, hashSeeds[i])[0];
+        expected = Math.min(expected, ref[(i * numBuckets) + Math.floorMod(h, numBuckets)]);
+      }
+      assertEquals(c.getEstimate(item), expected);
+      assertEquals(c.getEstimate(bytes), expected);
+      assertEquals(c.getLowerBound(item), c.getLowerBound(bytes));
+      assertEquals(c.getUpperBound(item), c.getUpperBound(bytes));
+    }
+  }
+
+  @Test
+  public void stringUpdatesMatchByteArrayUpdates() {
+    final CountMinSketch c1 = new CountMinSketch((byte) 3, 64, 123);
+    final CountMinSketch c2 = new CountMinSketch((byte) 3, 64, 123);
+    for (int i = 0; i < 100; i++) {
+      c1.update("item" + i, i);
+      c2.update(("item" + i).getBytes(StandardCharsets.UTF_8), i);
+    }
+    assertEquals(c1.toByteArray(), c2.toByteArray());
+  }
+
+  @Test
+  public void doubleUpdatesTest() {
+    final CountMinSketch c = new CountMinSketch((byte) 3, 64, 123);
+    c.update(1.5, 3);
+    c.update(0.0, 2);
+    c.update(-0.0, 2);
+    c.update(Double.NaN, 1);
+    c.update(Double.longBitsToDouble(0x7ff8000000000001L), 1); //another NaN
+    assertEquals(c.getTotalWeight_(), 9);
+    assertTrue(c.getEstimate(1.5) >= 3);
+    assertTrue(c.getEstimate(0.0) >= 4);
+    assertEquals(c.getEstimate(0.0), c.getEstimate(-0.0));
+    assertTrue(c.getEstimate(Double.NaN) >= 2);
+    assertTrue(c.getLowerBound(1.5) <= c.getUpperBound(1.5));
+  }
+
+  @Test
+  public void concurrentQueriesTest() throws Exception {
+    final CountMinSketch c = new CountMinSketch((byte) 5, 97, 123);
+    final int numItems = 2000;
+    final long[] expected = new long[numItems];
+    for (int j = 0; j < numItems; j++) {
+      c.update(j, 1 + (j % 10));
+      c.update("item" + j, 1);
+    }
+    for (int j = 0; j < numItems; j++) {
+      expected[j] = c.getEstimate(j);
+    }
+
+    final AtomicInteger mismatches = new AtomicInteger();
+    final Thread[] readers = new Thread[4];
+    for (int t = 0; t < readers.length; t++) {
+      final int start = t * 7;
+      readers[t] = new Thread(() -> {
+        for (int r = 0; r < 50; r++) {
+          for (int j = start; j < (start + numItems); j++) {
+            final int item = j % numItems;
+            if ((c.getEstimate(item) != expected[item])
+                || (c.getLowerBound((double) item) != c.getEstimate((double) item))
+                || (c.getUpperBound("item" + item) < c.getEstimate("item" + item))) {
+              mismatches.incrementAndGet();
+            }
+          }
+        }
+      });
+      readers[t].start();
+    }
+    for (final Thread reader : readers) {
+      reader.join();
+    }
+    assertEquals(mismatches.get(), 0);
+  }
+
+  @Test
+  public void updatesAndQueriesDoNotAllocate() {
+    final ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!bean.isThreadAllocatedMemorySupported() || !bean.isThreadAllocatedMemoryEnabled()) { return; }
+    final CountMinSketch c = new CountMinSketch((byte) 5, 97, 123);
+    final byte[] bytes = "some item".getBytes(StandardCharsets.UTF_8);
+    final int n = 100_000;
+    updateAndQuery(c, bytes, n); //warm up
+    final long before = bean.getCurrentThreadAllocatedBytes();
+    final long sum = updateAndQuery(c, bytes, n);
+    final long allocated = bean.getCurrentThreadAllocatedBytes() - before;
+    assertTrue(sum > 0);
+    assertTrue(allocated < n, "allocated " + allocated + " bytes in " + n + " iterations");
+  }
+
+  private static long updateAndQuery(final CountMinSketch c, final byte[] bytes, final int n) {
+    long sum = 0;
+    for (int j = 0; j < n; j++) {
+      c.update(j, 1);
+      c.update((double) j, 1);
+      c.update(bytes, 1);
+      sum += c.getEstimate(j) + c.getEstimate((double) j) + c.getEstimate(bytes);
+      sum += c.getUpperBound(j) + c.getLowerBound((double) j) + c.getUpperBound(bytes);
+    }
+    return sum;
+  }
+
+  @Test
+  public void conservativeUpdateTest() {
+    final byte numHashes = 3;
+    final int numBuckets = 16; // small enough to force collisions
+    final long seed = 1234567;
+    final CountMinSketch standard = new CountMinSketch(numHashes, numBuckets, seed);
+    final CountMinSketch conservative = new CountMinSketch(numHashes, numBuckets, seed, UpdatePolicy.CONSERVATIVE);
+    assertEquals(standard.getUpdatePolicy(), UpdatePolicy.STANDARD);
+    assertEquals(conservative.getUpdatePolicy(), UpdatePolicy.CONSERVATIVE);
+
+    final long[] trueCounts = new long[200];
+    final Random data = new Random(1);
+    for (int j = 0; j < 5000; j++) {
+      final int item = data.nextInt(trueCounts.length);
+      final long weight = data.nextInt(4);
+      trueCounts[item] += weight;
+      standard.update(item, weight);
+      conservative.update(item, weight);
+    }
+    assertEquals(conservative.getTotalWeight_(), standard.getTotalWeight_());
+
+    long standardError = 0;
+    long conservativeError = 0;
+    for (int item = 0; item < trueCounts.length; item++) {
+      final long est = conservative.getEstimate(item);
+      assertTrue(est >= trueCounts[item]);
+      assertTrue(est <= standard.getEstimate(item));
+      standardError += standard.getEstimate(item) - trueCounts[item];
+      conservativeError += est - trueCounts[item];
+    }
+    assertTrue(conservativeError < standardError);
+
+    assertThrows(SketchesArgumentException.class, () -> conservative.update(1L, -1));
+    assertThrows(SketchesArgumentException.class, () -> conservative.update("a", -1));
+    assertThrows(SketchesException.class, () -> standard.merge(conservative));
+  }
+
+  @Test
+  public void serializeDeserializeUpdatePolicyTest() {
+    final long seed = 1234567;
+    final CountMinSketch c = new CountMinSketch((byte) 4, 32, seed, UpdatePolicy.CONSERVATIVE);
+    final CountMinSketch empty = CountMinSketch.deserialize(c.toByteArray(), seed);
+    assertTrue(empty.isEmpty());
+    assertEquals(empty.getUpdatePolicy(), UpdatePolicy.CONSERVATIVE);
+
+    for (long i = 0; i < 100; i++) {
+      c.update(i % 10, i);
+    }
+    final CountMinSketch d = CountMinSketch.deserialize(c.toByteArray(), seed);
+    assertEquals(d.getUpdatePolicy(), UpdatePolicy.CONSERVATIVE);
+    assertEquals(d.toByteArray(), c.toByteArray());
+
+    final CountMinSketch standard = CountMinSketch.deserialize(
+        new CountMinSketch((byte) 4, 32, seed).toByteArray(), seed);
+    assertEquals(standard.getUpdatePolicy(), UpdatePolicy.STANDARD);
+  }
+
+  @Test
+  public void bulkUpdateTest() {
+    final Random data = new Random(1);
+    final long[] items = new long[1000]; // not a multiple of the block size
+    final long[] weights = new long[items.length];
+    for (int j = 0; j < items.length; j++) {
+      items[j] = data.nextInt(300);
+      weights[j] = data.nextInt(5);
+    }
+    for (final UpdatePolicy policy : UpdatePolicy.values()) {
+      final CountMinSketch bulk = new CountMinSketch((byte) 3, 64, 123, policy);
+      final CountMinSketch single = new CountMinSketch((byte) 3, 64, 123, policy);
+      bulk.update(items, weights);
+      for (int j = 0; j < items.length; j++) {
+        single.update(items[j], weights[j]);
+      }
+      assertEquals(bulk.toByteArray(), single.toByteArray());
+    }
+
+    final CountMinSketch c = new CountMinSketch((byte) 3, 64, 123, UpdatePolicy.CONSERVATIVE);
+    assertThrows(SketchesArgumentException.class, () -> c.update(new long[2], new long[1]));
+    assertThrows(SketchesArgumentException.class, () -> c.update(new long[] {1, 2}, new long[] {1, -1}));
+    assertTrue(c.isEmpty());
+  }
 }
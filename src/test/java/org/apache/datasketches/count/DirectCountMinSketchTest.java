@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.count;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.testng.annotations.Test;
+
+public class DirectCountMinSketchTest {
+  private static final byte NUM_HASHES = 3;
+  private static final int NUM_BUCKETS = 32;
+  private static final long SEED = 1234567;
+
+  @Test
+  public void initializeTest() {
+    final long sizeBytes = CountMinSketch.getSerializedSizeBytes(NUM_HASHES, NUM_BUCKETS);
+    assertEquals(sizeBytes, 16 + 8 + (NUM_HASHES * NUM_BUCKETS * 8));
+    assertThrows(SketchesArgumentException.class,
+        () -> CountMinSketch.initialize(NUM_HASHES, NUM_BUCKETS, SEED, MemorySegment.ofArray(new byte[(int) sizeBytes - 1])));
+    assertThrows(SketchesArgumentException.class,
+        () -> CountMinSketch.initialize(NUM_HASHES, 2, SEED, MemorySegment.ofArray(new byte[(int) sizeBytes])));
+
+    final MemorySegment wseg = MemorySegment.ofArray(new byte[(int) sizeBytes]);
+    wseg.fill((byte) -1); // initialize must clear prior content
+    final CountMinSketch cms = CountMinSketch.initialize(NUM_HASHES, NUM_BUCKETS, SEED, wseg);
+    assertTrue(cms.isEmpty());
+    assertTrue(cms.hasMemorySegment());
+    assertFalse(cms.isOffHeap());
+    assertFalse(cms.isReadOnly());
+    assertTrue(cms.isSameResource(wseg));
+    assertEquals(cms.getNumHashes_(), NUM_HASHES);
+    assertEquals(cms.getNumBuckets_(), NUM_BUCKETS);
+    assertEquals(cms.getSeed_(), SEED);
+    assertEquals(cms.getEstimate(1L), 0);
+
+    final CountMinSketch heap = new CountMinSketch(NUM_HASHES, NUM_BUCKETS, SEED);
+    assertFalse(heap.hasMemorySegment());
+    assertFalse(heap.isReadOnly());
+    assertFalse(heap.isSameResource(wseg));
+    // an empty sketch serializes to the same compact image on or off the heap
+    assertEquals(cms.toByteArray(), heap.toByteArray());
+  }
+
+  @Test
+  public void directMatchesHeapTest() {
+    final CountMinSketch heap = new CountMinSketch(NUM_HASHES, NUM_BUCKETS, SEED);
+    try (Arena arena = Arena.ofConfined()) {
+      final MemorySegment wseg = arena.allocate(CountMinSketch.getSerializedSizeBytes(NUM_HASHES, NUM_BUCKETS));
+      final CountMinSketch direct = CountMinSketch.initialize(NUM_HASHES, NUM_BUCKETS, SEED, wseg);
+      assertTrue(direct.isOffHeap());
+
+      for (int i = 0; i < 1000; i++) {
+        heap.update(i % 50, 1 + (i % 3));
+        direct.update(i % 50, 1 + (i % 3));
+        heap.update("item" + i, -1);
+        direct.update("item" + i, -1);
+        heap.update(i * 0.5, 2);
+        direct.update(i * 0.5, 2);
+      }
+
+      assertFalse(direct.isEmpty());
+      assertEquals(direct.getTotalWeight_(), heap.getTotalWeight_());
+      for (int i = 0; i < 50; i++) {
+        assertEquals(direct.getEstimate(i), heap.getEstimate(i));
+        assertEquals(direct.getUpperBound("item" + i), heap.getUpperBound("item" + i));
+        assertEquals(direct.getLowerBound(i * 0.5), heap.getLowerBound(i * 0.5));
+      }
+      assertEquals(direct.toByteArray(), heap.toByteArray());
+
+      // the segment always holds a valid serialized image
+      final CountMinSketch copy = CountMinSketch.heapify(wseg, SEED);
+      assertFalse(copy.hasMemorySegment());
+      assertEquals(copy.toByteArray(), heap.toByteArray());
+    }
+  }
+
+  @Test
+  public void wrapTest() {
+    final CountMinSketch heap = new CountMinSketch(NUM_HASHES, NUM_BUCKETS, SEED);
+    for (int i = 0; i < 100; i++) {
+      heap.update(i, i);
+    }
+    final MemorySegment seg = MemorySegment.ofArray(heap.toByteArray());
+    final CountMinSketch wrapped = CountMinSketch.wrap(seg, SEED);
+    assertTrue(wrapped.hasMemorySegment());
+    assertTrue(wrapped.isReadOnly());
+    assertTrue(wrapped.isSameResource(seg));
+    assertEquals(wrapped.getTotalWeight_(), heap.getTotalWeight_());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(wrapped.getEstimate(i), heap.getEstimate(i));
+    }
+    assertThrows(SketchesReadOnlyException.class, () -> wrapped.update(1L, 1));
+    assertThrows(SketchesReadOnlyException.class,
+        () -> wrapped.merge(new CountMinSketch(NUM_HASHES, NUM_BUCKETS, SEED)));
+
+    // no copy: changes to the image are visible through the wrapped sketch
+    final CountMinSketch writable = CountMinSketch.writableWrap(seg, SEED);
+    writable.update(1000L, 7);
+    heap.update(1000L, 7);
+    assertEquals(wrapped.getEstimate(1000L), heap.getEstimate(1000L));
+    assertEquals(wrapped.getTotalWeight_(), heap.getTotalWeight_());
+
+    assertThrows(SketchesArgumentException.class, () -> CountMinSketch.wrap(seg, SEED + 1));
+    assertThrows(SketchesArgumentException.class, () -> CountMinSketch.writableWrap(seg.asReadOnly(), SEED));
+    assertThrows(SketchesArgumentException.class, () -> CountMinSketch.wrap(seg.asSlice(0, seg.byteSize() - 8), SEED));
+  }
+
+  @Test
+  public void wrapEmptyTest() {
+    final CountMinSketch heap = new CountMinSketch(NUM_HASHES, NUM_BUCKETS, SEED);
+    final MemorySegment seg = MemorySegment.ofArray(heap.toByteArray());
+    final CountMinSketch wrapped = CountMinSketch.wrap(seg, SEED);
+    assertTrue(wrapped.isEmpty());
+    assertEquals(wrapped.getEstimate("a"), 0);
+    assertEquals(wrapped.toByteArray(), heap.toByteArray());
+    // the compact empty image has no counters to write to
+    assertThrows(SketchesArgumentException.class, () -> CountMinSketch.writableWrap(seg, SEED));
+  }
+
+  @Test
+  public void mergeTest() {
+    final long sizeBytes = CountMinSketch.getSerializedSizeBytes(NUM_HASHES, NUM_BUCKETS);
+    final CountMinSketch direct = CountMinSketch.initialize(NUM_HASHES, NUM_BUCKETS, SEED,
+        MemorySegment.ofArray(new byte[(int) sizeBytes]));
+    final CountMinSketch heap = new CountMinSketch(NUM_HASHES, NUM_BUCKETS, SEED);
+    for (int i = 0; i < 100; i++) {
+      heap.update(i, 1);
+    }
+    direct.merge(heap);
+    direct.merge(CountMinSketch.wrap(MemorySegment.ofArray(heap.toByteArray()), SEED));
+    for (int i = 0; i < 100; i++) {
+      assertEquals(direct.getEstimate(i), 2 * heap.getEstimate(i));
+    }
+    assertEquals(direct.getTotalWeight_(), 2 * heap.getTotalWeight_());
+
+    heap.merge(direct);
+    assertEquals(heap.getTotalWeight_(), 300);
+  }
+
+  @Test
+  public void conservativeDirectTest() {
+    final long sizeBytes = CountMinSketch.getSerializedSizeBytes(NUM_HASHES, NUM_BUCKETS);
+    final MemorySegment wseg = MemorySegment.ofArray(new byte[(int) sizeBytes]);
+    final CountMinSketch direct = CountMinSketch.initialize(NUM_HASHES, NUM_BUCKETS, SEED, UpdatePolicy.CONSERVATIVE, wseg);
+    final CountMinSketch heap = new CountMinSketch(NUM_HASHES, NUM_BUCKETS, SEED, UpdatePolicy.CONSERVATIVE);
+    final long[] items = new long[500];
+    final long[] weights = new long[items.length];
+    for (int i = 0; i < items.length; i++) {
+      items[i] = i % 70;
+      weights[i] = 1 + (i % 4);
+    }
+    direct.update(items, weights);
+    heap.update(items, weights);
+    assertEquals(direct.toByteArray(), heap.toByteArray());
+
+    final CountMinSketch rewrapped = CountMinSketch.writableWrap(wseg, SEED);
+    assertEquals(rewrapped.getUpdatePolicy(), UpdatePolicy.CONSERVATIVE);
+    assertEquals(CountMinSketch.wrap(wseg, SEED).getUpdatePolicy(), UpdatePolicy.CONSERVATIVE);
+  }
+}
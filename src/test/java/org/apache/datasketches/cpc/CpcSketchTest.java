@@ -31,6 +31,7 @@ import java.nio.ByteBuffer;
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.hash.MurmurHash3;
 import org.testng.annotations.Test;
 
 /**
@@ -223,6 +224,19 @@ public class CpcSketchTest {
     assertEquals(size26, (int) ((0.6 * (1 << 26)) + 40));
   }
 
+  @Test
+  public void checkUpdateHash() {
+    final long seed = 12345L;
+    final CpcSketch hashed = new CpcSketch(10, seed);
+    final CpcSketch raw = new CpcSketch(10, seed);
+    for (long i = 0; i < 10_000; i++) {
+      final long[] hash = MurmurHash3.hash(new long[] { i }, seed);
+      hashed.updateHash(hash[0], hash[1]);
+      raw.update(i);
+    }
+    assertEquals(hashed.toByteArray(), raw.toByteArray());
+  }
+
   /**
    * @param s the string to print
    */
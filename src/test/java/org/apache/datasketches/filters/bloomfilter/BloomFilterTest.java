@@ -35,6 +35,7 @@ import java.lang.foreign.MemorySegment;
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.hash.MurmurHash3;
 import org.testng.annotations.Test;
 
 public class BloomFilterTest {
@@ -516,4 +517,29 @@ public class BloomFilterTest {
     bf.intersect(bfLongs);
     assertEquals(bfLongs.getBitsUsed(), numBitsSet);
   }
+
+  @Test
+  public void checkUpdateHash() {
+    final int n = 1000;
+    final BloomFilter bf = BloomFilterBuilder.createByAccuracy(n, 0.01);
+    int numFound = 0;
+    for (long i = 0; i < n; i++) {
+      final long[] hash = MurmurHash3.hash(i, bf.getSeed());
+      if (i % 2 == 0) {
+        bf.updateHash(hash[0], hash[1]);
+      } else if (bf.queryAndUpdateHash(hash[0], hash[1])) {
+        ++numFound; //false positive
+      }
+    }
+    for (long i = 0; i < n; i++) {
+      final long[] hash = MurmurHash3.hash(i, bf.getSeed());
+      assertTrue(bf.queryHash(hash[0], hash[1]));
+    }
+    int falsePositives = numFound;
+    for (long i = n; i < 2 * n; i++) {
+      final long[] hash = MurmurHash3.hash(i, bf.getSeed());
+      if (bf.queryHash(hash[0], hash[1])) { ++falsePositives; }
+    }
+    assertTrue(falsePositives < 0.05 * n);
+  }
 }
@@ -421,4 +421,82 @@ public class MurmurHash3FFMTest {
     return hash1;
   }
 
+  @Test
+  public void checkBulkLongsMatchSingle() {
+    final long seed = 9001;
+    final long[] in = new long[100];
+    for (int i = 0; i < in.length; i++) { in[i] = rand.nextLong(); }
+    final long[] out64 = MurmurHash3FFM.hashEach(in, 3, 90, seed, new long[90]);
+    final long[] out128 = MurmurHash3FFM.hashEach128(in, 3, 90, seed, new long[180]);
+    final long[] hashOut = new long[2];
+    for (int i = 0; i < 90; i++) {
+      MurmurHash3FFM.hash(in[3 + i], seed, hashOut);
+      assertEquals(out64[i], hashOut[0]);
+      assertEquals(out128[2 * i], hashOut[0]);
+      assertEquals(out128[(2 * i) + 1], hashOut[1]);
+      assertEquals(out128[2 * i], MurmurHash3.hash(new long[] { in[3 + i] }, seed)[0]);
+    }
+    try {
+      MurmurHash3FFM.hashEach(in, 50, 60, seed, new long[60]);
+      fail();
+    } catch (final IndexOutOfBoundsException e) { } //OK
+    try {
+      MurmurHash3FFM.hashEach128(in, 0, 10, seed, new long[10]);
+      fail();
+    } catch (final IndexOutOfBoundsException e) { } //OK
+  }
+
+  @Test
+  public void checkBulkFixedWidthKeysMatchSingle() {
+    final long seed = 9001;
+    final byte[] bytes = new byte[1000];
+    rand.nextBytes(bytes);
+    final MemorySegment seg = MemorySegment.ofArray(bytes);
+    final long[] hashOut = new long[2];
+    for (final int keyBytes : new int[] { 1, 4, 8, 12, 16, 20 }) {
+      final int count = (bytes.length - 5) / keyBytes;
+      final long[] out64 = MurmurHash3FFM.hashEach(seg, 5, keyBytes, count, seed, new long[count]);
+      final long[] out128 = MurmurHash3FFM.hashEach128(seg, 5, keyBytes, count, seed, new long[2 * count]);
+      for (int i = 0; i < count; i++) {
+        final long offsetBytes = 5 + ((long) i * keyBytes);
+        MurmurHash3FFM.hash(seg, offsetBytes, keyBytes, seed, hashOut);
+        assertEquals(out64[i], hashOut[0]);
+        assertEquals(out128[2 * i], hashOut[0]);
+        assertEquals(out128[(2 * i) + 1], hashOut[1]);
+      }
+    }
+    try {
+      MurmurHash3FFM.hashEach(seg, 0, 0, 10, seed, new long[10]);
+      fail();
+    } catch (final IllegalArgumentException e) { } //OK
+    try {
+      MurmurHash3FFM.hashEach(seg, 8, 8, 125, seed, new long[125]);
+      fail();
+    } catch (final IndexOutOfBoundsException e) { } //OK
+  }
+
+  @Test
+  public void checkHash64MatchesFirstHalf() {
+    final long seed = 9001;
+    final long[] hashOut = new long[2];
+    for (int i = 0; i < 1000; i++) {
+      final long v = rand.nextLong();
+      assertEquals(MurmurHash3FFM.hash64(v, seed), MurmurHash3FFM.hash(v, seed, hashOut)[0]);
+      final double d = rand.nextDouble();
+      assertEquals(MurmurHash3FFM.hash64(d, seed), MurmurHash3FFM.hash(d, seed, hashOut)[0]);
+    }
+    assertEquals(MurmurHash3FFM.hash64(-0.0, seed), MurmurHash3FFM.hash64(0.0, seed));
+    for (int len = 1; len <= 40; len++) {
+      final byte[] bytes = new byte[len];
+      rand.nextBytes(bytes);
+      MurmurHash3FFM.hash(MemorySegment.ofArray(bytes), 0, len, seed, hashOut);
+      assertEquals(MurmurHash3FFM.hash64(bytes, seed), hashOut[0]);
+      assertEquals(MurmurHash3FFM.hash64(bytes, seed), MurmurHash3.hash(bytes, seed)[0]);
+    }
+    try {
+      MurmurHash3FFM.hash64(new byte[0], seed);
+      fail();
+    } catch (final IllegalArgumentException e) { } //OK
+  }
+
 }
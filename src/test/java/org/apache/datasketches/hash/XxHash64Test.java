@@ -162,4 +162,24 @@ public class XxHash64Test {
     assertEquals(hash1, hash0);
   }
 
+  @Test
+  public void testBulkMatchesSingle() {
+    final long seed = 7;
+    final long[] in = new long[100];
+    for (int i = 0; i < in.length; i++) { in[i] = (i * 0x9E3779B97F4A7C15L) ^ i; }
+    final long[] out = XxHash64.hashEach(in, 3, 90, seed, new long[90]);
+    for (int i = 0; i < 90; i++) {
+      assertEquals(out[i], XxHash64.hash(in[3 + i], seed));
+    }
+
+    final MemorySegment seg = MemorySegment.ofArray(in);
+    for (final int keyBytes : new int[] { 1, 4, 8, 12, 32, 40 }) {
+      final int count = (int) ((seg.byteSize() - 3) / keyBytes);
+      final long[] segOut = XxHash64.hashEach(seg, 3, keyBytes, count, seed, new long[count]);
+      for (int i = 0; i < count; i++) {
+        assertEquals(segOut[i], hash(seg, 3 + ((long) i * keyBytes), keyBytes, seed));
+      }
+    }
+  }
+
 }
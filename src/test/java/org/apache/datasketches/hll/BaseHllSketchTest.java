@@ -25,6 +25,8 @@ import static org.testng.Assert.assertTrue;
 import java.lang.foreign.MemorySegment;
 import java.nio.ByteBuffer;
 
+import org.apache.datasketches.common.Util;
+import org.apache.datasketches.hash.MurmurHash3;
 import org.testng.annotations.Test;
 
 /**
@@ -106,6 +108,23 @@ public class BaseHllSketchTest {
     assertEquals(BaseHllSketch.getSerializationVersion(wseg), PreambleUtil.SER_VER);
   }
 
+  @Test
+  public void checkUpdateHash() {
+    for (final TgtHllType type : TgtHllType.values()) {
+      final HllSketch hashed = new HllSketch(10, type);
+      final HllSketch raw = new HllSketch(10, type);
+      final HllUnion union = new HllUnion(10);
+      for (long i = 0; i < 10_000; i++) {
+        final long[] hash = MurmurHash3.hash(new long[] { i }, Util.DEFAULT_UPDATE_SEED);
+        hashed.updateHash(hash[0], hash[1]);
+        union.updateHash(hash[0], hash[1]);
+        raw.update(i);
+      }
+      assertEquals(hashed.toUpdatableByteArray(), raw.toUpdatableByteArray());
+      assertEquals(union.getEstimate(), raw.getEstimate(), raw.getEstimate() * 0.1);
+    }
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: " + this.getClass().getName());
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.hll;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.testng.annotations.Test;
+
+public class ConcurrentHllSketchTest {
+
+  @Test
+  public void checkEmpty() {
+    final ConcurrentHllSketch sk = new ConcurrentHllSketch(10);
+    assertTrue(sk.isEmpty());
+    assertEquals(sk.getEstimate(), 0.0);
+    assertTrue(sk.getResult().isEmpty());
+    assertEquals(sk.getResult(TgtHllType.HLL_4).getTgtHllType(), TgtHllType.HLL_4);
+    assertEquals(sk.getLgConfigK(), 10);
+    assertEquals(sk.getTgtHllType(), TgtHllType.HLL_8);
+    assertEquals(sk.getCurMode(), CurMode.HLL);
+    assertTrue(sk.isOutOfOrder());
+    assertFalse(sk.isCompact());
+    assertFalse(sk.hasMemorySegment());
+    assertFalse(sk.isOffHeap());
+    assertEquals(sk.getLowerBound(1), 0.0);
+    assertEquals(sk.getUpperBound(1), 0.0);
+    sk.update(1L);
+    assertFalse(sk.isEmpty());
+    assertEquals(sk.getEstimate(), sk.getResult().getEstimate());
+    sk.reset();
+    assertTrue(sk.isEmpty());
+    assertEquals(sk.getEstimate(), 0.0);
+    sk.update(2L);
+    assertEquals(sk.getEstimate(), sk.getResult().getEstimate());
+  }
+
+  @Test
+  public void checkMatchesUnion() {
+    final int lgK = 10;
+    for (final int n : new int[] {1, 100, 1000, 100_000}) {
+      final ConcurrentHllSketch sk = new ConcurrentHllSketch(lgK);
+      final HllUnion union = new HllUnion(lgK);
+      final HllSketch single = new HllSketch(lgK, TgtHllType.HLL_8);
+      for (int i = 0; i < n; i++) {
+        sk.update(i);
+        single.update(i);
+      }
+      union.update(single);
+      final HllSketch expected = union.getResult(TgtHllType.HLL_8);
+      assertEquals(sk.getEstimate(), expected.getCompositeEstimate(), expected.getCompositeEstimate() * 1e-9);
+      assertEquals(sk.getUpperBound(2), sk.getResult().getUpperBound(2));
+      assertEquals(sk.getLowerBound(2), sk.getResult().getLowerBound(2));
+      assertEquals(sk.getEstimate(), n, n * 0.1);
+    }
+  }
+
+  @Test
+  public void checkConcurrentWriters() throws Exception {
+    final int lgK = 12;
+    final int numThreads = 8;
+    final int perThread = 200_000;
+    final ConcurrentHllSketch sk = new ConcurrentHllSketch(lgK);
+    final ConcurrentHllSketch expected = new ConcurrentHllSketch(lgK);
+    for (long i = 0; i < ((long) numThreads * perThread); i++) { expected.update(i); }
+
+    final ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+    try {
+      final CountDownLatch start = new CountDownLatch(1);
+      final Future<?>[] futures = new Future<?>[numThreads];
+      for (int t = 0; t < numThreads; t++) {
+        final long base = (long) t * perThread;
+        futures[t] = pool.submit(() -> {
+          start.await();
+          for (long i = 0; i < perThread; i++) { sk.update(base + i); }
+          return null;
+        });
+      }
+      start.countDown();
+      while (!futures[0].isDone()) { //readers may run alongside the writers
+        assertTrue(sk.getEstimate() >= 0);
+      }
+      for (final Future<?> f : futures) { f.get(); }
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(sk.toCompactByteArray(), expected.toCompactByteArray());
+    //the maintained KxQ and number of zeros are exact, whatever the order of the updates
+    assertEquals(sk.getEstimate(), expected.getEstimate());
+    assertEquals(sk.getEstimate(), sk.getResult().getEstimate());
+    assertEquals(sk.getLowerBound(1), sk.getResult().getLowerBound(1));
+  }
+
+  @Test
+  public void checkMemorySegment() {
+    final int lgK = 11;
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(lgK, TgtHllType.HLL_8);
+    try (Arena arena = Arena.ofConfined()) {
+      final MemorySegment seg = arena.allocate(bytes, 8);
+      final ConcurrentHllSketch sk = new ConcurrentHllSketch(lgK, seg);
+      assertTrue(sk.hasMemorySegment());
+      assertTrue(sk.isOffHeap());
+      assertTrue(sk.isSameResource(seg));
+      for (int i = 0; i < 50_000; i++) { sk.update(i); }
+      assertEquals(HllSketch.heapify(seg).getEstimate(), sk.getEstimate());
+      assertEquals(HllSketch.writableWrap(seg).getEstimate(), sk.getEstimate());
+    }
+    final MemorySegment heapSeg = MemorySegment.ofArray(new long[(bytes + 7) / 8]);
+    final ConcurrentHllSketch sk = new ConcurrentHllSketch(lgK, heapSeg);
+    sk.update(1);
+    assertFalse(sk.isOffHeap());
+    assertEquals(HllSketch.heapify(heapSeg).getEstimate(), 1.0, 0.01);
+  }
+
+  @Test
+  public void checkBadSegments() {
+    final int bytes = HllSketch.getMaxUpdatableSerializationBytes(10, TgtHllType.HLL_8);
+    try {
+      new ConcurrentHllSketch(10, MemorySegment.ofArray(new long[(bytes / 8) - 1]));
+      fail();
+    } catch (final SketchesArgumentException e) { } //too small
+    try {
+      new ConcurrentHllSketch(10, MemorySegment.ofArray(new byte[bytes]));
+      fail();
+    } catch (final SketchesArgumentException e) { } //not aligned for atomic access
+    try {
+      new ConcurrentHllSketch(10, MemorySegment.ofArray(new long[(bytes + 7) / 8]).asReadOnly());
+      fail();
+    } catch (final SketchesReadOnlyException e) { } //expected
+  }
+
+}
@@ -19,6 +19,7 @@
 
 package org.apache.datasketches.hll;
 
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
 import static org.apache.datasketches.hll.HllSketch.getMaxUpdatableSerializationBytes;
 import static org.apache.datasketches.hll.HllUtil.LG_AUX_ARR_INTS;
 import static org.apache.datasketches.hll.HllUtil.LG_INIT_LIST_SIZE;
@@ -38,6 +39,7 @@ import static org.testng.Assert.fail;
 import java.lang.foreign.MemorySegment;
 
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.testng.annotations.Test;
 
 /**
@@ -437,6 +439,92 @@ public class HllSketchTest {
     sk2 = HllSketch.heapify(MemorySegment.ofArray(arr));
   }
 
+  @Test
+  public void checkUpdateAllMatchesSingleUpdates() {
+    final int lgK = 10;
+    for (final TgtHllType type : TgtHllType.values()) {
+      for (final int n : new int[] {0, 5, 100, 1000, 100_000}) { //LIST, SET and HLL modes
+        for (final boolean direct : new boolean[] {false, true}) {
+          final long[] longs = new long[n];
+          final int[] ints = new int[n];
+          final double[] doubles = new double[n];
+          final MemorySegment column = MemorySegment.ofArray(new long[n]);
+          final HllSketch expected = newSketch(lgK, type, direct);
+          final HllSketch expectedDoubles = newSketch(lgK, type, direct);
+          for (int i = 0; i < n; i++) {
+            longs[i] = i;
+            ints[i] = i;
+            doubles[i] = i / 2.0;
+            column.setAtIndex(JAVA_LONG_UNALIGNED, i, i);
+            expected.update(i);
+            expectedDoubles.update(i / 2.0);
+          }
+          final HllSketch fromLongs = newSketch(lgK, type, direct);
+          fromLongs.updateAll(longs, 0, n);
+          final HllSketch fromInts = newSketch(lgK, type, direct);
+          fromInts.updateAll(ints, 0, n);
+          final HllSketch fromDoubles = newSketch(lgK, type, direct);
+          fromDoubles.updateAll(doubles, 0, n);
+          final HllSketch fromSegment = newSketch(lgK, type, direct);
+          fromSegment.updateAll(column, 0, Long.BYTES, n);
+
+          final byte[] expectedBytes = expected.toUpdatableByteArray();
+          assertEquals(fromLongs.getCurMode(), expected.getCurMode());
+          assertEquals(fromLongs.toUpdatableByteArray(), expectedBytes);
+          assertEquals(fromInts.toUpdatableByteArray(), expectedBytes);
+          assertEquals(fromSegment.toUpdatableByteArray(), expectedBytes);
+          assertEquals(fromDoubles.toUpdatableByteArray(), expectedDoubles.toUpdatableByteArray());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkUpdateAllRange() {
+    final long[] items = new long[1000];
+    for (int i = 0; i < items.length; i++) { items[i] = i; }
+    final HllSketch expected = new HllSketch(12);
+    for (int i = 100; i < 900; i++) { expected.update(items[i]); }
+    final HllSketch sk = new HllSketch(12);
+    sk.updateAll(items, 100, 800);
+    assertEquals(sk.getEstimate(), expected.getEstimate());
+    try {
+      sk.updateAll(items, 900, 101);
+      fail();
+    } catch (final IndexOutOfBoundsException e) { } //expected
+    try {
+      sk.updateAll(MemorySegment.ofArray(items), 0, 0, 1);
+      fail();
+    } catch (final SketchesArgumentException e) { } //expected
+  }
+
+  @Test
+  public void checkUnionUpdateAll() {
+    final long[] items = new long[10_000];
+    final HllUnion expected = new HllUnion(12);
+    for (int i = 0; i < items.length; i++) {
+      items[i] = i;
+      expected.update(i);
+    }
+    final HllUnion union = new HllUnion(12);
+    union.updateAll(items, 0, items.length);
+    assertEquals(union.getResult(HLL_8).toCompactByteArray(), expected.getResult(HLL_8).toCompactByteArray());
+  }
+
+  @Test(expectedExceptions = SketchesReadOnlyException.class)
+  public void checkUpdateAllReadOnly() {
+    final HllSketch sk = new HllSketch(10, HLL_8);
+    for (int i = 0; i < 10_000; i++) { sk.update(i); }
+    final HllSketch wrapped = HllSketch.wrap(MemorySegment.ofArray(sk.toUpdatableByteArray()));
+    wrapped.updateAll(new long[] {1, 2, 3}, 0, 3);
+  }
+
+  private static HllSketch newSketch(final int lgK, final TgtHllType type, final boolean direct) {
+    return direct
+        ? new HllSketch(lgK, type, MemorySegment.ofArray(new byte[getMaxUpdatableSerializationBytes(lgK, type)]))
+        : new HllSketch(lgK, type);
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
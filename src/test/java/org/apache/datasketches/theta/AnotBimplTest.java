@@ -330,4 +330,24 @@ public class AnotBimplTest {
     //System.out.println(s); //disable here
   }
 
+  @Test
+  public void checkOrderedStreamingMatchesHashTable() {
+    final int[][] cases = { {100, 0, 50}, {1000, 1000, 500}, {10_000, 3000, 9000}, {50_000, 50_000, 25_000} };
+    for (final int[] c : cases) {
+      final UpdatableThetaSketch skA = UpdatableThetaSketch.builder().setNominalEntries(1024).build();
+      final UpdatableThetaSketch skB = UpdatableThetaSketch.builder().setNominalEntries(4096).build();
+      for (int i = 0; i < c[0]; i++) { skA.update(i); }
+      for (int i = 0; i < c[1]; i++) { skB.update(i + c[2]); }
+      skB.update(-1); //B is never empty
+      final CompactThetaSketch ordA = skA.compact();
+      final CompactThetaSketch ordB = skB.compact();
+      final ThetaAnotB aNotB = ThetaSetOperation.builder().buildANotB();
+      final byte[] expected = aNotB.aNotB(skA, skB).toByteArray(); //hash table path
+      assertEquals(aNotB.aNotB(ordA, ordB).toByteArray(), expected);
+      final CompactThetaSketch wrappedA = CompactThetaSketch.wrap(ordA.toByteArrayCompressed());
+      final CompactThetaSketch wrappedB = CompactThetaSketch.wrap(ordB.toByteArrayCompressed());
+      assertEquals(aNotB.aNotB(wrappedA, wrappedB).toByteArray(), expected);
+    }
+  }
+
 }
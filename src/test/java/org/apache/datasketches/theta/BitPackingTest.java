@@ -21,6 +21,10 @@ package org.apache.datasketches.theta;
 
 import static org.testng.Assert.assertEquals;
 
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+
+import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.Util;
 import org.testng.annotations.Test;
 
@@ -156,6 +160,40 @@ public class BitPackingTest {
     }
   }
 
+  @Test
+  public void packUnpackSegmentBlocks() {
+    long value = 0x5a5a5a5a5a5a5a5aL; // arbitrary starting value
+    for (int n = 0; n < 1000; n++) {
+      for (int bits = 1; bits <= 63; bits++) {
+        final long mask = (1L << bits) - 1;
+        final int numBlocks = 1 + (n % 5);
+        final long[] input = new long[numBlocks * 8];
+        for (int i = 0; i < input.length; ++i) {
+          input[i] = value & mask;
+          value += Util.INVERSE_GOLDEN_U64;
+        }
+
+        final byte[] expected = new byte[(numBlocks * bits) + 3];
+        for (int b = 0; b < numBlocks; b++) {
+          BitPacking.packBitsBlock8(input, b * 8, expected, 3 + (b * bits), bits);
+        }
+        final byte[] bytes = new byte[expected.length]; //exact size, so reads past the end would fail
+        final MemorySegment seg = MemorySegment.ofArray(bytes);
+        assertEquals(BitPacking.packBitsStream(input, 0, input.length, seg, 3, bits), numBlocks * bits);
+        assertEquals(bytes, expected);
+
+        final long[] output = new long[input.length + 1];
+        BitPacking.unpackBitsBlocks(output, 1, numBlocks, seg, 3, bits);
+        assertEquals(Arrays.copyOfRange(output, 1, output.length), input);
+      }
+    }
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkSegmentBlocksBadBits() {
+    BitPacking.unpackBitsBlocks(new long[8], 0, 1, MemorySegment.ofArray(new byte[64]), 0, 64);
+  }
+
   void hexDump(byte[] bytes) {
     for (int i = 0; i < bytes.length; i++) {
       System.out.print(String.format("%02x ", bytes[i]));
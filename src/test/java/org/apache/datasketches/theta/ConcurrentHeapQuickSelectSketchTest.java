@@ -737,8 +737,6 @@ public class ConcurrentHeapQuickSelectSketchTest {
     }
     final ConcurrentSharedThetaSketch csts = (ConcurrentSharedThetaSketch)shared;
     csts.awaitBgPropagationTermination();
-    ConcurrentPropagationService.resetExecutorService(Thread.currentThread().threadId());
-    csts.initBgPropagationService();
   }
 
 }
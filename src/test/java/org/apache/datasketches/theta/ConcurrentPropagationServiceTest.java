@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static org.apache.datasketches.theta.ConcurrentHeapQuickSelectSketchTest.waitForBgPropagationToComplete;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.testng.annotations.Test;
+
+public class ConcurrentPropagationServiceTest {
+  private static final int N = 100_000;
+
+  @Test
+  public void checkCallerSuppliedExecutor() {
+    final ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      final AtomicInteger numTasks = new AtomicInteger();
+      final UpdatableThetaSketchBuilder bldr = new UpdatableThetaSketchBuilder().setLogNominalEntries(9)
+          .setPropagationExecutor(task -> {
+            numTasks.incrementAndGet();
+            pool.execute(task);
+          });
+      final ConcurrentPropagationService service = bldr.getPropagationService();
+      final UpdatableThetaSketch shared = bldr.buildShared();
+      final UpdatableThetaSketch local = bldr.buildLocal(shared);
+      for (int i = 0; i < N; i++) { local.update(i); }
+      waitForBgPropagationToComplete(shared);
+
+      assertTrue(numTasks.get() > 0);
+      assertEquals(shared.getEstimate(), N, N * 0.15);
+      assertEquals(service.getQueueDepth(), 0);
+      assertTrue(service.getCompletedPropagations() > 0);
+      assertTrue(service.getMeanPropagationLatencyNanos() > 0);
+      assertTrue(service.getMaxPropagationLatencyNanos() >= service.getMeanPropagationLatencyNanos());
+
+      service.close(); //does not shut down the caller's pool
+      assertTrue(service.isShutdown());
+      assertFalse(pool.isShutdown());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void checkVirtualThreadsManySketches() throws Exception {
+    final int numSketches = 16;
+    final ConcurrentPropagationService service = ConcurrentPropagationService.ofVirtualThreads();
+    final UpdatableThetaSketchBuilder bldr = new UpdatableThetaSketchBuilder().setLogNominalEntries(9)
+        .setPropagationService(service);
+    final UpdatableThetaSketch[] shared = new UpdatableThetaSketch[numSketches];
+    final ExecutorService writers = Executors.newFixedThreadPool(4);
+    try {
+      final Future<?>[] futures = new Future<?>[numSketches];
+      for (int s = 0; s < numSketches; s++) {
+        shared[s] = bldr.buildShared();
+        final UpdatableThetaSketch local = bldr.buildLocal(shared[s]);
+        futures[s] = writers.submit(() -> {
+          for (int i = 0; i < N; i++) { local.update(i); }
+        });
+      }
+      for (final Future<?> f : futures) { f.get(); }
+    } finally {
+      writers.shutdown();
+    }
+    for (final UpdatableThetaSketch sk : shared) {
+      waitForBgPropagationToComplete(sk);
+      assertEquals(sk.getEstimate(), N, N * 0.15);
+    }
+    service.shutdown();
+    assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(service.getQueueDepth(), 0);
+  }
+
+  @Test
+  public void checkPropagationAfterShutdown() {
+    final ConcurrentPropagationService service = ConcurrentPropagationService.ofThreadPool(2);
+    final UpdatableThetaSketchBuilder bldr = new UpdatableThetaSketchBuilder().setLogNominalEntries(9)
+        .setPropagationService(service);
+    final UpdatableThetaSketch shared = bldr.buildShared();
+    final UpdatableThetaSketch local = bldr.buildLocal(shared);
+    for (int i = 0; i < (N / 2); i++) { local.update(i); }
+    service.close();
+    for (int i = N / 2; i < N; i++) { local.update(i); } //now runs on the calling thread
+    waitForBgPropagationToComplete(shared);
+    assertEquals(shared.getEstimate(), N, N * 0.15);
+    assertEquals(service.getQueueDepth(), 0);
+  }
+
+  @Test
+  public void checkDefaultService() {
+    final UpdatableThetaSketchBuilder bldr = new UpdatableThetaSketchBuilder();
+    assertTrue(bldr.getPropagationService() == ConcurrentPropagationService.getDefault());
+    bldr.setPropagationService(null);
+    assertTrue(bldr.getPropagationService() == ConcurrentPropagationService.getDefault());
+  }
+
+  @Test
+  public void checkNumPoolThreadsIsLocalToBuilder() {
+    final UpdatableThetaSketchBuilder bldr = new UpdatableThetaSketchBuilder().setLogNominalEntries(9);
+    bldr.setNumPoolThreads(2);
+    final ConcurrentPropagationService pool = bldr.getPropagationService();
+    assertTrue(pool != ConcurrentPropagationService.getDefault());
+    assertTrue(bldr.getPropagationService() == pool); //shared by the sketches of this builder
+    final UpdatableThetaSketch shared = bldr.buildShared();
+    final UpdatableThetaSketch local = bldr.buildLocal(shared);
+    for (int i = 0; i < N; i++) { local.update(i); }
+    waitForBgPropagationToComplete(shared);
+    assertEquals(shared.getEstimate(), N, N * 0.15);
+    assertTrue(new UpdatableThetaSketchBuilder().getPropagationService() == ConcurrentPropagationService.getDefault());
+    bldr.setNumPoolThreads(3);
+    assertTrue(bldr.getPropagationService() == ConcurrentPropagationService.getDefault());
+    pool.close();
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkBadNumThreads() {
+    ConcurrentPropagationService.ofThreadPool(0);
+  }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.testng.annotations.Test;
+
+public class ConcurrentThetaUnionTest {
+
+  private static List<ThetaSketch> newSketches(final int numSketches) {
+    final List<ThetaSketch> sketches = new ArrayList<>();
+    for (int i = 0; i < numSketches; i++) {
+      final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setLogNominalEntries(8).build();
+      for (int j = 0; j < 300; j++) { sk.update((i * 100) + j); }
+      sketches.add((i % 7) == 0 ? sk : sk.compact((i % 3) != 1, null));
+      if ((i % 101) == 0) { sketches.add(null); }
+    }
+    return sketches;
+  }
+
+  private static void unionInThreads(final ConcurrentThetaUnion union, final List<?> inputs, final int numThreads)
+      throws InterruptedException {
+    final AtomicInteger next = new AtomicInteger();
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      threads[t] = new Thread(() -> {
+        int i;
+        while ((i = next.getAndIncrement()) < inputs.size()) {
+          final Object in = inputs.get(i);
+          if (in instanceof MemorySegment) { union.union((MemorySegment) in); }
+          else { union.union((ThetaSketch) in); }
+        }
+      });
+      threads[t].start();
+    }
+    for (final Thread thread : threads) { thread.join(); }
+  }
+
+  @Test
+  public void checkMatchesSequentialUnion() throws InterruptedException {
+    final List<ThetaSketch> sketches = newSketches(2000);
+    for (final float p : new float[] { 1.0f, 0.5f }) {
+      final ThetaSetOperationBuilder bldr = ThetaSetOperation.builder().setLogNominalEntries(10).setP(p);
+      final ThetaUnion single = bldr.buildUnion();
+      for (final ThetaSketch sk : sketches) { single.union(sk); }
+      final byte[] expected = single.getResult().toByteArray();
+
+      for (final int numStripes : new int[] { 1, 4 }) {
+        final ConcurrentThetaUnion union = bldr.buildConcurrentUnion(numStripes);
+        assertEquals(union.getNumStripes(), numStripes);
+        unionInThreads(union, sketches, 4);
+        assertEquals(union.getResult().toByteArray(), expected);
+
+        final CompactThetaSketch direct = union.getResult(false, MemorySegment.ofArray(new byte[expected.length]));
+        assertTrue(direct.hasMemorySegment());
+        assertEquals(direct.getEstimate(), single.getResult().getEstimate());
+      }
+    }
+  }
+
+  @Test
+  public void checkSameRetainedEntriesAndThetaInEstimationMode() throws InterruptedException {
+    final ThetaSetOperationBuilder bldr = ThetaSetOperation.builder().setLogNominalEntries(5);
+    final List<ThetaSketch> sketches = newSketches(500);
+    final ThetaUnion single = bldr.buildUnion();
+    for (final ThetaSketch sk : sketches) { single.union(sk); }
+    final CompactThetaSketch expected = single.getResult();
+    assertTrue(expected.isEstimationMode());
+
+    final ConcurrentThetaUnion union = bldr.buildConcurrentUnion(8);
+    unionInThreads(union, sketches, 8);
+    final CompactThetaSketch result = union.getResult();
+    assertEquals(result.getThetaLong(), expected.getThetaLong());
+    assertEquals(result.getRetainedEntries(), expected.getRetainedEntries());
+    assertEquals(result.toByteArray(), expected.toByteArray());
+  }
+
+  @Test
+  public void checkSegments() throws InterruptedException {
+    final List<Object> segs = new ArrayList<>();
+    final ThetaUnion single = ThetaSetOperation.builder().buildUnion();
+    for (final ThetaSketch sk : newSketches(600)) {
+      if (sk == null) { continue; }
+      single.union(sk);
+      segs.add(MemorySegment.ofArray(sk.compact().toByteArray()));
+    }
+    final ConcurrentThetaUnion union = ThetaSetOperation.builder().buildConcurrentUnion();
+    unionInThreads(union, segs, 3);
+    assertEquals(union.getResult().toByteArray(), single.getResult().toByteArray());
+  }
+
+  @Test
+  public void checkSnapshotAndReset() {
+    final ConcurrentThetaUnion union = ThetaSetOperation.builder().buildConcurrentUnion(2);
+    assertTrue(union.getResult().isEmpty());
+    union.union((ThetaSketch) null);
+    union.union(UpdatableThetaSketch.builder().build());
+    assertTrue(union.getResult().isEmpty());
+
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().build();
+    for (int i = 0; i < 100; i++) { sk.update(i); }
+    union.union(sk);
+    assertEquals(union.getResult().getEstimate(), 100.0);
+    for (int i = 100; i < 200; i++) { sk.update(i); }
+    union.union(sk);
+    assertEquals(union.getResult().getEstimate(), 200.0);
+
+    union.reset();
+    assertTrue(union.getResult().isEmpty());
+    union.union(sk);
+    assertEquals(union.getResult().getEstimate(), 200.0);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkBadNumStripes() {
+    ThetaSetOperation.builder().buildConcurrentUnion(3);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkZeroNumStripes() {
+    ThetaSetOperation.builder().buildConcurrentUnion(0);
+  }
+
+}
@@ -30,6 +30,8 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -532,4 +534,90 @@ public class HeapIntersectionTest {
     //System.out.println(s); //disable here
   }
 
+  @Test
+  public void checkOrderedStreamingMatchesHashTable() {
+    final int[][] cases = { {0, 100, 50}, {1000, 1000, 500}, {10_000, 3000, 9000}, {50_000, 50_000, 25_000} };
+    for (final int[] c : cases) {
+      final UpdatableThetaSketch skA = UpdatableThetaSketch.builder().setNominalEntries(1024).build();
+      final UpdatableThetaSketch skB = UpdatableThetaSketch.builder().setNominalEntries(4096).build();
+      for (int i = 0; i < c[0]; i++) { skA.update(i); }
+      for (int i = 0; i < c[1]; i++) { skB.update(i + c[2]); }
+      final CompactThetaSketch ordA = skA.compact();
+      final CompactThetaSketch ordB = skB.compact();
+      final ThetaIntersection inter = ThetaSetOperation.builder().buildIntersection();
+      final byte[] expected = inter.intersect(skA, skB).toByteArray(); //hash table path
+      assertEquals(inter.intersect(ordA, ordB).toByteArray(), expected);
+      final CompactThetaSketch wrappedA = CompactThetaSketch.wrap(ordA.toByteArrayCompressed());
+      final CompactThetaSketch wrappedB = CompactThetaSketch.wrap(MemorySegment.ofArray(ordB.toByteArrayCompressed()));
+      assertEquals(inter.intersect(wrappedA, wrappedB).toByteArray(), expected);
+      assertEquals(inter.intersect(wrappedB, wrappedA, false, null).getEstimate(),
+          CompactThetaSketch.heapify(MemorySegment.ofArray(expected)).getEstimate());
+    }
+  }
+
+  @Test
+  public void checkIntersectAllMatchesSequential() {
+    final List<ThetaSketch> sketches = new ArrayList<>();
+    final int[][] ranges = { {0, 100_000}, {2000, 20_000}, {0, 6000}, {3000, 50_000}, {1000, 9000}, {0, 200_000} };
+    for (int r = 0; r < ranges.length; r++) {
+      final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setNominalEntries(1 << (12 + (r % 3))).build();
+      for (int i = ranges[r][0]; i < ranges[r][1]; i++) { sk.update(i); }
+      switch (r) {
+        case 0: sketches.add(sk); break; //hash table
+        case 1: sketches.add(sk.compact(false, null)); break; //unordered compact
+        case 2: sketches.add(CompactThetaSketch.wrap(sk.compact().toByteArray())); break;
+        case 3: sketches.add(CompactThetaSketch.wrap(sk.compact().toByteArrayCompressed())); break;
+        case 4: sketches.add(sk.compact(true, MemorySegment.ofArray(new byte[sk.getCompactBytes()]))); break;
+        default: sketches.add(sk.compact());
+      }
+    }
+    for (int n = 1; n <= sketches.size(); n++) {
+      final List<ThetaSketch> subList = sketches.subList(0, n);
+      final ThetaIntersection sequential = ThetaSetOperation.builder().buildIntersection();
+      for (final ThetaSketch sk : subList) { sequential.intersect(sk); }
+      final byte[] expected = sequential.getResult().toByteArray();
+
+      final ThetaIntersection bulk = ThetaSetOperation.builder().buildIntersection();
+      bulk.intersectAll(subList);
+      assertEquals(bulk.getResult().toByteArray(), expected);
+
+      final ThetaIntersection direct = ThetaSetOperation.builder()
+          .buildIntersection(MemorySegment.ofArray(new byte[ThetaSetOperation.getMaxIntersectionBytes(1 << 14)]));
+      direct.intersect(subList.get(n - 1)); //with an existing state
+      direct.intersectAll(subList);
+      assertEquals(direct.getResult().toByteArray(), expected);
+    }
+  }
+
+  @Test
+  public void checkIntersectAllEarlyExitAndEmpty() {
+    final UpdatableThetaSketch skA = UpdatableThetaSketch.builder().build();
+    final UpdatableThetaSketch skB = UpdatableThetaSketch.builder().build();
+    for (int i = 0; i < 1000; i++) {
+      skA.update(i);
+      skB.update(i + 1000);
+    }
+    final ThetaIntersection inter = ThetaSetOperation.builder().buildIntersection();
+    inter.intersectAll(skA.compact(), skB.compact(), skA);
+    CompactThetaSketch result = inter.getResult();
+    assertEquals(result.getRetainedEntries(), 0);
+    assertTrue(result.isEmpty()); //disjoint in exact mode
+
+    inter.reset();
+    inter.intersectAll(skA, UpdatableThetaSketch.builder().build());
+    result = inter.getResult();
+    assertTrue(result.isEmpty());
+
+    inter.reset();
+    inter.intersectAll();
+    assertFalse(inter.hasResult());
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkIntersectAllNull() {
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().build();
+    sk.update(1);
+    ThetaSetOperation.builder().buildIntersection().intersectAll(sk, null);
+  }
+
 }
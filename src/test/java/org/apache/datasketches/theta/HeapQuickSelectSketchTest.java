@@ -45,6 +45,7 @@ import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.hash.MurmurHash3;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 import org.testng.annotations.Test;
 
@@ -627,6 +628,72 @@ public class HeapQuickSelectSketchTest {
     }
   }
 
+  @Test
+  public void checkIncrementalRebuildKeepsAllHashesBelowTheta() {
+    final int k = 1 << 10;
+    final long seed = Util.DEFAULT_UPDATE_SEED;
+    for (final ResizeFactor rf : new ResizeFactor[] {X1, X2, X8}) {
+      final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setNominalEntries(k).setResizeFactor(rf)
+          .setIncrementalRebuild(true).build();
+      final int n = 50 * k;
+      final long[] hashes = new long[n];
+      for (int i = 0; i < n; i++) {
+        sk.update(i);
+        hashes[i] = MurmurHash3.hash(i, seed)[0] >>> 1;
+        if (((i % 331) == 0) || (i == (n - 1))) { //query in every phase of the incremental work
+          final long[] all = Arrays.copyOf(hashes, i + 1);
+          Arrays.sort(all);
+          final CompactThetaSketch csk = sk.compact(true, null);
+          final long thetaLong = sk.getThetaLong();
+          int below = 0;
+          while ((below < all.length) && (all[below] < thetaLong)) { below++; }
+          assertEquals(csk.getRetainedEntries(), below);
+          assertEquals(sk.getRetainedEntries(true), below);
+          assertEquals(csk.getThetaLong(), thetaLong);
+          final long[] retained = csk.getCache();
+          for (int j = 0; j < below; j++) { assertEquals(retained[j], all[j]); }
+          if (thetaLong < Long.MAX_VALUE) { assertTrue(below >= k); }
+        }
+      }
+      final double est = sk.getEstimate();
+      assertTrue(Math.abs(est - n) < (n * 0.1), "rf: " + rf + ", est: " + est);
+    }
+  }
+
+  @Test
+  public void checkIncrementalRebuildSerDeAndReset() {
+    final int k = 1 << 9;
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setNominalEntries(k)
+        .setIncrementalRebuild(true).build();
+    final HeapQuickSelectSketch hqss = (HeapQuickSelectSketch) sk;
+    int i = 0;
+    for (int trial = 0; trial < 200; trial++) { //serialize at many points of the incremental work
+      for (int j = 0; j < 37; j++) { sk.update(i++); }
+      final UpdatableThetaSketch copy = UpdatableThetaSketch.heapify(MemorySegment.ofArray(sk.toByteArray()));
+      assertEquals(copy.getEstimate(), sk.getEstimate());
+      assertEquals(copy.getRetainedEntries(true), sk.getRetainedEntries(true));
+      assertTrue(sk.getRetainedEntries(true) <= hqss.getHashTableThreshold());
+    }
+    sk.rebuild();
+    assertEquals(sk.getRetainedEntries(true), k);
+    sk.reset();
+    assertTrue(sk.isEmpty());
+    assertEquals(sk.getRetainedEntries(true), 0);
+    for (int j = 0; j < (4 * k); j++) { sk.update(j); }
+    final UpdatableThetaSketch ref = UpdatableThetaSketch.builder().setNominalEntries(k).build();
+    for (int j = 0; j < (4 * k); j++) { ref.update(j); }
+    assertTrue(Math.abs(sk.getEstimate() - ref.getEstimate()) < (0.2 * 4 * k));
+  }
+
+  @Test
+  public void checkIncrementalRebuildBuilder() {
+    final UpdatableThetaSketchBuilder bldr = UpdatableThetaSketch.builder();
+    assertFalse(bldr.getIncrementalRebuild());
+    bldr.setIncrementalRebuild(true);
+    assertTrue(bldr.getIncrementalRebuild());
+    assertTrue(bldr.toString().contains("IncrementalRebuild"));
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.testng.annotations.Test;
+
+public class JaccardSimilarityMatrixTest {
+
+  private static List<ThetaSketch> buildSketches(final int count, final int lgK) {
+    final List<ThetaSketch> sketches = new ArrayList<>();
+    for (int s = 0; s < count; s++) {
+      final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setNominalEntries(1 << lgK).build();
+      final int n = 100 + (s * 397);
+      final int start = (s % 7) * 150; //overlapping ranges of varying size
+      for (int i = 0; i < n; i++) { sk.update(start + i); }
+      switch (s % 4) {
+        case 0: sketches.add(sk); break;
+        case 1: sketches.add(sk.compact(true, null)); break;
+        case 2: sketches.add(sk.compact(false, null)); break;
+        default: sketches.add(CompactThetaSketch.wrap(MemorySegment.ofArray(sk.compact(true, null).toByteArray())));
+      }
+    }
+    sketches.add(UpdatableThetaSketch.builder().setNominalEntries(1 << lgK).build()); //empty
+    sketches.add(null);
+    sketches.add(sketches.get(0)); //same object
+    return sketches;
+  }
+
+  @Test
+  public void checkDenseMatchesJaccard() {
+    final List<ThetaSketch> sketches = buildSketches(150, 8); //more than two tiles
+    final ForkJoinPool pool = new ForkJoinPool(3);
+    final JaccardSimilarityMatrix matrix;
+    try {
+      matrix = JaccardSimilarityMatrix.dense(sketches, pool);
+    } finally {
+      pool.shutdown();
+    }
+    final int n = sketches.size();
+    assertEquals(matrix.size(), n);
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        final double[] expected = JaccardSimilarity.jaccard(sketches.get(i), sketches.get(j));
+        assertTrue(Arrays.equals(matrix.getJaccard(i, j), expected), i + ", " + j);
+        assertEquals(matrix.getLowerBound(i, j), expected[0]);
+        assertEquals(matrix.getEstimate(i, j), expected[1]);
+        assertEquals(matrix.getUpperBound(i, j), expected[2]);
+      }
+    }
+  }
+
+  @Test
+  public void checkSparseMatchesDense() {
+    final List<ThetaSketch> sketches = buildSketches(80, 9);
+    final JaccardSimilarityMatrix matrix = JaccardSimilarityMatrix.dense(sketches);
+    final List<JaccardSimilarityMatrix.SimilarPair> pairs = JaccardSimilarityMatrix.sparse(sketches, 0.5);
+    final int n = sketches.size();
+    int p = 0;
+    for (int i = 0; i < n; i++) {
+      for (int j = i + 1; j < n; j++) {
+        if (matrix.getEstimate(i, j) >= 0.5) {
+          final JaccardSimilarityMatrix.SimilarPair pair = pairs.get(p++);
+          assertEquals(pair.getI(), i);
+          assertEquals(pair.getJ(), j);
+          assertEquals(pair.getLowerBound(), matrix.getLowerBound(i, j));
+          assertEquals(pair.getEstimate(), matrix.getEstimate(i, j));
+          assertEquals(pair.getUpperBound(), matrix.getUpperBound(i, j));
+        }
+      }
+    }
+    assertEquals(pairs.size(), p);
+    assertTrue(p > 0);
+  }
+
+  @Test
+  public void checkSmallAndEmptyLists() {
+    assertEquals(JaccardSimilarityMatrix.dense(new ArrayList<ThetaSketch>()).size(), 0);
+    assertTrue(JaccardSimilarityMatrix.sparse(new ArrayList<ThetaSketch>(), 0.0).isEmpty());
+    final List<ThetaSketch> one = new ArrayList<>();
+    one.add(UpdatableThetaSketch.builder().build());
+    final JaccardSimilarityMatrix matrix = JaccardSimilarityMatrix.dense(one);
+    assertEquals(matrix.getJaccard(0, 0), new double[] {1.0, 1.0, 1.0});
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkIndexOutOfRange() {
+    final JaccardSimilarityMatrix matrix = JaccardSimilarityMatrix.dense(buildSketches(3, 5));
+    matrix.getEstimate(0, matrix.size());
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkSeedMismatch() {
+    final List<ThetaSketch> sketches = new ArrayList<>();
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setSeed(123).build();
+    sk.update(1);
+    sketches.add(sk);
+    JaccardSimilarityMatrix.dense(sketches);
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.datasketches.theta;
 
 import static org.apache.datasketches.theta.JaccardSimilarity.exactlyEqual;
 import static org.apache.datasketches.theta.JaccardSimilarity.jaccard;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -245,4 +246,21 @@ public class JaccardSimilarityTest {
     //System.out.println(s); //disable here
   }
 
+  @Test
+  public void checkOrderedStreamingMatchesUnionIntersection() {
+    final int[][] cases = { {0, 100, 50}, {1000, 1000, 0}, {1000, 1000, 500}, {10_000, 3000, 9000},
+        {50_000, 50_000, 25_000}, {100_000, 100_000, 0} };
+    for (final int[] c : cases) {
+      final UpdatableThetaSketch skA = UpdatableThetaSketch.builder().setNominalEntries(1024).build();
+      final UpdatableThetaSketch skB = UpdatableThetaSketch.builder().setNominalEntries(4096).build();
+      for (int i = 0; i < c[0]; i++) { skA.update(i); }
+      for (int i = 0; i < c[1]; i++) { skB.update(i + c[2]); }
+      final double[] expected = jaccard(skA, skB); //unordered inputs
+      assertEquals(jaccard(skA.compact(), skB.compact()), expected);
+      final CompactThetaSketch wrappedA = CompactThetaSketch.wrap(skA.compact().toByteArrayCompressed());
+      final CompactThetaSketch wrappedB = CompactThetaSketch.wrap(skB.compact().toByteArrayCompressed());
+      assertEquals(jaccard(wrappedA, wrappedB), expected);
+    }
+  }
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.testng.annotations.Test;
+
+public class ParallelThetaUnionTest {
+
+  private static List<ThetaSketch> newSketches(final int numSketches) {
+    final List<ThetaSketch> sketches = new ArrayList<>();
+    for (int i = 0; i < numSketches; i++) {
+      final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setLogNominalEntries(8).build();
+      for (int j = 0; j < 300; j++) { sk.update((i * 100) + j); }
+      sketches.add((i % 7) == 0 ? sk : sk.compact((i % 3) != 1, null));
+      if ((i % 101) == 0) { sketches.add(null); }
+    }
+    return sketches;
+  }
+
+  @Test
+  public void checkMatchesSequentialUnion() {
+    final List<ThetaSketch> sketches = newSketches(2000);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (final float p : new float[] { 1.0f, 0.5f }) {
+        final ThetaSetOperationBuilder bldr = ThetaSetOperation.builder().setLogNominalEntries(10).setP(p);
+        final ThetaUnion single = bldr.buildUnion();
+        for (final ThetaSketch sk : sketches) { single.union(sk); }
+        final byte[] expected = single.getResult().toByteArray();
+
+        final ParallelThetaUnion parallel = bldr.buildParallelUnion(pool);
+        assertTrue(parallel.getPool() == pool);
+        assertEquals(parallel.union(sketches).toByteArray(), expected);
+        assertEquals(parallel.union(new LinkedList<>(sketches)).toByteArray(), expected);
+        assertEquals(bldr.buildParallelUnion().union(sketches).toByteArray(), expected);
+
+        final CompactThetaSketch direct = parallel.union(sketches, false,
+            MemorySegment.ofArray(new byte[expected.length]));
+        assertTrue(direct.hasMemorySegment());
+        assertEquals(direct.getEstimate(), single.getResult().getEstimate());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void checkSegments() {
+    final List<MemorySegment> segs = new ArrayList<>();
+    final ThetaUnion single = ThetaSetOperation.builder().buildUnion();
+    for (final ThetaSketch sk : newSketches(600)) {
+      if (sk == null) { continue; }
+      final MemorySegment seg = MemorySegment.ofArray(sk.compact().toByteArrayCompressed());
+      segs.add(seg);
+      single.union(seg);
+    }
+    final ParallelThetaUnion parallel = ThetaSetOperation.builder().buildParallelUnion();
+    assertEquals(parallel.unionSegments(segs).toByteArray(), single.getResult().toByteArray());
+  }
+
+  @Test
+  public void checkEmpty() {
+    final ParallelThetaUnion parallel = ThetaSetOperation.builder().buildParallelUnion();
+    assertTrue(parallel.union(new ArrayList<ThetaSketch>()).isEmpty());
+    final List<ThetaSketch> sketches = new ArrayList<>();
+    sketches.add(null);
+    sketches.add(UpdatableThetaSketch.builder().build());
+    final CompactThetaSketch csk = parallel.union(sketches, true, MemorySegment.ofArray(new byte[8]));
+    assertTrue(csk.isEmpty());
+    assertFalse(csk.isEstimationMode());
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkSeedMismatch() {
+    final List<ThetaSketch> sketches = newSketches(1000);
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setSeed(123).build();
+    sk.update(1);
+    sketches.add(sk);
+    ThetaSetOperation.builder().buildParallelUnion().union(sketches);
+  }
+
+}
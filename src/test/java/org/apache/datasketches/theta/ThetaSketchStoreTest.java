@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.theta;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ThetaSketchStoreTest {
+  private Path path;
+
+  @BeforeMethod
+  public void createFile() throws IOException {
+    path = Files.createTempFile("theta-store-", ".bin");
+    Files.delete(path); //the Writer creates it
+  }
+
+  @AfterMethod
+  public void deleteFile() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  private static CompactThetaSketch sketch(final long start, final int n) {
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setNominalEntries(256).build();
+    for (int i = 0; i < n; i++) { sk.update(start + i); }
+    return sk.compact();
+  }
+
+  @Test
+  public void checkLongIdsOutOfOrder() throws IOException {
+    final long[] ids = {5, -3, 1_000_000_000_000L, 0, Long.MIN_VALUE, Long.MAX_VALUE, 17};
+    try (ThetaSketchStore.Writer writer = ThetaSketchStore.writer(path)) {
+      for (final long id : ids) { writer.append(id, sketch(id, 100 + (int) (Math.abs(id % 1000)))); }
+    }
+    try (ThetaSketchStore store = ThetaSketchStore.open(path)) {
+      assertEquals(store.size(), ids.length);
+      for (final long id : ids) {
+        assertTrue(store.contains(id));
+        final CompactThetaSketch expected = sketch(id, 100 + (int) (Math.abs(id % 1000)));
+        assertEquals(store.wrap(id).getEstimate(), expected.getEstimate());
+        assertTrue(store.wrap(id).hasMemorySegment());
+      }
+      assertFalse(store.contains(6));
+      assertNull(store.wrap(6));
+      long prev = Long.MIN_VALUE;
+      for (int i = 0; i < store.size(); i++) { //numeric order
+        final long id = ByteBuffer.wrap(store.getKeyAtIndex(i)).getLong() ^ Long.MIN_VALUE;
+        assertTrue((i == 0) || (id > prev));
+        prev = id;
+      }
+    }
+  }
+
+  @Test
+  public void checkManyShuffledIdsLastWins() throws IOException {
+    final Random rand = new Random(7);
+    final Map<Long, Integer> expected = new TreeMap<>();
+    try (ThetaSketchStore.Writer writer = ThetaSketchStore.writer(path)) {
+      for (int i = 0; i < 3000; i++) {
+        final long id = rand.nextInt(1000) - 500; //many repeated ids in no order
+        final int n = 1 + rand.nextInt(50);
+        writer.append(id, sketch(0, n));
+        expected.put(id, n);
+      }
+    }
+    try (ThetaSketchStore store = ThetaSketchStore.open(path)) {
+      assertEquals(store.size(), expected.size());
+      int i = 0;
+      for (final Map.Entry<Long, Integer> e : expected.entrySet()) {
+        assertEquals(ByteBuffer.wrap(store.getKeyAtIndex(i++)).getLong() ^ Long.MIN_VALUE, (long) e.getKey());
+        assertEquals(store.wrap(e.getKey()).getEstimate(), (double) e.getValue());
+      }
+    }
+  }
+
+  @Test
+  public void checkByteKeysAndLastWins() throws IOException {
+    try (ThetaSketchStore.Writer writer = ThetaSketchStore.writer(path)) {
+      writer.append(new byte[] {1, 2}, sketch(0, 10));
+      writer.append(new byte[] {1}, sketch(0, 20));
+      writer.append(new byte[] {(byte) 0xFF}, sketch(0, 30));
+      writer.append(new byte[0], sketch(0, 40));
+    }
+    try (ThetaSketchStore.Writer writer = ThetaSketchStore.writer(path)) { //reopen and append
+      writer.append(new byte[] {1, 2}, sketch(0, 50));
+      writer.flush();
+    }
+    try (ThetaSketchStore store = ThetaSketchStore.open(path)) {
+      assertEquals(store.size(), 4);
+      assertEquals(store.getKeyAtIndex(0), new byte[0]);
+      assertEquals(store.getKeyAtIndex(1), new byte[] {1});
+      assertEquals(store.getKeyAtIndex(2), new byte[] {1, 2});
+      assertEquals(store.getKeyAtIndex(3), new byte[] {(byte) 0xFF}); //unsigned order
+      assertEquals(store.wrap(new byte[] {1, 2}).getEstimate(), 50.0);
+      assertEquals(store.ceilingIndex(new byte[] {1, 1}), 2);
+      assertEquals(store.ceilingIndex(new byte[] {(byte) 0xFF, 0}), 4);
+    }
+  }
+
+  @Test
+  public void checkRangeUnionAndIntersection() throws IOException {
+    final List<CompactThetaSketch> sketches = new ArrayList<>();
+    try (ThetaSketchStore.Writer writer = ThetaSketchStore.writer(path)) {
+      for (int id = 0; id < 100; id++) {
+        final CompactThetaSketch sk = sketch(id * 50L, 2000);
+        sketches.add(sk);
+        writer.append(id, sk);
+      }
+    }
+    try (ThetaSketchStore store = ThetaSketchStore.open(path)) {
+      final ThetaUnion union = ThetaSetOperation.builder().setNominalEntries(256).buildUnion();
+      store.unionRange(10, 30, union);
+      final ThetaUnion expectedUnion = ThetaSetOperation.builder().setNominalEntries(256).buildUnion();
+      for (int id = 10; id < 30; id++) { expectedUnion.union(sketches.get(id)); }
+      assertEquals(union.getResult().getEstimate(), expectedUnion.getResult().getEstimate());
+
+      final ThetaIntersection inter = ThetaSetOperation.builder().buildIntersection();
+      store.intersectRange(10, 15, inter);
+      final ThetaIntersection expectedInter = ThetaSetOperation.builder().buildIntersection();
+      for (int id = 10; id < 15; id++) { expectedInter.intersect(sketches.get(id)); }
+      assertEquals(inter.getResult().getEstimate(), expectedInter.getResult().getEstimate());
+
+      int count = 0;
+      for (final CompactThetaSketch sk : store.range(null, null)) { count += sk.isEmpty() ? 0 : 1; }
+      assertEquals(count, 100);
+      assertFalse(store.range(ThetaSketchStore.toKey(50), ThetaSketchStore.toKey(50)).iterator().hasNext());
+    }
+  }
+
+  @Test
+  public void checkPartialRecordIsDropped() throws IOException {
+    try (ThetaSketchStore.Writer writer = ThetaSketchStore.writer(path)) {
+      writer.append(1, sketch(0, 100));
+      writer.append(2, sketch(0, 200));
+    }
+    final long size = Files.size(path);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(size - 8);
+    }
+    try (ThetaSketchStore store = ThetaSketchStore.open(path)) {
+      assertEquals(store.size(), 1);
+      assertTrue(store.contains(1));
+    }
+    try (ThetaSketchStore.Writer writer = ThetaSketchStore.writer(path)) {
+      writer.append(3, sketch(0, 300));
+    }
+    try (ThetaSketchStore store = ThetaSketchStore.open(path)) {
+      assertEquals(store.size(), 2);
+      assertEquals(store.wrap(3).getEstimate(), 300.0);
+    }
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkBadMagic() throws IOException {
+    Files.write(path, new byte[32]);
+    try (ThetaSketchStore store = ThetaSketchStore.open(path)) {
+      store.size();
+    }
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkIndexOutOfRange() throws IOException {
+    try (ThetaSketchStore.Writer writer = ThetaSketchStore.writer(path)) {
+      writer.append(1, sketch(0, 10));
+    }
+    try (ThetaSketchStore store = ThetaSketchStore.open(path)) {
+      store.wrapAtIndex(store.size());
+    }
+  }
+}
@@ -26,6 +26,9 @@ import static org.testng.Assert.assertTrue;
 
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.datasketches.common.MemorySegmentStatus;
 import org.apache.datasketches.common.SketchesArgumentException;
@@ -42,6 +45,103 @@ public class UnionImplTest {
     assertEquals(union.getMaxUnionBytes(), 16416);
   }
 
+  @Test
+  public void checkUpdateAll() {
+    final long[] items = new long[5000];
+    for (int i = 0; i < items.length; i++) { items[i] = i; }
+    final MemorySegment seg = MemorySegment.ofArray(new byte[ThetaSetOperation.getMaxUnionBytes(1 << 10)]);
+    for (final MemorySegment dst : new MemorySegment[] { null, seg }) {
+      final ThetaSetOperationBuilder bldr = ThetaSetOperation.builder().setLogNominalEntries(10);
+      final ThetaUnion bulk = dst == null ? bldr.buildUnion() : bldr.buildUnion(dst);
+      final ThetaUnion single = bldr.buildUnion();
+      bulk.updateAll(items, 0, items.length);
+      bulk.updateAll(new int[] { -1, -2 }, 0, 2);
+      bulk.updateAll(new double[] { 0.5 }, 0, 1);
+      bulk.updateAll(new String[] { "a", null }, 0, 2);
+      bulk.updateAll(MemorySegment.ofArray(new long[] { -3 }), 0, 8, 1);
+      for (final long item : items) { single.update(item); }
+      single.update(-1);
+      single.update(-2);
+      single.update(0.5);
+      single.update("a");
+      single.update(-3L);
+      assertEquals(bulk.getResult().toByteArray(), single.getResult().toByteArray());
+    }
+  }
+
+  @Test
+  public void checkUnionAllMatchesSequentialUnion() {
+    final int lgK = 9;
+    final List<ThetaSketch> sketches = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setLogNominalEntries(10).build();
+      for (int j = 0; j < 2000; j++) { sk.update((i * 500) + j); }
+      sketches.add((i % 5) == 0 ? sk : sk.compact((i % 3) != 1, null));
+    }
+    sketches.add(null);
+    sketches.add(UpdatableThetaSketch.builder().build());
+    sketches.add(UpdatableThetaSketch.builder().build().compact());
+    final MemorySegment seg = MemorySegment.ofArray(new byte[ThetaSetOperation.getMaxUnionBytes(1 << lgK)]);
+    for (final MemorySegment dst : new MemorySegment[] { null, seg }) {
+      final ThetaSetOperationBuilder bldr = ThetaSetOperation.builder().setLogNominalEntries(lgK);
+      final ThetaUnion bulk = dst == null ? bldr.buildUnion() : bldr.buildUnion(dst);
+      final ThetaUnion single = bldr.buildUnion();
+      bulk.update(-1L); //merges with existing state
+      single.update(-1L);
+      bulk.unionAll(sketches.subList(0, 20));
+      bulk.unionAll(sketches.subList(20, sketches.size()));
+      for (final ThetaSketch sk : sketches) { single.union(sk); }
+      final byte[] expected = single.getResult().toByteArray();
+      assertEquals(bulk.getResult().toByteArray(), expected);
+
+      final ThetaUnion stateless = bldr.buildUnion();
+      stateless.update(-1L);
+      final List<ThetaSketch> withItem = new ArrayList<>(sketches);
+      withItem.add(stateless.getResult());
+      assertEquals(bldr.buildUnion().unionAll(withItem, true, null).toByteArray(), expected);
+      final CompactThetaSketch direct = bldr.buildUnion().unionAll(withItem, false,
+          MemorySegment.ofArray(new byte[expected.length]));
+      assertFalse(direct.isOrdered());
+      assertEquals(direct.getEstimate(), single.getResult().getEstimate());
+    }
+  }
+
+  @Test
+  public void checkUnionAllSegments() {
+    final List<MemorySegment> segs = new ArrayList<>();
+    final ThetaUnion single = ThetaSetOperation.builder().buildUnion();
+    for (int i = 0; i < 20; i++) {
+      final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().build();
+      for (int j = 0; j < 10_000; j++) { sk.update((i * 3000) + j); }
+      final CompactThetaSketch csk = sk.compact();
+      final byte[] bytes = (i % 2) == 0 ? csk.toByteArray() : csk.toByteArrayCompressed();
+      segs.add(MemorySegment.ofArray(bytes));
+      single.union(MemorySegment.ofArray(bytes));
+    }
+    segs.add(null);
+    final ThetaUnion bulk = ThetaSetOperation.builder().buildUnion();
+    bulk.unionAllSegments(segs);
+    assertEquals(bulk.getResult().toByteArray(), single.getResult().toByteArray());
+  }
+
+  @Test
+  public void checkUnionAllEmpty() {
+    final ThetaUnion union = ThetaSetOperation.builder().setP(0.5f).buildUnion();
+    union.unionAll(Arrays.asList(null, UpdatableThetaSketch.builder().build()));
+    assertTrue(union.getResult().isEmpty());
+    final CompactThetaSketch csk = union.unionAll(new ArrayList<ThetaSketch>(), true,
+        MemorySegment.ofArray(new byte[8]));
+    assertTrue(csk.isEmpty());
+    assertEquals(csk.getThetaLong(), Long.MAX_VALUE);
+  }
+
+  @Test(expectedExceptions = SketchesArgumentException.class)
+  public void checkUnionAllSeedMismatch() {
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setSeed(123).build();
+    sk.update(1);
+    ThetaSetOperation.builder().buildUnion().unionAll(Arrays.asList(sk));
+  }
+
   @Test
   public void checkUpdateWithSketch() {
     final int k = 16;
@@ -20,10 +20,12 @@
 package org.apache.datasketches.theta;
 
 import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.datasketches.common.Util.equalContents;
 import static org.apache.datasketches.theta.PreambleUtil.PREAMBLE_LONGS_BYTE;
 import static org.apache.datasketches.theta.PreambleUtil.SER_VER_BYTE;
+import static org.apache.datasketches.theta.PreambleUtil.insertCurCount;
 import static org.apache.datasketches.theta.PreambleUtil.insertLgArrLongs;
 import static org.apache.datasketches.theta.PreambleUtil.insertLgNomLongs;
 import static org.apache.datasketches.theta.PreambleUtil.insertLgResizeFactor;
@@ -34,11 +36,14 @@ import static org.testng.Assert.fail;
 
 import java.lang.foreign.MemorySegment;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesStateException;
 import org.apache.datasketches.common.Util;
+import org.apache.datasketches.hash.MurmurHash3;
 import org.apache.datasketches.thetacommon.ThetaUtil;
 import org.testng.annotations.Test;
 
@@ -47,6 +52,96 @@ import org.testng.annotations.Test;
  */
 public class UpdateSketchTest {
 
+  @Test
+  public void checkUpdateAllMatchesSingleUpdates() {
+    final int n = 10_000;
+    final long[] longs = new long[n];
+    final int[] ints = new int[n];
+    final double[] doubles = new double[n];
+    final String[] strings = new String[n];
+    for (int i = 0; i < n; i++) {
+      longs[i] = i * 31L;
+      ints[i] = -i;
+      doubles[i] = i / 7.0;
+      strings[i] = (i % 100 == 0) ? null : "s" + i;
+    }
+    doubles[1] = -0.0;
+    final MemorySegment col = MemorySegment.ofArray(new byte[n * 12]);
+    for (int i = 0; i < col.byteSize(); i++) { col.set(JAVA_BYTE, i, (byte) (i * 7)); }
+
+    for (final Family family : new Family[] { Family.QUICKSELECT, Family.ALPHA }) {
+      for (final boolean direct : new boolean[] { false, true }) {
+        if (direct && family == Family.ALPHA) { continue; }
+        final UpdatableThetaSketch bulk = buildForUpdateAll(family, direct);
+        final UpdatableThetaSketch single = buildForUpdateAll(family, direct);
+
+        bulk.updateAll(longs, 5, n - 10);
+        for (int i = 5; i < (n - 5); i++) { single.update(longs[i]); }
+        bulk.updateAll(ints, 0, n);
+        for (final int v : ints) { single.update(v); }
+        bulk.updateAll(doubles, 0, n);
+        for (final double v : doubles) { single.update(v); }
+        bulk.updateAll(strings, 0, n);
+        for (final String v : strings) { single.update(v); }
+        bulk.updateAll(col, 3, 12, n - 1);
+        for (int i = 0; i < (n - 1); i++) {
+          single.update(col.asSlice(3 + (i * 12L), 12).toArray(JAVA_BYTE));
+        }
+        bulk.updateAll(col, 0, 8, 100);
+        for (int i = 0; i < 100; i++) {
+          single.update(col.get(JAVA_LONG_UNALIGNED, i * 8L));
+        }
+
+        assertEquals(bulk.getRetainedEntries(true), single.getRetainedEntries(true));
+        assertEquals(bulk.getThetaLong(), single.getThetaLong());
+        assertTrue(equalContents(MemorySegment.ofArray(bulk.compact().toByteArray()),
+            MemorySegment.ofArray(single.compact().toByteArray())));
+      }
+    }
+  }
+
+  @Test
+  public void checkUpdateAllEmptyState() {
+    // p-sampling: every item may be rejected by theta, but the sketch must no longer be empty
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setP(0.0001F).build();
+    sk.updateAll(new long[] { 1, 2, 3 }, 0, 3);
+    assertEquals(sk.isEmpty(), false);
+    assertEquals(sk.getRetainedEntries(true), 0);
+
+    final UpdatableThetaSketch sk2 = UpdatableThetaSketch.builder().build();
+    sk2.updateAll(new String[] { null, "" }, 0, 2);
+    sk2.updateAll(new long[0], 0, 0);
+    assertTrue(sk2.isEmpty());
+    try {
+      sk2.updateAll(new long[4], 2, 3);
+      fail();
+    } catch (final IndexOutOfBoundsException e) { } //OK
+    try {
+      sk2.updateAll(MemorySegment.ofArray(new byte[16]), 0, 0, 1);
+      fail();
+    } catch (final SketchesArgumentException e) { } //OK
+  }
+
+  @Test
+  public void checkUpdateHash() {
+    final long seed = 12345L;
+    final UpdatableThetaSketch hashed = UpdatableThetaSketch.builder().setNominalEntries(512).setSeed(seed).build();
+    final UpdatableThetaSketch raw = UpdatableThetaSketch.builder().setNominalEntries(512).setSeed(seed).build();
+    for (long i = 0; i < 10_000; i++) {
+      final long[] hash = MurmurHash3.hash(i, seed);
+      assertEquals(hashed.updateHash(hash[0], hash[1]), raw.update(i));
+    }
+    assertEquals(hashed.compact().toByteArray(), raw.compact().toByteArray());
+  }
+
+  private static UpdatableThetaSketch buildForUpdateAll(final Family family, final boolean direct) {
+    final UpdatableThetaSketchBuilder bldr = UpdatableThetaSketch.builder().setNominalEntries(512)
+        .setFamily(family).setP(0.5F);
+    return direct
+        ? bldr.build(MemorySegment.ofArray(new byte[ThetaSketch.getMaxUpdateSketchBytes(512)]))
+        : bldr.build();
+  }
+
   @Test
   public void checkOtherUpdates() {
     final int k = 512;
@@ -224,6 +319,75 @@ public class UpdateSketchTest {
     assertTrue(csk3.hasMemorySegment());
   }
 
+  @Test
+  public void checkCompactInto() {
+    final long[] scratch = new long[1 << 12];
+    final MemorySegment dst = MemorySegment.ofArray(new byte[(1 << 15) + 24]);
+    for (final Family family : new Family[] { Family.QUICKSELECT, Family.ALPHA }) {
+      for (final float p : new float[] { 1.0f, 0.5f }) {
+        final UpdatableThetaSketch heap = UpdatableThetaSketch.builder().setFamily(family).setP(p)
+            .setLogNominalEntries(10).build();
+        final UpdatableThetaSketch direct = UpdatableThetaSketch.builder().setP(p).setLogNominalEntries(10)
+            .build(MemorySegment.ofArray(new byte[ThetaSketch.getUpdateSketchMaxBytes(10)]));
+        for (final int n : new int[] { 0, 1, 2, 9, 1000, 100_000 }) {
+          for (int i = (int) heap.getEstimate(); i < n; i++) { heap.update(i); direct.update(i); }
+          for (final UpdatableThetaSketch sk : new UpdatableThetaSketch[] { heap, direct }) {
+            dst.fill((byte) -1); //stale contents of a reused buffer
+            Arrays.fill(scratch, -1L);
+            final CompactThetaSketch csk = sk.compact(true, MemorySegment.ofArray(new byte[sk.getCompactBytes()]));
+            final byte[] expected = csk.toByteArray();
+            final int bytes = sk.compactInto(dst, scratch);
+            assertEquals(bytes, expected.length);
+            assertTrue(bytes <= sk.getCompactBytes());
+            assertEquals(dst.asSlice(0, bytes).toArray(JAVA_BYTE), expected);
+
+            dst.fill((byte) -1);
+            final byte[] expectedCompressed = csk.toByteArrayCompressed();
+            final int compressedBytes = sk.compactCompressedInto(dst, scratch);
+            assertTrue(compressedBytes <= sk.getCompactBytes());
+            assertEquals(dst.asSlice(0, compressedBytes).toArray(JAVA_BYTE), expectedCompressed);
+            assertEquals(CompactThetaSketch.heapify(dst.asSlice(0, compressedBytes)).getEstimate(), csk.getEstimate());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkCompactIntoBadArguments() {
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().build();
+    for (int i = 0; i < 100; i++) { sk.update(i); }
+    try {
+      sk.compactInto(MemorySegment.ofArray(new byte[sk.getCompactBytes()]), new long[99]);
+      fail();
+    } catch (final SketchesArgumentException e) { } //expected
+    try {
+      sk.compactInto(MemorySegment.ofArray(new byte[sk.getCompactBytes() - 1]), new long[100]);
+      fail();
+    } catch (final SketchesArgumentException e) { } //expected
+    try {
+      sk.compactCompressedInto(MemorySegment.ofArray(new byte[16]), new long[100]);
+      fail();
+    } catch (final SketchesArgumentException e) { } //expected
+  }
+
+  @Test
+  public void checkCompactIntoRetainedEntriesOneShort() {
+    final MemorySegment wseg = MemorySegment.ofArray(new byte[ThetaSketch.getUpdateSketchMaxBytes(10)]);
+    final UpdatableThetaSketch sk = UpdatableThetaSketch.builder().setLogNominalEntries(10).build(wseg);
+    for (int i = 0; i < 100; i++) { sk.update(i); }
+    insertCurCount(wseg, 99); //one less than the entries in the hash table
+    final MemorySegment dst = MemorySegment.ofArray(new byte[sk.getCompactBytes() + 8]);
+    try {
+      sk.compactInto(dst, new long[100]);
+      fail();
+    } catch (final SketchesStateException e) { } //expected
+    try {
+      sk.compactCompressedInto(dst, new long[100]);
+      fail();
+    } catch (final SketchesStateException e) { } //expected
+  }
+
   @Test
   public void printlnTest() {
     println("PRINTING: "+this.getClass().getName());
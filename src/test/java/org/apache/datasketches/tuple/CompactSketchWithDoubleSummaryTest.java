@@ -19,13 +19,20 @@
 
 package org.apache.datasketches.tuple;
 
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.lang.foreign.MemorySegment;
 
+import org.apache.datasketches.common.Family;
 import org.apache.datasketches.common.SketchesArgumentException;
 import org.apache.datasketches.tuple.adouble.DoubleSummary;
 import org.apache.datasketches.tuple.adouble.DoubleSummary.Mode;
 import org.apache.datasketches.tuple.adouble.DoubleSummaryDeserializer;
 import org.apache.datasketches.tuple.adouble.DoubleSummaryFactory;
+import org.apache.datasketches.tuple.adouble.DoubleSummarySetOperations;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -186,4 +193,182 @@ public class CompactSketchWithDoubleSummaryTest {
         new DoubleSummaryFactory(mode));
   }
 
+  //counts the deserialized summaries
+  private static class CountingDeserializer extends DoubleSummaryDeserializer {
+    int count = 0;
+
+    @Override
+    public DeserializeResult<DoubleSummary> heapifySummary(final MemorySegment seg) {
+      count++;
+      return super.heapifySummary(seg);
+    }
+  }
+
+  //counts the deserialized summaries and, like the default, finds the size of a summary by deserializing it
+  private static class DefaultSizeCountingDeserializer extends CountingDeserializer {
+    @Override
+    public int getSummarySizeBytes(final MemorySegment seg) {
+      return heapifySummary(seg).getSize();
+    }
+  }
+
+  private static CompactTupleSketch<DoubleSummary> newCompactSketch(final int n, final int offset) {
+    final UpdatableTupleSketch<Double, DoubleSummary> us =
+        new UpdatableTupleSketchBuilder<>(new DoubleSummaryFactory(Mode.Sum)).build();
+    for (int i = 0; i < n; i++) {
+      us.update(i + offset, 1.0 + i);
+    }
+    return us.compact();
+  }
+
+  @Test
+  public void wrapSameAsHeapify() {
+    for (final int n : new int[] { 0, 1, 100, 10_000 }) {
+      final byte[] bytes = newCompactSketch(n, 0).toByteArray();
+      final CountingDeserializer deserializer = new CountingDeserializer();
+      final CompactTupleSketch<DoubleSummary> wrapped =
+          CompactTupleSketch.wrap(MemorySegment.ofArray(bytes), deserializer);
+      final TupleSketch<DoubleSummary> heapified =
+          TupleSketch.heapifySketch(MemorySegment.ofArray(bytes), new DoubleSummaryDeserializer());
+      Assert.assertEquals(wrapped.isEmpty(), heapified.isEmpty());
+      Assert.assertEquals(wrapped.getRetainedEntries(), heapified.getRetainedEntries());
+      Assert.assertEquals(wrapped.getThetaLong(), heapified.getThetaLong());
+      Assert.assertEquals(wrapped.getEstimate(), heapified.getEstimate());
+      Assert.assertEquals(wrapped.getLowerBound(2), heapified.getLowerBound(2));
+      Assert.assertEquals(wrapped.getUpperBound(2), heapified.getUpperBound(2));
+      Assert.assertEquals(wrapped.getCountLessThanThetaLong(Long.MAX_VALUE / 3),
+          heapified.getCountLessThanThetaLong(Long.MAX_VALUE / 3));
+      Assert.assertEquals(wrapped.toByteArray(), bytes);
+      Assert.assertEquals(deserializer.count, 0);
+
+      final TupleSketchIterator<DoubleSummary> wrappedIt = wrapped.iterator();
+      final TupleSketchIterator<DoubleSummary> heapifiedIt = heapified.iterator();
+      int i = 0;
+      while (heapifiedIt.next()) {
+        Assert.assertTrue(wrappedIt.next());
+        Assert.assertEquals(wrappedIt.getHash(), heapifiedIt.getHash());
+        if ((i++ % 2) == 0) {
+          Assert.assertEquals(wrappedIt.getSummary().getValue(), heapifiedIt.getSummary().getValue());
+        }
+      }
+      Assert.assertFalse(wrappedIt.next());
+      Assert.assertFalse(wrappedIt.next());
+      Assert.assertEquals(deserializer.count, (heapified.getRetainedEntries() + 1) / 2);
+    }
+  }
+
+  @Test
+  public void wrapDeserializesOnlyNeededSummaries() {
+    final CompactTupleSketch<DoubleSummary> sketchA = newCompactSketch(10_000, 0);
+    final CompactTupleSketch<DoubleSummary> sketchB = newCompactSketch(10_000, 9_000);
+    final CountingDeserializer deserializerA = new CountingDeserializer();
+    final CountingDeserializer deserializerB = new CountingDeserializer();
+    final CompactTupleSketch<DoubleSummary> wrappedA =
+        CompactTupleSketch.wrap(MemorySegment.ofArray(sketchA.toByteArray()), deserializerA);
+    final CompactTupleSketch<DoubleSummary> wrappedB =
+        CompactTupleSketch.wrap(MemorySegment.ofArray(sketchB.toByteArray()), deserializerB);
+
+    Assert.assertEquals(TupleAnotB.aNotB(wrappedA, wrappedB).toByteArray(),
+        TupleAnotB.aNotB(sketchA, sketchB).toByteArray());
+    Assert.assertEquals(deserializerA.count, wrappedA.getRetainedEntries());
+    Assert.assertEquals(deserializerB.count, 0);
+
+    final DefaultSizeCountingDeserializer defaultSize = new DefaultSizeCountingDeserializer();
+    final CompactTupleSketch<DoubleSummary> wrappedDefaultSize =
+        CompactTupleSketch.wrap(MemorySegment.ofArray(sketchA.toByteArray()), defaultSize);
+    Assert.assertEquals(TupleAnotB.aNotB(wrappedDefaultSize, sketchB).toByteArray(),
+        TupleAnotB.aNotB(sketchA, sketchB).toByteArray());
+    Assert.assertEquals(defaultSize.count, wrappedDefaultSize.getRetainedEntries()); //each summary once
+
+    deserializerA.count = 0;
+    final DoubleSummarySetOperations setOps = new DoubleSummarySetOperations(Mode.Sum);
+    final TupleIntersection<DoubleSummary> inter = new TupleIntersection<>(setOps);
+    final CompactTupleSketch<DoubleSummary> expected = inter.intersect(sketchA, sketchB);
+    Assert.assertEquals(inter.intersect(sketchA, wrappedB).toByteArray(), expected.toByteArray());
+    Assert.assertEquals(deserializerB.count, expected.getRetainedEntries());
+
+    final TupleUnion<DoubleSummary> union = new TupleUnion<>(setOps);
+    Assert.assertEquals(union.union(wrappedA, wrappedB).toByteArray(),
+        union.union(sketchA, sketchB).toByteArray());
+
+    final Filter<DoubleSummary> filter = new Filter<>(summary -> summary.getValue() > 100.0);
+    Assert.assertEquals(filter.filter(wrappedA).toByteArray(), filter.filter(sketchA).toByteArray());
+  }
+
+  @Test
+  public void wrapLegacyVersionsHeapify() {
+    for (final int n : new int[] { 0, 10, 10_000 }) {
+      final CompactTupleSketch<DoubleSummary> expected = newCompactSketch(n, 0);
+      for (final byte version : new byte[] { 1, 2 }) {
+        final CountingDeserializer deserializer = new CountingDeserializer();
+        final CompactTupleSketch<DoubleSummary> sketch =
+            CompactTupleSketch.wrap(MemorySegment.ofArray(toLegacyByteArray(expected, version)), deserializer);
+        Assert.assertFalse(sketch.isWrapped());
+        Assert.assertEquals(deserializer.count, expected.getRetainedEntries());
+        Assert.assertEquals(sketch.isEmpty(), n == 0);
+        Assert.assertEquals(sketch.getThetaLong(), expected.getThetaLong());
+        Assert.assertEquals(sketch.getRetainedEntries(), expected.getRetainedEntries());
+        Assert.assertEquals(sketch.toByteArray(), expected.toByteArray());
+      }
+    }
+  }
+
+  @Test
+  public void wrapUnsupportedVersion() {
+    final byte[] bytes = newCompactSketch(10, 0).toByteArray();
+    bytes[1] = 4; //unsupported serial version
+    try {
+      CompactTupleSketch.wrap(MemorySegment.ofArray(bytes), new DoubleSummaryDeserializer());
+      Assert.fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+  }
+
+  //serial versions 1 and 2 put all the hashes before all the summaries, version 1 also has the class name
+  private static byte[] toLegacyByteArray(final CompactTupleSketch<DoubleSummary> sketch, final byte version) {
+    final byte[] className = DoubleSummary.class.getName().getBytes(UTF_8);
+    final int count = sketch.getRetainedEntries();
+    final boolean hasEntries = count > 0;
+    final boolean isThetaIncluded = sketch.getThetaLong() < Long.MAX_VALUE;
+    int summariesSizeBytes = 0;
+    TupleSketchIterator<DoubleSummary> it = sketch.iterator();
+    while (it.next()) { summariesSizeBytes += it.getSummary().toByteArray().length; }
+    final int sizeBytes = 5 + (isThetaIncluded ? Long.BYTES : 0) + (hasEntries
+        ? (version == 1 ? 1 + className.length : 0) + Integer.BYTES + (count * Long.BYTES) + summariesSizeBytes
+        : 0);
+    final MemorySegment seg = MemorySegment.ofArray(new byte[sizeBytes]);
+    long offset = 0;
+    seg.set(JAVA_BYTE, offset++, (byte) 1);
+    seg.set(JAVA_BYTE, offset++, version);
+    seg.set(JAVA_BYTE, offset++, (byte) Family.TUPLE.getID());
+    seg.set(JAVA_BYTE, offset++, (byte) SerializerDeserializer.SketchType.CompactTupleSketch.ordinal());
+    seg.set(JAVA_BYTE, offset++, (byte) ((sketch.isEmpty() ? 1 << 1 : 0) | (hasEntries ? 1 << 2 : 0)
+        | (isThetaIncluded ? 1 << 3 : 0)));
+    if (isThetaIncluded) {
+      seg.set(JAVA_LONG_UNALIGNED, offset, sketch.getThetaLong());
+      offset += Long.BYTES;
+    }
+    if (!hasEntries) { return seg.toArray(JAVA_BYTE); }
+    if (version == 1) { seg.set(JAVA_BYTE, offset++, (byte) className.length); }
+    seg.set(JAVA_INT_UNALIGNED, offset, count);
+    offset += Integer.BYTES;
+    if (version == 1) {
+      MemorySegment.copy(className, 0, seg, JAVA_BYTE, offset, className.length);
+      offset += className.length;
+    }
+    it = sketch.iterator();
+    while (it.next()) {
+      seg.set(JAVA_LONG_UNALIGNED, offset, it.getHash());
+      offset += Long.BYTES;
+    }
+    it = sketch.iterator();
+    while (it.next()) {
+      final byte[] summaryBytes = it.getSummary().toByteArray();
+      MemorySegment.copy(summaryBytes, 0, seg, JAVA_BYTE, offset, summaryBytes.length);
+      offset += summaryBytes.length;
+    }
+    return seg.toArray(JAVA_BYTE);
+  }
+
 }
@@ -26,6 +26,8 @@ import java.nio.ByteBuffer;
 
 import org.apache.datasketches.common.ResizeFactor;
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.Util;
+import org.apache.datasketches.hash.MurmurHash3;
 import org.apache.datasketches.tuple.TupleSketch;
 import org.apache.datasketches.tuple.TupleSketchIterator;
 import org.apache.datasketches.tuple.UpdatableTupleSketch;
@@ -417,4 +419,18 @@ public class AdoubleTest {
       (new DoubleSummaryFactory(mode)).setSamplingProbability(2f).build();
   }
 
+  @Test
+  public void checkUpdateHash() {
+    final DoubleTupleSketch hashed = new DoubleTupleSketch(10, mode);
+    final DoubleTupleSketch raw = new DoubleTupleSketch(10, mode);
+    hashed.updateHash(0L, 0L, 1.0); //ignored
+    Assert.assertTrue(hashed.isEmpty());
+    for (long i = 0; i < 10_000; i++) {
+      final long[] hash = MurmurHash3.hash(new long[] { i }, Util.DEFAULT_UPDATE_SEED);
+      hashed.updateHash(hash[0], hash[1], 1.0);
+      raw.update(i, 1.0);
+    }
+    Assert.assertEquals(hashed.compact().toByteArray(), raw.compact().toByteArray());
+  }
+
 }
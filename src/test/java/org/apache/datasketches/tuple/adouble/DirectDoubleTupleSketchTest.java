@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.adouble;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
+import org.apache.datasketches.tuple.CompactTupleSketch;
+import org.apache.datasketches.tuple.DirectCompactTupleSketch;
+import org.apache.datasketches.tuple.DirectTupleSketch;
+import org.apache.datasketches.tuple.DirectTupleUnion;
+import org.apache.datasketches.tuple.TupleAnotB;
+import org.apache.datasketches.tuple.TupleIntersection;
+import org.apache.datasketches.tuple.TupleSketch;
+import org.apache.datasketches.tuple.TupleSketchIterator;
+import org.apache.datasketches.tuple.TupleUnion;
+import org.apache.datasketches.tuple.adouble.DoubleSummary.Mode;
+import org.testng.annotations.Test;
+
+public class DirectDoubleTupleSketchTest {
+
+  private static DirectTupleSketch<Double, DoubleSummary> newSketch(final int lgK, final Mode mode) {
+    return DirectTupleSketch.create(1 << lgK, new DoubleFixedWidthSummary(mode),
+        MemorySegment.ofArray(new byte[(int) DirectTupleSketch.getMaxBytes(1 << lgK, Double.BYTES)]));
+  }
+
+  private static void updateBoth(final DirectTupleSketch<Double, DoubleSummary> direct,
+      final DoubleTupleSketch generic, final int n, final int offset) {
+    for (int i = 0; i < n; i++) {
+      final long key = offset + (i % (n / 2 + 1)); //repeated keys
+      final double value = (i % 7) - 3.0;
+      direct.update(key, value);
+      generic.update(key, value);
+    }
+  }
+
+  //the entries of a direct sketch need not be in the same order as those of the generic sketch
+  private static Map<Long, Double> toMap(final TupleSketch<DoubleSummary> sketch) {
+    final Map<Long, Double> map = new TreeMap<>();
+    final TupleSketchIterator<DoubleSummary> it = sketch.iterator();
+    while (it.next()) { map.put(it.getHash(), it.getSummary().getValue()); }
+    return map;
+  }
+
+  private static void assertSameEntries(final TupleSketch<DoubleSummary> actual,
+      final TupleSketch<DoubleSummary> expected) {
+    assertEquals(actual.isEmpty(), expected.isEmpty());
+    assertEquals(actual.getThetaLong(), expected.getThetaLong());
+    assertEquals(actual.getRetainedEntries(), expected.getRetainedEntries());
+    assertEquals(actual.getEstimate(), expected.getEstimate());
+    assertEquals(toMap(actual), toMap(expected));
+  }
+
+  @Test
+  public void checkSameAsDoubleTupleSketch() {
+    for (final Mode mode : Mode.values()) {
+      for (final float p : new float[] { 1.0f, 0.5f }) {
+        for (final int lgRf : new int[] { 0, 1, 3 }) { //every resize and theta rebuild is in place
+          for (final int n : new int[] { 0, 1, 10, 100_000 }) {
+            final DirectTupleSketch<Double, DoubleSummary> direct = DirectTupleSketch.create(1 << 10, lgRf, p,
+                new DoubleFixedWidthSummary(mode),
+                MemorySegment.ofArray(new byte[(int) DirectTupleSketch.getMaxBytes(1 << 10, Double.BYTES)]));
+            final DoubleTupleSketch generic = new DoubleTupleSketch(10, lgRf, p, mode);
+            updateBoth(direct, generic, n, 0);
+            assertEquals(direct.isEmpty(), generic.isEmpty());
+            assertEquals(direct.getThetaLong(), generic.getThetaLong());
+            assertEquals(direct.getRetainedEntries(), generic.getRetainedEntries());
+            assertEquals(direct.getCurrentCapacity(), generic.getCurrentCapacity());
+            assertSameEntries(direct.compact(), generic.compact());
+            direct.trim();
+            generic.trim();
+            assertSameEntries(direct.compact(), generic.compact());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkMaxBytesDoNotOverflow() {
+    assertEquals(DirectTupleSketch.getMaxBytes(1 << 26, Double.BYTES), 32 + (16L << 27));
+    assertEquals(DirectTupleSketch.getMaxBytes(1 << 26, Short.MAX_VALUE), 32 + ((8L + Short.MAX_VALUE) << 27));
+    assertEquals(DirectTupleUnion.getMaxBytes(1 << 26, Double.BYTES), 48 + (16L << 27));
+    assertEquals(DirectCompactTupleSketch.getMaxBytes(1 << 26, Short.MAX_VALUE), 24 + ((8L + Short.MAX_VALUE) << 26));
+  }
+
+  @Test
+  public void checkKeyTypesAndIterator() {
+    final DirectTupleSketch<Double, DoubleSummary> direct = newSketch(12, Mode.Sum);
+    final DoubleTupleSketch generic = new DoubleTupleSketch(12, Mode.Sum);
+    direct.update(1.5, 1.0);
+    generic.update(1.5, 1.0);
+    direct.update("a", 2.0);
+    generic.update("a", 2.0);
+    direct.update(new byte[] { 1, 2 }, 3.0);
+    generic.update(new byte[] { 1, 2 }, 3.0);
+    direct.update(new int[] { 1, 2 }, 4.0);
+    generic.update(new int[] { 1, 2 }, 4.0);
+    direct.update(new long[] { 1, 2 }, 5.0);
+    generic.update(new long[] { 1, 2 }, 5.0);
+    direct.update((String) null, 1.0);
+    direct.update("", 1.0);
+    direct.update((long[]) null, 1.0);
+    assertEquals(direct.getRetainedEntries(), 5);
+    assertEquals(direct.compact().toByteArray(), generic.compact().toByteArray());
+    assertTrue(direct.toString().contains("Nominal Entries"));
+
+    final TupleSketchIterator<DoubleSummary> it = direct.iterator();
+    int count = 0;
+    double sum = 0;
+    while (it.next()) {
+      assertTrue(it.getHash() > 0);
+      sum += it.getSummary().getValue();
+      count++;
+    }
+    assertEquals(count, 5);
+    assertEquals(sum, 15.0);
+  }
+
+  @Test
+  public void checkWrapAndCompact() {
+    final DirectTupleSketch<Double, DoubleSummary> direct = newSketch(10, Mode.Max);
+    final DoubleTupleSketch generic = new DoubleTupleSketch(10, Mode.Max);
+    updateBoth(direct, generic, 5_000, 0);
+
+    final DoubleFixedWidthSummary fws = new DoubleFixedWidthSummary(Mode.Max);
+    final MemorySegment image = MemorySegment.ofArray(new byte[(int) DirectTupleSketch.getMaxBytes(1 << 10,
+        Double.BYTES)]);
+    MemorySegment.copy(MemorySegment.ofArray(direct.toByteArray()), 0, image, 0, direct.toByteArray().length);
+    final DirectTupleSketch<Double, DoubleSummary> wrapped = DirectTupleSketch.writableWrap(image, fws);
+    assertEquals(wrapped.getRetainedEntries(), direct.getRetainedEntries());
+    for (int i = 0; i < 50_000; i++) {
+      wrapped.update(i, 1.0);
+      generic.update(i, 1.0);
+    }
+    assertSameEntries(wrapped, generic);
+
+    final DirectTupleSketch<Double, DoubleSummary> readOnly = DirectTupleSketch.wrap(image, fws);
+    assertTrue(readOnly.isReadOnly());
+    assertEquals(readOnly.getEstimate(), wrapped.getEstimate());
+    try {
+      readOnly.update(1, 1.0);
+      fail();
+    } catch (final SketchesReadOnlyException e) {
+      // expected
+    }
+
+    final DirectCompactTupleSketch<DoubleSummary> compact =
+        wrapped.compact(MemorySegment.ofArray(new byte[(int) wrapped.getCompactBytes()]));
+    assertEquals(compact.getRetainedEntries(), wrapped.getRetainedEntries());
+    assertEquals(compact.getThetaLong(), wrapped.getThetaLong());
+    assertSameEntries(compact, generic);
+    final DirectCompactTupleSketch<DoubleSummary> compactWrapped =
+        DirectCompactTupleSketch.wrap(MemorySegment.ofArray(compact.toByteArray()), fws);
+    assertSameEntries(compactWrapped, generic);
+    assertEquals(compactWrapped.getCountLessThanThetaLong(wrapped.getThetaLong() / 2),
+        wrapped.getCountLessThanThetaLong(wrapped.getThetaLong() / 2));
+  }
+
+  @Test
+  public void checkEmptyAndReset() {
+    final DirectTupleSketch<Double, DoubleSummary> direct = DirectTupleSketch.create(1 << 10, 3, 0.5f,
+        new DoubleFixedWidthSummary(Mode.Min),
+        MemorySegment.ofArray(new byte[(int) DirectTupleSketch.getMaxBytes(1 << 10, Double.BYTES)]));
+    final DirectCompactTupleSketch<DoubleSummary> empty =
+        direct.compact(MemorySegment.ofArray(new byte[(int) direct.getCompactBytes()]));
+    assertTrue(empty.isEmpty());
+    assertEquals(empty.getThetaLong(), Long.MAX_VALUE);
+    assertTrue(empty.compact().isEmpty());
+    for (int i = 0; i < 10_000; i++) { direct.update(i, 1.0); }
+    assertTrue(direct.isEstimationMode());
+    direct.reset();
+    assertTrue(direct.isEmpty());
+    assertFalse(direct.isEstimationMode());
+    assertEquals(direct.getRetainedEntries(), 0);
+    assertEquals(direct.getSamplingProbability(), 0.5f);
+    assertEquals(direct.getLgK(), 10);
+    assertTrue(direct.compact().isEmpty());
+  }
+
+  @Test
+  public void checkUnionSameAsTupleUnion() {
+    for (final Mode mode : Mode.values()) {
+      final DoubleFixedWidthSummary fws = new DoubleFixedWidthSummary(mode);
+      final DirectTupleSketch<Double, DoubleSummary> directA = newSketch(12, mode);
+      final DoubleTupleSketch genericA = new DoubleTupleSketch(12, mode);
+      updateBoth(directA, genericA, 20_000, 0);
+      final DirectTupleSketch<Double, DoubleSummary> directB = newSketch(11, mode);
+      final DoubleTupleSketch genericB = new DoubleTupleSketch(11, mode);
+      updateBoth(directB, genericB, 20_000, 5_000);
+      final DoubleTupleSketch genericC = new DoubleTupleSketch(12, mode);
+      for (int i = 0; i < 1_000; i++) { genericC.update(i * 3, 2.0); }
+
+      final TupleUnion<DoubleSummary> union = new TupleUnion<>(1 << 10, new DoubleSummarySetOperations(mode));
+      union.union(genericA);
+      union.union(genericB.compact());
+      union.union(genericC);
+      final CompactTupleSketch<DoubleSummary> expected = union.getResult();
+
+      try (Arena arena = Arena.ofConfined()) {
+        final MemorySegment unionSeg = arena.allocate(DirectTupleUnion.getMaxBytes(1 << 10, Double.BYTES));
+        final DirectTupleUnion<DoubleSummary> directUnion = DirectTupleUnion.create(1 << 10, fws, unionSeg);
+        directUnion.union(directA);
+        final DirectCompactTupleSketch<DoubleSummary> compactB =
+            directB.compact(arena.allocate(directB.getCompactBytes()));
+        final DirectTupleUnion<DoubleSummary> rewrapped = DirectTupleUnion.writableWrap(unionSeg, fws);
+        rewrapped.union(compactB);
+        rewrapped.union(genericC);
+        assertSameEntries(rewrapped.getResult(), expected);
+        final CompactTupleSketch<DoubleSummary> heapResult = rewrapped.getResult();
+        final DirectCompactTupleSketch<DoubleSummary> result =
+            rewrapped.getResult(arena.allocate(DirectCompactTupleSketch.getMaxBytes(1 << 10, Double.BYTES)));
+        assertEquals(result.getRetainedEntries(), heapResult.getRetainedEntries());
+        assertEquals(result.getThetaLong(), heapResult.getThetaLong());
+        assertSameEntries(result, expected);
+        rewrapped.reset();
+        assertTrue(rewrapped.getResult().isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void checkSetOperations() {
+    final DoubleSummarySetOperations setOps = new DoubleSummarySetOperations(Mode.Sum);
+    final DirectTupleSketch<Double, DoubleSummary> directA = newSketch(10, Mode.Sum);
+    final DoubleTupleSketch genericA = new DoubleTupleSketch(10, Mode.Sum);
+    updateBoth(directA, genericA, 20_000, 0);
+    final DirectTupleSketch<Double, DoubleSummary> directB = newSketch(10, Mode.Sum);
+    final DoubleTupleSketch genericB = new DoubleTupleSketch(10, Mode.Sum);
+    updateBoth(directB, genericB, 20_000, 5_000);
+
+    final TupleUnion<DoubleSummary> union = new TupleUnion<>(1 << 10, setOps);
+    assertSameEntries(union.union(directA, directB), union.union(genericA, genericB));
+
+    final TupleIntersection<DoubleSummary> inter = new TupleIntersection<>(setOps);
+    assertSameEntries(inter.intersect(directA, directB), inter.intersect(genericA, genericB));
+
+    assertSameEntries(TupleAnotB.aNotB(directA, directB), TupleAnotB.aNotB(genericA, genericB));
+  }
+
+  @Test
+  public void checkBadMemorySegments() {
+    final DoubleFixedWidthSummary fws = new DoubleFixedWidthSummary(Mode.Sum);
+    try {
+      DirectTupleSketch.create(1 << 10, 0, 1f, fws, MemorySegment.ofArray(new byte[1000]));
+      fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+    final DirectTupleSketch<Double, DoubleSummary> direct = newSketch(10, Mode.Sum);
+    final byte[] bytes = direct.toByteArray();
+    try {
+      DirectCompactTupleSketch.wrap(MemorySegment.ofArray(bytes), fws);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+    try {
+      DirectTupleSketch.writableWrap(MemorySegment.ofArray(bytes).asReadOnly(), fws);
+      fail();
+    } catch (final SketchesReadOnlyException e) {
+      // expected
+    }
+    bytes[6] = 4; //summary bytes
+    try {
+      DirectTupleSketch.wrap(MemorySegment.ofArray(bytes), fws);
+      fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.adouble;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.tuple.CompactTupleSketch;
+import org.apache.datasketches.tuple.TupleSketch;
+import org.apache.datasketches.tuple.TupleSketchGroupBy;
+import org.apache.datasketches.tuple.TupleSketchIterator;
+import org.apache.datasketches.tuple.TupleUnion;
+import org.apache.datasketches.tuple.UpdatableTupleSketch;
+import org.apache.datasketches.tuple.adouble.DoubleSummary.Mode;
+import org.testng.annotations.Test;
+
+public class DoubleTupleSketchGroupByTest {
+  private static final int K = 64;
+  private final DoubleSummaryFactory factory = new DoubleSummaryFactory(Mode.Sum);
+  private final DoubleSummarySetOperations setOps = new DoubleSummarySetOperations(Mode.Sum);
+
+  private static Map<Long, Double> toMap(final TupleSketch<DoubleSummary> sketch) {
+    final Map<Long, Double> map = new TreeMap<>();
+    final TupleSketchIterator<DoubleSummary> it = sketch.iterator();
+    while (it.next()) { map.put(it.getHash(), it.getSummary().getValue()); }
+    return map;
+  }
+
+  private static void assertSame(final TupleSketch<DoubleSummary> actual, final TupleSketch<DoubleSummary> expected) {
+    assertEquals(actual.isEmpty(), expected.isEmpty());
+    assertEquals(actual.getThetaLong(), expected.getThetaLong());
+    assertEquals(actual.getRetainedEntries(), expected.getRetainedEntries());
+    assertEquals(actual.getEstimate(), expected.getEstimate());
+    assertEquals(toMap(actual), toMap(expected));
+  }
+
+  //group g gets about 1000 / (g + 1) distinct keys, so only the first groups are promoted
+  private void updateBoth(final TupleSketchGroupBy<String, Double, DoubleSummary> groupBy,
+      final Map<String, UpdatableTupleSketch<Double, DoubleSummary>> sketches, final int numGroups,
+      final int offset) {
+    for (int g = 0; g < numGroups; g++) {
+      final String key = "group" + g;
+      final int n = 1 + (1000 / (g + 1));
+      for (int i = 0; i < (2 * n); i++) {
+        final long hashKey = offset + (i % n); //each key twice
+        groupBy.update(key, hashKey, 1.0);
+        sketches.computeIfAbsent(key, k -> new UpdatableTupleSketch<>(K, 3, 1f, factory)).update(hashKey, 1.0);
+      }
+    }
+  }
+
+  private long firstHash(final long key) {
+    final UpdatableTupleSketch<Double, DoubleSummary> sketch = new UpdatableTupleSketch<>(K, 3, 1f, factory);
+    sketch.update(key, 1.0);
+    return toMap(sketch).keySet().iterator().next();
+  }
+
+  @Test
+  public void sameAsSketchPerGroup() {
+    final TupleSketchGroupBy<String, Double, DoubleSummary> groupBy = new TupleSketchGroupBy<>(K, factory);
+    final Map<String, UpdatableTupleSketch<Double, DoubleSummary>> sketches = new HashMap<>();
+    updateBoth(groupBy, sketches, 500, 0);
+    assertEquals(groupBy.getNumGroups(), 500);
+    int heavy = 0;
+    for (final Map.Entry<String, UpdatableTupleSketch<Double, DoubleSummary>> e : sketches.entrySet()) {
+      assertSame(groupBy.getResult(e.getKey()), e.getValue());
+      assertEquals(groupBy.getEstimate(e.getKey()), e.getValue().getEstimate());
+      if (e.getValue().getRetainedEntries() > groupBy.getExactCapacity() || e.getValue().isEstimationMode()) {
+        heavy++;
+      }
+    }
+    assertEquals(groupBy.getNumPromotedGroups(), heavy);
+    assertTrue(heavy < 200);
+    assertEquals(groupBy.getKeys().get(0), "group0");
+    assertTrue(groupBy.getResult("none").isEmpty());
+    assertEquals(groupBy.getEstimate("none"), 0.0);
+  }
+
+  @Test
+  public void updateAllSameAsUpdate() {
+    final TupleSketchGroupBy<String, Double, DoubleSummary> single = new TupleSketchGroupBy<>(K, 4, factory);
+    final TupleSketchGroupBy<String, Double, DoubleSummary> batch = new TupleSketchGroupBy<>(K, 4, factory);
+    final int n = 5000;
+    final String[] keys = new String[n];
+    final long[] hashKeys = new long[n];
+    final Double[] values = new Double[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = (i % 3) == 0 ? null : "group" + (i % 37);
+      hashKeys[i] = i % 1000;
+      values[i] = (double) (i % 5);
+      single.update(keys[i], hashKeys[i], values[i]);
+    }
+    batch.updateAll(keys, hashKeys, values, 0, 2000);
+    batch.updateAll(keys, hashKeys, values, 2000, n - 2000);
+    assertEquals(batch.getKeys(), single.getKeys());
+    for (final String key : single.getKeys()) {
+      assertSame(batch.getResult(key), single.getResult(key));
+    }
+  }
+
+  @Test
+  public void unionAllGroupsSameAsUnion() {
+    final TupleSketchGroupBy<String, Double, DoubleSummary> groupBy = new TupleSketchGroupBy<>(K, factory);
+    final Map<String, UpdatableTupleSketch<Double, DoubleSummary>> sketches = new HashMap<>();
+    updateBoth(groupBy, sketches, 300, 0);
+    final TupleUnion<DoubleSummary> union = new TupleUnion<>(K, setOps);
+    for (final String key : groupBy.getKeys()) { union.union(sketches.get(key)); }
+    assertSame(groupBy.unionAllGroups(setOps), union.getResult());
+  }
+
+  @Test
+  public void mergeSameAsUnionPerGroup() {
+    final TupleSketchGroupBy<String, Double, DoubleSummary> groupByA = new TupleSketchGroupBy<>(K, factory);
+    final TupleSketchGroupBy<String, Double, DoubleSummary> groupByB = new TupleSketchGroupBy<>(K, factory);
+    final Map<String, UpdatableTupleSketch<Double, DoubleSummary>> sketchesA = new HashMap<>();
+    final Map<String, UpdatableTupleSketch<Double, DoubleSummary>> sketchesB = new HashMap<>();
+    updateBoth(groupByA, sketchesA, 200, 0);
+    updateBoth(groupByB, sketchesB, 300, 3); //overlapping groups and keys
+    final Map<String, Map<Long, Double>> before = new HashMap<>();
+    for (final String key : groupByB.getKeys()) {
+      before.put(key, toMap(groupByB.getResult(key)));
+    }
+    groupByA.merge(groupByB, setOps);
+    assertEquals(groupByA.getNumGroups(), 300);
+    assertEquals(groupByB.getNumGroups(), 300);
+    for (final String key : groupByB.getKeys()) {
+      assertEquals(toMap(groupByB.getResult(key)), before.get(key)); //not modified
+      final TupleUnion<DoubleSummary> union = new TupleUnion<>(K, setOps);
+      union.union(sketchesA.get(key));
+      union.union(sketchesB.get(key));
+      final CompactTupleSketch<DoubleSummary> expected = union.getResult();
+      final CompactTupleSketch<DoubleSummary> merged = groupByA.getResult(key);
+      //the merged sketch may retain more than K entries until its next rebuild, the union result does not
+      final Map<Long, Double> mergedMap = toMap(merged);
+      mergedMap.keySet().removeIf(hash -> hash >= expected.getThetaLong());
+      assertEquals(mergedMap, toMap(expected));
+      assertTrue(merged.getThetaLong() >= expected.getThetaLong());
+    }
+    //merged groups keep accepting updates, both a promoted and an exact one
+    assertTrue(groupByA.getNumPromotedGroups() > 0);
+    final long theta = groupByA.getResult("group0").getThetaLong();
+    long newKey = -1;
+    long hash;
+    while ((hash = firstHash(newKey)) >= theta) { newKey--; } //a new key that group0 retains
+    groupByA.update("group0", newKey, 1.0);
+    groupByA.update("group0", newKey, 1.0);
+    assertEquals(toMap(groupByA.getResult("group0")).get(hash), 2.0);
+    final double light = groupByA.getEstimate("group299");
+    assertEquals(light, groupByB.getEstimate("group299"));
+    groupByA.update("group299", -1L, 1.0);
+    assertEquals(groupByA.getEstimate("group299"), light + 1);
+    assertEquals(groupByB.getEstimate("group299"), light);
+  }
+
+  @Test
+  public void mergedGroupLargerThanKVersusUnion() {
+    final TupleSketchGroupBy<String, Double, DoubleSummary> groupByA = new TupleSketchGroupBy<>(K, factory);
+    final TupleSketchGroupBy<String, Double, DoubleSummary> groupByB = new TupleSketchGroupBy<>(K, factory);
+    final UpdatableTupleSketch<Double, DoubleSummary> sketchA = new UpdatableTupleSketch<>(K, 3, 1f, factory);
+    final UpdatableTupleSketch<Double, DoubleSummary> sketchB = new UpdatableTupleSketch<>(K, 3, 1f, factory);
+    for (int i = 0; i < 20 * K; i++) {
+      groupByA.update("g", i, 1.0);
+      sketchA.update(i, 1.0);
+      groupByB.update("g", i + (10 * K), 1.0); //half of the keys overlap
+      sketchB.update(i + (10 * K), 1.0);
+    }
+    groupByA.merge(groupByB, setOps);
+    final TupleUnion<DoubleSummary> union = new TupleUnion<>(K, setOps);
+    union.union(sketchA);
+    union.union(sketchB);
+    final CompactTupleSketch<DoubleSummary> expected = union.getResult();
+    final CompactTupleSketch<DoubleSummary> merged = groupByA.getResult("g");
+    assertEquals(expected.getRetainedEntries(), K);
+    assertTrue(merged.getRetainedEntries() >= expected.getRetainedEntries());
+    assertTrue(merged.getThetaLong() >= expected.getThetaLong());
+    assertTrue(merged.getLowerBound(3) <= (30 * K));
+    assertTrue(merged.getUpperBound(3) >= (30 * K));
+
+    final TupleUnion<DoubleSummary> trim = new TupleUnion<>(K, setOps);
+    trim.union(merged);
+    assertSame(trim.getResult(), expected);
+  }
+
+  @Test
+  public void exactGroupsAreNotPromoted() {
+    final TupleSketchGroupBy<Long, Double, DoubleSummary> groupBy = new TupleSketchGroupBy<>(K, 2, factory);
+    for (long g = 0; g < 100_000; g++) {
+      groupBy.update(g, g, 1.0);
+      groupBy.update(g, g, 2.0);
+      groupBy.update(g, g + 1, 1.0);
+    }
+    assertEquals(groupBy.getNumGroups(), 100_000);
+    assertEquals(groupBy.getNumPromotedGroups(), 0);
+    final CompactTupleSketch<DoubleSummary> result = groupBy.getResult(5L);
+    assertEquals(result.getRetainedEntries(), 2);
+    assertEquals(result.getEstimate(), 2.0);
+    final List<Long> keys = groupBy.getKeys();
+    assertEquals(keys.size(), 100_000);
+    groupBy.update(5L, 100L, 1.0);
+    assertEquals(groupBy.getNumPromotedGroups(), 1);
+    assertEquals(groupBy.getEstimate(5L), 3.0);
+    assertEquals(toMap(groupBy.getResult(5L)).values().stream().mapToDouble(Double::doubleValue).sum(), 5.0);
+  }
+
+  @Test
+  public void checks() {
+    try {
+      new TupleSketchGroupBy<String, Double, DoubleSummary>(16, 16, factory);
+      fail();
+    } catch (final SketchesArgumentException e) { }
+    try {
+      new TupleSketchGroupBy<String, Double, DoubleSummary>(1024, 0, factory);
+      fail();
+    } catch (final SketchesArgumentException e) { }
+    try {
+      new TupleSketchGroupBy<String, Double, DoubleSummary>(1024, 128, factory);
+      fail();
+    } catch (final SketchesArgumentException e) { }
+    final TupleSketchGroupBy<String, Double, DoubleSummary> groupBy = new TupleSketchGroupBy<>(100, factory);
+    assertEquals(groupBy.getNominalEntries(), 128);
+    groupBy.update(null, 1L, 1.0);
+    groupBy.update("a", (String) null, 1.0);
+    groupBy.update("a", "", 1.0);
+    assertEquals(groupBy.getNumGroups(), 0);
+    groupBy.update("a", "x", 1.0);
+    assertEquals(groupBy.getNumGroups(), 1);
+    try {
+      groupBy.updateAll(new String[1], new long[1], new Double[1], 0, 2);
+      fail();
+    } catch (final IndexOutOfBoundsException e) { }
+  }
+}
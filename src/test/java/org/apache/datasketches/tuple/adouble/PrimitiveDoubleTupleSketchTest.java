@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.adouble;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.tuple.CompactTupleSketch;
+import org.apache.datasketches.tuple.TupleAnotB;
+import org.apache.datasketches.tuple.TupleIntersection;
+import org.apache.datasketches.tuple.TupleSketch;
+import org.apache.datasketches.tuple.TupleSketchIterator;
+import org.apache.datasketches.tuple.TupleUnion;
+import org.apache.datasketches.tuple.adouble.DoubleSummary.Mode;
+import org.testng.annotations.Test;
+
+public class PrimitiveDoubleTupleSketchTest {
+
+  private static void updateBoth(final PrimitiveDoubleTupleSketch primitive, final DoubleTupleSketch generic,
+      final int n, final int offset) {
+    for (int i = 0; i < n; i++) {
+      final long key = offset + (i % (n / 2 + 1)); //repeated keys
+      final double value = (i % 7) - 3.0;
+      primitive.update(key, value);
+      generic.update(key, value);
+    }
+  }
+
+  @Test
+  public void checkSameAsDoubleTupleSketch() {
+    for (final Mode mode : Mode.values()) {
+      for (final float p : new float[] { 1.0f, 0.5f }) {
+        for (final int n : new int[] { 0, 1, 10, 100_000 }) {
+          final PrimitiveDoubleTupleSketch primitive = new PrimitiveDoubleTupleSketch(10, 3, p, mode);
+          final DoubleTupleSketch generic = new DoubleTupleSketch(10, 3, p, mode);
+          updateBoth(primitive, generic, n, 0);
+          assertEquals(primitive.isEmpty(), generic.isEmpty());
+          assertEquals(primitive.getThetaLong(), generic.getThetaLong());
+          assertEquals(primitive.getRetainedEntries(), generic.getRetainedEntries());
+          assertEquals(primitive.getCurrentCapacity(), generic.getCurrentCapacity());
+          assertEquals(primitive.toByteArray(), generic.compact().toByteArray());
+          primitive.trim();
+          generic.trim();
+          assertEquals(primitive.compact().toByteArray(), generic.compact().toByteArray());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkKeyTypes() {
+    final PrimitiveDoubleTupleSketch primitive = new PrimitiveDoubleTupleSketch(12, Mode.Sum);
+    final DoubleTupleSketch generic = new DoubleTupleSketch(12, Mode.Sum);
+    primitive.update(1.5, 1.0);
+    generic.update(1.5, 1.0);
+    primitive.update("a", 2.0);
+    generic.update("a", 2.0);
+    primitive.update(new byte[] { 1, 2 }, 3.0);
+    generic.update(new byte[] { 1, 2 }, 3.0);
+    primitive.update(new int[] { 1, 2 }, 4.0);
+    generic.update(new int[] { 1, 2 }, 4.0);
+    primitive.update(new long[] { 1, 2 }, 5.0);
+    generic.update(new long[] { 1, 2 }, 5.0);
+    primitive.update((String) null, 1.0);
+    primitive.update("", 1.0);
+    primitive.update((long[]) null, 1.0);
+    assertEquals(primitive.getRetainedEntries(), 5);
+    assertEquals(primitive.toByteArray(), generic.compact().toByteArray());
+    assertEquals(primitive.getMode(), Mode.Sum);
+    assertTrue(primitive.toString().contains("Nominal Entries"));
+  }
+
+  @Test
+  public void checkIteratorAndHeapify() {
+    final PrimitiveDoubleTupleSketch sketch = new PrimitiveDoubleTupleSketch(12, Mode.Max);
+    for (int i = 0; i < 100; i++) {
+      sketch.update(i, i);
+      sketch.update(i, -i);
+    }
+    final TupleSketchIterator<DoubleSummary> it = sketch.iterator();
+    int count = 0;
+    double sum = 0;
+    while (it.next()) {
+      assertTrue(it.getHash() > 0);
+      sum += it.getSummary().getValue();
+      count++;
+    }
+    assertEquals(count, 100);
+    assertEquals(sum, 4950.0);
+    final TupleSketch<DoubleSummary> heapified =
+        TupleSketch.heapifySketch(MemorySegment.ofArray(sketch.toByteArray()), new DoubleSummaryDeserializer());
+    assertEquals(heapified.getRetainedEntries(), 100);
+  }
+
+  @Test
+  public void checkSetOperations() {
+    final DoubleSummarySetOperations setOps = new DoubleSummarySetOperations(Mode.Sum);
+    final PrimitiveDoubleTupleSketch primitiveA = new PrimitiveDoubleTupleSketch(10, Mode.Sum);
+    final DoubleTupleSketch genericA = new DoubleTupleSketch(10, Mode.Sum);
+    updateBoth(primitiveA, genericA, 20_000, 0);
+    final PrimitiveDoubleTupleSketch primitiveB = new PrimitiveDoubleTupleSketch(10, Mode.Sum);
+    final DoubleTupleSketch genericB = new DoubleTupleSketch(10, Mode.Sum);
+    updateBoth(primitiveB, genericB, 20_000, 5_000);
+
+    final TupleUnion<DoubleSummary> union = new TupleUnion<>(1 << 10, setOps);
+    assertEquals(union.union(primitiveA, primitiveB).toByteArray(), union.union(genericA, genericB).toByteArray());
+
+    final TupleIntersection<DoubleSummary> inter = new TupleIntersection<>(setOps);
+    assertEquals(inter.intersect(primitiveA, primitiveB).toByteArray(),
+        inter.intersect(genericA, genericB).toByteArray());
+
+    final CompactTupleSketch<DoubleSummary> aNotB = TupleAnotB.aNotB(primitiveA, primitiveB);
+    assertEquals(aNotB.toByteArray(), TupleAnotB.aNotB(genericA, genericB).toByteArray());
+    final TupleAnotB<DoubleSummary> anotb = new TupleAnotB<>();
+    anotb.setA(primitiveA);
+    anotb.notB(primitiveB);
+    assertEquals(anotb.getResult(true).getRetainedEntries(), aNotB.getRetainedEntries());
+  }
+
+  @Test
+  public void checkReset() {
+    final PrimitiveDoubleTupleSketch sketch = new PrimitiveDoubleTupleSketch(10, 3, 0.5f, Mode.Min);
+    for (int i = 0; i < 10_000; i++) { sketch.update(i, 1.0); }
+    assertTrue(sketch.isEstimationMode());
+    sketch.reset();
+    assertTrue(sketch.isEmpty());
+    assertFalse(sketch.isEstimationMode());
+    assertEquals(sketch.getRetainedEntries(), 0);
+    assertEquals(sketch.getSamplingProbability(), 0.5f);
+    assertEquals(sketch.getNominalEntries(), 1 << 10);
+    assertEquals(sketch.getLgK(), 10);
+    assertTrue(sketch.compact().isEmpty());
+  }
+
+}
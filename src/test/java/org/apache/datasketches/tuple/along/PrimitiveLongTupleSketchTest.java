@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.datasketches.tuple.along;
+
+import static org.testng.Assert.assertEquals;
+
+import java.lang.foreign.MemorySegment;
+
+import org.apache.datasketches.tuple.TupleAnotB;
+import org.apache.datasketches.tuple.TupleIntersection;
+import org.apache.datasketches.tuple.TupleSketch;
+import org.apache.datasketches.tuple.TupleSketchIterator;
+import org.apache.datasketches.tuple.TupleUnion;
+import org.apache.datasketches.tuple.along.LongSummary.Mode;
+import org.testng.annotations.Test;
+
+public class PrimitiveLongTupleSketchTest {
+
+  private static void updateBoth(final PrimitiveLongTupleSketch primitive, final LongTupleSketch generic,
+      final int n, final int offset) {
+    for (int i = 0; i < n; i++) {
+      final String key = Integer.toString(offset + (i % (n / 2 + 1))); //repeated keys
+      final long value = (i % 7) - 3;
+      primitive.update(key, value);
+      generic.update(key, value);
+    }
+  }
+
+  @Test
+  public void checkSameAsLongTupleSketch() {
+    for (final Mode mode : Mode.values()) {
+      for (final float p : new float[] { 1.0f, 0.5f }) {
+        for (final int n : new int[] { 0, 1, 10, 100_000 }) {
+          final PrimitiveLongTupleSketch primitive = new PrimitiveLongTupleSketch(10, 3, p, mode);
+          final LongTupleSketch generic = new LongTupleSketch(10, 3, p, mode);
+          updateBoth(primitive, generic, n, 0);
+          assertEquals(primitive.getThetaLong(), generic.getThetaLong());
+          assertEquals(primitive.getRetainedEntries(), generic.getRetainedEntries());
+          assertEquals(primitive.toByteArray(), generic.compact().toByteArray());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void checkSumBeyondIntRange() {
+    final PrimitiveLongTupleSketch sketch = new PrimitiveLongTupleSketch(12, Mode.Sum);
+    final long value = 3L * Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) { sketch.update(1L, value); }
+    final TupleSketch<LongSummary> heapified =
+        TupleSketch.heapifySketch(MemorySegment.ofArray(sketch.toByteArray()), new LongSummaryDeserializer());
+    final TupleSketchIterator<LongSummary> it = heapified.iterator();
+    it.next();
+    assertEquals(it.getSummary().getValue(), 4 * value);
+    assertEquals(sketch.getMode(), Mode.Sum);
+  }
+
+  @Test
+  public void checkSetOperations() {
+    final LongSummarySetOperations setOps = new LongSummarySetOperations(Mode.Max, Mode.Min);
+    final PrimitiveLongTupleSketch primitiveA = new PrimitiveLongTupleSketch(10, Mode.Max);
+    final LongTupleSketch genericA = new LongTupleSketch(10, Mode.Max);
+    updateBoth(primitiveA, genericA, 20_000, 0);
+    final PrimitiveLongTupleSketch primitiveB = new PrimitiveLongTupleSketch(10, Mode.Max);
+    final LongTupleSketch genericB = new LongTupleSketch(10, Mode.Max);
+    updateBoth(primitiveB, genericB, 20_000, 5_000);
+
+    final TupleUnion<LongSummary> union = new TupleUnion<>(1 << 10, setOps);
+    assertEquals(union.union(primitiveA, genericB).toByteArray(), union.union(genericA, genericB).toByteArray());
+    final TupleIntersection<LongSummary> inter = new TupleIntersection<>(setOps);
+    assertEquals(inter.intersect(genericA, primitiveB).toByteArray(),
+        inter.intersect(genericA, genericB).toByteArray());
+    assertEquals(TupleAnotB.aNotB(genericA, primitiveB).toByteArray(),
+        TupleAnotB.aNotB(genericA, genericB).toByteArray());
+  }
+
+}
@@ -21,8 +21,11 @@ package org.apache.datasketches.tuple.arrayofdoubles;
 
 import java.lang.foreign.MemorySegment;
 import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
 
 import org.apache.datasketches.common.SketchesArgumentException;
+import org.apache.datasketches.common.SketchesReadOnlyException;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -510,4 +513,79 @@ public class ArrayOfDoublesUnionTest {
     Assert.assertEquals(result.getNumValues(), expected.getNumValues());
   }
 
+  private static TreeMap<Long, List<Double>> toMap(final ArrayOfDoublesSketch sketch) {
+    final TreeMap<Long, List<Double>> map = new TreeMap<>();
+    final ArrayOfDoublesSketchIterator it = sketch.iterator();
+    while (it.next()) {
+      map.put(it.getKey(), Arrays.stream(it.getValues()).boxed().toList());
+    }
+    return map;
+  }
+
+  @Test
+  public void unionAllSameAsUnion() {
+    final int numValues = 32;
+    final ArrayOfDoublesUpdatableSketchBuilder bldr = new ArrayOfDoublesUpdatableSketchBuilder()
+        .setNumberOfValues(numValues);
+    final ArrayOfDoublesUpdatableSketch sketch1 = bldr.setNominalEntries(1024).build();
+    final ArrayOfDoublesUpdatableSketch sketch2 = bldr.setNominalEntries(4096).build();
+    final ArrayOfDoublesUpdatableSketch sketch3 = bldr.setNominalEntries(512).build();
+    final ArrayOfDoublesUpdatableSketch empty = bldr.build();
+    final double[] values = new double[numValues];
+    for (int i = 0; i < 20_000; i++) {
+      Arrays.fill(values, i % 5);
+      values[i % numValues] = -1.0;
+      sketch1.update(i, values);
+      sketch2.update(i + 10_000, values);
+      if (i < 300) { sketch3.update(i * 7, values); }
+    }
+    final List<ArrayOfDoublesSketch> sketches = Arrays.asList(sketch1,
+        sketch2.compact(MemorySegment.ofArray(new byte[sketch2.getMaxBytes()])), null, empty, sketch3.compact());
+
+    final ArrayOfDoublesSetOperationBuilder opBldr = new ArrayOfDoublesSetOperationBuilder()
+        .setNominalEntries(2048).setNumberOfValues(numValues);
+    final ArrayOfDoublesUnion expectedUnion = opBldr.buildUnion();
+    for (final ArrayOfDoublesSketch sketch : sketches) { expectedUnion.union(sketch); }
+    final ArrayOfDoublesCompactSketch expected = expectedUnion.getResult();
+
+    final ArrayOfDoublesUnion heapUnion = opBldr.buildUnion();
+    heapUnion.unionAll(sketches);
+    final ArrayOfDoublesUnion directUnion =
+        opBldr.buildUnion(MemorySegment.ofArray(new byte[ArrayOfDoublesUnion.getMaxBytes(2048, numValues)]));
+    directUnion.union(sketch1);
+    directUnion.unionAll(sketches.subList(1, sketches.size()));
+    for (final ArrayOfDoublesUnion union : new ArrayOfDoublesUnion[] { heapUnion, directUnion }) {
+      final ArrayOfDoublesCompactSketch result = union.getResult();
+      Assert.assertEquals(result.getThetaLong(), expected.getThetaLong());
+      Assert.assertEquals(result.getRetainedEntries(), expected.getRetainedEntries());
+      Assert.assertEquals(result.getEstimate(), expected.getEstimate());
+      Assert.assertEquals(toMap(result), toMap(expected));
+    }
+
+    final ArrayOfDoublesUnion emptyUnion = opBldr.buildUnion();
+    emptyUnion.unionAll(Arrays.asList(null, empty));
+    Assert.assertTrue(emptyUnion.getResult().isEmpty());
+  }
+
+  @Test
+  public void unionAllChecks() {
+    final ArrayOfDoublesUpdatableSketch sketch = new ArrayOfDoublesUpdatableSketchBuilder()
+        .setNumberOfValues(2).build();
+    sketch.update(1, new double[] {1.0, 2.0});
+    final ArrayOfDoublesUnion union = new ArrayOfDoublesSetOperationBuilder().buildUnion();
+    try {
+      union.unionAll(List.of(sketch));
+      Assert.fail();
+    } catch (final SketchesArgumentException e) {
+      // expected
+    }
+    final MemorySegment seg = MemorySegment.ofArray(union.toByteArray()).asReadOnly();
+    try {
+      ArrayOfDoublesUnion.wrap(seg).unionAll(List.of());
+      Assert.fail();
+    } catch (final SketchesReadOnlyException e) {
+      // expected
+    }
+  }
+
 }